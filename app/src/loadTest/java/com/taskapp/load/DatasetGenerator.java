@@ -0,0 +1,281 @@
+package com.taskapp.load;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+import com.taskapp.dataaccess.PasswordHasher;
+
+/**
+ * 規模を指定して、users.csv・tasks.csv・logs.csvを作成します。
+ * 同じシードと設定からは常に同じファイルを作成します。
+ * <ul>
+ * <li>担当者はZipf分布で選ぶため、一部のユーザーにタスクが集中します</li>
+ * <li>タスク名とユーザー名は日本語（マルチバイト文字）です</li>
+ * <li>ログは各タスクの「未着手 → 着手中 → 完了」の順の変更履歴で、日付順に並びます</li>
+ * </ul>
+ * ファイルは1行ずつ書き出し、メモリに保持するのは進行中のタスクの変更予定だけです。
+ * <pre>
+ * gradle generateDataset --args="--dir build/dataset --users 10000 --tasks 4000000 --logs 10000000"
+ * </pre>
+ */
+public class DatasetGenerator {
+    private static final String[] FAMILY_NAMES = { "佐藤", "鈴木", "高橋", "田中", "伊藤", "渡辺", "山本", "中村", "小林",
+            "加藤", "吉田", "山田", "佐々木", "山口", "松本", "井上" };
+    private static final String[] GIVEN_NAMES = { "一郎", "二郎", "花子", "太郎", "陽子", "健太", "美咲", "翔太", "直樹",
+            "由美", "大輔", "さくら", "拓也", "彩", "悠斗", "結衣" };
+    private static final String[] OBJECTS = { "資料", "会議", "設計書", "見積", "報告書", "議事録", "請求書", "仕様書", "発表",
+            "契約書", "予算", "テスト", "日報", "提案書" };
+    private static final String[] ACTIONS = { "作成", "確認", "修正", "提出", "準備", "送付", "レビュー", "整理", "承認" };
+
+    /** 変更予定の日付を数える基準の日（2000-01-01からの日数） */
+    private static final long EPOCH_OFFSET = LocalDate.of(2000, 1, 1).toEpochDay();
+
+    private final long seed;
+    private int users = 100;
+    private int tasks = 10000;
+    private long logs = 20000;
+    private int days = 365;
+    private LocalDate endDate = LocalDate.of(2024, 12, 31);
+    private double skew = 1.1;
+    private int hashIterations = 1000;
+
+    /**
+     * @param seed 乱数のシード
+     */
+    public DatasetGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public DatasetGenerator users(int users) {
+        this.users = users;
+        return this;
+    }
+
+    public DatasetGenerator tasks(int tasks) {
+        this.tasks = tasks;
+        return this;
+    }
+
+    /**
+     * ログの件数を指定します。タスクごとに1〜3件になるよう、タスク数の1〜3倍の範囲に丸めます。
+     * @param logs ログの件数
+     * @return このインスタンス
+     */
+    public DatasetGenerator logs(long logs) {
+        this.logs = logs;
+        return this;
+    }
+
+    /**
+     * タスクを登録する期間を指定します。
+     * @param days 期間の日数
+     * @param endDate 期間の最終日（これより後の日付のログは作成しません）
+     * @return このインスタンス
+     */
+    public DatasetGenerator period(int days, LocalDate endDate) {
+        this.days = days;
+        this.endDate = endDate;
+        return this;
+    }
+
+    /**
+     * 担当者の偏りを指定します。0で一様、大きいほど上位のユーザーに集中します。
+     * @param skew Zipf分布の指数
+     * @return このインスタンス
+     */
+    public DatasetGenerator skew(double skew) {
+        this.skew = skew;
+        return this;
+    }
+
+    /**
+     * パスワードのハッシュの反復回数を指定します。0の場合は平文のまま書き込みます。
+     * @param hashIterations 反復回数
+     * @return このインスタンス
+     */
+    public DatasetGenerator hashIterations(int hashIterations) {
+        this.hashIterations = hashIterations;
+        return this;
+    }
+
+    /**
+     * 作成した件数です。
+     * @param users ユーザー数
+     * @param tasks タスク数
+     * @param logs ログの件数
+     */
+    public record Summary(int users, int tasks, long logs) {
+    }
+
+    /**
+     * 指定したディレクトリにCSVを作成します。既存のファイルは上書きします。
+     * @param directory 出力先のディレクトリ
+     * @return 作成した件数
+     * @throws IOException 書き込めない場合
+     */
+    public Summary generate(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        writeUsers(directory.resolve("users.csv"));
+        long written = writeTasksAndLogs(directory.resolve("tasks.csv"), directory.resolve("logs.csv"));
+        return new Summary(users, tasks, written);
+    }
+
+    private void writeUsers(Path file) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        PasswordHasher hasher = hashIterations > 0 ? new PasswordHasher(hashIterations) : null;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("Code,Name,Email,Password");
+            writer.newLine();
+            for (int code = 1; code <= users; code++) {
+                String name = FAMILY_NAMES[random.nextInt(FAMILY_NAMES.length)]
+                        + GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)];
+                String password = password(code);
+                writer.write(code + "," + name + "," + email(code) + ","
+                        + (hasher == null ? password : hasher.hash(password)));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * タスクを登録順に1件ずつ作り、tasks.csvには最終的なステータスを、logs.csvには変更履歴を書き出します。
+     * ステータスの変更は登録より後の日付になるため、変更予定をキューに入れ、日付が来たものから書き出します。
+     */
+    private long writeTasksAndLogs(Path tasksFile, Path logsFile) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed ^ 0x5DEECE66DL);
+        double[] assigneeWeights = cumulativeZipf(users, skew);
+        PriorityQueue<long[]> pending = new PriorityQueue<>((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0])
+                : Long.compare(a[1], b[1]));
+        long lastDay = endDate.toEpochDay() - EPOCH_OFFSET;
+        long firstDay = lastDay - days + 1;
+
+        // 登録のログ以外に必要な変更の件数（1タスクあたり0〜2件）
+        long remainingChanges = Math.max(0, Math.min(logs - tasks, 2L * tasks));
+        long written = 0;
+        long sequence = 0;
+        try (BufferedWriter taskWriter = Files.newBufferedWriter(tasksFile, StandardCharsets.UTF_8);
+                BufferedWriter logWriter = Files.newBufferedWriter(logsFile, StandardCharsets.UTF_8)) {
+            taskWriter.write("コード,タスク名,ステータス,担当者コード");
+            taskWriter.newLine();
+            logWriter.write("Task_Code,Change_User_Code,Status,Change_Date");
+            logWriter.newLine();
+
+            for (int code = 1; code <= tasks; code++) {
+                long day = firstDay + (long) (code - 1) * days / tasks;
+                written += flushUntil(pending, day, logWriter);
+
+                int repUserCode = pick(assigneeWeights, random.nextDouble());
+                int createUserCode = 1 + random.nextInt(users);
+                // 残りの変更件数を残りのタスクで割った平均になるよう、2回の試行で変更件数を決める
+                double probability = Math.min(1.0, (double) remainingChanges / (tasks - code + 1) / 2);
+                int changes = (random.nextDouble() < probability ? 1 : 0) + (random.nextDouble() < probability ? 1 : 0);
+                changes = (int) Math.min(changes, remainingChanges);
+                remainingChanges -= changes;
+
+                writeLog(logWriter, code, createUserCode, 0, day);
+                written++;
+                long changeDay = day;
+                for (int status = 1; status <= changes; status++) {
+                    changeDay = Math.min(lastDay, changeDay + 1 + random.nextInt(14));
+                    pending.add(new long[] { changeDay, sequence++, code, repUserCode, status });
+                }
+
+                taskWriter.write(code + "," + taskName(random) + "," + changes + "," + repUserCode);
+                taskWriter.newLine();
+            }
+            written += flushUntil(pending, Long.MAX_VALUE, logWriter);
+        }
+        return written;
+    }
+
+    /**
+     * 指定した日より前の変更予定を書き出します。同じ日の変更は、その日の登録の後に書き出します。
+     */
+    private static int flushUntil(PriorityQueue<long[]> pending, long day, BufferedWriter writer) throws IOException {
+        int count = 0;
+        while (!pending.isEmpty() && pending.peek()[0] < day) {
+            long[] change = pending.poll();
+            writeLog(writer, (int) change[2], (int) change[3], (int) change[4], change[0]);
+            count++;
+        }
+        return count;
+    }
+
+    private static void writeLog(BufferedWriter writer, int taskCode, int userCode, int status, long day)
+            throws IOException {
+        writer.write(taskCode + "," + userCode + "," + status + "," + LocalDate.ofEpochDay(day + EPOCH_OFFSET));
+        writer.newLine();
+    }
+
+    private static String taskName(SplittableRandom random) {
+        return OBJECTS[random.nextInt(OBJECTS.length)] + ACTIONS[random.nextInt(ACTIONS.length)];
+    }
+
+    /**
+     * 順位kの重みを1/k^sとしたZipf分布の累積分布を作成します。
+     */
+    private static double[] cumulativeZipf(int size, double exponent) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 1; rank <= size; rank++) {
+            sum += 1.0 / Math.pow(rank, exponent);
+            cumulative[rank - 1] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    /**
+     * 累積分布から、乱数に対応するユーザーコードを二分探索で求めます。
+     */
+    private static int pick(double[] cumulative, double value) {
+        int index = Arrays.binarySearch(cumulative, value);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return Math.min(index, cumulative.length - 1) + 1;
+    }
+
+    static String email(int userCode) {
+        return "user" + userCode + "@example.com";
+    }
+
+    static String password(int userCode) {
+        return "password" + userCode;
+    }
+
+    /**
+     * 指定したディレクトリにデータを作成します。
+     * @param args --dir 出力先、--seed、--users、--tasks、--logs、--days、--end-date、--skew、--hash-iterations
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        DatasetGenerator generator = new DatasetGenerator(Long.parseLong(options.getOrDefault("seed", "1")))
+                .users(Integer.parseInt(options.getOrDefault("users", "100")))
+                .tasks(Integer.parseInt(options.getOrDefault("tasks", "10000")))
+                .logs(Long.parseLong(options.getOrDefault("logs", "20000")))
+                .period(Integer.parseInt(options.getOrDefault("days", "365")),
+                        LocalDate.parse(options.getOrDefault("end-date", "2024-12-31")))
+                .skew(Double.parseDouble(options.getOrDefault("skew", "1.1")))
+                .hashIterations(Integer.parseInt(options.getOrDefault("hash-iterations", "1000")));
+        long started = System.nanoTime();
+        Summary summary = generator.generate(Paths.get(options.getOrDefault("dir", "build/dataset")));
+        System.out.println(String.format("ユーザー%,d人、タスク%,d件、ログ%,d件を作成しました。（%,dミリ秒）",
+                summary.users(), summary.tasks(), summary.logs(), (System.nanoTime() - started) / 1_000_000));
+    }
+}
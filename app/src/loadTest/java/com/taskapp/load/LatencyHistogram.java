@@ -0,0 +1,83 @@
+package com.taskapp.load;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 応答時間の分布を、固定数のバケットで記録します。
+ * バケットは3%刻みの対数目盛のため、長時間の計測でもメモリは増えません。
+ * 複数のスレッドから同時に記録できます。
+ */
+public class LatencyHistogram {
+    private static final double BASE = Math.log(1.03);
+
+    /** 1マイクロ秒から約1時間までを表せるバケット数 */
+    private static final int BUCKETS = 800;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder total = new LongAdder();
+
+    private final LongAdder sumMicros = new LongAdder();
+
+    private volatile long maxMicros;
+
+    /**
+     * 応答時間を1件記録します。
+     * @param nanos 応答時間（ナノ秒）
+     */
+    public void record(long nanos) {
+        long micros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos));
+        counts.incrementAndGet(bucketOf(micros));
+        total.increment();
+        sumMicros.add(micros);
+        if (micros > maxMicros) {
+            synchronized (this) {
+                maxMicros = Math.max(maxMicros, micros);
+            }
+        }
+    }
+
+    public long count() {
+        return total.sum();
+    }
+
+    public long maxMicros() {
+        return maxMicros;
+    }
+
+    public double meanMicros() {
+        long count = count();
+        return count == 0 ? 0 : (double) sumMicros.sum() / count;
+    }
+
+    /**
+     * 指定した割合の位置の応答時間を求めます。
+     * @param percentile 0から100までの割合
+     * @return 応答時間（マイクロ秒、バケットの上限）
+     */
+    public long percentileMicros(double percentile) {
+        long count = count();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), maxMicros);
+            }
+        }
+        return maxMicros;
+    }
+
+    private static int bucketOf(long micros) {
+        return Math.min(BUCKETS - 1, (int) (Math.log(micros) / BASE));
+    }
+
+    private static long upperBoundOf(int bucket) {
+        return (long) Math.ceil(Math.exp((bucket + 1) * BASE));
+    }
+}
@@ -0,0 +1,294 @@
+package com.taskapp.load;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.taskapp.dataaccess.AsyncLogDataAccess;
+import com.taskapp.dataaccess.CsvToJdbcMigrator;
+import com.taskapp.dataaccess.DataAccessFactory;
+import com.taskapp.dataaccess.JdbcDatabase;
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.SnapshotDataAccess;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.TaskRepository;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.exception.AppException;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.logic.UserLogic;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * 複数の仮想ユーザーが同時に「ログイン → 一覧 → 登録 → ステータス変更」を繰り返す負荷試験です。
+ * 生成したデータディレクトリに対して{@link UserLogic}と{@link TaskLogic}を直接呼び出し、
+ * スループット、操作ごとの応答時間の分布、失われた更新の件数を表示します。
+ * 長時間の実行（ソーク試験）では、一定間隔でヒープ使用量・開いているファイル数・スレッド数も表示します。
+ * <pre>
+ * gradle loadTest --args="--users 100 --duration 60"
+ * gradle loadTest --args="--users 20 --duration 3600 --report-interval 60"
+ * </pre>
+ */
+public class LoadTestHarness {
+    private static final String[] OPERATIONS = { "login", "list", "create", "changeStatus" };
+
+    private final Map<String, String> options;
+
+    private final int users;
+    private final long durationNanos;
+    private final int iterations;
+    private final int initialTasks;
+    private final long thinkMillis;
+    private final long reportIntervalNanos;
+
+    private final Map<String, LatencyHistogram> latencies = new HashMap<>();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicInteger nextTaskCode = new AtomicInteger();
+
+    /** 登録に成功したタスクと、期待するステータス */
+    private final Map<Integer, Integer> expectedStatuses = new ConcurrentHashMap<>();
+    private final LongAdder expectedLogs = new LongAdder();
+    private long initialLogs;
+
+    private final PrintStream report;
+
+    public LoadTestHarness(Map<String, String> options, PrintStream report) {
+        this.options = options;
+        this.users = Integer.parseInt(options.getOrDefault("users", "50"));
+        this.durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration", "30")));
+        this.iterations = Integer.parseInt(options.getOrDefault("iterations", "0"));
+        this.initialTasks = Integer.parseInt(options.getOrDefault("tasks", "1000"));
+        this.thinkMillis = Long.parseLong(options.getOrDefault("think-millis", "0"));
+        this.reportIntervalNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("report-interval", "10")));
+        this.report = report;
+        for (String operation : OPERATIONS) {
+            latencies.put(operation, new LatencyHistogram());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("unknown argument: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        int lost = new LoadTestHarness(options, System.out).run();
+        System.exit(lost == 0 ? 0 : 1);
+    }
+
+    /**
+     * 負荷試験を実行して結果を表示します。
+     * @return 失われた更新の件数
+     * @throws IOException データディレクトリを作成できない場合
+     * @throws InterruptedException 待機中に割り込まれた場合
+     */
+    public int run() throws IOException, InterruptedException {
+        Path dataDirectory = options.containsKey("data-dir") ? Paths.get(options.get("data-dir"))
+                : Files.createTempDirectory("taskapp-load");
+        DataAccessFactory.Engine engine = DataAccessFactory.Engine.valueOf(
+                options.getOrDefault("storage", "csv").toUpperCase());
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        // 登録済みのタスクとその変更履歴を作成する。パスワードのハッシュは作成を速くするため反復回数を少なくする
+        DatasetGenerator.Summary dataset = new DatasetGenerator(seed).users(users).tasks(initialTasks)
+                .logs(2L * initialTasks)
+                .hashIterations(Integer.parseInt(options.getOrDefault("hash-iterations", "1000")))
+                .generate(dataDirectory);
+        initialLogs = dataset.logs();
+        // 登録するタスクのコードは作成済みのタスクの後ろから振る
+        nextTaskCode.set(initialTasks);
+        report.println("データディレクトリ：" + dataDirectory + "（" + engine + "、ユーザー" + users + "人、タスク"
+                + initialTasks + "件）");
+
+        String jdbcUrl = "jdbc:h2:" + dataDirectory.toAbsolutePath() + "/taskapp";
+        if (engine == DataAccessFactory.Engine.JDBC) {
+            try (JdbcDatabase database = new JdbcDatabase(jdbcUrl)) {
+                new CsvToJdbcMigrator(dataDirectory.toString(), database).migrate();
+            } catch (SQLException e) {
+                throw new IOException(e);
+            }
+        }
+        DataAccessFactory factory = new DataAccessFactory(engine, dataDirectory.toString(), jdbcUrl, false);
+        AsyncLogDataAccess logDataAccess = AsyncLogDataAccess.start(factory.getLogRepository(), 1024,
+                AsyncLogDataAccess.Backpressure.BLOCK);
+        if (engine == DataAccessFactory.Engine.CSV) {
+            new SnapshotDataAccess(dataDirectory + "/snapshot.bin").restore(
+                    (TaskDataAccess) factory.getTaskRepository(), (UserDataAccess) factory.getUserRepository(),
+                    logDataAccess);
+        }
+        UserLogic userLogic = new UserLogic(factory.getUserRepository());
+        TaskLogic taskLogic = new TaskLogic(factory.getTaskRepository(), logDataAccess, factory.getUserRepository(),
+                factory.createTaskChangeWriter(logDataAccess));
+
+        // ロジック層が表示するメッセージは捨てる
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8));
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 1; i <= users; i++) {
+                int userCode = i;
+                executor.submit(() -> virtualUser(userLogic, taskLogic, userCode, started + durationNanos));
+            }
+            executor.shutdown();
+            long nextReport = started + reportIntervalNanos;
+            while (!executor.awaitTermination(100, TimeUnit.MILLISECONDS)) {
+                if (System.nanoTime() >= nextReport) {
+                    printProgress(started);
+                    nextReport += reportIntervalNanos;
+                }
+            }
+        } finally {
+            System.setOut(originalOut);
+        }
+        long elapsed = System.nanoTime() - started;
+
+        logDataAccess.close();
+        int lost = countLostUpdates(engine, dataDirectory, factory.getTaskRepository());
+        int actualLogs = countLogs(engine, dataDirectory, logDataAccess);
+        factory.close();
+
+        printSummary(elapsed, lost, actualLogs);
+        return lost + (int) Math.abs(initialLogs + expectedLogs.sum() - actualLogs);
+    }
+
+    private void virtualUser(UserLogic userLogic, TaskLogic taskLogic, int userCode, long deadline) {
+        Random random = new Random(userCode);
+        for (int i = 0; iterations > 0 ? i < iterations : System.nanoTime() < deadline; i++) {
+            try {
+                User user = measure("login", () -> userLogic.login(DatasetGenerator.email(userCode), DatasetGenerator.password(userCode)));
+                measure("list", () -> {
+                    taskLogic.showAll(user);
+                    return null;
+                });
+
+                int code = nextTaskCode.incrementAndGet();
+                int repUserCode = 1 + random.nextInt(users);
+                measure("create", () -> {
+                    taskLogic.save(code, "負荷" + (code % 100000), repUserCode, user);
+                    return null;
+                });
+                expectedStatuses.put(code, 0);
+                expectedLogs.increment();
+
+                measure("changeStatus", () -> {
+                    taskLogic.changeStatus(code, 1, user);
+                    return null;
+                });
+                expectedStatuses.put(code, 1);
+                expectedLogs.increment();
+
+                if (thinkMillis > 0) {
+                    Thread.sleep(thinkMillis);
+                }
+            } catch (AppException | RuntimeException e) {
+                errors.increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operation<T> {
+        T run() throws AppException;
+    }
+
+    private <T> T measure(String name, Operation<T> operation) throws AppException {
+        long start = System.nanoTime();
+        try {
+            return operation.run();
+        } finally {
+            latencies.get(name).record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 登録に成功したタスクのうち、保存先に残っていないものや、ステータスが期待と異なるものを数えます。
+     * CSVの場合はメモリ上のテーブルではなく、ファイルを読み直して確かめます。
+     */
+    private int countLostUpdates(DataAccessFactory.Engine engine, Path dataDirectory, TaskRepository repository) {
+        if (engine == DataAccessFactory.Engine.CSV) {
+            UserDataAccess userDataAccess = new UserDataAccess(dataDirectory + "/users.csv");
+            repository = new TaskDataAccess(dataDirectory + "/tasks.csv", userDataAccess);
+        }
+        Map<Integer, Integer> actual = new HashMap<>();
+        for (Task task : repository.findAll()) {
+            actual.put(task.getCode(), task.getStatus());
+        }
+        int lost = 0;
+        for (Map.Entry<Integer, Integer> entry : expectedStatuses.entrySet()) {
+            if (!entry.getValue().equals(actual.get(entry.getKey()))) {
+                lost++;
+            }
+        }
+        return lost;
+    }
+
+    private int countLogs(DataAccessFactory.Engine engine, Path dataDirectory, AsyncLogDataAccess logDataAccess) {
+        if (engine == DataAccessFactory.Engine.CSV || engine == DataAccessFactory.Engine.OFFHEAP) {
+            return new LogDataAccess(dataDirectory + "/logs.csv").findAll().size();
+        }
+        return logDataAccess.findAll().size();
+    }
+
+    private void printProgress(long started) {
+        long operations = 0;
+        for (LatencyHistogram histogram : latencies.values()) {
+            operations += histogram.count();
+        }
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapMegabytes = memory.getHeapMemoryUsage().getUsed() / (1024 * 1024);
+        report.println(String.format("[%5d秒] 操作 %,d件（%,d件/秒）、エラー %d件、ヒープ %dMB、開いているファイル %s、スレッド %d",
+                seconds, operations, operations / seconds, errors.sum(), heapMegabytes, openFileDescriptors(),
+                ManagementFactory.getThreadMXBean().getThreadCount()));
+    }
+
+    private void printSummary(long elapsedNanos, int lost, int actualLogs) {
+        double seconds = elapsedNanos / 1e9;
+        long operations = 0;
+        report.println();
+        report.println(String.format("%-14s %10s %10s %10s %10s %10s %10s %10s",
+                "操作", "件数", "件/秒", "平均(ms)", "p50(ms)", "p90(ms)", "p99(ms)", "最大(ms)"));
+        for (String name : OPERATIONS) {
+            LatencyHistogram histogram = latencies.get(name);
+            operations += histogram.count();
+            report.println(String.format("%-14s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %10.2f",
+                    name, histogram.count(), histogram.count() / seconds, histogram.meanMicros() / 1000.0,
+                    histogram.percentileMicros(50) / 1000.0, histogram.percentileMicros(90) / 1000.0,
+                    histogram.percentileMicros(99) / 1000.0, histogram.maxMicros() / 1000.0));
+        }
+        report.println();
+        report.println(String.format("合計 %,d件（%.1f件/秒、%.1f秒）、エラー %d件", operations, operations / seconds,
+                seconds, errors.sum()));
+        report.println("失われたタスクの更新：" + lost + "件");
+        report.println("ログ：期待 " + (initialLogs + expectedLogs.sum()) + "件、実際 " + actualLogs + "件");
+    }
+
+    private static String openFileDescriptors() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.UnixOperatingSystemMXBean) {
+            return String.valueOf(((com.sun.management.UnixOperatingSystemMXBean) os).getOpenFileDescriptorCount());
+        }
+        return "-";
+    }
+}
@@ -1,11 +1,206 @@
 package com.taskapp;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.taskapp.dataaccess.AsyncLogDataAccess;
+import com.taskapp.dataaccess.CsvFileWatcher;
+import com.taskapp.dataaccess.DataAccessFactory;
+import com.taskapp.dataaccess.SnapshotDataAccess;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.TaskRepository;
+import com.taskapp.dataaccess.TenantStorePool;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.dataaccess.WriteBehindTaskDataAccess;
+import com.taskapp.logic.SessionManager;
+import com.taskapp.logic.TaskEventPublisher;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.logic.TaskStatusCounter;
+import com.taskapp.logic.UserLogic;
+import com.taskapp.ui.BatchRunner;
 import com.taskapp.ui.TaskUI;
 
 public class App {
 
+    /**
+     * スナップショットを定期的に書き込む間隔（秒）を指定するシステムプロパティ。0以下の場合はログアウト時のみ書き込む
+     */
+    private static final String SNAPSHOT_INTERVAL_PROPERTY = "taskapp.snapshot.interval";
+
+    /** ログの書き込みキューの容量を指定するシステムプロパティ */
+    private static final String LOG_QUEUE_CAPACITY_PROPERTY = "taskapp.log.queueCapacity";
+
+    /** ログの書き込みキューが満杯のときの振る舞い（BLOCK または DROP）を指定するシステムプロパティ */
+    private static final String LOG_BACKPRESSURE_PROPERTY = "taskapp.log.backpressure";
+
+    /**
+     * タスクの更新を溜めてからCSVに書き込むまでの時間（ミリ秒）を指定するシステムプロパティ。
+     * 0以下の場合は更新のたびに書き込む
+     */
+    private static final String TASK_WRITE_BEHIND_PROPERTY = "taskapp.tasks.writeBehindMillis";
+
+    /** スクリプトを対話なしで実行するときの引数（続けてスクリプトのパス、省略時は標準入力） */
+    private static final String BATCH_OPTION = "--batch";
+
     public static void main(String[] args) {
-        TaskUI ui = new TaskUI();
-        ui.displayMenu();
+        if (args.length > 0 && args[0].equals(BATCH_OPTION)
+                && System.getProperty(TenantStorePool.TENANTS_DIR_PROPERTY) != null) {
+            runTenantBatch(args.length > 1 ? args[1] : "-");
+            return;
+        }
+
+        DataAccessFactory factory = DataAccessFactory.fromSystemProperties();
+        AsyncLogDataAccess logDataAccess = AsyncLogDataAccess.start(factory.getLogRepository(),
+                Integer.getInteger(LOG_QUEUE_CAPACITY_PROPERTY, 1024),
+                AsyncLogDataAccess.Backpressure.valueOf(System.getProperty(LOG_BACKPRESSURE_PROPERTY, "BLOCK")));
+        // 異常終了時もキューに残ったログを書き込む
+        Runtime.getRuntime().addShutdownHook(new Thread(logDataAccess::close));
+
+        // スナップショットはCSVのテーブルをメモリ上に準備するときだけ利用する
+        SnapshotDataAccess snapshotDataAccess = new SnapshotDataAccess(
+                System.getProperty(DataAccessFactory.DATA_DIR_PROPERTY, DataAccessFactory.DEFAULT_DATA_DIR) + "/snapshot.bin");
+        TaskDataAccess taskDataAccess = null;
+        UserDataAccess userDataAccess = null;
+        if (factory.getEngine() == DataAccessFactory.Engine.CSV) {
+            taskDataAccess = factory.getCsvTaskDataAccess();
+            userDataAccess = (UserDataAccess) factory.getUserRepository();
+            // スナップショットとそれ以降のログからメモリ上のテーブルを準備する
+            snapshotDataAccess.restore(taskDataAccess, userDataAccess, logDataAccess);
+        }
+
+        // 手作業で編集されたCSVをメモリ上のテーブルに反映する
+        CsvFileWatcher csvFileWatcher = null;
+        if (taskDataAccess != null && Boolean.parseBoolean(System.getProperty(CsvFileWatcher.WATCH_PROPERTY, "true"))) {
+            try {
+                csvFileWatcher = new CsvFileWatcher(taskDataAccess, userDataAccess,
+                        Duration.ofMillis(Long.getLong(CsvFileWatcher.DEBOUNCE_PROPERTY, 200)));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        // 同じタスクのステータスを続けて変更しても、CSVの書き換えを1回にまとめる
+        // ジャーナルを使う場合は、ジャーナルがコミットした変更をチェックポイントでまとめて書き込むため、ここでは溜めない
+        TaskRepository taskRepository = factory.getTaskRepository();
+        WriteBehindTaskDataAccess writeBehindTaskDataAccess = null;
+        long writeBehindMillis = Long.getLong(TASK_WRITE_BEHIND_PROPERTY, 200);
+        if (taskDataAccess != null && !factory.usesJournal() && writeBehindMillis > 0) {
+            writeBehindTaskDataAccess = new WriteBehindTaskDataAccess(taskRepository,
+                    Duration.ofMillis(writeBehindMillis));
+            taskRepository = writeBehindTaskDataAccess;
+            // 異常終了時も溜めた更新を書き込む
+            Runtime.getRuntime().addShutdownHook(new Thread(writeBehindTaskDataAccess::close));
+        }
+
+        ScheduledExecutorService scheduler = null;
+        long interval = Long.getLong(SNAPSHOT_INTERVAL_PROPERTY, 0);
+        if (taskDataAccess != null && interval > 0) {
+            TaskDataAccess tasks = taskDataAccess;
+            UserDataAccess users = userDataAccess;
+            WriteBehindTaskDataAccess pendingTasks = writeBehindTaskDataAccess;
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "snapshot-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(() -> {
+                if (pendingTasks != null) {
+                    pendingTasks.flush();
+                }
+                // スナップショットはtasks.csvから作るため、ジャーナルの変更を先に反映する
+                try {
+                    factory.checkpoint();
+                } catch (UncheckedIOException e) {
+                    e.printStackTrace();
+                    return;
+                }
+                snapshotDataAccess.save(tasks, users);
+            }, interval, interval, TimeUnit.SECONDS);
+        }
+
+        // タスクの変更は購読者に通知する
+        TaskEventPublisher taskEventPublisher = new TaskEventPublisher();
+
+        // ログインしたユーザーはセッションで保持し、画面やスクリプトの操作のたびにトークンから取得する
+        SessionManager sessionManager = new SessionManager();
+        UserLogic userLogic = new UserLogic(factory.getUserRepository(), sessionManager);
+        TaskLogic taskLogic = new TaskLogic(taskRepository, logDataAccess, factory.getUserRepository(),
+                factory.createTaskChangeWriter(taskRepository, logDataAccess), taskEventPublisher);
+        int exitCode = 0;
+        if (args.length > 0 && args[0].equals(BATCH_OPTION)) {
+            // 起動済みのデータアクセス層に対してスクリプトを実行する
+            String script = args.length > 1 ? args[1] : "-";
+            try (BufferedReader reader = openScript(script)) {
+                exitCode = new BatchRunner(reader, userLogic, taskLogic).run() == 0 ? 0 : 1;
+            } catch (IOException e) {
+                e.printStackTrace();
+                exitCode = 2;
+            }
+        } else {
+            // メニューに表示するタスク数は、起動時に1回数えた後は通知から更新する
+            TaskStatusCounter taskStatusCounter = new TaskStatusCounter(taskLogic.countByStatus());
+            taskEventPublisher.subscribe(taskStatusCounter);
+            TaskUI ui = new TaskUI(new BufferedReader(new InputStreamReader(System.in)), userLogic, taskLogic,
+                    taskStatusCounter);
+            ui.displayMenu();
+        }
+
+        // ログアウト時にスナップショットを書き込む
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        taskEventPublisher.close();
+        if (csvFileWatcher != null) {
+            csvFileWatcher.close();
+        }
+        if (writeBehindTaskDataAccess != null) {
+            writeBehindTaskDataAccess.close();
+        }
+        logDataAccess.close();
+        if (taskDataAccess != null) {
+            try {
+                factory.checkpoint();
+            } catch (UncheckedIOException e) {
+                e.printStackTrace();
+            }
+            snapshotDataAccess.save(taskDataAccess, userDataAccess);
+        }
+        factory.close();
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+
+    /**
+     * テナントごとのデータディレクトリに対してスクリプトを実行します。
+     * 開いたテナントはスクリプトの実行中は使い回し、終了時にまとめて閉じます。
+     */
+    private static void runTenantBatch(String script) {
+        int exitCode;
+        try (TenantStorePool pool = TenantStorePool.fromSystemProperties();
+                BufferedReader reader = openScript(script)) {
+            exitCode = new BatchRunner(reader, pool).run() == 0 ? 0 : 1;
+        } catch (IOException e) {
+            e.printStackTrace();
+            exitCode = 2;
+        }
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+
+    private static BufferedReader openScript(String script) throws IOException {
+        return script.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8);
     }
 }
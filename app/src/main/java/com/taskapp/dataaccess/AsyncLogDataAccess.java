@@ -0,0 +1,269 @@
+package com.taskapp.dataaccess;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.taskapp.model.Log;
+
+/**
+ * ログの保存をバックグラウンドの書き込みスレッドに任せるログリポジトリです。
+ * {@link #save(Log)}はリングバッファに積むだけで戻り、書き込みスレッドがまとめて保存先のリポジトリに書き込みます。
+ * 読み出し系のメソッドは、それまでに積まれたログを書き終えてから実行します。
+ * 書き込みスレッドは{@link #start(LogRepository, int, Backpressure)}で開始します。
+ * 保存先への書き込みが失敗しても書き込みスレッドは止まらず、失敗したログの件数を{@link #getFailedCount()}で返します。
+ * 終了を始めた後のログは、書き込みスレッドがキューを書き終えるのを待ってから、呼び出し元のスレッドで同期的に書き込みます。
+ * 先に積まれたログより前に書き込まれることはありません。
+ */
+public class AsyncLogDataAccess implements LogRepository, AutoCloseable {
+    /** 一度に書き込むログの最大件数 */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * キューが満杯のときの振る舞いです。
+     */
+    public enum Backpressure {
+        /** 空きができるまで呼び出し元を待たせる */
+        BLOCK,
+        /** ログを破棄して呼び出し元をすぐに戻す */
+        DROP
+    }
+
+    private final LogRepository delegate;
+
+    private final MpscRingBuffer<Log> queue;
+
+    private final Backpressure backpressure;
+
+    private final Thread writer;
+
+    private final AtomicLong enqueued = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    /** 書き込み（失敗も含む）を終えたキューのログの件数。書き込みスレッドと呼び出し元のスレッドの両方が加算する */
+    private final AtomicLong written = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    private AsyncLogDataAccess(LogRepository delegate, int capacity, Backpressure backpressure) {
+        this.delegate = delegate;
+        this.queue = new MpscRingBuffer<>(capacity);
+        this.backpressure = backpressure;
+        this.writer = new Thread(this::drainLoop, "log-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * 書き込みスレッドを開始したログリポジトリを作成します。
+     * 書き込みスレッドは、構築が終わったインスタンスに対して開始します。
+     *
+     * @param delegate 実際にログを書き込むリポジトリ
+     * @param capacity キューの容量
+     * @param backpressure キューが満杯のときの振る舞い
+     * @return 作成したログリポジトリ
+     */
+    public static AsyncLogDataAccess start(LogRepository delegate, int capacity, Backpressure backpressure) {
+        AsyncLogDataAccess logDataAccess = new AsyncLogDataAccess(delegate, capacity, backpressure);
+        logDataAccess.writer.start();
+        return logDataAccess;
+    }
+
+    /**
+     * ログを書き込みキューに積みます。
+     * キューが満杯の場合は{@link Backpressure}に従って待つか破棄します。
+     *
+     * @param log 保存するログ
+     */
+    @Override
+    public void save(Log log) {
+        if (!running || !writer.isAlive()) {
+            // 終了後、または書き込みスレッドが止まった後に届いたログは同期的に書き込む
+            writeDirectly(log);
+            return;
+        }
+        while (!queue.offer(log)) {
+            if (backpressure == Backpressure.DROP) {
+                dropped.incrementAndGet();
+                return;
+            }
+            if (!running || !writer.isAlive()) {
+                writeDirectly(log);
+                return;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+        enqueued.incrementAndGet();
+        LockSupport.unpark(writer);
+        if (!running || !writer.isAlive()) {
+            // 終了フラグを読んでから積むまでの間にclose()がキューを取り出し終えていれば、自分で書き込む
+            drainRemaining();
+        }
+    }
+
+    @Override
+    public void saveAll(List<Log> logs) {
+        for (Log log : logs) {
+            save(log);
+        }
+    }
+
+    @Override
+    public List<Log> findAll() {
+        flush();
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Log> findByTaskCode(int taskCode) {
+        flush();
+        return delegate.findByTaskCode(taskCode);
+    }
+
+    @Override
+    public List<Log> findSince(LocalDate from) {
+        flush();
+        return delegate.findSince(from);
+    }
+
+    /**
+     * 呼び出し時点までに積まれたログがすべて書き込まれるまで待ちます。
+     */
+    public void flush() {
+        long target = enqueued.get();
+        while (written.get() < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        if (written.get() < target) {
+            // 書き込みスレッドが止まっていれば、残りを呼び出し元のスレッドで書き込む
+            drainRemaining();
+        }
+    }
+
+    /**
+     * 破棄されたログの件数を取得します。
+     * @return 破棄されたログの件数
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * 保存先への書き込みに失敗したログの件数を取得します。
+     * @return 書き込みに失敗したログの件数
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * 新しいログの受け付けを止め、キューに残ったログをすべて書き込んでから書き込みスレッドを終了します。
+     * 以降に保存されたログは同期的に書き込みます。
+     */
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        awaitWriter();
+
+        // 書き込みスレッドの終了と入れ違いに積まれたログを書き込む
+        drainRemaining();
+    }
+
+    /**
+     * 書き込みスレッドがキューを書き終えて終了するまで待ちます。
+     * キューを取り出すスレッドを1つに保つため、割り込まれても終了を待ちます。
+     */
+    private void awaitWriter() {
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 書き込みスレッドが終了した後に、キューに残ったログを呼び出し元のスレッドで書き込みます。
+     * close()と同じロックで取り出すため、close()の取り出しの後に積まれたログも書き漏らしません。
+     */
+    private synchronized void drainRemaining() {
+        if (writer.isAlive()) {
+            // 書き込みスレッドが動いている間は、書き込みスレッドが取り出す
+            return;
+        }
+        List<Log> rest = new ArrayList<>();
+        queue.drainTo(rest, Integer.MAX_VALUE);
+        write(rest);
+    }
+
+    /**
+     * キューに残ったログに続けて、ログを同期的に書き込みます。
+     * 書き込みスレッドがまだキューを書いている場合は、終了を待ってから書き込み、積まれた順序を保ちます。
+     */
+    private void writeDirectly(Log log) {
+        awaitWriter();
+        synchronized (this) {
+            List<Log> rest = new ArrayList<>();
+            queue.drainTo(rest, Integer.MAX_VALUE);
+            int queued = rest.size();
+            rest.add(log);
+            try {
+                delegate.saveAll(rest);
+            } finally {
+                written.addAndGet(queued);
+            }
+        }
+    }
+
+    /**
+     * ログを保存先に書き込みます。失敗しても例外は投げず、失敗した件数を数えます。
+     * 失敗したログも書き込み済みとして数え、{@link #flush()}が待ち続けないようにします。
+     */
+    private void write(List<Log> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        try {
+            delegate.saveAll(logs);
+        } catch (RuntimeException e) {
+            failed.addAndGet(logs.size());
+            e.printStackTrace();
+        }
+        written.addAndGet(logs.size());
+    }
+
+    private void drainLoop() {
+        List<Log> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            // 終了フラグは取り出しの前に読み、終了直前に積まれたログも書き漏らさない
+            boolean stopping = !running;
+            queue.drainTo(batch, BATCH_SIZE);
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+                continue;
+            }
+            if (stopping) {
+                return;
+            }
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(10));
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package com.taskapp.dataaccess;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+import com.taskapp.model.Log;
+
+/**
+ * ログをバイナリ形式のファイルに保存するリポジトリです。
+ * <p>
+ * ファイルは5バイトのヘッダー（識別子と版）の後に、1件ずつ次の形式の記録が続きます。
+ * <pre>
+ * [本体の長さ 1バイト][本体][本体のCRC32Cの下位16ビット 2バイト]
+ * 本体 = [タスクコード 可変長][変更者コード 可変長][ステータス 1バイト][2000-01-01からの日数 可変長]
+ * </pre>
+ * 可変長の整数は7ビットずつ下位から書き込みます（日数は負の値も短くなるようジグザグ符号化します）。
+ * 1件はおよそ8〜9バイトで、CSVの半分以下です。読み込み時は文字列に変換せずに数値のまま比較するため、
+ * タスクコードや日付での検索では該当しない記録のLogオブジェクトを作りません。
+ * <p>
+ * 書き込みの途中で中断されてファイルの末尾の記録が欠けている場合は、その直前の記録までを有効とみなし、
+ * 次に書き込むときに欠けた記録を切り詰めてから追記します。
+ * 末尾以外の記録のチェックサムが一致しない場合はファイルが壊れているため、切り詰めずに読み書きを中止します。
+ */
+public class BinaryLogDataAccess implements LogRepository {
+    private static final int MAGIC = 0x544c4f47;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 5;
+
+    /** 本体の最大の長さ（可変長の整数3つと1バイト） */
+    private static final int MAX_BODY_BYTES = 5 + 5 + 1 + 5;
+
+    private static final int MAX_RECORD_BYTES = 1 + MAX_BODY_BYTES + 2;
+
+    private static final long EPOCH_DAY_BASE = LocalDate.of(2000, 1, 1).toEpochDay();
+
+    private final String filePath;
+
+    /** 有効な記録の末尾の位置。-1の場合はまだ確かめていない */
+    private long validLength = -1;
+
+    /**
+     * @param filePath ログのファイル
+     */
+    public BinaryLogDataAccess(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public String getFilePath() {
+        return this.filePath;
+    }
+
+    @Override
+    public void save(Log log) {
+        saveAll(List.of(log));
+    }
+
+    /**
+     * 複数のログを1回のファイルオープンでまとめて追記します。
+     * @param logs 保存するログ（記録順）
+     * @throws UncheckedIOException 書き込めなかった場合、またはファイルが壊れている場合
+     */
+    @Override
+    public synchronized void saveAll(List<Log> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        byte[] record = new byte[MAX_RECORD_BYTES];
+        CRC32C crc = new CRC32C();
+        try {
+            prepareAppend();
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filePath, true), 64 * 1024)) {
+                for (Log log : logs) {
+                    int length = encode(log, record, crc);
+                    out.write(record, 0, length);
+                    validLength += length;
+                }
+            }
+        } catch (IOException e) {
+            // 書き込めた位置が分からないため、次回は読み直して確かめる
+            validLength = -1;
+            throw new UncheckedIOException(e);
+        } catch (UncheckedIOException e) {
+            validLength = -1;
+            throw e;
+        }
+    }
+
+    /**
+     * 追記の準備をします。ファイルが無ければヘッダーを書き込み、末尾に欠けた記録があれば切り詰めます。
+     * @throws IOException ログのファイルではない場合、または準備できなかった場合
+     * @throws UncheckedIOException 末尾以外の記録が壊れている場合
+     */
+    private void prepareAppend() throws IOException {
+        File file = new File(filePath);
+        if (!file.exists() || file.length() == 0) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(0);
+                raf.writeInt(MAGIC);
+                raf.writeByte(VERSION);
+            }
+            validLength = HEADER_BYTES;
+            return;
+        }
+        if (validLength < 0) {
+            validLength = scan(null);
+        }
+        if (validLength < 0) {
+            throw new IOException(filePath + "はログのファイルではないため、書き込みませんでした。");
+        }
+        // scanは末尾の欠けた記録だけを有効な範囲から除くため、切り詰めるのは欠けた記録だけになる
+        if (file.length() > validLength) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(validLength);
+            }
+        }
+    }
+
+    @Override
+    public List<Log> findAll() {
+        List<Log> logs = new ArrayList<>();
+        forEach(logs::add);
+        return logs;
+    }
+
+    /**
+     * 全てのログを記録順に1件ずつ処理します。全件をリストに読み込まずに処理できます。
+     * @param action ログごとの処理
+     */
+    public void forEach(Consumer<Log> action) {
+        scan(new DateCachingVisitor() {
+            @Override
+            void accept(int taskCode, int changeUserCode, int status, LocalDate changeDate) {
+                action.accept(new Log(taskCode, changeUserCode, status, changeDate));
+            }
+        });
+    }
+
+    @Override
+    public List<Log> findByTaskCode(int taskCode) {
+        List<Log> logs = new ArrayList<>();
+        scan((code, changeUserCode, status, epochDay) -> {
+            if (code == taskCode) {
+                logs.add(new Log(code, changeUserCode, status, LocalDate.ofEpochDay(epochDay)));
+            }
+        });
+        return logs;
+    }
+
+    @Override
+    public List<Log> findSince(LocalDate from) {
+        long fromDay = from.toEpochDay();
+        List<Log> logs = new ArrayList<>();
+        scan(new DateCachingVisitor() {
+            @Override
+            public void visit(int taskCode, int changeUserCode, int status, long epochDay) {
+                if (epochDay >= fromDay) {
+                    super.visit(taskCode, changeUserCode, status, epochDay);
+                }
+            }
+
+            @Override
+            void accept(int taskCode, int changeUserCode, int status, LocalDate changeDate) {
+                logs.add(new Log(taskCode, changeUserCode, status, changeDate));
+            }
+        });
+        return logs;
+    }
+
+    /**
+     * 1件の記録を数値のまま受け取ります。
+     */
+    @FunctionalInterface
+    private interface RecordVisitor {
+        void visit(int taskCode, int changeUserCode, int status, long epochDay);
+    }
+
+    /**
+     * 同じ日付が続く場合にLocalDateを使い回します。
+     */
+    private abstract static class DateCachingVisitor implements RecordVisitor {
+        private long lastEpochDay = Long.MIN_VALUE;
+        private LocalDate lastDate;
+
+        @Override
+        public void visit(int taskCode, int changeUserCode, int status, long epochDay) {
+            if (epochDay != lastEpochDay) {
+                lastEpochDay = epochDay;
+                lastDate = LocalDate.ofEpochDay(epochDay);
+            }
+            accept(taskCode, changeUserCode, status, lastDate);
+        }
+
+        abstract void accept(int taskCode, int changeUserCode, int status, LocalDate changeDate);
+    }
+
+    /**
+     * ファイルを先頭から読み、有効な記録を順に渡します。
+     * ファイルの末尾で欠けている記録は、書き込みの途中で中断されたものとみなして読み飛ばします。
+     * @param visitor 記録を受け取る処理（nullの場合は有効な範囲を確かめるだけ）
+     * @return 有効な記録の末尾の位置。ファイルが無い場合は0、ヘッダーが正しくない場合は-1
+     * @throws UncheckedIOException 末尾以外の記録が壊れている場合
+     */
+    private long scan(RecordVisitor visitor) {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            return 0;
+        }
+        CRC32C crc = new CRC32C();
+        int[] cursor = new int[1];
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int limit = fill(in, buffer, 0);
+            if (limit < HEADER_BYTES || readInt(buffer, 0) != MAGIC || buffer[4] != VERSION) {
+                return limit == 0 ? 0 : -1;
+            }
+            long base = 0;
+            int position = HEADER_BYTES;
+            boolean eof = limit < buffer.length;
+            while (true) {
+                // 記録がバッファの境界をまたぐ場合は、残りを先頭に寄せて続きを読む
+                if (!eof && limit - position < MAX_RECORD_BYTES) {
+                    System.arraycopy(buffer, position, buffer, 0, limit - position);
+                    base += position;
+                    limit -= position;
+                    position = 0;
+                    int filled = fill(in, buffer, limit);
+                    eof = filled < buffer.length;
+                    limit = filled;
+                }
+                if (position >= limit) {
+                    break;
+                }
+                // 読み込みを中止されたら、途中までの結果を返さずに中止を伝える
+                if (visitor != null && Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException(filePath + "の読み込みを中止しました");
+                }
+
+                int bodyLength = buffer[position] & 0xff;
+                int recordEnd = position + 1 + bodyLength + 2;
+                if (bodyLength == 0 || bodyLength > MAX_BODY_BYTES) {
+                    // 追記の途中で異常終了すると、末尾が0で埋められたまま残ることがある
+                    if (eof && isZero(buffer, position, limit)) {
+                        break;
+                    }
+                    throw corrupted(base + position);
+                }
+                if (recordEnd > limit) {
+                    // 末尾で欠けた記録は、書き込みの途中で中断されたもの
+                    break;
+                }
+                crc.reset();
+                crc.update(buffer, position + 1, bodyLength);
+                int checksum = ((buffer[recordEnd - 2] & 0xff) << 8) | (buffer[recordEnd - 1] & 0xff);
+                if (checksum != ((int) crc.getValue() & 0xffff)) {
+                    // 最後の記録は、長さだけ書き込まれて中身が書き込まれなかった場合がある（後ろは0で埋められる）
+                    if (eof && isZero(buffer, recordEnd, limit)) {
+                        break;
+                    }
+                    throw corrupted(base + position);
+                }
+
+                if (visitor != null) {
+                    int bodyEnd = recordEnd - 2;
+                    cursor[0] = position + 1;
+                    long taskCode = readVarint(buffer, cursor, bodyEnd);
+                    long changeUserCode = readVarint(buffer, cursor, bodyEnd);
+                    int status = cursor[0] < bodyEnd ? buffer[cursor[0]++] : -1;
+                    long encodedDay = readVarint(buffer, cursor, bodyEnd);
+                    // 本体の長さと中身が食い違う記録は壊れているとみなす
+                    if (status < 0 || cursor[0] != bodyEnd) {
+                        throw corrupted(base + position);
+                    }
+                    long epochDay = ((encodedDay >>> 1) ^ -(encodedDay & 1)) + EPOCH_DAY_BASE;
+                    visitor.visit((int) taskCode, (int) changeUserCode, status, epochDay);
+                }
+                position = recordEnd;
+            }
+            return base + position;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
+    private UncheckedIOException corrupted(long offset) {
+        return new UncheckedIOException(new IOException(filePath + "の" + offset + "バイト目の記録が壊れています。"));
+    }
+
+    private static boolean isZero(byte[] buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 1件のログを記録の形式に変換します。
+     * @return 記録のバイト数
+     */
+    private static int encode(Log log, byte[] record, CRC32C crc) {
+        int p = 1;
+        p = writeVarint(record, p, log.getTaskCode() & 0xffffffffL);
+        p = writeVarint(record, p, log.getChangeUserCode() & 0xffffffffL);
+        record[p++] = (byte) log.getStatus();
+        long day = log.getChangeDate().toEpochDay() - EPOCH_DAY_BASE;
+        p = writeVarint(record, p, (day << 1) ^ (day >> 63));
+        int bodyLength = p - 1;
+        record[0] = (byte) bodyLength;
+        crc.reset();
+        crc.update(record, 1, bodyLength);
+        int checksum = (int) crc.getValue() & 0xffff;
+        record[p++] = (byte) (checksum >>> 8);
+        record[p++] = (byte) checksum;
+        return p;
+    }
+
+    private static int writeVarint(byte[] record, int p, long value) {
+        while ((value & ~0x7fL) != 0) {
+            record[p++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        record[p++] = (byte) value;
+        return p;
+    }
+
+    /**
+     * 可変長の整数を読みます。終端より先に続く場合は、位置を終端より後ろにして返します。
+     */
+    private static long readVarint(byte[] buffer, int[] cursor, int end) {
+        long value = 0;
+        for (int shift = 0; shift < 64 && cursor[0] < end; shift += 7) {
+            byte b = buffer[cursor[0]++];
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        cursor[0] = end + 1;
+        return value;
+    }
+
+    private static int fill(InputStream in, byte[] buffer, int offset) throws IOException {
+        int total = offset;
+        int read;
+        while (total < buffer.length && (read = in.read(buffer, total, buffer.length - total)) > 0) {
+            total += read;
+        }
+        return total;
+    }
+
+    private static int readInt(byte[] buffer, int offset) {
+        return ((buffer[offset] & 0xff) << 24) | ((buffer[offset + 1] & 0xff) << 16)
+                | ((buffer[offset + 2] & 0xff) << 8) | (buffer[offset + 3] & 0xff);
+    }
+}
@@ -0,0 +1,233 @@
+package com.taskapp.dataaccess;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * CSVの1列目（コード）のブルームフィルタです。
+ * {@link #mightContain(int)}がfalseを返すコードは確実に存在しないため、CSVを走査せずに「見つからない」と判断できます。
+ * trueの場合は存在する可能性があるだけなので、CSVを読んで確かめます。
+ * <p>
+ * コード1件あたり{@value #BITS_PER_CODE}ビット、ハッシュ{@value #HASH_COUNT}個で、
+ * 登録できる件数（作成時の件数の2倍）まで登録しても誤判定の確率はおよそ1%以下です。
+ * 登録できる件数を超えた場合は{@link #isSaturated()}がtrueになるため、作り直してください。
+ * <p>
+ * 作成時にCSVのサイズと更新日時を記録します。{@link #matches(File)}がfalseの場合は、
+ * CSVが外部で編集されている可能性があるため、このフィルタを使わずに作り直してください。
+ * 検索のたびにCSVの情報を取得しないよう、{@link #isStale(File)}は一定の間隔でだけ記録と照合し、
+ * それ以外はアプリケーション自身が書き込んだときに記録し直した値を信用します。
+ */
+public class CodeBloomFilter {
+    /** CSVのサイズと更新日時を照合し直す間隔（ミリ秒）を指定するシステムプロパティ */
+    public static final String RECHECK_PROPERTY = "taskapp.codeFilter.recheckMillis";
+
+    private static final Duration DEFAULT_RECHECK = Duration.ofMillis(Long.getLong(RECHECK_PROPERTY, 1000));
+
+    private static final int BITS_PER_CODE = 10;
+
+    private static final int HASH_COUNT = 7;
+
+    private static final int MIN_CAPACITY = 1024;
+
+    /** ビット数の上限（2^31ビット）。{@link #bitOf(int)}の乗算が桁あふれしないようにする */
+    private static final int MAX_WORDS = 1 << 25;
+
+    private final long[] words;
+
+    private final long bitCount;
+
+    private final int capacity;
+
+    private int count;
+
+    private long csvLength = -1;
+
+    private long csvModified;
+
+    private final long recheckNanos;
+
+    /** 最後にCSVのサイズと更新日時を記録または照合した時刻 */
+    private long checkedAt;
+
+    /**
+     * @param capacity 登録できる件数
+     */
+    public CodeBloomFilter(int capacity) {
+        this(capacity, DEFAULT_RECHECK);
+    }
+
+    /**
+     * @param capacity 登録できる件数
+     * @param recheckInterval CSVのサイズと更新日時を照合し直す間隔
+     */
+    public CodeBloomFilter(int capacity, Duration recheckInterval) {
+        this.recheckNanos = recheckInterval.toNanos();
+        this.capacity = Math.max(capacity, MIN_CAPACITY);
+        int wordCount = (int) Math.min(((long) this.capacity * BITS_PER_CODE + 63) / 64, MAX_WORDS);
+        this.words = new long[wordCount];
+        this.bitCount = (long) wordCount * 64;
+    }
+
+    /**
+     * CSVを走査し、1列目のコードからフィルタを作成します。1行目はタイトル行として読み飛ばします。
+     * CSVが無い場合は空のフィルタを作成します。
+     * @param csvFile 対象のCSV
+     * @return 作成したフィルタ。CSVを読めなかった場合はnull
+     */
+    public static CodeBloomFilter build(File csvFile) {
+        return build(csvFile, DEFAULT_RECHECK);
+    }
+
+    /**
+     * CSVの照合の間隔を指定してフィルタを作成します。
+     * @param csvFile 対象のCSV
+     * @param recheckInterval CSVのサイズと更新日時を照合し直す間隔
+     * @return 作成したフィルタ。CSVを読めなかった場合はnull
+     * @see #build(File)
+     */
+    public static CodeBloomFilter build(File csvFile, Duration recheckInterval) {
+        // 走査中に書き込まれた場合に作り直せるよう、サイズと更新日時は走査の前に記録する
+        long length = csvFile.length();
+        long modified = csvFile.lastModified();
+        int[] codes = new int[1024];
+        int size = 0;
+        if (csvFile.exists()) {
+            try (CsvReader reader = CsvReader.open(csvFile.getPath())) {
+                reader.next(); // タイトル行を読み飛ばす
+                while (reader.next()) {
+                    if (reader.fieldCount() == 0) {
+                        continue;
+                    }
+                    // コードの列はCSVを読むときと同じ方法で変換し、変換できない行は登録しない
+                    int code;
+                    try {
+                        code = reader.getInt(0);
+                    } catch (NumberFormatException e) {
+                        continue;
+                    }
+                    if (size == codes.length) {
+                        codes = Arrays.copyOf(codes, size * 2);
+                    }
+                    codes[size++] = code;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                // 読めなかったコードを「存在しない」と判定しないよう、フィルタを使わせない
+                return null;
+            }
+        }
+
+        CodeBloomFilter filter = new CodeBloomFilter(size * 2, recheckInterval);
+        for (int i = 0; i < size; i++) {
+            filter.put(codes[i]);
+        }
+        filter.csvLength = length;
+        filter.csvModified = modified;
+        filter.checkedAt = System.nanoTime();
+        return filter;
+    }
+
+    /**
+     * コードを登録します。
+     * @param code 登録するコード
+     */
+    public synchronized void put(int code) {
+        long hash = mix(code);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            long bit = bitOf(h1 + i * h2);
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        count++;
+    }
+
+    /**
+     * コードが登録されている可能性があるか判定します。
+     * @param code 判定するコード
+     * @return 登録されている可能性があればtrue、確実に登録されていなければfalse
+     */
+    public synchronized boolean mightContain(int code) {
+        long hash = mix(code);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            long bit = bitOf(h1 + i * h2);
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 登録した件数が登録できる件数を超え、誤判定が増えているか判定します。
+     * @return 作り直すべき場合はtrue
+     */
+    public synchronized boolean isSaturated() {
+        return count > capacity;
+    }
+
+    /**
+     * CSVのサイズと更新日時が記録と一致するか判定します。
+     * @param csvFile 対象のCSV
+     * @return 一致すればtrue
+     */
+    public synchronized boolean matches(File csvFile) {
+        return csvFile.length() == csvLength && csvFile.lastModified() == csvModified;
+    }
+
+    /**
+     * 自身がCSVに書き込んだ後に、CSVのサイズと更新日時を記録し直します。
+     * @param csvFile 対象のCSV
+     */
+    public synchronized void stamp(File csvFile) {
+        csvLength = csvFile.length();
+        csvModified = csvFile.lastModified();
+        checkedAt = System.nanoTime();
+    }
+
+    /**
+     * CSVが外部で編集されて、このフィルタを作り直すべきか判定します。
+     * 前回の照合から間隔が空いていない場合は、CSVの情報を取得せずにfalseを返します。
+     * @param csvFile 対象のCSV
+     * @return 記録と一致しなければtrue
+     */
+    public synchronized boolean isStale(File csvFile) {
+        long now = System.nanoTime();
+        if (now - checkedAt < recheckNanos) {
+            return false;
+        }
+        checkedAt = now;
+        return !matches(csvFile);
+    }
+
+    /**
+     * 次の{@link #isStale(File)}で、間隔によらずCSVと照合させます。CSVの変更を通知されたときに利用します。
+     */
+    public synchronized void expire() {
+        checkedAt = System.nanoTime() - recheckNanos;
+    }
+
+    /**
+     * 0からビット数未満の位置に変換します（剰余の代わりに乗算を使う）。
+     */
+    private long bitOf(int hash) {
+        return ((hash & 0xffffffffL) * bitCount) >>> 32;
+    }
+
+    /**
+     * 連番のコードでもビットが偏らないよう、コードを64ビットに拡散します。
+     */
+    private static long mix(int code) {
+        long h = code * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe51a1a87L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
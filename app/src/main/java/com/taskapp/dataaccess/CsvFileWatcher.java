@@ -0,0 +1,153 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSVの置かれたディレクトリを{@link WatchService}で監視し、tasks.csvやusers.csvが外部で編集されたら
+ * メモリ上のテーブルを読み直します。テーブルを使っていない場合も、コードのブルームフィルタにCSVを照合し直させます。
+ * 連続した編集は、最後の変更から一定時間たってから1回だけ読み直します。
+ * CSVのサイズと更新日時が、データアクセス自身が最後に書き込んだ後の記録と一致する場合は、
+ * アプリケーション自身の書き込みによる通知として読み直しません。
+ */
+public class CsvFileWatcher implements AutoCloseable {
+    /** 監視を有効にするかを指定するシステムプロパティ */
+    public static final String WATCH_PROPERTY = "taskapp.csv.watch";
+
+    /** 最後の変更から読み直すまでの待ち時間（ミリ秒）を指定するシステムプロパティ */
+    public static final String DEBOUNCE_PROPERTY = "taskapp.csv.watchDebounceMillis";
+
+    private final TaskDataAccess taskDataAccess;
+
+    private final UserDataAccess userDataAccess;
+
+    private final Path taskFile;
+
+    private final Path userFile;
+
+    private final long debounceNanos;
+
+    private final WatchService watchService;
+
+    private final Thread watcher;
+
+    private volatile int reloadCount;
+
+    /**
+     * @param taskDataAccess 読み直すタスクのデータアクセス
+     * @param userDataAccess 読み直すユーザーのデータアクセス
+     * @param debounce 最後の変更から読み直すまでの待ち時間
+     * @throws IOException 監視を開始できない場合
+     */
+    public CsvFileWatcher(TaskDataAccess taskDataAccess, UserDataAccess userDataAccess, Duration debounce)
+            throws IOException {
+        this.taskDataAccess = taskDataAccess;
+        this.userDataAccess = userDataAccess;
+        this.taskFile = Paths.get(taskDataAccess.getFilePath()).toAbsolutePath();
+        this.userFile = Paths.get(userDataAccess.getFilePath()).toAbsolutePath();
+        this.debounceNanos = debounce.toNanos();
+        this.watchService = FileSystems.getDefault().newWatchService();
+
+        Set<Path> directories = new HashSet<>();
+        directories.add(taskFile.getParent());
+        directories.add(userFile.getParent());
+        for (Path directory : directories) {
+            // 一時ファイルからの置き換えはCREATEとして通知される
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+
+        this.watcher = new Thread(this::watchLoop, "csv-watcher");
+        this.watcher.setDaemon(true);
+        this.watcher.start();
+    }
+
+    /**
+     * これまでにテーブルを読み直した回数を取得します。
+     * @return 読み直した回数
+     */
+    public int getReloadCount() {
+        return reloadCount;
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        try {
+            watcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean tasksChanged = false;
+                boolean usersChanged = false;
+                long deadline = 0;
+                // 変更が途切れるまで待ってから読み直す
+                while (key != null) {
+                    Path directory = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            tasksChanged = true;
+                            usersChanged = true;
+                            continue;
+                        }
+                        Path changed = directory.resolve((Path) event.context());
+                        tasksChanged |= changed.equals(taskFile);
+                        usersChanged |= changed.equals(userFile);
+                    }
+                    key.reset();
+                    if (tasksChanged || usersChanged) {
+                        deadline = System.nanoTime() + debounceNanos;
+                    }
+                    long wait = deadline - System.nanoTime();
+                    key = wait > 0 ? watchService.poll(wait, TimeUnit.NANOSECONDS) : null;
+                }
+                reload(tasksChanged, usersChanged);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 監視を終了する
+        }
+    }
+
+    private void reload(boolean tasksChanged, boolean usersChanged) {
+        // アプリケーション自身の書き込みによる通知は無視する
+        tasksChanged &= !taskDataAccess.isUnchangedSinceOwnWrite();
+        usersChanged &= !userDataAccess.isUnchangedSinceOwnWrite();
+        if (usersChanged) {
+            userDataAccess.recheckCodeFilter();
+        }
+        if (tasksChanged) {
+            taskDataAccess.recheckCodeFilter();
+        }
+        if (usersChanged && userDataAccess.isLoaded()) {
+            userDataAccess.reload();
+        }
+        // 担当者の名前が変わることがあるため、ユーザーが変わったときもタスクを読み直す
+        if ((tasksChanged || usersChanged) && taskDataAccess.isLoaded()) {
+            taskDataAccess.reload();
+        }
+        if (tasksChanged || usersChanged) {
+            reloadCount++;
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+
+/**
+ * tasks.csvとlogs.csvへの変更を、ジャーナル（先行書き込みログ）を使って不可分に記録します。
+ * 作業単位ごとの変更は、ジャーナルの末尾への1回の追記と1回のfsyncでコミットされます（ジャーナルを作成したときだけ、ディレクトリもfsyncします）。
+ * コミットした変更はすぐには各CSVへ書き込まず、メモリ上に保持して{@link JournaledTaskDataAccess}・{@link JournaledLogDataAccess}の
+ * 読み出しに重ねます。溜まった変更は{@link #checkpoint()}で、tasks.csvの1回の書き換えとlogs.csvの1回の追記にまとめて反映し、
+ * 反映した各CSVとディレクトリをfsyncしてからジャーナルを削除します。
+ * 異常終了した場合は、次回の{@link #recover()}でジャーナルのコミット済みの変更を反映します。
+ * 書き込み途中で壊れた作業単位は、タスクとログのどちらも反映しません。
+ */
+public class CsvJournal {
+    /** 各CSVへ反映するまでに溜める作業単位の数を指定するシステムプロパティ */
+    public static final String CHECKPOINT_PROPERTY = "taskapp.csv.journal.checkpoint";
+
+    private final TaskDataAccess taskDataAccess;
+
+    private final LogDataAccess logDataAccess;
+
+    private final UserRepository userRepository;
+
+    private final Path journalPath;
+
+    private final int checkpointInterval;
+
+    /** 追記用に開いたジャーナル（ジャーナルが無い場合はnull） */
+    private FileChannel channel;
+
+    /** ジャーナルを作成したときのlogs.csvのサイズ。反映し直すときはこのサイズまで切り詰めてから追記する */
+    private long logBase;
+
+    /** コミット済みで、まだtasks.csvに反映していないタスク */
+    private final Map<Integer, Task> pendingTasks = new LinkedHashMap<>();
+
+    /** コミット済みで、まだlogs.csvに反映していないログ（記録順） */
+    private final List<Log> pendingLogs = new ArrayList<>();
+
+    private int pendingUnits;
+
+    /**
+     * @param taskDataAccess タスクのCSV
+     * @param logDataAccess ログのCSV
+     * @param userRepository ジャーナルからタスクを復元するときに担当者を検索するリポジトリ
+     */
+    public CsvJournal(TaskDataAccess taskDataAccess, LogDataAccess logDataAccess, UserRepository userRepository) {
+        this(taskDataAccess, logDataAccess, userRepository, Integer.getInteger(CHECKPOINT_PROPERTY, 256));
+    }
+
+    /**
+     * @param taskDataAccess タスクのCSV
+     * @param logDataAccess ログのCSV
+     * @param userRepository ジャーナルからタスクを復元するときに担当者を検索するリポジトリ
+     * @param checkpointInterval 各CSVへ反映するまでに溜める作業単位の数
+     */
+    public CsvJournal(TaskDataAccess taskDataAccess, LogDataAccess logDataAccess, UserRepository userRepository,
+            int checkpointInterval) {
+        this.taskDataAccess = taskDataAccess;
+        this.logDataAccess = logDataAccess;
+        this.userRepository = userRepository;
+        this.journalPath = Paths.get(taskDataAccess.getFilePath() + ".journal");
+        this.checkpointInterval = Math.max(checkpointInterval, 1);
+    }
+
+    /**
+     * 新しい作業単位を開始します。
+     * @return 作業単位
+     */
+    public CsvUnitOfWork begin() {
+        return new CsvUnitOfWork(this);
+    }
+
+    /**
+     * 作業単位の変更をジャーナルに追記し、fsyncしてコミットします。
+     * コミットした変更は、溜まった作業単位の数が指定した数に達したときに各CSVへ反映します。
+     *
+     * @param newTasks 追加するタスク
+     * @param dirtyTasks 更新するタスク
+     * @param logs 追記するログ
+     * @throws UncheckedIOException ジャーナルに記録できなかった場合（変更は記録されない）
+     */
+    synchronized void commit(List<Task> newTasks, List<Task> dirtyTasks, List<Log> logs) {
+        if (newTasks.isEmpty() && dirtyTasks.isEmpty() && logs.isEmpty()) {
+            return;
+        }
+        StringBuilder body = new StringBuilder("BEGIN\n");
+        for (Task task : newTasks) {
+            body.append("N,").append(taskLine(task)).append('\n');
+        }
+        for (Task task : dirtyTasks) {
+            body.append("U,").append(taskLine(task)).append('\n');
+        }
+        for (Log log : logs) {
+            body.append("L,").append(log.getTaskCode()).append(',').append(log.getChangeUserCode()).append(',')
+                    .append(log.getStatus()).append(',').append(log.getChangeDate()).append('\n');
+        }
+        byte[] bodyBytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] commitBytes = ("COMMIT," + checksum(bodyBytes) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(bodyBytes.length + commitBytes.length);
+        record.put(bodyBytes).put(commitBytes).flip();
+
+        try {
+            if (channel == null) {
+                open(logs.isEmpty() ? null : logs.get(0).getChangeDate());
+            }
+            append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        for (Task task : newTasks) {
+            pendingTasks.put(task.getCode(), task);
+        }
+        for (Task task : dirtyTasks) {
+            pendingTasks.put(task.getCode(), task);
+        }
+        pendingLogs.addAll(logs);
+        pendingUnits++;
+
+        if (pendingUnits >= checkpointInterval) {
+            try {
+                checkpoint();
+            } catch (UncheckedIOException e) {
+                // 変更はジャーナルにコミット済みのため、次のチェックポイントか次回起動時に反映し直す
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * ジャーナルを作成します。残っているジャーナルがあれば、先に各CSVへ反映します。
+     * ジャーナルの先頭には、反映し直すときに切り詰めるlogs.csvのサイズを記録します。
+     */
+    private void open(LocalDate firstLogDate) throws IOException {
+        replay();
+        // 反映し直したジャーナルには、まだ反映していなかった変更もすべて含まれている
+        pendingTasks.clear();
+        pendingLogs.clear();
+        pendingUnits = 0;
+        // ローテーションはジャーナルを作る前に済ませ、ジャーナルの間はアクティブセグメントを入れ替えない
+        if (firstLogDate != null) {
+            logDataAccess.rotateIfNeeded(firstLogDate);
+        }
+        logBase = logDataAccess.activeLength();
+        FileChannel opened = FileChannel.open(journalPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            write(opened, ByteBuffer.wrap(("BASE," + logBase + "\n").getBytes(StandardCharsets.UTF_8)));
+            opened.force(false);
+            // 作成したジャーナルがディレクトリから消えないように、ディレクトリもfsyncする
+            forceDirectory(journalPath);
+        } catch (IOException e) {
+            opened.close();
+            Files.deleteIfExists(journalPath);
+            throw e;
+        }
+        channel = opened;
+    }
+
+    /**
+     * 作業単位を1件追記してfsyncします。失敗した場合は、追記する前のサイズに戻します。
+     */
+    private void append(ByteBuffer record) throws IOException {
+        long size = channel.size();
+        try {
+            channel.position(size);
+            write(channel, record);
+            channel.force(false);
+        } catch (IOException e) {
+            try {
+                channel.truncate(size);
+            } catch (IOException truncateFailed) {
+                // 断片の後ろに追記しないよう、次のコミットではジャーナルを反映し直してから作り直す
+                e.addSuppressed(truncateFailed);
+                try {
+                    channel.close();
+                } catch (IOException closeFailed) {
+                    e.addSuppressed(closeFailed);
+                }
+                channel = null;
+            }
+            throw e;
+        }
+    }
+
+    private static void write(FileChannel target, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    /**
+     * コミット済みでまだ反映していない変更を各CSVへ反映し、ジャーナルを削除します。
+     * 新しいタスクと更新はtasks.csvの1回の書き換えに、ログはlogs.csvの1回の追記にまとめます。
+     * 反映に失敗した場合はジャーナルを残します。
+     *
+     * @throws UncheckedIOException 反映に失敗した場合
+     */
+    public synchronized void checkpoint() {
+        try {
+            if (channel == null) {
+                // 開いていないジャーナル（前回の異常終了で残ったものなど）は、ファイルの内容から反映する
+                replay();
+            } else {
+                apply(new ArrayList<>(pendingTasks.values()), new ArrayList<>(pendingLogs), logBase);
+                channel.close();
+                channel = null;
+                Files.deleteIfExists(journalPath);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pendingTasks.clear();
+        pendingLogs.clear();
+        pendingUnits = 0;
+    }
+
+    /**
+     * 反映が完了していないジャーナルが残っていれば、その内容を各CSVへ反映します。
+     * タスクは上書き、ログは記録済みのサイズまで切り詰めてから追記するため、何度実行しても結果は同じです。
+     */
+    public synchronized void recover() {
+        try {
+            checkpoint();
+        } catch (UncheckedIOException e) {
+            // ジャーナルは残っているため、次の書き込みか次回起動時に反映し直す
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * コミット済みでまだ反映していないタスクを取得します。
+     * @return タスクコードをキーにしたタスク
+     */
+    synchronized Map<Integer, Task> pendingTasks() {
+        return new LinkedHashMap<>(pendingTasks);
+    }
+
+    /**
+     * コミット済みでまだ反映していないログを取得します。
+     * @return ログ（記録順）
+     */
+    synchronized List<Log> pendingLogs() {
+        return new ArrayList<>(pendingLogs);
+    }
+
+    private void replay() throws IOException {
+        if (!Files.exists(journalPath)) {
+            return;
+        }
+        List<String> lines = Files.readAllLines(journalPath, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).startsWith("BASE,")) {
+            // 作成途中のジャーナルには、コミットした作業単位が無い
+            Files.deleteIfExists(journalPath);
+            return;
+        }
+        long base = Long.parseLong(lines.get(0).substring("BASE,".length()));
+
+        Map<Integer, Task> tasks = new LinkedHashMap<>();
+        List<Log> logs = new ArrayList<>();
+        List<String> unit = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.equals("BEGIN")) {
+                unit.clear();
+            }
+            unit.add(line);
+            if (line.startsWith("COMMIT,")) {
+                // チェックサムが合う作業単位だけを反映し、書き込み途中の作業単位は読み飛ばす
+                if (isComplete(unit)) {
+                    parse(unit, tasks, logs);
+                }
+                unit.clear();
+            }
+        }
+        apply(new ArrayList<>(tasks.values()), logs, base);
+        Files.deleteIfExists(journalPath);
+    }
+
+    private void parse(List<String> unit, Map<Integer, Task> tasks, List<Log> logs) {
+        for (String line : unit.subList(1, unit.size() - 1)) {
+            String[] values = line.split(",");
+            if (values[0].equals("L")) {
+                logs.add(new Log(Integer.parseInt(values[1]), Integer.parseInt(values[2]),
+                        Integer.parseInt(values[3]), LocalDate.parse(values[4])));
+            } else {
+                // タスク名にカンマを含む場合があるため、ステータスと担当者コードは末尾から読む
+                int first = line.indexOf(',', 2);
+                int last = line.lastIndexOf(',');
+                int beforeLast = line.lastIndexOf(',', last - 1);
+                int code = Integer.parseInt(line.substring(2, first));
+                tasks.put(code, new Task(code, line.substring(first + 1, beforeLast),
+                        Integer.parseInt(line.substring(beforeLast + 1, last)),
+                        userRepository.findProfileByCode(Integer.parseInt(line.substring(last + 1)))));
+            }
+        }
+    }
+
+    /**
+     * 変更を各CSVへ反映し、反映した各CSVとそれを含むディレクトリをfsyncします。
+     */
+    private void apply(List<Task> tasks, List<Log> logs, long base) throws IOException {
+        if (!tasks.isEmpty()) {
+            taskDataAccess.rewrite(tasks);
+        }
+        if (!logs.isEmpty()) {
+            logDataAccess.truncateActive(base);
+            logDataAccess.append(logs);
+        }
+        forceApplied();
+    }
+
+    /**
+     * 反映した各CSVと、それを含むディレクトリをfsyncします。
+     * ジャーナルを削除した後に異常終了しても、反映した内容が失われないようにするためです。
+     */
+    private void forceApplied() throws IOException {
+        Path tasksPath = Paths.get(taskDataAccess.getFilePath());
+        Path logsPath = Paths.get(logDataAccess.getFilePath());
+        forceFile(logsPath);
+        forceDirectory(tasksPath);
+        if (!parentOf(logsPath).equals(parentOf(tasksPath))) {
+            forceDirectory(logsPath);
+        }
+    }
+
+    private void forceFile(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            file.force(false);
+        }
+    }
+
+    private void forceDirectory(Path file) throws IOException {
+        try (FileChannel directory = FileChannel.open(parentOf(file), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (AccessDeniedException e) {
+            // Windowsなどディレクトリを開けない環境では、ファイルのfsyncだけで済ませる
+        }
+    }
+
+    private Path parentOf(Path file) {
+        return file.toAbsolutePath().getParent();
+    }
+
+    private boolean isComplete(List<String> unit) {
+        if (unit.size() < 2 || !unit.get(0).equals("BEGIN")) {
+            return false;
+        }
+        StringBuilder body = new StringBuilder();
+        for (String line : unit.subList(0, unit.size() - 1)) {
+            body.append(line).append('\n');
+        }
+        try {
+            long expected = Long.parseLong(unit.get(unit.size() - 1).substring("COMMIT,".length()));
+            return checksum(body.toString().getBytes(StandardCharsets.UTF_8)) == expected;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private String taskLine(Task task) {
+        return task.getCode() + "," + task.getName() + "," + task.getStatus() + "," + task.getRepUser().getCode();
+    }
+
+    private long checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+}
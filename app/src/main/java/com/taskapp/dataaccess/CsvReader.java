@@ -0,0 +1,311 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+/**
+ * UTF-8のCSVをバイト列のまま1行ずつ読み込むリーダーです。
+ * <p>
+ * 行と列の区切りはバイト列のまま探し、文字列が必要な列だけを{@link #getString(int)}でUTF-8として復号します。
+ * 数値の列は{@link #getInt(int)}がASCIIの数字をバイト列から直接変換するため、復号も文字列の作成も行いません。
+ * 行末のCR（CRLF）と、ファイル先頭のBOMは取り除きます。
+ * <p>
+ * タイトル行も1行として返すため、読み飛ばす場合は最初に{@link #next()}を1回呼び出してください。
+ * <p>
+ * ファイルの読み込み中にスレッドへ割り込まれた場合は、{@link CancellationException}を送出します。
+ * 読み込みの失敗（{@link IOException}）と区別し、途中までの行を全件として扱わないようにするためです。
+ */
+public final class CsvReader implements AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+
+    /** バッファの先頭のファイル上の位置 */
+    private long bufferOffset;
+
+    /** バッファ内の、まだ行として返していない位置 */
+    private int position;
+
+    /** バッファ内の、読み込んだデータの終端 */
+    private int limit;
+
+    private boolean eof;
+
+    /** 現在の行の先頭のファイル上の位置 */
+    private long lineOffset;
+
+    private int lineStart;
+
+    private int lineEnd;
+
+    /** 現在の行の各列の開始位置と終了位置（バッファ内） */
+    private int[] fieldStarts = new int[8];
+
+    private int[] fieldEnds = new int[8];
+
+    private int fieldCount;
+
+    private CsvReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * ストリームから読み込みます。gzip圧縮されたセグメントなどに利用します。
+     * @param in 読み込むストリーム
+     */
+    public CsvReader(InputStream in) {
+        this(Channels.newChannel(in));
+    }
+
+    /**
+     * CSVファイルを開きます。
+     * @param path CSVファイルのパス
+     * @return 開いたリーダー
+     * @throws IOException ファイルを開けない場合
+     */
+    public static CsvReader open(String path) throws IOException {
+        return new CsvReader(FileChannel.open(Paths.get(path), StandardOpenOption.READ));
+    }
+
+    /**
+     * 次の行を読み込みます。
+     * @return 行があればtrue、ファイルの終わりに達していればfalse
+     * @throws IOException 読み込みに失敗した場合
+     */
+    public boolean next() throws IOException {
+        int newLine = -1;
+        int searched = position;
+        while (true) {
+            for (int i = searched; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    newLine = i;
+                    break;
+                }
+            }
+            if (newLine >= 0 || eof) {
+                break;
+            }
+            searched = limit - position;
+            fill();
+        }
+        if (newLine < 0 && position == limit) {
+            return false;
+        }
+
+        lineOffset = bufferOffset + position;
+        lineStart = position;
+        lineEnd = newLine >= 0 ? newLine : limit;
+        position = newLine >= 0 ? newLine + 1 : limit;
+        if (lineEnd > lineStart && buffer[lineEnd - 1] == '\r') {
+            lineEnd--;
+        }
+        // ファイル先頭のBOMは読み飛ばす
+        if (lineOffset == 0 && lineEnd - lineStart >= 3 && (buffer[lineStart] & 0xff) == 0xef
+                && (buffer[lineStart + 1] & 0xff) == 0xbb && (buffer[lineStart + 2] & 0xff) == 0xbf) {
+            lineStart += 3;
+        }
+        split();
+        return true;
+    }
+
+    /**
+     * 指定した位置から始まる行を読み込みます。ファイルから開いた場合のみ利用できます。
+     * @param offset 行の先頭のファイル上の位置
+     * @return 行があればtrue
+     * @throws IOException 読み込みに失敗した場合
+     */
+    public boolean nextAt(long offset) throws IOException {
+        if (!(channel instanceof FileChannel)) {
+            throw new UnsupportedOperationException("seek is not supported");
+        }
+        // 既にバッファに読み込んでいる範囲であれば、読み直さない
+        if (offset >= bufferOffset && offset <= bufferOffset + limit) {
+            position = (int) (offset - bufferOffset);
+        } else {
+            try {
+                ((FileChannel) channel).position(offset);
+            } catch (ClosedByInterruptException e) {
+                throw cancelled(e);
+            }
+            bufferOffset = offset;
+            position = 0;
+            limit = 0;
+            eof = false;
+        }
+        return next();
+    }
+
+    private static CancellationException cancelled(ClosedByInterruptException cause) {
+        CancellationException e = new CancellationException("CSVの読み込みを中止しました");
+        e.initCause(cause);
+        return e;
+    }
+
+    /**
+     * バッファを詰め、足りなければ広げてから続きを読み込みます。
+     */
+    private void fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            bufferOffset += position;
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int read;
+        try {
+            read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+        } catch (ClosedByInterruptException e) {
+            throw cancelled(e);
+        }
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    /**
+     * 現在の行をカンマで列に分けます。{@link String#split(String)}と同じく、末尾の空の列は数えません。
+     */
+    private void split() {
+        int count = 0;
+        int start = lineStart;
+        for (int i = lineStart; i <= lineEnd; i++) {
+            if (i == lineEnd || buffer[i] == ',') {
+                if (count == fieldStarts.length) {
+                    fieldStarts = Arrays.copyOf(fieldStarts, count * 2);
+                    fieldEnds = Arrays.copyOf(fieldEnds, count * 2);
+                }
+                fieldStarts[count] = start;
+                fieldEnds[count] = i;
+                count++;
+                start = i + 1;
+            }
+        }
+        while (count > 0 && fieldStarts[count - 1] == fieldEnds[count - 1]) {
+            count--;
+        }
+        fieldCount = count;
+    }
+
+    /**
+     * 現在の行の列の数を取得します。空行は0列です。
+     * @return 列の数
+     */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * 現在の行の先頭のファイル上の位置を取得します。
+     * @return 行の位置（バイト）
+     */
+    public long offset() {
+        return lineOffset;
+    }
+
+    /**
+     * 列を整数として取得します。ASCIIの数字だけの列は、復号せずにバイト列から変換します。
+     * @param index 列の番号（0始まり）
+     * @return 列の値
+     * @throws NumberFormatException 整数でない場合
+     */
+    public int getInt(int index) {
+        int start = fieldStart(index);
+        int end = fieldEnds[index];
+        // 9桁まではオーバーフローしないため、バイト列から直接変換する
+        if (end > start && end - start <= 9) {
+            int value = 0;
+            int i = start;
+            for (; i < end; i++) {
+                int digit = buffer[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                value = value * 10 + digit;
+            }
+            if (i == end) {
+                return value;
+            }
+        }
+        // 符号や全角数字、桁数の多い値は、文字列にして変換する
+        return Integer.parseInt(getString(index));
+    }
+
+    /**
+     * 列を「yyyy-MM-dd」形式の日付として取得します。ASCIIの日付は、復号せずにバイト列から変換します。
+     * @param index 列の番号（0始まり）
+     * @return 列の値
+     * @throws java.time.DateTimeException 日付でない場合
+     */
+    public LocalDate getDate(int index) {
+        int start = fieldStart(index);
+        if (fieldEnds[index] - start == 10 && buffer[start + 4] == '-' && buffer[start + 7] == '-') {
+            int year = digits(start, 4);
+            int month = digits(start + 5, 2);
+            int day = digits(start + 8, 2);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                return LocalDate.of(year, month, day);
+            }
+        }
+        return LocalDate.parse(getString(index));
+    }
+
+    private int digits(int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * 列をUTF-8の文字列として取得します。
+     * @param index 列の番号（0始まり）
+     * @return 列の値
+     */
+    public String getString(int index) {
+        int start = fieldStart(index);
+        return new String(buffer, start, fieldEnds[index] - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 現在の行全体をUTF-8の文字列として取得します（行末の改行は含まない）。
+     * @return 行の内容
+     */
+    public String line() {
+        return new String(buffer, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+    }
+
+    private int fieldStart(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("field " + index + " of " + fieldCount);
+        }
+        return fieldStarts[index];
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,116 @@
+package com.taskapp.dataaccess;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * users.csv・tasks.csv・logs.csvの内容を組み込みデータベースへ一括で移行します。
+ * 既存のテーブルの内容は置き換えられます。移行は1つのトランザクションで行います。
+ */
+public class CsvToJdbcMigrator {
+    /** 一度に送るINSERTの件数 */
+    private static final int BATCH_SIZE = 1000;
+
+    private final UserDataAccess userDataAccess;
+
+    private final TaskDataAccess taskDataAccess;
+
+    private final LogDataAccess logDataAccess;
+
+    private final JdbcDatabase database;
+
+    /**
+     * @param dataDirectory CSVファイルを置くディレクトリ
+     * @param database 移行先のデータベース
+     */
+    public CsvToJdbcMigrator(String dataDirectory, JdbcDatabase database) {
+        this.userDataAccess = new UserDataAccess(dataDirectory + "/users.csv");
+        this.taskDataAccess = new TaskDataAccess(dataDirectory + "/tasks.csv", userDataAccess);
+        this.logDataAccess = new LogDataAccess(dataDirectory + "/logs.csv");
+        this.database = database;
+    }
+
+    /**
+     * 移行を実行します。
+     * @throws SQLException 移行に失敗した場合（変更はロールバックされます）
+     */
+    public void migrate() throws SQLException {
+        database.createSchema();
+        // 担当者の検索でCSVを繰り返し読まないよう、ユーザーを先にメモリへ読み込む
+        List<User> users = userDataAccess.findAll();
+        userDataAccess.load(users);
+        List<Task> tasks = taskDataAccess.findAll();
+        List<Log> logs = logDataAccess.findAll();
+
+        try (PooledConnection pooled = database.acquire()) {
+            Connection connection = pooled.getConnection();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DELETE FROM logs");
+                statement.execute("DELETE FROM tasks");
+                statement.execute("DELETE FROM users");
+            }
+
+            PreparedStatement insertUser = pooled.prepare(
+                    "INSERT INTO users (code, name, email, password) VALUES (?, ?, ?, ?)");
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                insertUser.setInt(1, user.getCode());
+                insertUser.setString(2, user.getName());
+                insertUser.setString(3, user.getEmail());
+                insertUser.setString(4, user.getPassword());
+                addBatch(insertUser, i);
+            }
+            insertUser.executeBatch();
+
+            PreparedStatement insertTask = pooled.prepare(JdbcTaskDataAccess.INSERT);
+            for (int i = 0; i < tasks.size(); i++) {
+                Task task = tasks.get(i);
+                insertTask.setInt(1, task.getCode());
+                insertTask.setString(2, task.getName());
+                insertTask.setInt(3, task.getStatus());
+                insertTask.setInt(4, task.getRepUser() == null ? 0 : task.getRepUser().getCode());
+                addBatch(insertTask, i);
+            }
+            insertTask.executeBatch();
+
+            PreparedStatement insertLog = pooled.prepare(JdbcLogDataAccess.INSERT);
+            for (int i = 0; i < logs.size(); i++) {
+                JdbcLogDataAccess.bind(insertLog, logs.get(i));
+                addBatch(insertLog, i);
+            }
+            insertLog.executeBatch();
+
+            connection.commit();
+            connection.setAutoCommit(true);
+        }
+        System.out.println("ユーザー" + users.size() + "件、タスク" + tasks.size() + "件、ログ" + logs.size()
+                + "件を移行しました。");
+    }
+
+    private void addBatch(PreparedStatement statement, int index) throws SQLException {
+        statement.addBatch();
+        if ((index + 1) % BATCH_SIZE == 0) {
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * CSVから組み込みデータベースへ移行します。
+     * @param args [CSVのディレクトリ] [JDBC URL]
+     */
+    public static void main(String[] args) throws SQLException {
+        String dataDirectory = args.length > 0 ? args[0] : DataAccessFactory.DEFAULT_DATA_DIR;
+        String url = args.length > 1 ? args[1] : DataAccessFactory.DEFAULT_JDBC_URL;
+        try (JdbcDatabase database = new JdbcDatabase(url)) {
+            new CsvToJdbcMigrator(dataDirectory, database).migrate();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.taskapp.dataaccess;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+
+/**
+ * tasks.csvとlogs.csvへの変更をまとめる作業単位です。
+ * 登録した変更は{@link #commit()}までファイルに書き込まれず、コミット時に{@link CsvJournal}で不可分に反映されます。
+ */
+public class CsvUnitOfWork {
+    private final CsvJournal journal;
+
+    private final List<Task> newTasks = new ArrayList<>();
+
+    private final List<Task> dirtyTasks = new ArrayList<>();
+
+    private final List<Log> logs = new ArrayList<>();
+
+    CsvUnitOfWork(CsvJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * 新しく追加するタスクを登録します。
+     * @param task 追加するタスク
+     */
+    public void registerNew(Task task) {
+        newTasks.add(task);
+    }
+
+    /**
+     * 更新するタスクを登録します。
+     * @param task 更新するタスク
+     */
+    public void registerDirty(Task task) {
+        dirtyTasks.add(task);
+    }
+
+    /**
+     * 追記するログを登録します。
+     * @param log 追記するログ
+     */
+    public void registerLog(Log log) {
+        logs.add(log);
+    }
+
+    /**
+     * 登録した変更をすべて反映します。
+     */
+    public void commit() {
+        journal.commit(newTasks, dirtyTasks, logs);
+        clear();
+    }
+
+    /**
+     * 登録した変更を破棄します。
+     */
+    public void rollback() {
+        clear();
+    }
+
+    private void clear() {
+        newTasks.clear();
+        dirtyTasks.clear();
+        logs.clear();
+    }
+}
@@ -0,0 +1,134 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * CSVをUTF-8で書き込むライターです。
+ * ASCIIの文字はそのままバイトとしてバッファに書き込み、それ以外の文字を含む場合だけUTF-8に符号化します。
+ * 改行は{@link java.io.BufferedWriter#newLine()}と同じくシステムの行区切り文字です。
+ */
+public final class CsvWriter implements AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /** 書き込みを始めた位置からのバイト数を含めた、次に書き込むファイル上の位置 */
+    private long position;
+
+    private CsvWriter(FileChannel channel, long position) {
+        this.channel = channel;
+        this.position = position;
+    }
+
+    /**
+     * CSVファイルを書き込み用に開きます。ファイルが無い場合は作成します。
+     * @param path CSVファイルのパス
+     * @param append trueの場合は末尾に追記し、falseの場合は空にしてから書き込む
+     * @return 開いたライター
+     * @throws IOException ファイルを開けない場合
+     */
+    public static CsvWriter open(String path, boolean append) throws IOException {
+        FileChannel channel = append
+                ? FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND)
+                : FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+        return new CsvWriter(channel, append ? channel.size() : 0);
+    }
+
+    /**
+     * 文字列を書き込みます。
+     * @param value 書き込む文字列
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public void write(String value) throws IOException {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                // ASCII以外の文字を含む場合は、残りをまとめて符号化する（サロゲートペアを分けないため）
+                put(value.substring(i).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) c);
+            position++;
+        }
+    }
+
+    /**
+     * 改行を書き込みます。
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public void newLine() throws IOException {
+        put(LINE_SEPARATOR);
+    }
+
+    /**
+     * 次に書き込むファイル上の位置を取得します。追記の場合は開いたときのファイルのサイズから数えます。
+     * @return 位置（バイト）
+     */
+    public long position() {
+        return position;
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.remaining()) {
+            drain();
+        }
+        if (bytes.length > buffer.remaining()) {
+            ByteBuffer source = ByteBuffer.wrap(bytes);
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        } else {
+            buffer.put(bytes);
+        }
+        position += bytes.length;
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * バッファに溜めた内容をファイルに書き込みます。
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public void flush() throws IOException {
+        drain();
+    }
+
+    /**
+     * バッファに溜めた内容をファイルに書き込み、ディスクへの書き込みが完了するまで待ちます（fsync）。
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public void force() throws IOException {
+        drain();
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+}
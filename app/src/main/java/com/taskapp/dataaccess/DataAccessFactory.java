@@ -0,0 +1,343 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * 設定に応じてタスク・ユーザー・ログのリポジトリを組み立てます。
+ * ロジック層はリポジトリのインターフェースだけに依存するため、保存先の実装を設定だけで切り替えられます。
+ */
+public class DataAccessFactory implements AutoCloseable {
+    /** 保存先の実装（csv・memory・jdbc・offheap）を指定するシステムプロパティ */
+    public static final String STORAGE_PROPERTY = "taskapp.storage";
+
+    /** CSVファイルを置くディレクトリを指定するシステムプロパティ */
+    public static final String DATA_DIR_PROPERTY = "taskapp.dataDir";
+
+    /** 組み込みデータベースのJDBC URLを指定するシステムプロパティ */
+    public static final String JDBC_URL_PROPERTY = "taskapp.jdbc.url";
+
+    /**
+     * CSVへの変更をジャーナル経由で不可分に反映するかを指定するシステムプロパティ（既定はtrue）。
+     * ログをバイナリ形式で保存する場合は、ジャーナルがlogs.csvにしか追記できないため使用しない
+     */
+    public static final String CSV_JOURNAL_PROPERTY = "taskapp.csv.journal";
+
+    /** ログの保存形式（csv・binary）を指定するシステムプロパティ */
+    public static final String LOG_FORMAT_PROPERTY = "taskapp.log.format";
+
+    public static final String DEFAULT_DATA_DIR = "app/src/main/resources";
+
+    public static final String DEFAULT_JDBC_URL = "jdbc:h2:./app/data/taskapp";
+
+    /**
+     * 保存先の実装の種類です。
+     */
+    public enum Engine {
+        /** CSVファイル */
+        CSV,
+        /** メモリ上のみ（起動時にCSVを読み込み、変更は保存しない） */
+        MEMORY,
+        /** 組み込みデータベース */
+        JDBC,
+        /** タスクはヒープ外のメモリマップドファイル、ユーザーとログはCSV */
+        OFFHEAP
+    }
+
+    /**
+     * ログの保存形式です。
+     */
+    public enum LogFormat {
+        /** logs.csv */
+        CSV,
+        /** バイナリ形式のlogs.bin（{@link BinaryLogDataAccess}） */
+        BINARY
+    }
+
+    /** ヒープ外のストアのファイル名（データディレクトリからの相対パス） */
+    public static final String OFFHEAP_FILE_NAME = "tasks.offheap";
+
+    /** バイナリ形式のログのファイル名（データディレクトリからの相対パス） */
+    public static final String BINARY_LOG_FILE_NAME = "logs.bin";
+
+    private final Engine engine;
+
+    private final UserRepository userRepository;
+
+    private final TaskRepository taskRepository;
+
+    private final LogRepository logRepository;
+
+    private final JdbcDatabase database;
+
+    private final CsvJournal journal;
+
+    private final TaskDataAccess csvTaskDataAccess;
+
+    private final OffHeapTaskStore offHeapTaskStore;
+
+    /**
+     * @param engine 保存先の実装
+     * @param dataDirectory CSVファイルを置くディレクトリ
+     * @param jdbcUrl 組み込みデータベースのJDBC URL
+     */
+    public DataAccessFactory(Engine engine, String dataDirectory, String jdbcUrl) {
+        this(engine, dataDirectory, jdbcUrl, false);
+    }
+
+    /**
+     * @param engine 保存先の実装
+     * @param dataDirectory CSVファイルを置くディレクトリ
+     * @param jdbcUrl 組み込みデータベースのJDBC URL
+     * @param useJournal trueの場合、CSVへのタスクの変更とログをジャーナル経由で不可分に反映する
+     */
+    public DataAccessFactory(Engine engine, String dataDirectory, String jdbcUrl, boolean useJournal) {
+        this(engine, dataDirectory, jdbcUrl, useJournal, LogFormat.CSV);
+    }
+
+    /**
+     * @param engine 保存先の実装
+     * @param dataDirectory CSVファイルを置くディレクトリ
+     * @param jdbcUrl 組み込みデータベースのJDBC URL
+     * @param useJournal trueの場合、CSVへのタスクの変更とログをジャーナル経由で不可分に反映する
+     * @param logFormat ログの保存形式。CSV・ヒープ外のストアでのみ有効で、バイナリ形式の場合はジャーナルを使わない
+     */
+    public DataAccessFactory(Engine engine, String dataDirectory, String jdbcUrl, boolean useJournal,
+            LogFormat logFormat) {
+        this.engine = engine;
+        // 選んだ保存先で使うものだけを組み立てる（組み込みデータベースとメモリではCSVに書き込まない）
+        CsvJournal csvJournal = null;
+        TaskDataAccess csvTasks = null;
+        JdbcDatabase jdbcDatabase = null;
+        OffHeapTaskStore taskStore = null;
+        switch (engine) {
+            case MEMORY: {
+                UserDataAccess userDataAccess = new UserDataAccess(dataDirectory + "/users.csv");
+                List<User> users = userDataAccess.findAll();
+                userRepository = new InMemoryUserDataAccess(users);
+                taskRepository = new InMemoryTaskDataAccess(
+                        loadTasks(new TaskDataAccess(dataDirectory + "/tasks.csv", userDataAccess), users));
+                logRepository = new InMemoryLogDataAccess();
+                break;
+            }
+            case JDBC:
+                jdbcDatabase = new JdbcDatabase(jdbcUrl);
+                jdbcDatabase.createSchema();
+                userRepository = new JdbcUserDataAccess(jdbcDatabase);
+                taskRepository = new JdbcTaskDataAccess(jdbcDatabase);
+                logRepository = new JdbcLogDataAccess(jdbcDatabase);
+                break;
+            case OFFHEAP: {
+                UserDataAccess userDataAccess = new UserDataAccess(dataDirectory + "/users.csv");
+                TaskDataAccess taskDataAccess = new TaskDataAccess(dataDirectory + "/tasks.csv", userDataAccess);
+                LogDataAccess logDataAccess = new LogDataAccess(dataDirectory + "/logs.csv");
+                // 前回の異常終了で反映しきれなかった変更を、CSVを読む前に反映する
+                logDataAccess.recover();
+                new CsvJournal(taskDataAccess, logDataAccess, userDataAccess).recover();
+                userDataAccess.load(userDataAccess.findAll());
+                taskStore = openOffHeapTaskStore(Paths.get(dataDirectory, OFFHEAP_FILE_NAME), taskDataAccess,
+                        userDataAccess);
+                userRepository = userDataAccess;
+                taskRepository = taskStore;
+                logRepository = logFormat == LogFormat.BINARY
+                        ? openBinaryLog(dataDirectory, logDataAccess) : logDataAccess;
+                break;
+            }
+            default: {
+                UserDataAccess userDataAccess = new UserDataAccess(dataDirectory + "/users.csv");
+                TaskDataAccess taskDataAccess = new TaskDataAccess(dataDirectory + "/tasks.csv", userDataAccess);
+                LogDataAccess logDataAccess = new LogDataAccess(dataDirectory + "/logs.csv");
+                // 前回の異常終了で反映しきれなかった変更を、CSVを読む前に反映する
+                logDataAccess.recover();
+                CsvJournal recovered = new CsvJournal(taskDataAccess, logDataAccess, userDataAccess);
+                recovered.recover();
+                // ジャーナルはlogs.csvに追記するため、バイナリ形式のログとは組み合わせない
+                csvJournal = useJournal && logFormat == LogFormat.CSV ? recovered : null;
+                // ブルームフィルタは、メモリ上のテーブルを読み込まずにコードで検索したときに初めて作成する
+                csvTasks = taskDataAccess;
+                userRepository = userDataAccess;
+                if (csvJournal != null) {
+                    // コミットした変更はチェックポイントまでCSVに書き込まないため、読み出しに重ねる
+                    taskRepository = new JournaledTaskDataAccess(taskDataAccess, csvJournal);
+                    logRepository = new JournaledLogDataAccess(logDataAccess, csvJournal);
+                } else {
+                    taskRepository = taskDataAccess;
+                    logRepository = logFormat == LogFormat.BINARY
+                            ? openBinaryLog(dataDirectory, logDataAccess) : logDataAccess;
+                }
+                break;
+            }
+        }
+        journal = csvJournal;
+        csvTaskDataAccess = csvTasks;
+        database = jdbcDatabase;
+        offHeapTaskStore = taskStore;
+    }
+
+    /**
+     * tasks.csvを列ごとのテーブルとして読み込み、担当者を読み込み済みのユーザーから引き当てます。
+     * 行ごとにusers.csvを検索しないため、CSVの走査はそれぞれ1回で済みます。
+     */
+    private static List<Task> loadTasks(TaskDataAccess taskDataAccess, List<User> users) {
+        Map<Integer, User> profiles = new HashMap<>();
+        for (User user : users) {
+            profiles.put(user.getCode(), user.toProfile());
+        }
+        TaskTable table = taskDataAccess.findAllAsTable();
+        List<Task> tasks = new ArrayList<>(table.size());
+        for (int i = 0; i < table.size(); i++) {
+            tasks.add(new Task(table.getCode(i), table.getName(i), table.getStatus(i),
+                    profiles.get(table.getRepUserCode(i))));
+        }
+        return tasks;
+    }
+
+    /**
+     * ヒープ外のストアを開きます。初めて開くときはtasks.csvの内容を取り込みます。
+     */
+    private static OffHeapTaskStore openOffHeapTaskStore(Path file, TaskDataAccess taskDataAccess,
+            UserRepository userRepository) {
+        try {
+            boolean exists = Files.exists(file);
+            TaskTable tasks = exists ? null : taskDataAccess.findAllAsTable();
+            OffHeapTaskStore store = OffHeapTaskStore.map(userRepository, file, exists ? 1024 : tasks.size());
+            if (!exists) {
+                store.importFrom(tasks);
+                store.force();
+            }
+            return store;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * バイナリ形式のログを開きます。初めて開くときはlogs.csvの内容を変換して取り込みます。
+     */
+    private static BinaryLogDataAccess openBinaryLog(String dataDirectory, LogDataAccess logDataAccess) {
+        String binaryPath = dataDirectory + "/" + BINARY_LOG_FILE_NAME;
+        try {
+            if (!Files.exists(Paths.get(binaryPath))) {
+                LogFormatConverter.toBinary(logDataAccess, binaryPath);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new BinaryLogDataAccess(binaryPath);
+    }
+
+    /**
+     * システムプロパティの設定からリポジトリを組み立てます。
+     * @return 組み立てたファクトリ
+     */
+    public static DataAccessFactory fromSystemProperties() {
+        Engine engine = Engine.valueOf(System.getProperty(STORAGE_PROPERTY, "csv").toUpperCase());
+        return new DataAccessFactory(engine, System.getProperty(DATA_DIR_PROPERTY, DEFAULT_DATA_DIR),
+                System.getProperty(JDBC_URL_PROPERTY, DEFAULT_JDBC_URL), Boolean.parseBoolean(System.getProperty(CSV_JOURNAL_PROPERTY, "true")),
+                LogFormat.valueOf(System.getProperty(LOG_FORMAT_PROPERTY, "csv").toUpperCase()));
+    }
+
+    public Engine getEngine() {
+        return this.engine;
+    }
+
+    public UserRepository getUserRepository() {
+        return this.userRepository;
+    }
+
+    public TaskRepository getTaskRepository() {
+        return this.taskRepository;
+    }
+
+    public LogRepository getLogRepository() {
+        return this.logRepository;
+    }
+
+    /**
+     * CSVのタスクを取得します。ジャーナルを使う場合も、ジャーナルの変更を重ねる前のtasks.csvを返します。
+     * メモリ上のテーブルの準備やスナップショットで使います。
+     * @return tasks.csv、CSV以外の保存先ではnull
+     */
+    public TaskDataAccess getCsvTaskDataAccess() {
+        return this.csvTaskDataAccess;
+    }
+
+    /**
+     * タスクの変更とログをまとめて書き込む方法を作成します。
+     * 組み込みデータベースでは1つのトランザクションで、ジャーナルを使うCSVでは1つの作業単位で書き込みます。
+     * それ以外では順番に書き込みます。
+     *
+     * @param logRepository ログの書き込み先（非同期化したリポジトリなど）。トランザクションやジャーナルを使う場合は利用しません
+     * @return タスクの変更の書き込み方法
+     */
+    public TaskChangeWriter createTaskChangeWriter(LogRepository logRepository) {
+        return createTaskChangeWriter(taskRepository, logRepository);
+    }
+
+    /**
+     * タスクの書き込み先を指定して、タスクの変更とログをまとめて書き込む方法を作成します。
+     *
+     * @see #createTaskChangeWriter(LogRepository)
+     * @param taskRepository タスクの書き込み先（書き込みを遅延させたリポジトリなど）。トランザクションやジャーナルを使う場合は利用しません
+     * @param logRepository ログの書き込み先（非同期化したリポジトリなど）。トランザクションやジャーナルを使う場合は利用しません
+     * @return タスクの変更の書き込み方法
+     */
+    public TaskChangeWriter createTaskChangeWriter(TaskRepository taskRepository, LogRepository logRepository) {
+        if (database != null) {
+            return new JdbcTaskChangeWriter(database);
+        }
+        if (journal != null) {
+            return new JournaledTaskChangeWriter(journal);
+        }
+        return new DirectTaskChangeWriter(taskRepository, logRepository);
+    }
+
+    /**
+     * CSVへのタスクの変更とログをジャーナル経由で書き込むか判定します。
+     * @return ジャーナルを使う場合はtrue
+     */
+    public boolean usesJournal() {
+        return journal != null;
+    }
+
+    /**
+     * ジャーナルにコミット済みの変更を各CSVへ反映します。ジャーナルを使わない場合は何もしません。
+     * @throws UncheckedIOException 反映に失敗した場合（ジャーナルは残り、次回起動時に反映し直す）
+     */
+    public void checkpoint() {
+        if (journal != null) {
+            journal.checkpoint();
+        }
+    }
+
+    /**
+     * ジャーナルの変更を各CSVへ反映し、組み込みデータベースの接続プールとヒープ外のストアを閉じます。
+     */
+    @Override
+    public void close() {
+        if (journal != null) {
+            try {
+                journal.checkpoint();
+            } catch (UncheckedIOException e) {
+                // ジャーナルは残っているため、次回起動時に反映し直す
+                e.printStackTrace();
+            }
+        }
+        if (database != null) {
+            database.close();
+        }
+        if (offHeapTaskStore != null) {
+            offHeapTaskStore.close();
+        }
+    }
+}
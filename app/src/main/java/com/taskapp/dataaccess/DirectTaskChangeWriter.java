@@ -0,0 +1,40 @@
+package com.taskapp.dataaccess;
+
+import java.util.List;
+
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+
+/**
+ * タスクのリポジトリとログのリポジトリに順番に書き込みます。2つの書き込みは不可分ではありません。
+ * 書き込めなかった場合は、リポジトリがスローした{@link java.io.UncheckedIOException}をそのまま伝えます。
+ * 書き込みを遅延させるリポジトリでは、遅延させた書き込みの失敗は伝わりません。
+ */
+public class DirectTaskChangeWriter implements TaskChangeWriter {
+    private final TaskRepository taskRepository;
+
+    private final LogRepository logRepository;
+
+    public DirectTaskChangeWriter(TaskRepository taskRepository, LogRepository logRepository) {
+        this.taskRepository = taskRepository;
+        this.logRepository = logRepository;
+    }
+
+    @Override
+    public void save(Task task, Log log) {
+        taskRepository.save(task);
+        logRepository.save(log);
+    }
+
+    @Override
+    public void update(Task task, Log log) {
+        taskRepository.update(task);
+        logRepository.save(log);
+    }
+
+    @Override
+    public void writeAll(List<Task> tasks, List<Log> logs) {
+        taskRepository.updateAll(tasks);
+        logRepository.saveAll(logs);
+    }
+}
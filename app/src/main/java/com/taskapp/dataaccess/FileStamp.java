@@ -0,0 +1,31 @@
+package com.taskapp.dataaccess;
+
+import java.io.File;
+
+/**
+ * データアクセス自身が最後に書き込んだ後の、CSVのサイズと更新日時の記録です。
+ * CSVの変更を通知されたときに、自身の書き込みによる変更かを判定するために利用します。
+ */
+final class FileStamp {
+    private long length = -1;
+
+    private long modified;
+
+    /**
+     * 書き込んだ後のCSVのサイズと更新日時を記録します。
+     * @param file 書き込んだCSV
+     */
+    synchronized void record(File file) {
+        length = file.length();
+        modified = file.lastModified();
+    }
+
+    /**
+     * CSVのサイズと更新日時が記録と一致するか判定します。まだ書き込んでいない場合はfalseを返します。
+     * @param file 対象のCSV
+     * @return 一致すればtrue
+     */
+    synchronized boolean matches(File file) {
+        return length >= 0 && file.length() == length && file.lastModified() == modified;
+    }
+}
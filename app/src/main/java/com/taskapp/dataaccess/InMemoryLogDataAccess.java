@@ -0,0 +1,51 @@
+package com.taskapp.dataaccess;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.taskapp.model.Log;
+
+/**
+ * ログをメモリ上だけで保持するリポジトリです。永続化は行いません。
+ */
+public class InMemoryLogDataAccess implements LogRepository {
+    private final List<Log> logs = new ArrayList<>();
+
+    @Override
+    public synchronized void save(Log log) {
+        logs.add(log);
+    }
+
+    @Override
+    public synchronized void saveAll(List<Log> logs) {
+        this.logs.addAll(logs);
+    }
+
+    @Override
+    public synchronized List<Log> findAll() {
+        return new ArrayList<>(logs);
+    }
+
+    @Override
+    public synchronized List<Log> findByTaskCode(int taskCode) {
+        List<Log> result = new ArrayList<>();
+        for (Log log : logs) {
+            if (log.getTaskCode() == taskCode) {
+                result.add(log);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized List<Log> findSince(LocalDate from) {
+        List<Log> result = new ArrayList<>();
+        for (Log log : logs) {
+            if (!log.getChangeDate().isBefore(from)) {
+                result.add(log);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,85 @@
+package com.taskapp.dataaccess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.taskapp.model.Task;
+
+/**
+ * タスクをメモリ上だけで保持するリポジトリです。永続化は行いません。
+ * 取得順は登録順です。
+ */
+public class InMemoryTaskDataAccess implements TaskRepository {
+    private final Map<Integer, Task> tasks = new LinkedHashMap<>();
+
+    /** 担当者ごとの索引（行の位置は使わない） */
+    private final TaskIndex index = new TaskIndex();
+
+    /** タスク名の転置索引 */
+    private final TaskNameIndex nameIndex = new TaskNameIndex();
+
+    public InMemoryTaskDataAccess() {
+    }
+
+    /**
+     * @param tasks 初期データ
+     */
+    public InMemoryTaskDataAccess(Collection<Task> tasks) {
+        for (Task task : tasks) {
+            this.tasks.put(task.getCode(), task);
+            index(task);
+        }
+    }
+
+    @Override
+    public synchronized List<Task> findAll() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public synchronized void save(Task task) {
+        tasks.put(task.getCode(), task);
+        index(task);
+    }
+
+    @Override
+    public synchronized Task findByCode(int code) {
+        return tasks.get(code);
+    }
+
+    @Override
+    public synchronized void update(Task updateTask) {
+        tasks.put(updateTask.getCode(), updateTask);
+        index(updateTask);
+    }
+
+    @Override
+    public synchronized List<Task> findByRepUserCode(int repUserCode) {
+        int[] codes = index.codesOf(repUserCode);
+        List<Task> result = new ArrayList<>(codes.length);
+        for (int code : codes) {
+            result.add(tasks.get(code));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized List<Task> searchByName(String query, int limit) {
+        int[] codes = nameIndex.search(query, limit);
+        List<Task> result = new ArrayList<>(codes.length);
+        for (int code : codes) {
+            result.add(tasks.get(code));
+        }
+        return result;
+    }
+
+    private void index(Task task) {
+        nameIndex.put(task.getCode(), task.getName());
+        if (task.getRepUser() != null) {
+            index.put(task.getCode(), task.getRepUser().getCode(), 0);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.taskapp.dataaccess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.taskapp.model.User;
+
+/**
+ * ユーザーをメモリ上だけで保持するリポジトリです。永続化は行いません。
+ */
+public class InMemoryUserDataAccess implements UserRepository {
+    private final Map<Integer, User> users = new ConcurrentHashMap<>();
+
+    private final PasswordVerifier passwordVerifier = PasswordVerifier.getDefault();
+
+    public InMemoryUserDataAccess() {
+    }
+
+    /**
+     * @param users 初期データ
+     */
+    public InMemoryUserDataAccess(Collection<User> users) {
+        for (User user : users) {
+            this.users.put(user.getCode(), user);
+        }
+    }
+
+    @Override
+    public List<User> findAll() {
+        return new ArrayList<>(users.values());
+    }
+
+    @Override
+    public User findByEmailAndPassword(String email, String password) {
+        for (User user : users.values()) {
+            if (user.getEmail().equals(email)) {
+                return passwordVerifier.verify(email, password, user.getPassword()) ? user : null;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public User findByCode(int code) {
+        return users.get(code);
+    }
+}
@@ -0,0 +1,141 @@
+package com.taskapp.dataaccess;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 組み込みデータベース（H2のファイルデータベース）への接続とスキーマを管理します。
+ * 接続は小さなプールで使い回し、接続ごとにプリペアドステートメントをキャッシュします。
+ * JDBCドライバは実行時のクラスパスから読み込まれます。
+ */
+public class JdbcDatabase implements AutoCloseable {
+    /** 接続プールの既定の上限数 */
+    public static final int DEFAULT_POOL_SIZE = 4;
+
+    /** 接続が空くのを待つ最大時間（秒） */
+    private static final long ACQUIRE_TIMEOUT_SECONDS = 30;
+
+    private final String url;
+
+    private final int poolSize;
+
+    private final BlockingQueue<PooledConnection> idle;
+
+    private final AtomicInteger created = new AtomicInteger();
+
+    /**
+     * @param url JDBC URL（例: jdbc:h2:./app/data/taskapp）
+     */
+    public JdbcDatabase(String url) {
+        this(url, DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * @param url JDBC URL
+     * @param poolSize 接続プールの上限数
+     */
+    public JdbcDatabase(String url, int poolSize) {
+        this.url = url;
+        this.poolSize = poolSize;
+        this.idle = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    /**
+     * プールから接続を借ります。使い終わったら{@link PooledConnection#close()}でプールに返してください。
+     * @return 接続
+     * @throws SQLException 接続できない場合、または空きを待つ間にタイムアウトした場合
+     */
+    public PooledConnection acquire() throws SQLException {
+        PooledConnection connection = idle.poll();
+        if (connection != null) {
+            return connection;
+        }
+        // 上限に達するまでは新しく接続を作る
+        if (created.incrementAndGet() <= poolSize) {
+            try {
+                return new PooledConnection(this, DriverManager.getConnection(url));
+            } catch (SQLException e) {
+                created.decrementAndGet();
+                throw e;
+            }
+        }
+        created.decrementAndGet();
+        try {
+            connection = idle.poll(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("接続の取得が中断されました", e);
+        }
+        if (connection == null) {
+            throw new SQLException("接続プールの空きを待つ間にタイムアウトしました");
+        }
+        return connection;
+    }
+
+    /**
+     * 接続をプールに返します。トランザクション中のまま返された場合はロールバックします。
+     * @param connection 返す接続
+     */
+    void release(PooledConnection connection) {
+        try {
+            Connection raw = connection.getConnection();
+            if (!raw.getAutoCommit()) {
+                raw.rollback();
+                raw.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            connection.closePhysically();
+            created.decrementAndGet();
+            return;
+        }
+        if (!idle.offer(connection)) {
+            connection.closePhysically();
+            created.decrementAndGet();
+        }
+    }
+
+    /**
+     * テーブルとインデックスが存在しなければ作成します。
+     */
+    public void createSchema() {
+        try (PooledConnection connection = acquire();
+                Statement statement = connection.getConnection().createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS users ("
+                    + "code INT PRIMARY KEY, name VARCHAR(255) NOT NULL, "
+                    + "email VARCHAR(255) NOT NULL, password VARCHAR(255) NOT NULL)");
+            statement.execute("CREATE TABLE IF NOT EXISTS tasks ("
+                    + "code INT PRIMARY KEY, name VARCHAR(255) NOT NULL, "
+                    + "status TINYINT NOT NULL, rep_user_code INT NOT NULL)");
+            statement.execute("CREATE TABLE IF NOT EXISTS logs ("
+                    + "id BIGINT AUTO_INCREMENT PRIMARY KEY, task_code INT NOT NULL, "
+                    + "change_user_code INT NOT NULL, status TINYINT NOT NULL, change_date DATE NOT NULL)");
+            // タスクコードは主キーのインデックスを使う
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_users_email ON users (email)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_tasks_rep_user_code ON tasks (rep_user_code)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_tasks_status ON tasks (status)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_logs_task_code ON logs (task_code)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_logs_change_date ON logs (change_date)");
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * プールにある接続をすべて閉じます。
+     */
+    @Override
+    public void close() {
+        PooledConnection connection;
+        while ((connection = idle.poll()) != null) {
+            connection.closePhysically();
+            created.decrementAndGet();
+        }
+    }
+}
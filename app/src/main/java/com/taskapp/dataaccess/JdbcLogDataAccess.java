@@ -0,0 +1,100 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.taskapp.model.Log;
+
+/**
+ * ログを組み込みデータベースに保存するリポジトリです。記録順は自動採番のIDで保持します。
+ */
+public class JdbcLogDataAccess implements LogRepository {
+    static final String INSERT = "INSERT INTO logs (task_code, change_user_code, status, change_date) "
+            + "VALUES (?, ?, ?, ?)";
+
+    private static final String SELECT = "SELECT task_code, change_user_code, status, change_date FROM logs";
+
+    private final JdbcDatabase database;
+
+    public JdbcLogDataAccess(JdbcDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public void save(Log log) {
+        saveAll(List.of(log));
+    }
+
+    @Override
+    public void saveAll(List<Log> logs) {
+        try (PooledConnection connection = database.acquire()) {
+            PreparedStatement statement = connection.prepare(INSERT);
+            for (Log log : logs) {
+                bind(statement, log);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        } catch (SQLException e) {
+            throw new UncheckedIOException(new IOException("ログを保存できませんでした", e));
+        }
+    }
+
+    @Override
+    public List<Log> findAll() {
+        return query(SELECT + " ORDER BY id", null);
+    }
+
+    @Override
+    public List<Log> findByTaskCode(int taskCode) {
+        return query(SELECT + " WHERE task_code = ? ORDER BY id", statement -> statement.setInt(1, taskCode));
+    }
+
+    @Override
+    public List<Log> findSince(LocalDate from) {
+        return query(SELECT + " WHERE change_date >= ? ORDER BY id",
+                statement -> statement.setDate(1, Date.valueOf(from)));
+    }
+
+    /**
+     * INSERT文にログの値を設定します。
+     * @param statement INSERT文
+     * @param log 設定するログ
+     * @throws SQLException 設定できない場合
+     */
+    static void bind(PreparedStatement statement, Log log) throws SQLException {
+        statement.setInt(1, log.getTaskCode());
+        statement.setInt(2, log.getChangeUserCode());
+        statement.setInt(3, log.getStatus());
+        statement.setDate(4, Date.valueOf(log.getChangeDate()));
+    }
+
+    private List<Log> query(String sql, ParameterSetter setter) {
+        List<Log> logs = new ArrayList<>();
+        try (PooledConnection connection = database.acquire()) {
+            PreparedStatement statement = connection.prepare(sql);
+            if (setter != null) {
+                setter.set(statement);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    logs.add(new Log(resultSet.getInt("task_code"), resultSet.getInt("change_user_code"),
+                            resultSet.getInt("status"), resultSet.getDate("change_date").toLocalDate()));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return logs;
+    }
+
+    private interface ParameterSetter {
+        void set(PreparedStatement statement) throws SQLException;
+    }
+}
@@ -0,0 +1,64 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+
+/**
+ * タスクの変更とログの追加を、組み込みデータベースの1つのトランザクションで書き込みます。
+ * ステータス変更は主キーによるUPDATE 1回とINSERT 1回になります。
+ * 書き込めなかった場合はロールバックし、{@link UncheckedIOException}をスローします。
+ */
+public class JdbcTaskChangeWriter implements TaskChangeWriter {
+    private final JdbcDatabase database;
+
+    public JdbcTaskChangeWriter(JdbcDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public void save(Task task, Log log) {
+        write(List.of(task), List.of(log), false);
+    }
+
+    @Override
+    public void update(Task task, Log log) {
+        write(List.of(task), List.of(log), true);
+    }
+
+    @Override
+    public void writeAll(List<Task> tasks, List<Log> logs) {
+        write(tasks, logs, true);
+    }
+
+    private void write(List<Task> tasks, List<Log> logs, boolean update) {
+        try (PooledConnection pooled = database.acquire()) {
+            Connection connection = pooled.getConnection();
+            connection.setAutoCommit(false);
+            for (Task task : tasks) {
+                if (update) {
+                    JdbcTaskDataAccess.upsert(pooled, task);
+                } else {
+                    JdbcTaskDataAccess.insert(pooled, task);
+                }
+            }
+            PreparedStatement statement = pooled.prepare(JdbcLogDataAccess.INSERT);
+            for (Log log : logs) {
+                JdbcLogDataAccess.bind(statement, log);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            connection.commit();
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            // コミットされなかった変更は接続をプールに返すときにロールバックされている
+            throw new UncheckedIOException(new IOException("タスクの変更を書き込めませんでした", e));
+        }
+    }
+}
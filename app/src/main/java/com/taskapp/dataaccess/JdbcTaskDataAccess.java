@@ -0,0 +1,198 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * タスクを組み込みデータベースに保存するリポジトリです。
+ * 担当者はusersテーブルとの結合で1回の問い合わせで取得します。
+ */
+public class JdbcTaskDataAccess implements TaskRepository {
+    private static final String SELECT = "SELECT t.code, t.name, t.status, "
+            + "u.code AS user_code, u.name AS user_name, u.email "
+            + "FROM tasks t LEFT JOIN users u ON u.code = t.rep_user_code";
+
+    static final String INSERT = "INSERT INTO tasks (code, name, status, rep_user_code) VALUES (?, ?, ?, ?)";
+
+    static final String UPDATE = "UPDATE tasks SET name = ?, status = ?, rep_user_code = ? WHERE code = ?";
+
+    private final JdbcDatabase database;
+
+    public JdbcTaskDataAccess(JdbcDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public List<Task> findAll() {
+        List<Task> tasks = new ArrayList<>();
+        try (PooledConnection connection = database.acquire()) {
+            PreparedStatement statement = connection.prepare(SELECT + " ORDER BY t.code");
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    tasks.add(toTask(resultSet));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return tasks;
+    }
+
+    /**
+     * 担当者のタスクを、担当者コードの索引を使って取得します。
+     * @param repUserCode 担当者コード
+     * @return 担当者のタスクのリスト
+     */
+    @Override
+    public List<Task> findByRepUserCode(int repUserCode) {
+        List<Task> tasks = new ArrayList<>();
+        try (PooledConnection connection = database.acquire()) {
+            PreparedStatement statement = connection.prepare(SELECT + " WHERE t.rep_user_code = ? ORDER BY t.code");
+            statement.setInt(1, repUserCode);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    tasks.add(toTask(resultSet));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return tasks;
+    }
+
+    /**
+     * タスク名に検索語を含むタスクを、LIKEで取得します。
+     * 英字の大文字・小文字は区別しませんが、全角・半角は区別します。
+     * @param query 検索語
+     * @param limit 最大の件数
+     * @return 該当したタスクのリスト（タスクコードの昇順）
+     */
+    @Override
+    public List<Task> searchByName(String query, int limit) {
+        List<Task> tasks = new ArrayList<>();
+        if (query.isEmpty() || limit <= 0) {
+            return tasks;
+        }
+        String pattern = "%" + query.toLowerCase(Locale.ROOT).replace("\\", "\\\\").replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        try (PooledConnection connection = database.acquire()) {
+            PreparedStatement statement = connection.prepare(
+                    SELECT + " WHERE LOWER(t.name) LIKE ? ESCAPE '\\' ORDER BY t.code LIMIT ?");
+            statement.setString(1, pattern);
+            statement.setInt(2, limit);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    tasks.add(toTask(resultSet));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return tasks;
+    }
+
+    @Override
+    public void save(Task task) {
+        try (PooledConnection connection = database.acquire()) {
+            insert(connection, task);
+        } catch (SQLException e) {
+            throw new UncheckedIOException(new IOException("タスクを保存できませんでした", e));
+        }
+    }
+
+    @Override
+    public Task findByCode(int code) {
+        try (PooledConnection connection = database.acquire()) {
+            PreparedStatement statement = connection.prepare(SELECT + " WHERE t.code = ?");
+            statement.setInt(1, code);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? toTask(resultSet) : null;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    @Override
+    public void update(Task updateTask) {
+        try (PooledConnection connection = database.acquire()) {
+            upsert(connection, updateTask);
+        } catch (SQLException e) {
+            throw new UncheckedIOException(new IOException("タスクを更新できませんでした", e));
+        }
+    }
+
+    /**
+     * 複数のタスクを1つのトランザクションで更新します。存在しないタスクは追加します。
+     * @param updateTasks 更新するタスク
+     */
+    @Override
+    public void updateAll(Collection<Task> updateTasks) {
+        try (PooledConnection pooled = database.acquire()) {
+            Connection connection = pooled.getConnection();
+            connection.setAutoCommit(false);
+            for (Task task : updateTasks) {
+                upsert(pooled, task);
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            // コミットされなかった変更は接続をプールに返すときにロールバックされる
+            throw new UncheckedIOException(new IOException("タスクを更新できませんでした", e));
+        }
+    }
+
+    /**
+     * タスクを1件追加します。
+     * @param connection 利用する接続
+     * @param task 追加するタスク
+     * @throws SQLException 追加できない場合
+     */
+    static void insert(PooledConnection connection, Task task) throws SQLException {
+        PreparedStatement statement = connection.prepare(INSERT);
+        statement.setInt(1, task.getCode());
+        statement.setString(2, task.getName());
+        statement.setInt(3, task.getStatus());
+        statement.setInt(4, task.getRepUser().getCode());
+        statement.executeUpdate();
+    }
+
+    /**
+     * 主キーでタスクを1件更新します。CSV実装と同様に、存在しないタスクは追加します。
+     * @param connection 利用する接続
+     * @param task 更新するタスク
+     * @throws SQLException 更新できない場合
+     */
+    static void upsert(PooledConnection connection, Task task) throws SQLException {
+        PreparedStatement statement = connection.prepare(UPDATE);
+        statement.setString(1, task.getName());
+        statement.setInt(2, task.getStatus());
+        statement.setInt(3, task.getRepUser().getCode());
+        statement.setInt(4, task.getCode());
+        if (statement.executeUpdate() == 0) {
+            insert(connection, task);
+        }
+    }
+
+    private Task toTask(ResultSet resultSet) throws SQLException {
+        User repUser = null;
+        int userCode = resultSet.getInt("user_code");
+        if (!resultSet.wasNull()) {
+            // 担当者にはパスワードを持たせない
+            repUser = new User(userCode, resultSet.getString("user_name"), resultSet.getString("email"), null);
+        }
+        return new Task(resultSet.getInt("code"), resultSet.getString("name"), resultSet.getInt("status"), repUser);
+    }
+}
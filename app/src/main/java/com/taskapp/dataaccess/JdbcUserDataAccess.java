@@ -0,0 +1,78 @@
+package com.taskapp.dataaccess;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.taskapp.model.User;
+
+/**
+ * ユーザーを組み込みデータベースに保存するリポジトリです。
+ */
+public class JdbcUserDataAccess implements UserRepository {
+    private static final String SELECT = "SELECT code, name, email, password FROM users";
+
+    private final JdbcDatabase database;
+
+    private final PasswordVerifier passwordVerifier = PasswordVerifier.getDefault();
+
+    public JdbcUserDataAccess(JdbcDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public List<User> findAll() {
+        List<User> users = new ArrayList<>();
+        try (PooledConnection connection = database.acquire()) {
+            PreparedStatement statement = connection.prepare(SELECT + " ORDER BY code");
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    users.add(toUser(resultSet));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return users;
+    }
+
+    @Override
+    public User findByEmailAndPassword(String email, String password) {
+        try (PooledConnection connection = database.acquire()) {
+            // ハッシュにはソルトが含まれるため、メールアドレスで探してから照合する
+            PreparedStatement statement = connection.prepare(SELECT + " WHERE email = ?");
+            statement.setString(1, email);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                User user = toUser(resultSet);
+                return passwordVerifier.verify(email, password, user.getPassword()) ? user : null;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    @Override
+    public User findByCode(int code) {
+        try (PooledConnection connection = database.acquire()) {
+            PreparedStatement statement = connection.prepare(SELECT + " WHERE code = ?");
+            statement.setInt(1, code);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? toUser(resultSet) : null;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    private User toUser(ResultSet resultSet) throws SQLException {
+        return new User(resultSet.getInt("code"), resultSet.getString("name"), resultSet.getString("email"),
+                resultSet.getString("password"));
+    }
+}
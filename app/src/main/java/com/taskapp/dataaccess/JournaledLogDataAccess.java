@@ -0,0 +1,77 @@
+package com.taskapp.dataaccess;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.taskapp.model.Log;
+
+/**
+ * ジャーナルにコミット済みで、まだlogs.csvに反映していないログを重ねて読み出すリポジトリです。
+ * ログはチェックポイントでlogs.csvの末尾に追記されるため、検索結果でもlogs.csvのログの後ろに並べます。
+ *
+ * @see JournaledTaskDataAccess
+ */
+public class JournaledLogDataAccess implements LogRepository {
+    private final LogDataAccess delegate;
+
+    private final CsvJournal journal;
+
+    /**
+     * @param delegate logs.csv
+     * @param journal ログをコミットするジャーナル
+     */
+    public JournaledLogDataAccess(LogDataAccess delegate, CsvJournal journal) {
+        this.delegate = delegate;
+        this.journal = journal;
+    }
+
+    @Override
+    public void save(Log log) {
+        saveAll(List.of(log));
+    }
+
+    @Override
+    public void saveAll(List<Log> logs) {
+        CsvUnitOfWork unitOfWork = journal.begin();
+        for (Log log : logs) {
+            unitOfWork.registerLog(log);
+        }
+        unitOfWork.commit();
+    }
+
+    @Override
+    public List<Log> findAll() {
+        synchronized (journal) {
+            List<Log> logs = new ArrayList<>(delegate.findAll());
+            logs.addAll(journal.pendingLogs());
+            return logs;
+        }
+    }
+
+    @Override
+    public List<Log> findByTaskCode(int taskCode) {
+        synchronized (journal) {
+            List<Log> logs = new ArrayList<>(delegate.findByTaskCode(taskCode));
+            for (Log log : journal.pendingLogs()) {
+                if (log.getTaskCode() == taskCode) {
+                    logs.add(log);
+                }
+            }
+            return logs;
+        }
+    }
+
+    @Override
+    public List<Log> findSince(LocalDate from) {
+        synchronized (journal) {
+            List<Log> logs = new ArrayList<>(delegate.findSince(from));
+            for (Log log : journal.pendingLogs()) {
+                if (!log.getChangeDate().isBefore(from)) {
+                    logs.add(log);
+                }
+            }
+            return logs;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.taskapp.dataaccess;
+
+import java.util.List;
+
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+
+/**
+ * タスクの変更とログを、{@link CsvUnitOfWork}で1つの作業単位としてCSVに書き込みます。
+ */
+public class JournaledTaskChangeWriter implements TaskChangeWriter {
+    private final CsvJournal journal;
+
+    public JournaledTaskChangeWriter(CsvJournal journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public void save(Task task, Log log) {
+        CsvUnitOfWork unitOfWork = journal.begin();
+        unitOfWork.registerNew(task);
+        unitOfWork.registerLog(log);
+        unitOfWork.commit();
+    }
+
+    @Override
+    public void update(Task task, Log log) {
+        CsvUnitOfWork unitOfWork = journal.begin();
+        unitOfWork.registerDirty(task);
+        unitOfWork.registerLog(log);
+        unitOfWork.commit();
+    }
+
+    @Override
+    public void writeAll(List<Task> tasks, List<Log> logs) {
+        CsvUnitOfWork unitOfWork = journal.begin();
+        for (Task task : tasks) {
+            unitOfWork.registerDirty(task);
+        }
+        for (Log log : logs) {
+            unitOfWork.registerLog(log);
+        }
+        unitOfWork.commit();
+    }
+}
@@ -0,0 +1,147 @@
+package com.taskapp.dataaccess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.taskapp.model.Task;
+
+/**
+ * ジャーナルにコミット済みで、まだtasks.csvに反映していないタスクを重ねて読み出すリポジトリです。
+ * <p>
+ * {@link CsvJournal}はコミットした変更をチェックポイントまでtasks.csvに書き込まないため、
+ * 検索はtasks.csvの内容にジャーナルの変更を重ねた結果を返します。
+ * 重ねている間にチェックポイントが走らないよう、読み出しはジャーナルのロックを取って行います。
+ * 書き込みもジャーナルにコミットします。
+ */
+public class JournaledTaskDataAccess implements TaskRepository {
+    private final TaskDataAccess delegate;
+
+    private final CsvJournal journal;
+
+    /**
+     * @param delegate tasks.csv
+     * @param journal 変更をコミットするジャーナル
+     */
+    public JournaledTaskDataAccess(TaskDataAccess delegate, CsvJournal journal) {
+        this.delegate = delegate;
+        this.journal = journal;
+    }
+
+    @Override
+    public List<Task> findAll() {
+        synchronized (journal) {
+            Map<Integer, Task> overlay = journal.pendingTasks();
+            if (overlay.isEmpty()) {
+                return delegate.findAll();
+            }
+            List<Task> tasks = new ArrayList<>(delegate.findAll());
+            for (int i = 0; i < tasks.size(); i++) {
+                Task task = overlay.remove(tasks.get(i).getCode());
+                if (task != null) {
+                    tasks.set(i, task);
+                }
+            }
+            // まだtasks.csvに無いタスクは末尾に追加する（チェックポイントでの書き換えと同じ）
+            tasks.addAll(overlay.values());
+            return tasks;
+        }
+    }
+
+    @Override
+    public Task findByCode(int code) {
+        synchronized (journal) {
+            Task task = journal.pendingTasks().get(code);
+            return task != null ? task : delegate.findByCode(code);
+        }
+    }
+
+    @Override
+    public List<Task> findByRepUserCode(int repUserCode) {
+        synchronized (journal) {
+            Map<Integer, Task> overlay = journal.pendingTasks();
+            if (overlay.isEmpty()) {
+                return delegate.findByRepUserCode(repUserCode);
+            }
+            List<Task> tasks = new ArrayList<>();
+            for (Task task : delegate.findByRepUserCode(repUserCode)) {
+                // 担当者を変更したタスクは、重ねる側で改めて絞り込む
+                if (!overlay.containsKey(task.getCode())) {
+                    tasks.add(task);
+                }
+            }
+            for (Task task : overlay.values()) {
+                if (task.getRepUser() != null && task.getRepUser().getCode() == repUserCode) {
+                    tasks.add(task);
+                }
+            }
+            return tasks;
+        }
+    }
+
+    @Override
+    public List<Task> searchByName(String query, int limit) {
+        synchronized (journal) {
+            Map<Integer, Task> overlay = journal.pendingTasks();
+            if (overlay.isEmpty()) {
+                return delegate.searchByName(query, limit);
+            }
+            // 重ねる側で置き換えるタスクの分だけ多めに索引から取得する
+            List<Task> tasks = new ArrayList<>();
+            for (Task task : delegate.searchByName(query, limit + overlay.size())) {
+                if (!overlay.containsKey(task.getCode())) {
+                    tasks.add(task);
+                }
+            }
+            String normalized = TaskNameIndex.normalize(query);
+            if (!normalized.isEmpty()) {
+                for (Task task : overlay.values()) {
+                    if (TaskNameIndex.normalize(task.getName()).contains(normalized)) {
+                        tasks.add(task);
+                    }
+                }
+            }
+            tasks.sort(Comparator.comparingInt(Task::getCode));
+            return tasks.size() > limit ? new ArrayList<>(tasks.subList(0, Math.max(limit, 0))) : tasks;
+        }
+    }
+
+    @Override
+    public TaskTable findAllAsTable() {
+        synchronized (journal) {
+            if (journal.pendingTasks().isEmpty()) {
+                return delegate.findAllAsTable();
+            }
+            return TaskTable.of(findAll());
+        }
+    }
+
+    @Override
+    public void save(Task task) {
+        CsvUnitOfWork unitOfWork = journal.begin();
+        unitOfWork.registerNew(task);
+        unitOfWork.commit();
+    }
+
+    @Override
+    public void update(Task updateTask) {
+        CsvUnitOfWork unitOfWork = journal.begin();
+        unitOfWork.registerDirty(updateTask);
+        unitOfWork.commit();
+    }
+
+    /**
+     * 複数のタスクを1つの作業単位としてジャーナルにコミットします。
+     * @param updateTasks 更新するタスク（存在しないタスクは追加される）
+     */
+    @Override
+    public void updateAll(Collection<Task> updateTasks) {
+        CsvUnitOfWork unitOfWork = journal.begin();
+        for (Task task : updateTasks) {
+            unitOfWork.registerDirty(task);
+        }
+        unitOfWork.commit();
+    }
+}
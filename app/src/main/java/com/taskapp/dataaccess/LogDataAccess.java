@@ -1,17 +1,44 @@
 package com.taskapp.dataaccess;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import com.taskapp.model.Log;
 
-public class LogDataAccess {
+public class LogDataAccess implements LogRepository {
+    private static final String HEADER = "Task_Code,Change_User_Code,Status,Change_Date";
+
+    /** アクティブセグメントの既定の上限サイズ（バイト） */
+    public static final long DEFAULT_MAX_SEGMENT_BYTES = 1024 * 1024;
+
     private final String filePath;
 
+    private final long maxSegmentBytes;
+
+    private final boolean rotateMonthly;
 
     public LogDataAccess() {
         filePath = "app/src/main/resources/logs.csv";
+        maxSegmentBytes = DEFAULT_MAX_SEGMENT_BYTES;
+        rotateMonthly = false;
     }
 
     /**
@@ -19,37 +46,414 @@ public class LogDataAccess {
      * @param filePath
      */
     public LogDataAccess(String filePath) {
+        this(filePath, DEFAULT_MAX_SEGMENT_BYTES, false);
+    }
+
+    /**
+     * セグメントのローテーション条件を指定してインスタンスを作成します。
+     * @param filePath アクティブセグメントのファイルパス
+     * @param maxSegmentBytes アクティブセグメントがこのサイズを超えたらローテーションする
+     * @param rotateMonthly trueの場合、月が変わった時点でもローテーションする
+     */
+    public LogDataAccess(String filePath, long maxSegmentBytes, boolean rotateMonthly) {
         this.filePath = filePath;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.rotateMonthly = rotateMonthly;
     }
 
     /**
      * ログをCSVファイルに保存します。
+     * 必要に応じて、書き込む前にアクティブセグメントをローテーションします。
      *
+     * @see #rotateIfNeeded(LocalDate)
      * @param log 保存するログ
      */
     public void save(Log log) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath, true))) {
-            // ログ情報をCSVフォーマットで書き込む
-            writer.write(log.getTaskCode() + "," + log.getStatus() + "," + log.getChangeUserCode() + "," + log.getChangeDate());
-            writer.newLine();
+        saveAll(List.of(log));
+    }
+
+    /**
+     * 複数のログを1回のファイルオープンでまとめてCSVファイルに保存します。
+     *
+     * @see #save(Log)
+     * @param logs 保存するログ（記録順）
+     * @throws UncheckedIOException 書き込めなかった場合
+     */
+    public void saveAll(List<Log> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        rotateIfNeeded(logs.get(0).getChangeDate());
+        try {
+            append(logs);
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * アクティブセグメントのファイルパスを取得します。
+     * @return ファイルパス
+     */
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * ローテーションせずにアクティブセグメントへログを追記します。
+     * @param logs 追記するログ
+     * @throws IOException 書き込みに失敗した場合
+     */
+    void append(List<Log> logs) throws IOException {
+        boolean needsNewLine = !endsWithNewLine(new File(filePath));
+        try (CsvWriter writer = CsvWriter.open(filePath, true)) {
+            // 最終行が改行で終わっていない場合は、行が連結されないように改行を補う
+            if (needsNewLine) {
+                writer.newLine();
+            }
+            for (Log log : logs) {
+                writer.write(createLine(log));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * アクティブセグメントの現在のサイズを取得します。
+     * @return サイズ（バイト）
+     */
+    long activeLength() {
+        return new File(filePath).length();
+    }
+
+    /**
+     * アクティブセグメントを指定したサイズに切り詰めます。途中まで書き込まれたログを取り消すために利用します。
+     * @param length 切り詰めた後のサイズ（バイト）
+     * @throws IOException 切り詰めに失敗した場合
+     */
+    void truncateActive(long length) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(filePath, "rw")) {
+            if (raf.length() > length) {
+                raf.setLength(length);
+            }
         }
     }
 
     /**
      * すべてのログを取得します。
+     * ローテーション済みのセグメントを古い順に読み、最後にアクティブセグメントを読みます。
      *
      * @return すべてのログのリスト
      */
-    // public List<Log> findAll() {
-    //     try () {
+    public List<Log> findAll() {
+        List<Log> logs = new ArrayList<>();
+        forEach(logs::add);
+        return logs;
+    }
 
-    //     } catch (IOException e) {
-    //         e.printStackTrace();
-    //     }
-    //     return null;
-    // }
+    /**
+     * すべてのログを記録順に1件ずつ処理します。全件をリストに読み込まずに処理できます。
+     *
+     * @param action ログごとの処理
+     */
+    public void forEach(Consumer<Log> action) {
+        for (LogSegment segment : findSegments()) {
+            readSegment(segment, action);
+        }
+        readActive(action);
+    }
+
+    /**
+     * 指定したタスクコードのログを取得します。
+     * タスクコードの範囲外のセグメントは展開せずに読み飛ばします。
+     *
+     * @param taskCode タスクコード
+     * @return 該当するログのリスト
+     */
+    public List<Log> findByTaskCode(int taskCode) {
+        List<Log> logs = new ArrayList<>();
+        for (LogSegment segment : findSegments()) {
+            if (segment.mayContainTaskCode(taskCode)) {
+                readSegment(segment, logs::add);
+            }
+        }
+        readActive(logs::add);
+        logs.removeIf(log -> log.getTaskCode() != taskCode);
+        return logs;
+    }
+
+    /**
+     * 指定した日付以降のログを記録順に取得します。
+     * 指定日より前に閉じられたセグメントは展開せずに読み飛ばします。
+     *
+     * @param from 検索開始日
+     * @return 該当するログのリスト
+     */
+    public List<Log> findSince(LocalDate from) {
+        List<Log> logs = new ArrayList<>();
+        for (LogSegment segment : findSegments()) {
+            if (segment.mayContainSince(from)) {
+                readSegment(segment, logs::add);
+            }
+        }
+        readActive(logs::add);
+        logs.removeIf(log -> log.getChangeDate().isBefore(from));
+        return logs;
+    }
+
+    /**
+     * ローテーション済みのセグメント情報を古い順に取得します。
+     *
+     * @return セグメント情報のリスト
+     */
+    public List<LogSegment> findSegments() {
+        List<LogSegment> segments = new ArrayList<>();
+        File manifest = new File(manifestPath());
+        if (!manifest.exists()) {
+            return segments;
+        }
+        try (CsvReader reader = CsvReader.open(manifest.getPath())) {
+            while (reader.next()) {
+                LogSegment segment = LogSegment.parse(reader.line());
+                if (segment != null) {
+                    segments.add(segment);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return segments;
+    }
+
+    /**
+     * アクティブセグメントがローテーション条件を満たしていれば、
+     * gzip圧縮したセグメントファイルに退避して空のアクティブセグメントを作り直します。
+     * セグメントファイルを書き込んでから、マニフェストを一時ファイル経由で置き換えてセグメントを登録し、
+     * 最後にアクティブセグメントを空にします。マニフェストを置き換えた後に中断された場合は、
+     * 次回起動時の{@link #recover()}でアクティブセグメントを空に戻します。
+     *
+     * @param nextDate 次に書き込むログの日付
+     */
+    void rotateIfNeeded(LocalDate nextDate) {
+        File active = new File(filePath);
+        if (!active.exists()) {
+            return;
+        }
+        boolean full = active.length() >= maxSegmentBytes;
+        if (!full && !(rotateMonthly && monthChanged(nextDate))) {
+            return;
+        }
+
+        List<Log> logs = new ArrayList<>();
+        readActive(logs::add);
+        if (logs.isEmpty()) {
+            return;
+        }
+
+        // セグメントの概要（日付とタスクコードの範囲）を集計する
+        LocalDate minDate = logs.get(0).getChangeDate();
+        LocalDate maxDate = minDate;
+        int minTaskCode = Integer.MAX_VALUE;
+        int maxTaskCode = Integer.MIN_VALUE;
+        for (Log log : logs) {
+            if (log.getChangeDate().isBefore(minDate)) minDate = log.getChangeDate();
+            if (log.getChangeDate().isAfter(maxDate)) maxDate = log.getChangeDate();
+            minTaskCode = Math.min(minTaskCode, log.getTaskCode());
+            maxTaskCode = Math.max(maxTaskCode, log.getTaskCode());
+        }
+
+        String fileName = segmentFileName(findSegments().size() + 1);
+        File segmentFile = new File(active.getParentFile(), fileName);
+        File tmpFile = new File(active.getParentFile(), fileName + ".tmp");
+        try {
+            // 一時ファイルに圧縮してからリネームし、中途半端なセグメントを残さない
+            // マニフェストに登録されていないセグメントファイルは読まれず、次のローテーションで上書きされる
+            try (FileOutputStream file = new FileOutputStream(tmpFile);
+                    GZIPOutputStream out = new GZIPOutputStream(file)) {
+                Files.copy(active.toPath(), out);
+                out.finish();
+                file.getFD().sync();
+            }
+            Files.move(tmpFile.toPath(), segmentFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+            // マニフェストの置き換えでセグメントが確定する
+            LogSegment segment = new LogSegment(fileName, minDate, maxDate, minTaskCode, maxTaskCode, logs.size());
+            addToManifest(segment);
+
+            // アクティブセグメントをヘッダーのみに戻す
+            try (CsvWriter writer = CsvWriter.open(filePath, false)) {
+                writer.write(HEADER);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * マニフェストにセグメントを追加します。追加した内容を一時ファイルに書き込んでから置き換えるため、
+     * 中断されてもマニフェストは追加の前か後のどちらかの状態になります。
+     */
+    private void addToManifest(LogSegment segment) throws IOException {
+        Path manifest = Paths.get(manifestPath());
+        Path tmpFile = Paths.get(manifestPath() + ".tmp");
+        List<String> lines = Files.exists(manifest) ? Files.readAllLines(manifest) : new ArrayList<>();
+        try (CsvWriter writer = CsvWriter.open(tmpFile.toString(), false)) {
+            for (String line : lines) {
+                if (!line.isEmpty()) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+            writer.write(segment.toLine());
+            writer.newLine();
+            writer.force();
+        }
+        Files.move(tmpFile, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * ローテーションの途中で異常終了した場合の後始末をします。ログを読み書きする前（起動時）に呼び出してください。
+     * マニフェストにセグメントを登録した後、アクティブセグメントを空にする前に中断されていると、
+     * アクティブセグメントのログが最後のセグメントと重複して読まれます。アクティブセグメントの内容が
+     * 最後のセグメントと同じ場合は、セグメントに退避済みとみなしてアクティブセグメントを空に戻します。
+     */
+    public void recover() {
+        File active = new File(filePath);
+        List<LogSegment> segments = findSegments();
+        if (!active.exists() || segments.isEmpty()) {
+            return;
+        }
+        File last = new File(active.getParentFile(), segments.get(segments.size() - 1).getFileName());
+        try {
+            if (last.exists() && hasSameContent(last, active)) {
+                try (CsvWriter writer = CsvWriter.open(filePath, false)) {
+                    writer.write(HEADER);
+                    writer.newLine();
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * セグメントファイルを展開した内容と、アクティブセグメントの内容が同じか判定します。
+     * 通常はヘッダーの次の行で異なるため、ファイル全体は読みません。
+     */
+    private boolean hasSameContent(File segment, File active) throws IOException {
+        try (InputStream expected = new BufferedInputStream(new GZIPInputStream(new FileInputStream(segment)));
+                InputStream actual = new BufferedInputStream(new FileInputStream(active))) {
+            int b;
+            do {
+                b = expected.read();
+                if (b != actual.read()) {
+                    return false;
+                }
+            } while (b >= 0);
+            return true;
+        }
+    }
+
+    /**
+     * アクティブセグメントの先頭のログと月が異なるか判定します。
+     * @param nextDate 次に書き込むログの日付
+     * @return 月が異なればtrue
+     */
+    private boolean monthChanged(LocalDate nextDate) {
+        try (CsvReader reader = CsvReader.open(filePath)) {
+            reader.next();
+            if (!reader.next()) {
+                return false;
+            }
+            Log first = parse(reader);
+            return first != null && (first.getChangeDate().getYear() != nextDate.getYear()
+                    || first.getChangeDate().getMonth() != nextDate.getMonth());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    private void readActive(Consumer<Log> logs) {
+        File active = new File(filePath);
+        if (!active.exists()) {
+            return;
+        }
+        try (CsvReader reader = CsvReader.open(filePath)) {
+            readLines(reader, logs);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void readSegment(LogSegment segment, Consumer<Log> logs) {
+        File file = new File(new File(filePath).getParentFile(), segment.getFileName());
+        try (CsvReader reader = new CsvReader(new GZIPInputStream(new FileInputStream(file), 64 * 1024))) {
+            readLines(reader, logs);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void readLines(CsvReader reader, Consumer<Log> logs) throws IOException {
+        reader.next(); // タイトル行を読み飛ばす
+        while (reader.next()) {
+            // 読み込みを中止されたら、途中までの結果を返さずに中止を伝える
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException(filePath + "の読み込みを中止しました");
+            }
+            Log log = parse(reader);
+            // CSVに間違いがあったらスキップする
+            if (log != null) {
+                logs.accept(log);
+            }
+        }
+    }
+
+    /**
+     * 現在の行をログに変換します。全ての列が数値と日付のため、文字列に復号せずに変換します。
+     * 列の数や値の形式が正しくない場合はnullを返します。
+     */
+    private Log parse(CsvReader reader) {
+        if (reader.fieldCount() != 4) {
+            return null;
+        }
+        try {
+            int taskCode = reader.getInt(0);
+            int changeUserCode = reader.getInt(1);
+            int status = reader.getInt(2);
+            LocalDate changeDate = reader.getDate(3);
+            return new Log(taskCode, changeUserCode, status, changeDate);
+        } catch (NumberFormatException | DateTimeException e) {
+            return null;
+        }
+    }
+
+    private boolean endsWithNewLine(File file) {
+        if (file.length() == 0) {
+            return true;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(file.length() - 1);
+            return raf.read() == '\n';
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return true;
+    }
+
+    private String manifestPath() {
+        return filePath + ".segments";
+    }
+
+    private String segmentFileName(int index) {
+        String baseName = new File(filePath).getName();
+        if (baseName.endsWith(".csv")) {
+            baseName = baseName.substring(0, baseName.length() - 4);
+        }
+        return String.format("%s-%05d.csv.gz", baseName, index);
+    }
 
     /**
      * 指定したタスクコードに該当するログを削除します。
@@ -67,11 +471,13 @@ public class LogDataAccess {
 
     /**
      * ログをCSVファイルに書き込むためのフォーマットを作成します。
+     * ヘッダーと同じ「タスクコード,変更者コード,ステータス,変更日」の順で出力します。
      *
      * @param log フォーマットを作成するログ
      * @return CSVファイルに書き込むためのフォーマット
      */
-    // private String createLine(Log log) {
-    // }
+    private String createLine(Log log) {
+        return log.getTaskCode() + "," + log.getChangeUserCode() + "," + log.getStatus() + "," + log.getChangeDate();
+    }
 
-}
\ No newline at end of file
+}
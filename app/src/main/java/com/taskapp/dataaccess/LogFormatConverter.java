@@ -0,0 +1,131 @@
+package com.taskapp.dataaccess;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.taskapp.model.Log;
+
+/**
+ * ログをCSV形式（logs.csvとローテーション済みのセグメント）とバイナリ形式（logs.bin）の間で変換します。
+ * 一定件数ずつ読み書きするため、ログ全件をメモリに読み込みません。
+ * 変換先は一時ファイルに書き込んでから置き換えます。
+ */
+public class LogFormatConverter {
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final String CSV_HEADER = "Task_Code,Change_User_Code,Status,Change_Date";
+
+    /**
+     * CSV形式のログをバイナリ形式に変換します。
+     * @param source 変換元のCSVのログ
+     * @param binaryPath 変換先のファイル
+     * @return 変換したログの件数
+     * @throws IOException 変換先を置き換えられない場合
+     */
+    public static long toBinary(LogDataAccess source, String binaryPath) throws IOException {
+        File tmpFile = new File(binaryPath + ".tmp");
+        Files.deleteIfExists(tmpFile.toPath());
+        BinaryLogDataAccess target = new BinaryLogDataAccess(tmpFile.getPath());
+        long count = copy(source::forEach, target::saveAll);
+        // ログが無い場合は空のファイルを作る（最初の書き込みでヘッダーを書き込む）
+        if (!tmpFile.exists()) {
+            Files.createFile(tmpFile.toPath());
+        }
+        Files.move(tmpFile.toPath(), new File(binaryPath).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * バイナリ形式のログをCSV形式（1つのlogs.csv）に変換します。
+     * @param source 変換元のバイナリのログ
+     * @param csvPath 変換先のCSV
+     * @return 変換したログの件数
+     * @throws IOException 変換先を置き換えられない、または変換先にセグメントが残っている場合
+     */
+    public static long toCsv(BinaryLogDataAccess source, String csvPath) throws IOException {
+        // ローテーション済みのセグメントが残っていると、同じログが重複するため変換しない
+        if (new File(csvPath + ".segments").exists()) {
+            throw new IOException(csvPath + "にローテーション済みのセグメントがあるため変換できません");
+        }
+        File tmpFile = new File(csvPath + ".tmp");
+        try (CsvWriter writer = CsvWriter.open(tmpFile.getPath(), false)) {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+        }
+        LogDataAccess target = new LogDataAccess(tmpFile.getPath());
+        long count;
+        try {
+            count = copy(source::forEach, logs -> {
+                try {
+                    target.append(logs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(tmpFile.toPath(), new File(csvPath).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    @FunctionalInterface
+    private interface LogSource {
+        void forEach(Consumer<Log> action);
+    }
+
+    @FunctionalInterface
+    private interface LogSink {
+        void write(List<Log> logs);
+    }
+
+    private static long copy(LogSource source, LogSink sink) {
+        List<Log> chunk = new ArrayList<>(CHUNK_SIZE);
+        long[] count = new long[1];
+        source.forEach(log -> {
+            chunk.add(log);
+            if (chunk.size() == CHUNK_SIZE) {
+                sink.write(chunk);
+                count[0] += chunk.size();
+                chunk.clear();
+            }
+        });
+        if (!chunk.isEmpty()) {
+            sink.write(chunk);
+            count[0] += chunk.size();
+        }
+        return count[0];
+    }
+
+    /**
+     * データディレクトリのログを変換します。
+     * @param args [to-binary|to-csv] [データディレクトリ]
+     */
+    public static void main(String[] args) throws IOException {
+        String direction = args.length > 0 ? args[0] : "to-binary";
+        String dataDirectory = args.length > 1 ? args[1] : DataAccessFactory.DEFAULT_DATA_DIR;
+        String csvPath = dataDirectory + "/logs.csv";
+        String binaryPath = dataDirectory + "/" + DataAccessFactory.BINARY_LOG_FILE_NAME;
+        long started = System.nanoTime();
+        long count;
+        switch (direction) {
+            case "to-binary":
+                count = toBinary(new LogDataAccess(csvPath), binaryPath);
+                break;
+            case "to-csv":
+                count = toCsv(new BinaryLogDataAccess(binaryPath), csvPath);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown direction: " + direction);
+        }
+        System.out.println(count + "件のログを変換しました。（" + (System.nanoTime() - started) / 1_000_000 + "ミリ秒）");
+    }
+}
@@ -0,0 +1,46 @@
+package com.taskapp.dataaccess;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.taskapp.model.Log;
+
+/**
+ * ログの保存先を抽象化したリポジトリです。
+ */
+public interface LogRepository {
+
+    /**
+     * ログを保存します。
+     * @param log 保存するログ
+     * @throws java.io.UncheckedIOException 書き込めなかった場合
+     */
+    void save(Log log);
+
+    /**
+     * 複数のログを記録順に保存します。
+     * @param logs 保存するログ
+     * @throws java.io.UncheckedIOException 書き込めなかった場合
+     */
+    void saveAll(List<Log> logs);
+
+    /**
+     * すべてのログを記録順に取得します。
+     * @return すべてのログのリスト
+     */
+    List<Log> findAll();
+
+    /**
+     * 指定したタスクコードのログを記録順に取得します。
+     * @param taskCode タスクコード
+     * @return 該当するログのリスト
+     */
+    List<Log> findByTaskCode(int taskCode);
+
+    /**
+     * 指定した日付以降のログを記録順に取得します。
+     * @param from 検索開始日
+     * @return 該当するログのリスト
+     */
+    List<Log> findSince(LocalDate from);
+}
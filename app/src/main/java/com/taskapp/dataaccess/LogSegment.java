@@ -0,0 +1,95 @@
+package com.taskapp.dataaccess;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * ローテーション済みのログセグメント（gzip圧縮ファイル）の概要情報です。
+ * 検索時に日付とタスクコードの範囲でセグメントごと読み飛ばすために利用します。
+ */
+public class LogSegment {
+    private final String fileName;
+    private final LocalDate minDate;
+    private final LocalDate maxDate;
+    private final int minTaskCode;
+    private final int maxTaskCode;
+    private final int count;
+
+    public LogSegment(String fileName, LocalDate minDate, LocalDate maxDate, int minTaskCode, int maxTaskCode,
+            int count) {
+        this.fileName = fileName;
+        this.minDate = minDate;
+        this.maxDate = maxDate;
+        this.minTaskCode = minTaskCode;
+        this.maxTaskCode = maxTaskCode;
+        this.count = count;
+    }
+
+    /**
+     * マニフェストの1行からセグメント情報を復元します。
+     * @param line マニフェストの行
+     * @return セグメント情報、形式が正しくない場合はnull
+     */
+    public static LogSegment parse(String line) {
+        String[] values = line.split(",");
+        if (values.length != 6) {
+            return null;
+        }
+        try {
+            return new LogSegment(values[0], LocalDate.parse(values[1]), LocalDate.parse(values[2]),
+                    Integer.parseInt(values[3]), Integer.parseInt(values[4]), Integer.parseInt(values[5]));
+        } catch (NumberFormatException | DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * マニフェストに書き込むためのフォーマットを作成します。
+     * @return マニフェストの行
+     */
+    public String toLine() {
+        return fileName + "," + minDate + "," + maxDate + "," + minTaskCode + "," + maxTaskCode + "," + count;
+    }
+
+    /**
+     * 指定したタスクコードのログを含む可能性があるか判定します。
+     * @param taskCode タスクコード
+     * @return 含む可能性があればtrue
+     */
+    public boolean mayContainTaskCode(int taskCode) {
+        return minTaskCode <= taskCode && taskCode <= maxTaskCode;
+    }
+
+    /**
+     * 指定した日付以降のログを含む可能性があるか判定します。
+     * @param from 検索開始日
+     * @return 含む可能性があればtrue
+     */
+    public boolean mayContainSince(LocalDate from) {
+        return !maxDate.isBefore(from);
+    }
+
+    public String getFileName() {
+        return this.fileName;
+    }
+
+    public LocalDate getMinDate() {
+        return this.minDate;
+    }
+
+    public LocalDate getMaxDate() {
+        return this.maxDate;
+    }
+
+    public int getMinTaskCode() {
+        return this.minTaskCode;
+    }
+
+    public int getMaxTaskCode() {
+        return this.maxTaskCode;
+    }
+
+    public int getCount() {
+        return this.count;
+    }
+}
@@ -0,0 +1,104 @@
+package com.taskapp.dataaccess;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 複数の書き込みスレッドと単一の読み出しスレッドで共有する、ロックを使わない固定長のリングバッファです。
+ * 各スロットのシーケンス番号で、書き込み済み・読み出し済みを判定します。
+ *
+ * @param <E> 要素の型
+ */
+public class MpscRingBuffer<E> {
+    private final Object[] buffer;
+
+    private final AtomicLongArray sequences;
+
+    private final int mask;
+
+    /** 次に書き込む位置（書き込みスレッド間でCASにより確保する） */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** 次に読み出す位置（読み出しスレッドのみが更新する） */
+    private long head;
+
+    /**
+     * @param capacity 容量（2のべき乗に切り上げられます）
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        buffer = new Object[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * 要素を追加します。どのスレッドからでも呼び出せます。
+     * @param element 追加する要素
+     * @return 追加できた場合はtrue、満杯の場合はfalse
+     */
+    public boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer[index] = element;
+                    // シーケンスの更新で、読み出しスレッドに要素を公開する
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 要素を1件取り出します。読み出しスレッドからのみ呼び出してください。
+     * @return 取り出した要素、空の場合はnull
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        E element = (E) buffer[index];
+        buffer[index] = null;
+        sequences.lazySet(index, head + buffer.length);
+        head++;
+        return element;
+    }
+
+    /**
+     * 最大で指定件数の要素を取り出してリストに追加します。読み出しスレッドからのみ呼び出してください。
+     * @param target 追加先のリスト
+     * @param limit 取り出す最大件数
+     * @return 取り出した件数
+     */
+    public int drainTo(List<E> target, int limit) {
+        int count = 0;
+        E element;
+        while (count < limit && (element = poll()) != null) {
+            target.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+}
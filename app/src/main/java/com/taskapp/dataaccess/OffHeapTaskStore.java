@@ -0,0 +1,366 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.taskapp.model.Task;
+
+/**
+ * タスクをJavaのヒープの外に保持するリポジトリです。
+ * 大量のタスクを保持してもGCの対象にならず、長時間動かしたときの停止を抑えます。
+ * <p>
+ * タスクは固定長（16バイト）のレコードとして並べ、タスク名はUTF-8のバイト列として別の領域（名前アリーナ）に追記します。
+ * タスクコードからレコード位置へは、オープンアドレス法のハッシュ索引で引きます。索引は開いたときにレコードから作り直します。
+ * ファイルを指定した場合はメモリマップドファイルに保持し、閉じた後も内容が残ります。
+ * </p>
+ * 1つの領域は2GBまでです。
+ */
+public class OffHeapTaskStore implements TaskRepository, AutoCloseable {
+    private static final int MAGIC = 0x54534f48;
+
+    private static final int VERSION = 1;
+
+    /** ヘッダー: MAGIC, VERSION, 件数, 名前アリーナの使用量 */
+    private static final int HEADER_BYTES = 16;
+
+    private static final int COUNT_OFFSET = 8;
+
+    private static final int NAMES_USED_OFFSET = 12;
+
+    /** レコード: コード(4), 担当者コード(4), 名前の位置(4), 名前の長さ(2), ステータス(1), 予備(1) */
+    private static final int RECORD_BYTES = 16;
+
+    private static final int REP_USER_OFFSET = 4;
+
+    private static final int NAME_OFFSET_OFFSET = 8;
+
+    private static final int NAME_LENGTH_OFFSET = 12;
+
+    private static final int STATUS_OFFSET = 14;
+
+    /** 名前アリーナの初期容量（1件あたりのバイト数） */
+    private static final int NAME_BYTES_PER_RECORD = 32;
+
+    private final UserRepository userRepository;
+
+    private final Region records;
+
+    private final Region names;
+
+    private ByteBuffer index;
+
+    private int indexMask;
+
+    private int count;
+
+    private int namesUsed;
+
+    private OffHeapTaskStore(UserRepository userRepository, Region records, Region names) {
+        this.userRepository = userRepository;
+        this.records = records;
+        this.names = names;
+
+        ByteBuffer header = records.buffer();
+        if (header.getInt(0) == MAGIC) {
+            if (header.getInt(4) != VERSION) {
+                throw new IllegalStateException("unsupported off-heap store version: " + header.getInt(4));
+            }
+            count = header.getInt(COUNT_OFFSET);
+            namesUsed = header.getInt(NAMES_USED_OFFSET);
+        } else {
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            writeHeader();
+        }
+        rebuildIndex(Math.max(count, 16));
+    }
+
+    /**
+     * ダイレクトバッファにタスクを保持するストアを作成します。内容は閉じると失われます。
+     * @param userRepository 担当者の検索に利用するユーザーリポジトリ
+     * @param capacity 初期のレコード数
+     * @return ストア
+     */
+    public static OffHeapTaskStore allocate(UserRepository userRepository, int capacity) {
+        return new OffHeapTaskStore(userRepository,
+                new Region(null, HEADER_BYTES + (long) capacity * RECORD_BYTES),
+                new Region(null, (long) capacity * NAME_BYTES_PER_RECORD));
+    }
+
+    /**
+     * メモリマップドファイルにタスクを保持するストアを開きます。ファイルが既にあれば、その内容を引き継ぎます。
+     * タスク名は「ファイル名.names」に保存します。
+     * @param userRepository 担当者の検索に利用するユーザーリポジトリ
+     * @param file レコードを保存するファイル
+     * @param capacity 初期のレコード数
+     * @return ストア
+     * @throws IOException ファイルを開けない場合
+     */
+    public static OffHeapTaskStore map(UserRepository userRepository, Path file, int capacity) throws IOException {
+        FileChannel recordChannel = open(file);
+        FileChannel nameChannel = open(Paths.get(file + ".names"));
+        return new OffHeapTaskStore(userRepository,
+                new Region(recordChannel, Math.max(recordChannel.size(), HEADER_BYTES + (long) capacity * RECORD_BYTES)),
+                new Region(nameChannel, Math.max(nameChannel.size(), (long) capacity * NAME_BYTES_PER_RECORD)));
+    }
+
+    /**
+     * 保持しているタスクの件数を取得します。
+     * @return タスクの件数
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * テーブルのタスクをまとめて保存します。同じコードのタスクは上書きします。
+     * @param table 保存するタスクのテーブル
+     */
+    public synchronized void importFrom(TaskTable table) {
+        records.ensureCapacity(HEADER_BYTES + (long) (count + table.size()) * RECORD_BYTES);
+        table.forEach((i, code, name, status, repUserCode) -> put(code, name, status, repUserCode));
+    }
+
+    @Override
+    public synchronized List<Task> findAll() {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int slot = 0; slot < count; slot++) {
+            tasks.add(toTask(slot));
+        }
+        return tasks;
+    }
+
+    @Override
+    public synchronized TaskTable findAllAsTable() {
+        TaskTable table = new TaskTable(count);
+        ByteBuffer buffer = records.buffer();
+        for (int slot = 0; slot < count; slot++) {
+            int position = recordPosition(slot);
+            table.add(buffer.getInt(position), readName(position), buffer.get(position + STATUS_OFFSET),
+                    buffer.getInt(position + REP_USER_OFFSET));
+        }
+        return table;
+    }
+
+    @Override
+    public synchronized void save(Task task) {
+        put(task.getCode(), task.getName(), task.getStatus(), repUserCode(task));
+    }
+
+    @Override
+    public synchronized Task findByCode(int code) {
+        int slot = findSlot(code);
+        return slot < 0 ? null : toTask(slot);
+    }
+
+    @Override
+    public synchronized void update(Task updateTask) {
+        put(updateTask.getCode(), updateTask.getName(), updateTask.getStatus(), repUserCode(updateTask));
+    }
+
+    /**
+     * メモリマップドファイルの内容をディスクに書き出します。
+     */
+    public synchronized void force() {
+        writeHeader();
+        records.force();
+        names.force();
+    }
+
+    @Override
+    public synchronized void close() {
+        force();
+        records.close();
+        names.close();
+    }
+
+    private void put(int code, String name, int status, int repUserCode) {
+        int slot = findSlot(code);
+        if (slot < 0) {
+            slot = count;
+            records.ensureCapacity(HEADER_BYTES + (long) (slot + 1) * RECORD_BYTES);
+            records.buffer().putInt(recordPosition(slot), code);
+            writeName(slot, name);
+            count++;
+            if (count * 2 > indexMask + 1) {
+                rebuildIndex(count);
+            } else {
+                insertIndex(code, slot);
+            }
+        } else if (!readName(recordPosition(slot)).equals(name)) {
+            // 名前が変わったときだけアリーナに追記する（古い名前の領域は再利用しない）
+            writeName(slot, name);
+        }
+
+        ByteBuffer buffer = records.buffer();
+        int position = recordPosition(slot);
+        buffer.putInt(position + REP_USER_OFFSET, repUserCode);
+        buffer.put(position + STATUS_OFFSET, (byte) status);
+        writeHeader();
+    }
+
+    private void writeName(int slot, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("task name is too long: " + bytes.length + " bytes");
+        }
+        names.ensureCapacity((long) namesUsed + bytes.length);
+        names.buffer().put(namesUsed, bytes);
+
+        ByteBuffer buffer = records.buffer();
+        int position = recordPosition(slot);
+        buffer.putInt(position + NAME_OFFSET_OFFSET, namesUsed);
+        buffer.putShort(position + NAME_LENGTH_OFFSET, (short) bytes.length);
+        namesUsed += bytes.length;
+    }
+
+    private String readName(int position) {
+        ByteBuffer buffer = records.buffer();
+        int offset = buffer.getInt(position + NAME_OFFSET_OFFSET);
+        int length = Short.toUnsignedInt(buffer.getShort(position + NAME_LENGTH_OFFSET));
+        byte[] bytes = new byte[length];
+        names.buffer().get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Task toTask(int slot) {
+        ByteBuffer buffer = records.buffer();
+        int position = recordPosition(slot);
+        return new Task(buffer.getInt(position), readName(position), buffer.get(position + STATUS_OFFSET),
+                userRepository.findProfileByCode(buffer.getInt(position + REP_USER_OFFSET)));
+    }
+
+    private int findSlot(int code) {
+        ByteBuffer buffer = records.buffer();
+        int bucket = hash(code) & indexMask;
+        while (true) {
+            int entry = index.getInt(bucket * Integer.BYTES);
+            if (entry == 0) {
+                return -1;
+            }
+            // 索引には位置+1を格納し、0を空きとして扱う
+            if (buffer.getInt(recordPosition(entry - 1)) == code) {
+                return entry - 1;
+            }
+            bucket = (bucket + 1) & indexMask;
+        }
+    }
+
+    private void insertIndex(int code, int slot) {
+        int bucket = hash(code) & indexMask;
+        while (index.getInt(bucket * Integer.BYTES) != 0) {
+            bucket = (bucket + 1) & indexMask;
+        }
+        index.putInt(bucket * Integer.BYTES, slot + 1);
+    }
+
+    private void rebuildIndex(int entries) {
+        // 使用率が半分以下になるよう、2のべき乗の大きさにする
+        int capacity = Integer.highestOneBit(Math.max(entries, 8) * 4 - 1);
+        index = ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        indexMask = capacity - 1;
+        ByteBuffer buffer = records.buffer();
+        for (int slot = 0; slot < count; slot++) {
+            insertIndex(buffer.getInt(recordPosition(slot)), slot);
+        }
+    }
+
+    private void writeHeader() {
+        ByteBuffer header = records.buffer();
+        header.putInt(COUNT_OFFSET, count);
+        header.putInt(NAMES_USED_OFFSET, namesUsed);
+    }
+
+    private static int recordPosition(int slot) {
+        return HEADER_BYTES + slot * RECORD_BYTES;
+    }
+
+    private static int repUserCode(Task task) {
+        return task.getRepUser() == null ? 0 : task.getRepUser().getCode();
+    }
+
+    private static int hash(int code) {
+        int h = code * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * ダイレクトバッファまたはメモリマップドファイルの領域です。容量が足りなくなると倍に広げます。
+     */
+    private static final class Region {
+        private final FileChannel channel;
+
+        private ByteBuffer buffer;
+
+        Region(FileChannel channel, long size) {
+            this.channel = channel;
+            this.buffer = create(Math.max(size, 64));
+        }
+
+        ByteBuffer buffer() {
+            return buffer;
+        }
+
+        void ensureCapacity(long required) {
+            if (required <= buffer.capacity()) {
+                return;
+            }
+            long size = Math.max(required, (long) buffer.capacity() * 2);
+            ByteBuffer grown = create(size);
+            if (channel == null) {
+                grown.put(0, buffer, 0, buffer.capacity());
+            }
+            buffer = grown;
+        }
+
+        void force() {
+            if (buffer instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) buffer).force();
+            }
+        }
+
+        void close() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        private ByteBuffer create(long size) {
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("off-heap region exceeds 2GB: " + size);
+            }
+            if (channel == null) {
+                return ByteBuffer.allocateDirect((int) size).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            try {
+                // ファイルより大きくマップすると、ファイルもその大きさに広がる
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+            } catch (IOException e) {
+                throw new IllegalStateException("failed to map off-heap region", e);
+            }
+        }
+    }
+}
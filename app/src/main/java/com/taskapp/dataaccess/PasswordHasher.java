@@ -0,0 +1,125 @@
+package com.taskapp.dataaccess;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * パスワードをPBKDF2（HMAC-SHA256）でソルト付きハッシュにし、照合します。
+ * ハッシュは「pbkdf2$反復回数$ソルト$ハッシュ」（ソルトとハッシュはBase64）の形式で保存します。
+ * この形式でない値は移行前の平文として扱います。
+ */
+public class PasswordHasher {
+    /** 反復回数を指定するシステムプロパティ */
+    public static final String ITERATIONS_PROPERTY = "taskapp.password.iterations";
+
+    public static final int DEFAULT_ITERATIONS = 120000;
+
+    private static final String PREFIX = "pbkdf2$";
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+
+    private static final int SALT_BYTES = 16;
+
+    private static final int HASH_BITS = 256;
+
+    private final int iterations;
+
+    private final SecureRandom random = new SecureRandom();
+
+    public PasswordHasher() {
+        this(Integer.getInteger(ITERATIONS_PROPERTY, DEFAULT_ITERATIONS));
+    }
+
+    /**
+     * @param iterations 新しくハッシュを作るときの反復回数（照合の計算量）
+     */
+    public PasswordHasher(int iterations) {
+        this.iterations = iterations;
+    }
+
+    /**
+     * パスワードをソルト付きハッシュにします。
+     * @param password パスワード
+     * @return 保存用のハッシュ文字列
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, iterations);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * パスワードが保存された値と一致するか照合します。
+     * @param password 入力されたパスワード
+     * @param stored 保存されたハッシュ文字列（移行前は平文）
+     * @return 一致すればtrue。ハッシュ文字列が壊れている場合もfalse
+     */
+    public boolean matches(String password, String stored) {
+        if (password == null || stored == null) {
+            return false;
+        }
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getDecoder();
+            byte[] expected = decoder.decode(parts[3]);
+            byte[] actual = pbkdf2(password, decoder.decode(parts[2]), Integer.parseInt(parts[1]));
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException e) {
+            // 反復回数やBase64が壊れたハッシュ文字列は、一致しないものとして扱う
+            return false;
+        }
+    }
+
+    /**
+     * 保存された値がハッシュ化済みか判定します。
+     * @param stored 保存された値
+     * @return ハッシュ化済みであればtrue
+     */
+    public boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(PREFIX);
+    }
+
+    /**
+     * 保存された値を現在の設定でハッシュし直すべきか判定します。
+     * 平文の場合と、反復回数が現在の設定より少ない場合にtrueを返します。
+     * @param stored 保存された値
+     * @return ハッシュし直すべきであればtrue
+     */
+    public boolean needsRehash(String stored) {
+        if (!isHashed(stored)) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private byte[] pbkdf2(String password, byte[] salt, int iterationCount) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterationCount, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
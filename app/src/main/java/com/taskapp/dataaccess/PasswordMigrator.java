@@ -0,0 +1,17 @@
+package com.taskapp.dataaccess;
+
+/**
+ * users.csvに平文で保存されたパスワードを、ソルト付きハッシュに置き換えます。
+ */
+public class PasswordMigrator {
+
+    private PasswordMigrator() {
+    }
+
+    public static void main(String[] args) {
+        String dataDirectory = args.length > 0 ? args[0] : DataAccessFactory.DEFAULT_DATA_DIR;
+        UserDataAccess userDataAccess = new UserDataAccess(dataDirectory + "/users.csv");
+        int count = userDataAccess.rehashPasswords(new PasswordHasher());
+        System.out.println(count + "件のパスワードをハッシュ化しました。");
+    }
+}
@@ -0,0 +1,113 @@
+package com.taskapp.dataaccess;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * {@link PasswordHasher}による照合結果を短時間だけキャッシュします。
+ * 一度照合に成功したメールアドレスは、有効期限内に同じパスワードが入力された場合だけ、高価なPBKDF2を計算し直さずに照合します。
+ * 異なるパスワードは必ずPBKDF2で照合するため、キャッシュがあっても総当たりが速くなることはありません。
+ * キャッシュにはパスワードそのものではなく、プロセスごとの乱数鍵によるHMACだけを保持します。
+ */
+public class PasswordVerifier {
+    /** キャッシュの有効期限（秒）を指定するシステムプロパティ */
+    public static final String TTL_PROPERTY = "taskapp.password.cacheSeconds";
+
+    private static final PasswordVerifier DEFAULT = new PasswordVerifier(new PasswordHasher(),
+            Duration.ofSeconds(Long.getLong(TTL_PROPERTY, 300)));
+
+    private final PasswordHasher hasher;
+
+    private final long ttlNanos;
+
+    private final byte[] key = new byte[32];
+
+    private final Map<String, Entry> verified = new ConcurrentHashMap<>();
+
+    /**
+     * @param hasher 照合に利用するハッシュ
+     * @param ttl 照合結果を再利用する期間
+     */
+    public PasswordVerifier(PasswordHasher hasher, Duration ttl) {
+        this.hasher = hasher;
+        this.ttlNanos = ttl.toNanos();
+        new SecureRandom().nextBytes(key);
+    }
+
+    /**
+     * システムプロパティの設定で作成した共有のインスタンスを取得します。
+     * @return 共有のインスタンス
+     */
+    public static PasswordVerifier getDefault() {
+        return DEFAULT;
+    }
+
+    public PasswordHasher getHasher() {
+        return this.hasher;
+    }
+
+    /**
+     * パスワードが保存された値と一致するか照合します。
+     * @param email メールアドレス（キャッシュのキー）
+     * @param password 入力されたパスワード
+     * @param stored 保存されたハッシュ文字列
+     * @return 一致すればtrue
+     */
+    public boolean verify(String email, String password, String stored) {
+        if (password == null || stored == null) {
+            return false;
+        }
+        byte[] fingerprint = fingerprint(password);
+        long now = System.nanoTime();
+        Entry entry = verified.get(email);
+        // 保存された値が変わっていない、期限内のキャッシュと一致した場合だけ省略する
+        if (entry != null && now - entry.verifiedAt < ttlNanos && entry.stored.equals(stored)
+                && MessageDigest.isEqual(entry.fingerprint, fingerprint)) {
+            return true;
+        }
+
+        if (!hasher.matches(password, stored)) {
+            return false;
+        }
+        verified.put(email, new Entry(stored, fingerprint, now));
+        return true;
+    }
+
+    /**
+     * 指定したメールアドレスのキャッシュを破棄します。パスワード変更時などに利用します。
+     * @param email メールアドレス
+     */
+    public void invalidate(String email) {
+        verified.remove(email);
+    }
+
+    private byte[] fingerprint(String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static class Entry {
+        private final String stored;
+        private final byte[] fingerprint;
+        private final long verifiedAt;
+
+        Entry(String stored, byte[] fingerprint, long verifiedAt) {
+            this.stored = stored;
+            this.fingerprint = fingerprint;
+            this.verifiedAt = verifiedAt;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.taskapp.dataaccess;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link JdbcDatabase}のプールから借りた接続です。
+ * 同じSQLのプリペアドステートメントを接続ごとにキャッシュして使い回します。
+ * {@link #close()}は接続を閉じずにプールへ返します。
+ */
+public class PooledConnection implements AutoCloseable {
+    private final JdbcDatabase database;
+
+    private final Connection connection;
+
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+    PooledConnection(JdbcDatabase database, Connection connection) {
+        this.database = database;
+        this.connection = connection;
+    }
+
+    public Connection getConnection() {
+        return this.connection;
+    }
+
+    /**
+     * キャッシュしたプリペアドステートメントを取得します。呼び出し元では閉じないでください。
+     * @param sql SQL
+     * @return パラメータをクリアしたプリペアドステートメント
+     * @throws SQLException ステートメントを作成できない場合
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        } else {
+            statement.clearParameters();
+            statement.clearBatch();
+        }
+        return statement;
+    }
+
+    /**
+     * 接続をプールに返します。
+     */
+    @Override
+    public void close() {
+        database.release(this);
+    }
+
+    /**
+     * キャッシュしたステートメントと接続を実際に閉じます。
+     */
+    void closePhysically() {
+        try {
+            for (PreparedStatement statement : statements.values()) {
+                statement.close();
+            }
+            statements.clear();
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.taskapp.dataaccess;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * タスクとユーザーのテーブルをバイナリのスナップショットとして保存・復元します。
+ * 起動時はスナップショットを読み込み、その後に記録されたログだけを再適用することで、
+ * CSVを全件解析せずにメモリ上のテーブルを準備します。
+ * スナップショットにはusers.csvとtasks.csvのサイズと更新日時、tasks.csvの世代（{@link TaskDataAccess#currentGeneration()}）を記録します。
+ * 作成後にusers.csvが変わっていればusers.csvを読み込みます。tasks.csvは、変わっていても世代が同じ（ステータスだけの変更）であれば
+ * ログを再適用し、世代が変わっていればCSVを読み込みます。
+ */
+public class SnapshotDataAccess {
+    private static final int MAGIC = 0x54534e50; // "TSNP"
+
+    private static final int VERSION = 3;
+
+    private final String filePath;
+
+    public SnapshotDataAccess() {
+        filePath = "app/src/main/resources/snapshot.bin";
+    }
+
+    public SnapshotDataAccess(String filePath) {
+        this.filePath = filePath;
+    }
+
+    /**
+     * 現在のタスクとユーザーのテーブルをスナップショットに書き込みます。
+     * 一時ファイルに書き込んでから置き換えるため、書き込み途中のファイルは残りません。
+     *
+     * @param taskDataAccess タスクデータアクセス
+     * @param userDataAccess ユーザーデータアクセス
+     */
+    public void save(TaskDataAccess taskDataAccess, UserDataAccess userDataAccess) {
+        File usersFile = new File(userDataAccess.getFilePath());
+        File tasksFile = new File(taskDataAccess.getFilePath());
+        // 世代はテーブルより先に取得する。間に書き込まれた場合は、世代が進むかログで再現できる
+        long generation = taskDataAccess.recordGeneration();
+        List<User> users = userDataAccess.findAll();
+        List<Task> tasks = taskDataAccess.findAll();
+
+        File tmpFile = new File(filePath + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(LocalDate.now().toEpochDay());
+            out.writeLong(usersFile.length());
+            out.writeLong(usersFile.lastModified());
+            out.writeLong(tasksFile.length());
+            out.writeLong(tasksFile.lastModified());
+            out.writeLong(generation);
+
+            out.writeInt(users.size());
+            for (User user : users) {
+                out.writeInt(user.getCode());
+                out.writeUTF(user.getName());
+                out.writeUTF(user.getEmail());
+                out.writeUTF(user.getPassword());
+            }
+
+            out.writeInt(tasks.size());
+            for (Task task : tasks) {
+                out.writeInt(task.getCode());
+                out.writeUTF(task.getName());
+                out.writeByte(task.getStatus());
+                out.writeInt(task.getRepUser().getCode());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        try {
+            Files.move(tmpFile.toPath(), new File(filePath).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * スナップショットと、それ以降のログからメモリ上のテーブルを復元します。
+     * タスクはスナップショット作成日以降のログのステータス変更を記録順に再適用します。
+     * 同じ日のログを再適用しても最終的なステータスは変わらないため、ファイルの更新日時の精度に依存しません。
+     * 作成後のtasks.csvの変更がステータスだけであれば（世代が同じであれば）、同じようにログから再現します。
+     * スナップショットが無い、壊れている、作成後にタスクの追加やタスク名・担当者の変更があった、
+     * またはログから再現できないタスクがある場合はCSVを読み込みます。
+     *
+     * @param taskDataAccess タスクデータアクセス
+     * @param userDataAccess ユーザーデータアクセス
+     * @param logDataAccess ログデータアクセス
+     * @return スナップショットから復元できた場合はtrue、CSVを読み込んだ場合はfalse
+     */
+    public boolean restore(TaskDataAccess taskDataAccess, UserDataAccess userDataAccess,
+            LogRepository logDataAccess) {
+        File snapshotFile = new File(filePath);
+        if (!snapshotFile.exists()) {
+            warmFromCsv(taskDataAccess, userDataAccess);
+            return false;
+        }
+
+        File usersFile = new File(userDataAccess.getFilePath());
+        File tasksFile = new File(taskDataAccess.getFilePath());
+        LocalDate snapshotDate;
+        boolean usersChanged;
+        boolean tasksChanged;
+        long generation;
+        List<User> users = new ArrayList<>();
+        List<int[]> taskRows = new ArrayList<>();
+        List<String> taskNames = new ArrayList<>();
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                warmFromCsv(taskDataAccess, userDataAccess);
+                return false;
+            }
+            snapshotDate = LocalDate.ofEpochDay(in.readLong());
+            usersChanged = in.readLong() != usersFile.length() | in.readLong() != usersFile.lastModified();
+            tasksChanged = in.readLong() != tasksFile.length() | in.readLong() != tasksFile.lastModified();
+            generation = in.readLong();
+
+            int userCount = in.readInt();
+            for (int i = 0; i < userCount; i++) {
+                users.add(new User(in.readInt(), in.readUTF(), in.readUTF(), in.readUTF()));
+            }
+
+            int taskCount = in.readInt();
+            for (int i = 0; i < taskCount; i++) {
+                int code = in.readInt();
+                taskNames.add(in.readUTF());
+                int status = in.readByte();
+                taskRows.add(new int[] { code, status, in.readInt() });
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            warmFromCsv(taskDataAccess, userDataAccess);
+            return false;
+        }
+
+        // ユーザーはログから再現できないため、変更されていればCSVを読み込む
+        if (usersChanged) {
+            userDataAccess.invalidate();
+            userDataAccess.load(userDataAccess.findAll());
+        } else {
+            userDataAccess.load(users);
+        }
+
+        // タスクの追加や名前・担当者の変更はログから再現できないため、世代が変わっていればCSVを読み込む
+        if (tasksChanged && (generation < 0 || generation != taskDataAccess.currentGeneration())) {
+            taskDataAccess.invalidate();
+            taskDataAccess.load(taskDataAccess.findAll());
+            return false;
+        }
+
+        Map<Integer, Task> tasks = new HashMap<>();
+        List<Task> ordered = new ArrayList<>(taskRows.size());
+        for (int i = 0; i < taskRows.size(); i++) {
+            int[] row = taskRows.get(i);
+            Task task = new Task(row[0], taskNames.get(i), row[1], userDataAccess.findProfileByCode(row[2]));
+            tasks.put(task.getCode(), task);
+            ordered.add(task);
+        }
+
+        // スナップショット作成日以降のログを記録順に再適用する
+        for (Log log : logDataAccess.findSince(snapshotDate)) {
+            Task task = tasks.get(log.getTaskCode());
+            if (task == null) {
+                // スナップショット後に登録されたタスクはログから再現できない
+                taskDataAccess.invalidate();
+                taskDataAccess.load(taskDataAccess.findAll());
+                return false;
+            }
+            task.setStatus(log.getStatus());
+        }
+        taskDataAccess.load(ordered);
+        return true;
+    }
+
+    private void warmFromCsv(TaskDataAccess taskDataAccess, UserDataAccess userDataAccess) {
+        userDataAccess.invalidate();
+        userDataAccess.load(userDataAccess.findAll());
+        taskDataAccess.invalidate();
+        taskDataAccess.load(taskDataAccess.findAll());
+    }
+}
@@ -0,0 +1,39 @@
+package com.taskapp.dataaccess;
+
+import java.util.List;
+
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+
+/**
+ * タスクの変更と、その変更を記録するログをまとめて書き込みます。
+ * 保存先によっては両方を1つのトランザクションで書き込みます。
+ * 書き込めなかった場合は{@link java.io.UncheckedIOException}をスローします。
+ */
+public interface TaskChangeWriter {
+
+    /**
+     * 新しいタスクとその登録ログを書き込みます。
+     * @param task 保存するタスク
+     * @param log 登録ログ
+     * @throws java.io.UncheckedIOException 書き込めなかった場合
+     */
+    void save(Task task, Log log);
+
+    /**
+     * タスクの更新とその変更ログを書き込みます。
+     * @param task 更新するタスク
+     * @param log 変更ログ
+     * @throws java.io.UncheckedIOException 書き込めなかった場合
+     */
+    void update(Task task, Log log);
+
+    /**
+     * 複数のタスクの更新とそれらの変更ログを、まとめて書き込みます。
+     * 存在しないタスクは追加します。
+     * @param tasks 更新するタスク
+     * @param logs 変更ログ（記録順）
+     * @throws java.io.UncheckedIOException 書き込めなかった場合
+     */
+    void writeAll(List<Task> tasks, List<Log> logs);
+}
@@ -1,27 +1,65 @@
 package com.taskapp.dataaccess;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
 
 import com.taskapp.model.Task;
 import com.taskapp.model.User;
 
-public class TaskDataAccess {
+public class TaskDataAccess implements TaskRepository {
 
     private final String filePath;
 
     private final UserDataAccess userDataAccess;
 
+    /** メモリ上のタスクテーブル（CSVの行順）。nullの場合は毎回CSVを読み込む */
+    private volatile Map<Integer, Task> cache;
+
+    /** 担当者ごとの索引。初めて担当者で検索したときに読み込み、以降は保存・更新のたびに反映する */
+    private volatile TaskIndex index;
+
+    /** タスクコードのブルームフィルタ。存在しないタスクコードの検索でCSVを走査しないために利用する */
+    private volatile CodeBloomFilter codeFilter;
+
+    /** タスク名の転置索引。初めて検索したときに読み込み、以降は保存・更新のたびに反映する */
+    private volatile TaskNameIndex nameIndex;
+
+    /** 自身が最後に書き込んだ後のCSVのサイズと更新日時 */
+    private final FileStamp written = new FileStamp();
+
+    /**
+     * tasks.csvの世代。タスクの追加、タスク名・担当者の変更、自身以外による変更のたびに進め、ステータスだけの変更では進めない。
+     * 最後に書き込んだ後のサイズと更新日時と一緒に、世代のファイルに記録する。-1の場合はまだ読み込んでいない
+     */
+    private long generation = -1;
+
     public TaskDataAccess() {
         filePath = "app/src/main/resources/tasks.csv";
         userDataAccess = new UserDataAccess();
     }
 
+    /**
+     * 既定のCSVを、指定したユーザーデータアクセスと組み合わせて利用します。
+     * @param userDataAccess 担当者の検索に利用するユーザーデータアクセス
+     */
+    public TaskDataAccess(UserDataAccess userDataAccess) {
+        filePath = "app/src/main/resources/tasks.csv";
+        this.userDataAccess = userDataAccess;
+    }
+
     /**
      * 自動採点用に必要なコンストラクタのため、皆さんはこのコンストラクタを利用・削除はしないでください
      * @param filePath
@@ -32,6 +70,38 @@ public class TaskDataAccess {
         this.userDataAccess = userDataAccess;
     }
 
+    public String getFilePath() {
+        return this.filePath;
+    }
+
+    /**
+     * タスクをメモリ上のテーブルに読み込み、以降の検索をCSVを読まずに行います。
+     * 保存・更新はCSVとテーブルの両方に反映されます。
+     * @param tasks 読み込むタスク
+     */
+    public void load(Collection<Task> tasks) {
+        Map<Integer, Task> table = Collections.synchronizedMap(new LinkedHashMap<>());
+        for (Task task : tasks) {
+            table.put(task.getCode(), task);
+        }
+        cache = table;
+    }
+
+    /**
+     * メモリ上のテーブルを破棄し、以降の検索をCSVから行います。
+     */
+    public void invalidate() {
+        cache = null;
+    }
+
+    /**
+     * メモリ上のテーブルが読み込まれているか判定します。
+     * @return 読み込まれていればtrue
+     */
+    public boolean isLoaded() {
+        return cache != null;
+    }
+
     /**
      * CSVから全てのタスクデータを取得します。
      *
@@ -39,21 +109,469 @@ public class TaskDataAccess {
      * @return タスクのリスト
      */
     public List<Task> findAll() {
+        Map<Integer, Task> table = cache;
+        if (table != null) {
+            synchronized (table) {
+                return new ArrayList<>(table.values());
+            }
+        }
+        return readAll();
+    }
+
+    /**
+     * 全てのタスクを列ごとのテーブルとして取得します。
+     * CSVから読む場合も、行ごとのTaskやUserを作りません。
+     * @return タスクのテーブル
+     */
+    @Override
+    public TaskTable findAllAsTable() {
+        Map<Integer, Task> table = cache;
+        if (table != null) {
+            synchronized (table) {
+                return TaskTable.of(new ArrayList<>(table.values()));
+            }
+        }
+
+        TaskTable tasks = new TaskTable();
+        try (CsvReader reader = CsvReader.open(filePath)) {
+            reader.next(); // タイトル行を読み飛ばす
+            while (reader.next()) {
+                // 読み込みを中止されたら、途中までの結果を返さずに中止を伝える
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException(filePath + "の読み込みを中止しました");
+                }
+                // CSVに間違いがあったらスキップする
+                if (reader.fieldCount() != 4) {
+                    continue;
+                }
+                int code;
+                int status;
+                int repUserCode;
+                try {
+                    code = reader.getInt(0);
+                    status = reader.getInt(2);
+                    repUserCode = reader.getInt(3);
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                tasks.add(code, reader.getString(1), status, repUserCode);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return tasks;
+    }
+
+    /**
+     * CSVを読み直してメモリ上のテーブルを置き換えます。
+     * CSVが外部で編集されたときに利用します。書き込みと同じロックで読み直すため、書き込み途中のCSVは読みません。
+     */
+    public synchronized void reload() {
+        load(readAll());
+        // 索引はCSVのサイズと更新日時を確かめて読み直す
+        index = null;
+        codeFilter = null;
+        nameIndex = null;
+    }
+
+    /**
+     * CSVを走査してタスクコードのブルームフィルタを作成します。
+     * 呼び出さなくても初めてコードで検索したときに作成しますが、起動時に呼び出せば最初の検索も速くなります。
+     * メモリ上のテーブルを読み込んでいる間は検索にフィルタを使わないため、呼び出す必要はありません。
+     *
+     * @see CodeBloomFilter
+     */
+    public void prepareCodeFilter() {
+        codeFilter();
+    }
+
+    /**
+     * CSVのサイズと更新日時が、このインスタンスが最後に書き込んだ後と変わっていないか判定します。
+     * 変わっていなければ、CSVの変更はこのインスタンス自身の書き込みによるものです。
+     * @return 自身の書き込みの後に変更されていなければtrue
+     */
+    public synchronized boolean isUnchangedSinceOwnWrite() {
+        return written.matches(new File(filePath));
+    }
+
+    /**
+     * タスクコードが存在する可能性があるか判定します。falseの場合はCSVを読まずに存在しないと判断できます。
+     */
+    private boolean mightExist(int code) {
+        CodeBloomFilter filter = codeFilter;
+        if (filter == null || filter.isSaturated() || filter.isStale(new File(filePath))) {
+            filter = codeFilter();
+        }
+        return filter == null || filter.mightContain(code);
+    }
+
+    /**
+     * 次のコードでの検索で、ブルームフィルタを作成したときのCSVのサイズと更新日時を照合し直します。
+     * CSVの変更を通知されたときに利用します。
+     */
+    public void recheckCodeFilter() {
+        CodeBloomFilter filter = codeFilter;
+        if (filter != null) {
+            filter.expire();
+        }
+    }
+
+    /**
+     * ブルームフィルタを取得します。無い場合や、CSVが外部で編集されている場合は作り直します。
+     */
+    private synchronized CodeBloomFilter codeFilter() {
+        CodeBloomFilter filter = codeFilter;
+        File file = new File(filePath);
+        if (filter == null || filter.isSaturated() || !filter.matches(file)) {
+            filter = CodeBloomFilter.build(file);
+            codeFilter = filter;
+        }
+        return filter;
+    }
+
+    /**
+     * これから書き込むタスクコードをブルームフィルタに登録します。
+     * 書き込みの途中で検索されても「存在しない」と誤判定しないよう、書き込む前に登録します。
+     * CSVが外部で編集されている場合は、フィルタを破棄して次の検索で作り直します。
+     * @return 書き込み後に記録し直すフィルタ（フィルタを使っていない場合はnull）
+     */
+    private CodeBloomFilter registerCodes(Collection<Task> tasks, File file) {
+        CodeBloomFilter filter = codeFilter;
+        if (filter == null) {
+            return null;
+        }
+        if (!filter.matches(file)) {
+            codeFilter = null;
+            return null;
+        }
+        for (Task task : tasks) {
+            filter.put(task.getCode());
+        }
+        return filter;
+    }
+
+    /**
+     * 担当者のタスクを取得します。
+     * 担当者ごとの索引（tasks.csv.idx）から行の位置を引き、その担当者の行だけをCSVから読み出します。
+     * 索引が無い場合や、CSVが外部で編集されている場合はCSVを1回走査して作り直します。
+     *
+     * @see TaskIndex
+     * @param repUserCode 担当者コード
+     * @return 担当者のタスクのリスト（CSVの行順）
+     */
+    @Override
+    public List<Task> findByRepUserCode(int repUserCode) {
+        TaskIndex taskIndex = index();
+        int[] codes = taskIndex.codesOf(repUserCode);
+        List<Task> tasks = new ArrayList<>(codes.length);
+        Map<Integer, Task> table = cache;
+        if (table != null) {
+            for (int code : codes) {
+                Task task = table.get(code);
+                if (task != null) {
+                    tasks.add(task);
+                }
+            }
+            return tasks;
+        }
+
+        long[] offsets = new long[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            offsets[i] = taskIndex.offsetOf(codes[i]);
+        }
+        // ファイルの先頭から順に読めるよう、行の位置の順に並べる
+        Arrays.sort(offsets);
+        User repUser = userDataAccess.findProfileByCode(repUserCode);
+        try (CsvReader reader = CsvReader.open(filePath)) {
+            for (long offset : offsets) {
+                // 読み出した行が索引と食い違う場合は、索引を作り直して全件から探す
+                if (!reader.nextAt(offset) || reader.fieldCount() != 4 || reader.getInt(3) != repUserCode
+                        || taskIndex.offsetOf(reader.getInt(0)) != offset) {
+                    index = null;
+                    return TaskRepository.super.findByRepUserCode(repUserCode);
+                }
+                tasks.add(new Task(reader.getInt(0), reader.getString(1), reader.getInt(2), repUser));
+            }
+        } catch (NumberFormatException e) {
+            // 索引が数値でない行を指している場合も、索引を作り直して全件から探す
+            index = null;
+            return TaskRepository.super.findByRepUserCode(repUserCode);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return tasks;
+    }
+
+    /**
+     * タスク名に検索語を含むタスクを、タスクコードの昇順に取得します。
+     * タスク名の転置索引（tasks.csv.names）から該当するタスクコードを引き、担当者ごとの索引の行の位置から
+     * その行だけをCSVから読み出します。
+     * 索引が無い場合や、CSVが外部で編集されている場合はCSVを1回走査して作り直します。
+     *
+     * @see TaskNameIndex
+     * @param query 検索語
+     * @param limit 最大の件数
+     * @return 該当したタスクのリスト
+     */
+    @Override
+    public List<Task> searchByName(String query, int limit) {
+        int[] codes = nameIndex().search(query, limit);
+        List<Task> tasks = new ArrayList<>(codes.length);
+        Map<Integer, Task> table = cache;
+        if (table != null) {
+            for (int code : codes) {
+                Task task = table.get(code);
+                if (task != null) {
+                    tasks.add(task);
+                }
+            }
+            return tasks;
+        }
+        if (codes.length == 0) {
+            return tasks;
+        }
+
+        TaskIndex taskIndex = index();
+        long[] offsets = new long[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            offsets[i] = taskIndex.offsetOf(codes[i]);
+        }
+        // ファイルの先頭から順に読めるよう、行の位置の順に並べる
+        Arrays.sort(offsets);
+        Map<Integer, Task> found = new LinkedHashMap<>();
+        Map<Integer, User> repUsers = new LinkedHashMap<>();
+        try (CsvReader reader = CsvReader.open(filePath)) {
+            for (long offset : offsets) {
+                // 読み出した行が索引と食い違う場合は、索引を作り直して全件から探す
+                if (offset < 0 || !reader.nextAt(offset) || reader.fieldCount() != 4
+                        || taskIndex.offsetOf(reader.getInt(0)) != offset) {
+                    index = null;
+                    nameIndex = null;
+                    return TaskRepository.super.searchByName(query, limit);
+                }
+                int repUserCode = reader.getInt(3);
+                User repUser = repUsers.computeIfAbsent(repUserCode, userDataAccess::findProfileByCode);
+                int code = reader.getInt(0);
+                found.put(code, new Task(code, reader.getString(1), reader.getInt(2), repUser));
+            }
+        } catch (NumberFormatException e) {
+            // 索引が数値でない行を指している場合も、索引を作り直して全件から探す
+            index = null;
+            nameIndex = null;
+            return TaskRepository.super.searchByName(query, limit);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        for (int code : codes) {
+            Task task = found.get(code);
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    private synchronized TaskNameIndex nameIndex() {
+        TaskNameIndex taskNameIndex = nameIndex;
+        if (taskNameIndex == null) {
+            File csvFile = new File(filePath);
+            File indexFile = new File(nameIndexPath());
+            taskNameIndex = TaskNameIndex.read(indexFile, csvFile);
+            if (taskNameIndex == null) {
+                taskNameIndex = buildNameIndex();
+                taskNameIndex.write(indexFile, csvFile);
+            }
+            nameIndex = taskNameIndex;
+        }
+        return taskNameIndex;
+    }
+
+    /**
+     * CSVを走査し、各行のタスクコードとタスク名から転置索引を作成します。
+     */
+    private TaskNameIndex buildNameIndex() {
+        TaskNameIndex taskNameIndex = new TaskNameIndex();
+        try (CsvReader reader = CsvReader.open(filePath)) {
+            reader.next(); // タイトル行を読み飛ばす
+            while (reader.next()) {
+                // CSVに間違いがあったらスキップする
+                if (reader.fieldCount() != 4) {
+                    continue;
+                }
+                try {
+                    taskNameIndex.put(reader.getInt(0), reader.getString(1));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return taskNameIndex;
+    }
+
+    private synchronized TaskIndex index() {
+        TaskIndex taskIndex = index;
+        if (taskIndex == null) {
+            File csvFile = new File(filePath);
+            File indexFile = new File(indexPath());
+            taskIndex = TaskIndex.read(indexFile, csvFile);
+            if (taskIndex == null) {
+                taskIndex = buildIndex();
+                taskIndex.write(indexFile, csvFile);
+            }
+            index = taskIndex;
+        }
+        return taskIndex;
+    }
+
+    /**
+     * CSVを走査し、各行のタスクコード・担当者コード・行の位置から索引を作成します。
+     * タスク名の列は復号しません。
+     */
+    private TaskIndex buildIndex() {
+        TaskIndex taskIndex = new TaskIndex();
+        try (CsvReader reader = CsvReader.open(filePath)) {
+            reader.next(); // タイトル行を読み飛ばす
+            while (reader.next()) {
+                // CSVに間違いがあったらスキップする
+                if (reader.fieldCount() != 4) {
+                    continue;
+                }
+                try {
+                    taskIndex.put(reader.getInt(0), reader.getInt(3), reader.offset());
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return taskIndex;
+    }
+
+    private String indexPath() {
+        return filePath + ".idx";
+    }
+
+    private String nameIndexPath() {
+        return filePath + ".names";
+    }
+
+    private String generationPath() {
+        return filePath + ".gen";
+    }
+
+    /**
+     * tasks.csvの現在の世代を取得します。
+     * 世代が同じであれば、その間のtasks.csvの変更はステータスだけなので、ログから再現できます。
+     *
+     * @see SnapshotDataAccess
+     * @return 世代。最後に記録した後にtasks.csvが変わっている（自身以外が変更した）場合や、記録が無い場合は-1
+     */
+    public synchronized long currentGeneration() {
+        File file = new File(filePath);
+        long[] stored = readGeneration();
+        if (stored == null || stored[1] != file.length() || stored[2] != file.lastModified()) {
+            return -1;
+        }
+        return stored[0];
+    }
+
+    /**
+     * 現在のtasks.csvのサイズと更新日時を、世代と一緒に記録します。
+     * 記録が無い、または最後に記録した後に自身以外がtasks.csvを変えていた場合は、世代を進めてから記録します。
+     * スナップショットの作成時に、その時点のtasks.csvに世代を割り当てるために利用します。
+     * @return 記録した世代
+     */
+    synchronized long recordGeneration() {
+        File file = new File(filePath);
+        loadGeneration(file);
+        writeGeneration(file);
+        return generation;
+    }
+
+    /**
+     * 書き込む前に世代を読み込みます。最後に記録した後に自身以外がtasks.csvを変えていれば、世代を進めます。
+     */
+    private void loadGeneration(File file) {
+        if (generation >= 0 && written.matches(file)) {
+            return;
+        }
+        long[] stored = readGeneration();
+        long storedGeneration = stored == null ? 0 : stored[0];
+        boolean unchanged = stored != null && stored[1] == file.length() && stored[2] == file.lastModified();
+        generation = Math.max(generation, storedGeneration) + (unchanged ? 0 : 1);
+    }
+
+    /**
+     * 書き込んだ後のtasks.csvのサイズと更新日時を、世代と一緒に記録します。
+     * 記録は起動時の判定に使うだけなので、書き込めなくても（記録と食い違えばCSVを読み込むため）タスクは失われません。
+     * @param structural ステータス以外を変えた場合はtrue
+     */
+    private void recordWrite(File file, boolean structural) {
+        written.record(file);
+        if (structural) {
+            generation++;
+        }
+        writeGeneration(file);
+    }
+
+    private void writeGeneration(File file) {
+        String line = generation + "," + file.length() + "," + file.lastModified();
+        try {
+            Files.write(new File(generationPath()).toPath(), line.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 世代のファイルを読み込みます。
+     * @return 世代・サイズ・更新日時。ファイルが無い、または壊れている場合はnull
+     */
+    private long[] readGeneration() {
+        File file = new File(generationPath());
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            String[] values = Files.readString(file.toPath(), StandardCharsets.UTF_8).trim().split(",");
+            if (values.length != 3) {
+                return null;
+            }
+            return new long[] { Long.parseLong(values[0]), Long.parseLong(values[1]), Long.parseLong(values[2]) };
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private List<Task> readAll() {
         List<Task> tasks = new ArrayList<Task>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            reader.readLine();
-            while((line = reader.readLine()) != null) {
-                String[] values = line.split(",");
+        try (CsvReader reader = CsvReader.open(filePath)) {
+            reader.next();
+            while(reader.next()) {
+                // 読み込みを中止されたら、途中までの結果を返さずに中止を伝える
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException(filePath + "の読み込みを中止しました");
+                }
                 // CSVに間違いがあったらスキップする
-                if (values.length != 4) {
+                if (reader.fieldCount() != 4) {
                     continue;
                 }
 
-                int code = Integer.parseInt(values[0]);
-                String name = values[1];
-                int status = Integer.parseInt(values[2]);
-                User repUser = userDataAccess.findByCode(Integer.parseInt(values[3]));
+                int code;
+                int status;
+                int repUserCode;
+                try {
+                    code = reader.getInt(0);
+                    status = reader.getInt(2);
+                    repUserCode = reader.getInt(3);
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                String name = reader.getString(1);
+                User repUser = userDataAccess.findProfileByCode(repUserCode);
 
                 // Taskオブジェクトにマッピング
                 Task task = new Task(code, name, status, repUser);
@@ -68,16 +586,57 @@ public class TaskDataAccess {
 
     /**
      * タスクをCSVに保存します。
+     * ファイルの書き換えと追記は同時に行うと互いの変更を上書きするため、インスタンスごとに1つずつ行います。
      * @param task 保存するタスク
+     * @throws UncheckedIOException 書き込めなかった場合
      */
     
-    public void save(Task task) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath, true))) {
+    public synchronized void save(Task task) {
+        try {
+            append(task);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * タスクをCSVに追記します。
+     * @param task 追記するタスク
+     * @throws IOException 書き込みに失敗した場合
+     */
+    synchronized void append(Task task) throws IOException {
+        File file = new File(filePath);
+        boolean needsNewLine = !endsWithNewLine(file);
+        long offset = file.length() + (needsNewLine ? System.lineSeparator().length() : 0);
+        loadGeneration(file);
+        CodeBloomFilter filter = registerCodes(List.of(task), file);
+        try (CsvWriter writer = CsvWriter.open(filePath, true)) {
+            // 最終行が改行で終わっていない場合は、行が連結されないように改行を補う
+            if (needsNewLine) {
+                writer.newLine();
+            }
             // タスク情報をCSVフォーマットで書き込む
-        writer.write(task.getCode() + "," + task.getName() + "," + task.getStatus() + "," + task.getRepUser().getCode());
+        writer.write(createLine(task));
         writer.newLine(); // 新しい行を追加
-        } catch (IOException e) {
-            e.printStackTrace();
+        }
+        recordWrite(file, true);
+        if (filter != null) {
+            filter.stamp(file);
+        }
+        Map<Integer, Task> table = cache;
+        if (table != null) {
+            table.put(task.getCode(), task);
+        }
+        // 索引を使っている場合は、追加した行の記録だけを追記する
+        TaskIndex taskIndex = index;
+        if (taskIndex != null) {
+            taskIndex.put(task.getCode(), task.getRepUser().getCode(), offset);
+            taskIndex.append(new File(indexPath()), file, task.getCode());
+        }
+        TaskNameIndex taskNameIndex = nameIndex;
+        if (taskNameIndex != null) {
+            taskNameIndex.put(task.getCode(), task.getName());
+            taskNameIndex.append(new File(nameIndexPath()), file, task.getCode());
         }
     }
 
@@ -89,20 +648,37 @@ public class TaskDataAccess {
      * @return 取得したタスク
      */
     public Task findByCode(int code) {
+        Map<Integer, Task> table = cache;
+        if (table != null) {
+            return table.get(code);
+        }
+        // 確実に存在しないコードはCSVを読まずに返す
+        if (!mightExist(code)) {
+            return null;
+        }
+
         Task task= null;
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
+        try (CsvReader reader = CsvReader.open(filePath)) {
             //タイトル行を読み飛ばす
-            reader.readLine();
-            while ((line = reader.readLine()) != null) {
-                String[] values = line.split(",");
-                int taskCode = Integer.parseInt(values[0]);
-                if(code != taskCode) continue;
-                String name = values[1];
-                int status = Integer.parseInt(values[2]);
-                int repUserCode = Integer.parseInt(values[3]);
+            reader.next();
+            while (reader.next()) {
+                // コードの列だけを変換し、一致した行だけタスク名を復号する
+                if (reader.fieldCount() != 4) continue;
+                int taskCode;
+                int status;
+                int repUserCode;
+                try {
+                    taskCode = reader.getInt(0);
+                    if(code != taskCode) continue;
+                    status = reader.getInt(2);
+                    repUserCode = reader.getInt(3);
+                } catch (NumberFormatException e) {
+                    // 数値の列に間違いがある行はスキップする
+                    continue;
+                }
+                String name = reader.getString(1);
                 //taskオブジェクトにマッピングしていく
-                task = new Task(repUserCode, name, status, userDataAccess.findByCode(repUserCode));
+                task = new Task(taskCode, name, status, userDataAccess.findProfileByCode(repUserCode));
                 break;
             }
         } catch (IOException e) {
@@ -116,52 +692,152 @@ public class TaskDataAccess {
      * @param updateTask 更新するタスク
      */
     public void update(Task updateTask) {
-        List<Task> tasks = new ArrayList<>();
-    boolean taskUpdated = false;
+        updateAll(List.of(updateTask));
+    }
+
+    /**
+     * 複数のタスクデータを1回のファイル書き換えで更新します。
+     * 存在しないタスクは末尾に追加します。書き換えは一時ファイルに書き込んでから置き換えるため、
+     * 途中で中断されても元のファイルが壊れることはありません。
+     * @param updateTasks 更新するタスク
+     * @throws UncheckedIOException 読み込みまたは書き込みに失敗した場合（元のファイルは変わらない）
+     */
+    @Override
+    public synchronized void updateAll(Collection<Task> updateTasks) {
+        try {
+            rewrite(updateTasks);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 複数のタスクデータを1回のファイル書き換えで更新します。
+     * 読み込みや書き込みに失敗した場合は元のファイルを変えずに例外を送出します。
+     * 一時ファイルはディスクへの書き込みを待ってから置き換えるため、置き換えた後に中断されても中身が失われません。
+     * 形式が正しくない行は変更せずにそのまま書き戻します。
+     * @param updateTasks 更新するタスク
+     * @throws IOException 読み込みまたは書き込みに失敗した場合
+     */
+    synchronized void rewrite(Collection<Task> updateTasks) throws IOException {
+        Map<Integer, Task> pending = new LinkedHashMap<>();
+        for (Task task : updateTasks) {
+            pending.put(task.getCode(), task);
+        }
 
-    // まず既存のタスクを読み込み
-    try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-        String line;
-        br.readLine(); // ヘッダー行をスキップ
-        while ((line = br.readLine()) != null) {
-            String[] data = line.split(",");
-            int taskCode = Integer.parseInt(data[0]);
-            String taskName = data[1];
-            int status = Integer.parseInt(data[2]);
-            int userCode = Integer.parseInt(data[3]);
+        File file = new File(filePath);
+        loadGeneration(file);
 
-            if (taskCode == updateTask.getCode()) {
-                taskName = updateTask.getName();
-                status = updateTask.getStatus();
-                userCode = updateTask.getRepUser().getCode();
-                taskUpdated = true;
+        // まず既存の行を読み込み、更新対象の行だけを差し替える
+        String header = "コード,タスク名,ステータス,担当者コード";
+        List<String> lines = new ArrayList<>();
+        // ステータス以外が変わる場合は世代を進める
+        boolean structural = false;
+        try (CsvReader reader = CsvReader.open(filePath)) {
+            if (reader.next()) {
+                header = reader.line();
+            }
+            while (reader.next()) {
+                Task task = null;
+                if (reader.fieldCount() == 4) {
+                    try {
+                        task = pending.remove(reader.getInt(0));
+                        if (task != null && !structural) {
+                            structural = !reader.getString(1).equals(task.getName())
+                                    || reader.getInt(3) != task.getRepUser().getCode();
+                        }
+                    } catch (NumberFormatException e) {
+                        // コードが数値でない行は更新対象にならない
+                        structural |= task != null;
+                    }
+                }
+                lines.add(task == null ? reader.line() : createLine(task));
             }
+        }
+        structural |= !pending.isEmpty();
+
+        // 更新されなかったタスクは新たに追加
+        for (Task task : pending.values()) {
+            lines.add(createLine(task));
+        }
+
+        // 索引を使っている場合は、書き込む行の位置から索引を作り直す
+        TaskIndex rebuilt = index != null ? new TaskIndex() : null;
 
-            Task taskFromFile = new Task(taskCode, taskName, status, userDataAccess.findByCode(userCode));
-            tasks.add(taskFromFile);
+        CodeBloomFilter filter = registerCodes(pending.values(), file);
+        File tmpFile = new File(filePath + ".tmp");
+        try (CsvWriter writer = CsvWriter.open(tmpFile.getPath(), false)) {
+            writer.write(header);
+            writer.newLine();
+            for (String line : lines) {
+                if (rebuilt != null) {
+                    putIndex(rebuilt, line, writer.position());
+                }
+                writer.write(line);
+                writer.newLine();
+            }
+            writer.force();
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        recordWrite(file, structural);
+        if (filter != null) {
+            filter.stamp(file);
+        }
+
+        Map<Integer, Task> table = cache;
+        if (table != null) {
+            for (Task task : updateTasks) {
+                table.put(task.getCode(), task);
+            }
+        }
+        if (rebuilt != null) {
+            rebuilt.write(new File(indexPath()), file);
+            index = rebuilt;
+        }
+        // タスク名の転置索引は、タスク名が変わったタスクだけを追記する
+        TaskNameIndex taskNameIndex = nameIndex;
+        if (taskNameIndex != null) {
+            int[] renamed = new int[updateTasks.size()];
+            int renamedCount = 0;
+            for (Task task : updateTasks) {
+                if (taskNameIndex.put(task.getCode(), task.getName())) {
+                    renamed[renamedCount++] = task.getCode();
+                }
+            }
+            taskNameIndex.append(new File(nameIndexPath()), file, Arrays.copyOf(renamed, renamedCount));
         }
-    } catch (IOException e) {
-        e.printStackTrace();
     }
 
-    // タスクが更新されていない場合は新たにリストに追加
-    if (!taskUpdated) {
-        tasks.add(updateTask);
+    /**
+     * 書き込む行のコードと担当者コードを索引に登録します。形式が正しくない行は登録しません。
+     */
+    private void putIndex(TaskIndex taskIndex, String line, long offset) {
+        int first = line.indexOf(',');
+        int last = line.lastIndexOf(',');
+        if (first < 0 || first == last) {
+            return;
+        }
+        try {
+            taskIndex.put(Integer.parseInt(line.substring(0, first)), Integer.parseInt(line.substring(last + 1)),
+                    offset);
+        } catch (NumberFormatException e) {
+            // 読み込み時と同じく、数値でない行は索引に含めない
+        }
     }
 
-    // ファイルを上書きして新しいタスクのリストを書き込む
-    try (BufferedWriter bw = new BufferedWriter(new FileWriter(filePath, false))) {
-        // ヘッダーを書き込む
-        bw.write("コード,タスク名,ステータス,担当者コード");
-        bw.newLine();
-        for (Task t : tasks) {
-            bw.write(t.getCode() + "," + t.getName() + "," + t.getStatus() + "," + t.getRepUser().getCode());
-            bw.newLine();
+    private boolean endsWithNewLine(File file) {
+        if (file.length() == 0) {
+            return true;
         }
-    } catch (IOException e) {
-        e.printStackTrace();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(file.length() - 1);
+            return raf.read() == '\n';
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return true;
     }
-}
 
     /**
      * コードを基にタスクデータを削除します。
@@ -180,6 +856,7 @@ public class TaskDataAccess {
      * @param task フォーマットを作成するタスク
      * @return CSVに書き込むためのフォーマット文字列
      */
-    // private String createLine(Task task) {
-    // }
+    private String createLine(Task task) {
+        return task.getCode() + "," + task.getName() + "," + task.getStatus() + "," + task.getRepUser().getCode();
+    }
 }
\ No newline at end of file
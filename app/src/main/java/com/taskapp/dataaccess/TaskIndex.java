@@ -0,0 +1,243 @@
+package com.taskapp.dataaccess;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * 担当者コードからタスクコードを引く索引です。
+ * タスクごとにCSV内の行の位置（バイト単位）も保持するため、担当者のタスクだけをCSVから読み出せます。
+ * <p>
+ * ボクシングを避けるため、キーと値はすべてプリミティブの配列で保持します。
+ * 担当者ごとのタスクコードは登録順に並びます。
+ * <p>
+ * ファイルには、CSVのサイズと更新日時、続いて「タスクコード・担当者コード・行の位置」の記録を書き込みます。
+ * 記録は追記でき、同じタスクの記録は後のものが優先されます。
+ * 読み込むときにCSVのサイズと更新日時が記録と異なれば、CSVが外部で編集されたとみなして利用しません。
+ */
+public class TaskIndex {
+    private static final int MAGIC = 0x54494458;
+
+    private static final int HEADER_BYTES = 4 + 8 + 8;
+
+    /** タスクコードから記録の番号 */
+    private final IntIntMap entriesByCode = new IntIntMap();
+    private int[] entryCodes = new int[16];
+    private int[] entryRepUserCodes = new int[16];
+    private long[] entryOffsets = new long[16];
+    private int entryCount;
+
+    /** 担当者コードからタスクコードの一覧の番号 */
+    private final IntIntMap listsByRepUser = new IntIntMap();
+    private int[][] lists = new int[16][];
+    private int[] listSizes = new int[16];
+    private int listCount;
+
+    /**
+     * タスクを索引に登録します。既に登録されているタスクは担当者と行の位置を置き換えます。
+     * @param code タスクコード
+     * @param repUserCode 担当者コード
+     * @param offset CSV内の行の位置（バイト単位）
+     */
+    public synchronized void put(int code, int repUserCode, long offset) {
+        int entry = entriesByCode.get(code);
+        if (entry < 0) {
+            entry = entryCount++;
+            if (entry == entryCodes.length) {
+                int capacity = entryCodes.length * 2;
+                entryCodes = Arrays.copyOf(entryCodes, capacity);
+                entryRepUserCodes = Arrays.copyOf(entryRepUserCodes, capacity);
+                entryOffsets = Arrays.copyOf(entryOffsets, capacity);
+            }
+            entryCodes[entry] = code;
+            entriesByCode.put(code, entry);
+        } else if (entryRepUserCodes[entry] != repUserCode) {
+            // 担当者が変わった場合は、前の担当者の一覧から外す
+            removeFromList(entryRepUserCodes[entry], code);
+        } else {
+            entryOffsets[entry] = offset;
+            return;
+        }
+        entryRepUserCodes[entry] = repUserCode;
+        entryOffsets[entry] = offset;
+        addToList(repUserCode, code);
+    }
+
+    /**
+     * 担当者のタスクコードを登録順に取得します。
+     * @param repUserCode 担当者コード
+     * @return タスクコードの配列（該当が無い場合は空の配列）
+     */
+    public synchronized int[] codesOf(int repUserCode) {
+        int list = listsByRepUser.get(repUserCode);
+        return list < 0 ? new int[0] : Arrays.copyOf(lists[list], listSizes[list]);
+    }
+
+    /**
+     * 担当者のタスクの数を取得します。
+     * @param repUserCode 担当者コード
+     * @return タスクの数
+     */
+    public synchronized int countOf(int repUserCode) {
+        int list = listsByRepUser.get(repUserCode);
+        return list < 0 ? 0 : listSizes[list];
+    }
+
+    /**
+     * タスクのCSV内の行の位置を取得します。
+     * @param code タスクコード
+     * @return 行の位置、登録されていない場合は-1
+     */
+    public synchronized long offsetOf(int code) {
+        int entry = entriesByCode.get(code);
+        return entry < 0 ? -1 : entryOffsets[entry];
+    }
+
+    /**
+     * タスクの担当者コードを取得します。
+     * @param code タスクコード
+     * @return 担当者コード、登録されていない場合は-1
+     */
+    public synchronized int repUserOf(int code) {
+        int entry = entriesByCode.get(code);
+        return entry < 0 ? -1 : entryRepUserCodes[entry];
+    }
+
+    /**
+     * 登録されているタスクの数を取得します。
+     * @return タスクの数
+     */
+    public synchronized int size() {
+        return entryCount;
+    }
+
+    private void addToList(int repUserCode, int code) {
+        int list = listsByRepUser.get(repUserCode);
+        if (list < 0) {
+            list = listCount++;
+            if (list == lists.length) {
+                lists = Arrays.copyOf(lists, list * 2);
+                listSizes = Arrays.copyOf(listSizes, list * 2);
+            }
+            lists[list] = new int[4];
+            listsByRepUser.put(repUserCode, list);
+        }
+        if (listSizes[list] == lists[list].length) {
+            lists[list] = Arrays.copyOf(lists[list], listSizes[list] * 2);
+        }
+        lists[list][listSizes[list]++] = code;
+    }
+
+    private void removeFromList(int repUserCode, int code) {
+        int list = listsByRepUser.get(repUserCode);
+        if (list < 0) {
+            return;
+        }
+        int[] codes = lists[list];
+        int size = listSizes[list];
+        for (int i = 0; i < size; i++) {
+            if (codes[i] == code) {
+                System.arraycopy(codes, i + 1, codes, i, size - i - 1);
+                listSizes[list] = size - 1;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 索引全体をファイルに書き込みます。一時ファイルに書き込んでから置き換えます。
+     * @param file 索引のファイル
+     * @param csvFile 索引の対象のCSV（サイズと更新日時を記録する）
+     */
+    public synchronized void write(File file, File csvFile) {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(csvFile.length());
+            out.writeLong(csvFile.lastModified());
+            for (int i = 0; i < entryCount; i++) {
+                out.writeInt(entryCodes[i]);
+                out.writeInt(entryRepUserCodes[i]);
+                out.writeLong(entryOffsets[i]);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try {
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 1件のタスクの記録をファイルに追記し、CSVのサイズと更新日時を更新します。
+     * ファイルが無い場合は索引全体を書き込みます。
+     * @param file 索引のファイル
+     * @param csvFile 索引の対象のCSV
+     * @param code 追記するタスクのコード
+     */
+    public synchronized void append(File file, File csvFile, int code) {
+        int entry = entriesByCode.get(code);
+        if (entry < 0) {
+            return;
+        }
+        if (!file.exists()) {
+            write(file, csvFile);
+            return;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length());
+            raf.writeInt(code);
+            raf.writeInt(entryRepUserCodes[entry]);
+            raf.writeLong(entryOffsets[entry]);
+            // 記録を書き終えてからCSVのサイズと更新日時を書き換える
+            raf.seek(4);
+            raf.writeLong(csvFile.length());
+            raf.writeLong(csvFile.lastModified());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * ファイルから索引を読み込みます。
+     * @param file 索引のファイル
+     * @param csvFile 索引の対象のCSV
+     * @return 読み込んだ索引。ファイルが無い、壊れている、またはCSVが記録後に変更されている場合はnull
+     */
+    public static TaskIndex read(File file, File csvFile) {
+        if (!file.exists() || file.length() < HEADER_BYTES) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readLong() != csvFile.length()
+                    || in.readLong() != csvFile.lastModified()) {
+                return null;
+            }
+            TaskIndex index = new TaskIndex();
+            long records = (file.length() - HEADER_BYTES) / 16;
+            for (long i = 0; i < records; i++) {
+                index.put(in.readInt(), in.readInt(), in.readLong());
+            }
+            return index;
+        } catch (EOFException e) {
+            return null;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+}
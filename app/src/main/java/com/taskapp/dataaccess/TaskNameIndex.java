@@ -0,0 +1,451 @@
+package com.taskapp.dataaccess;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * タスク名の全文検索に利用する転置索引です。
+ * タスク名を隣り合う2文字の組（バイグラム）に分け、組ごとにその組を含むタスクコードを昇順に保持します。
+ * 形態素解析を使わないため、日本語のタスク名も分かち書きせずに検索できます。
+ * <p>
+ * 検索では、検索語の組の転置リストのうち最も短いものを順に読み、残りのリストにも含まれるタスクだけを残します。
+ * 3文字以上の検索語は、組がすべて含まれていても連続していない場合があるため、タスク名に検索語が含まれるかを確かめます。
+ * 1文字の検索語にも対応するため、タスク名の末尾の文字は終端を表す記号との組として登録します。
+ * 英字の大文字・小文字、全角・半角は区別しません（NFKCで正規化し、小文字にします）。
+ * <p>
+ * ボクシングを避けるため、正規化したタスク名は1つの文字の配列に連結し、転置リストはプリミティブの配列で保持します。
+ * <p>
+ * ファイルには、CSVのサイズと更新日時、続いて「タスクコード・正規化したタスク名」の記録を書き込みます。
+ * 記録は追記でき、同じタスクの記録は後のものが優先されます。
+ * 読み込むときにCSVのサイズと更新日時が記録と異なれば、CSVが外部で編集されたとみなして利用しません。
+ *
+ * @see TaskIndex
+ */
+public class TaskNameIndex {
+    private static final int MAGIC = 0x544e4958;
+
+    private static final int HEADER_BYTES = 4 + 8 + 8;
+
+    /** タスク名の終端を表す文字（テキストには現れない非文字） */
+    private static final char END = '\uffff';
+
+    /** タスクコードから記録の番号 */
+    private final IntIntMap entriesByCode = new IntIntMap();
+    private int[] entryCodes = new int[16];
+    private int[] nameStarts = new int[16];
+    private int[] nameLengths = new int[16];
+    private int entryCount;
+
+    /** 正規化したタスク名を連結した文字の配列 */
+    private char[] chars = new char[256];
+    private int charCount;
+
+    /** 2文字の組から転置リストの番号 */
+    private final IntIntMap postingsByGram = new IntIntMap();
+    private int[][] postings = new int[16][];
+    private int[] postingSizes = new int[16];
+    private int postingCount;
+
+    /** 1文字目から、その文字で始まる組の転置リストの番号の一覧 */
+    private final IntIntMap gramListsByFirst = new IntIntMap();
+    private int[][] gramLists = new int[16][];
+    private int[] gramListSizes = new int[16];
+    private int gramListCount;
+
+    /**
+     * 検索のためにタスク名を正規化します。全角の英数字は半角に、英字は小文字にします。
+     * @param name タスク名
+     * @return 正規化したタスク名
+     */
+    public static String normalize(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) >= 0x80) {
+                return Normalizer.normalize(name, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+            }
+        }
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * タスクを索引に登録します。既に登録されているタスクはタスク名を置き換えます。
+     * @param code タスクコード
+     * @param name タスク名
+     * @return 索引が変わった場合はtrue、同じタスク名で登録済みの場合はfalse
+     */
+    public synchronized boolean put(int code, String name) {
+        return putNormalized(code, normalize(name));
+    }
+
+    private boolean putNormalized(int code, String name) {
+        int entry = entriesByCode.get(code);
+        if (entry < 0) {
+            entry = entryCount++;
+            if (entry == entryCodes.length) {
+                int capacity = entryCodes.length * 2;
+                entryCodes = Arrays.copyOf(entryCodes, capacity);
+                nameStarts = Arrays.copyOf(nameStarts, capacity);
+                nameLengths = Arrays.copyOf(nameLengths, capacity);
+            }
+            entryCodes[entry] = code;
+            entriesByCode.put(code, entry);
+        } else if (nameEquals(entry, name)) {
+            return false;
+        } else {
+            // タスク名が変わった場合は、前のタスク名の組から外す（前のタスク名の文字は配列に残る）
+            int start = nameStarts[entry];
+            int length = nameLengths[entry];
+            for (int i = 0; i < length; i++) {
+                removePosting(gramAt(start, length, i), code);
+            }
+        }
+
+        if (charCount + name.length() > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + name.length()));
+        }
+        name.getChars(0, name.length(), chars, charCount);
+        nameStarts[entry] = charCount;
+        nameLengths[entry] = name.length();
+        charCount += name.length();
+        for (int i = 0; i < name.length(); i++) {
+            addPosting(gramAt(nameStarts[entry], name.length(), i), code);
+        }
+        return true;
+    }
+
+    /**
+     * タスク名に検索語を含むタスクを探します。
+     * @param query 検索語
+     * @param limit 最大の件数
+     * @return タスクコードの配列（昇順。該当が無い場合は空の配列）
+     */
+    public synchronized int[] search(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+        if (normalized.length() == 1) {
+            return searchFirstChar(normalized.charAt(0), limit);
+        }
+
+        // 検索語の組の転置リストを短い順に並べる
+        int[] lists = new int[normalized.length() - 1];
+        int listCount = 0;
+        for (int i = 0; i < normalized.length() - 1; i++) {
+            int list = postingsByGram.get(gram(normalized.charAt(i), normalized.charAt(i + 1)));
+            if (list < 0) {
+                return new int[0];
+            }
+            // 同じ組が繰り返し現れる検索語（例：「ああああ」）では1回だけ使う
+            if (contains(lists, listCount, list)) {
+                continue;
+            }
+            int position = listCount;
+            while (position > 0 && postingSizes[lists[position - 1]] > postingSizes[list]) {
+                position--;
+            }
+            System.arraycopy(lists, position, lists, position + 1, listCount - position);
+            lists[position] = list;
+            listCount++;
+        }
+
+        boolean verify = normalized.length() > 2;
+        int[] smallest = postings[lists[0]];
+        int smallestSize = postingSizes[lists[0]];
+        int[] cursors = new int[listCount];
+        int[] result = new int[Math.min(limit, smallestSize)];
+        int found = 0;
+        candidates:
+        for (int i = 0; i < smallestSize && found < result.length; i++) {
+            int code = smallest[i];
+            for (int j = 1; j < listCount; j++) {
+                int[] other = postings[lists[j]];
+                int otherSize = postingSizes[lists[j]];
+                cursors[j] = seek(other, otherSize, cursors[j], code);
+                if (cursors[j] == otherSize) {
+                    break candidates;
+                }
+                if (other[cursors[j]] != code) {
+                    continue candidates;
+                }
+            }
+            if (verify && !nameContains(entriesByCode.get(code), normalized)) {
+                continue;
+            }
+            result[found++] = code;
+        }
+        return Arrays.copyOf(result, found);
+    }
+
+    /**
+     * 1文字の検索語は、その文字で始まる組の転置リストを合わせて探します。
+     * 各リストは昇順のため、先頭から最大の件数までを集めれば足ります。
+     */
+    private int[] searchFirstChar(char c, int limit) {
+        int gramList = gramListsByFirst.get(c);
+        if (gramList < 0) {
+            return new int[0];
+        }
+        int[] codes = new int[16];
+        int size = 0;
+        for (int i = 0; i < gramListSizes[gramList]; i++) {
+            int list = gramLists[gramList][i];
+            int count = Math.min(limit, postingSizes[list]);
+            if (size + count > codes.length) {
+                codes = Arrays.copyOf(codes, Math.max(codes.length * 2, size + count));
+            }
+            System.arraycopy(postings[list], 0, codes, size, count);
+            size += count;
+        }
+        Arrays.sort(codes, 0, size);
+        int unique = 0;
+        for (int i = 0; i < size && unique < limit; i++) {
+            if (unique == 0 || codes[unique - 1] != codes[i]) {
+                codes[unique++] = codes[i];
+            }
+        }
+        return Arrays.copyOf(codes, unique);
+    }
+
+    /**
+     * 登録されているタスクの数を取得します。
+     * @return タスクの数
+     */
+    public synchronized int size() {
+        return entryCount;
+    }
+
+    private int gramAt(int start, int length, int i) {
+        return gram(chars[start + i], i + 1 < length ? chars[start + i + 1] : END);
+    }
+
+    private static int gram(char first, char second) {
+        return (first << 16) | second;
+    }
+
+    private void addPosting(int gram, int code) {
+        int list = postingsByGram.get(gram);
+        if (list < 0) {
+            list = postingCount++;
+            if (list == postings.length) {
+                postings = Arrays.copyOf(postings, list * 2);
+                postingSizes = Arrays.copyOf(postingSizes, list * 2);
+            }
+            postings[list] = new int[4];
+            postingsByGram.put(gram, list);
+            addToGramList(gram >>> 16, list);
+        }
+        int[] codes = postings[list];
+        int size = postingSizes[list];
+        // 多くの場合タスクコードは昇順に登録されるため、末尾に追加する
+        int position = size == 0 || codes[size - 1] < code ? size : Arrays.binarySearch(codes, 0, size, code);
+        if (position >= 0 && position < size) {
+            return;
+        }
+        if (position < 0) {
+            position = -position - 1;
+        }
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, size * 2);
+            postings[list] = codes;
+        }
+        System.arraycopy(codes, position, codes, position + 1, size - position);
+        codes[position] = code;
+        postingSizes[list] = size + 1;
+    }
+
+    private void removePosting(int gram, int code) {
+        int list = postingsByGram.get(gram);
+        if (list < 0) {
+            return;
+        }
+        int[] codes = postings[list];
+        int size = postingSizes[list];
+        int position = Arrays.binarySearch(codes, 0, size, code);
+        if (position >= 0) {
+            System.arraycopy(codes, position + 1, codes, position, size - position - 1);
+            postingSizes[list] = size - 1;
+        }
+    }
+
+    private void addToGramList(int first, int list) {
+        int gramList = gramListsByFirst.get(first);
+        if (gramList < 0) {
+            gramList = gramListCount++;
+            if (gramList == gramLists.length) {
+                gramLists = Arrays.copyOf(gramLists, gramList * 2);
+                gramListSizes = Arrays.copyOf(gramListSizes, gramList * 2);
+            }
+            gramLists[gramList] = new int[4];
+            gramListsByFirst.put(first, gramList);
+        }
+        if (gramListSizes[gramList] == gramLists[gramList].length) {
+            gramLists[gramList] = Arrays.copyOf(gramLists[gramList], gramListSizes[gramList] * 2);
+        }
+        gramLists[gramList][gramListSizes[gramList]++] = list;
+    }
+
+    /**
+     * 昇順の配列で、指定した位置以降にある値以上の最初の位置を探します。
+     * 間隔を倍にしながら範囲を絞ってから二分探索するため、近くにある場合ほど速く見つかります。
+     */
+    private static int seek(int[] codes, int size, int from, int code) {
+        if (from >= size || codes[from] >= code) {
+            return from;
+        }
+        int step = 1;
+        int low = from;
+        int high = from + step;
+        while (high < size && codes[high] < code) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        int position = Arrays.binarySearch(codes, low + 1, Math.min(high + 1, size), code);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    private static boolean contains(int[] values, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean nameEquals(int entry, String name) {
+        if (nameLengths[entry] != name.length()) {
+            return false;
+        }
+        int start = nameStarts[entry];
+        for (int i = 0; i < name.length(); i++) {
+            if (chars[start + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean nameContains(int entry, String query) {
+        int start = nameStarts[entry];
+        int last = nameLengths[entry] - query.length();
+        for (int offset = 0; offset <= last; offset++) {
+            int i = 0;
+            while (i < query.length() && chars[start + offset + i] == query.charAt(i)) {
+                i++;
+            }
+            if (i == query.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String nameOf(int entry) {
+        return new String(chars, nameStarts[entry], nameLengths[entry]);
+    }
+
+    /**
+     * 索引全体をファイルに書き込みます。一時ファイルに書き込んでから置き換えます。
+     * @param file 索引のファイル
+     * @param csvFile 索引の対象のCSV（サイズと更新日時を記録する）
+     */
+    public synchronized void write(File file, File csvFile) {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(csvFile.length());
+            out.writeLong(csvFile.lastModified());
+            for (int i = 0; i < entryCount; i++) {
+                out.writeInt(entryCodes[i]);
+                out.writeUTF(nameOf(i));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try {
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * タスクの記録をファイルに追記し、CSVのサイズと更新日時を更新します。
+     * タスク名が変わっていない場合も、CSVを書き換えた後はタスクを指定せずに呼び出して記録し直してください。
+     * ファイルが無い場合は索引全体を書き込みます。
+     * @param file 索引のファイル
+     * @param csvFile 索引の対象のCSV
+     * @param codes 追記するタスクのコード
+     */
+    public synchronized void append(File file, File csvFile, int... codes) {
+        if (!file.exists()) {
+            write(file, csvFile);
+            return;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (codes.length > 0) {
+                raf.seek(raf.length());
+                for (int code : codes) {
+                    int entry = entriesByCode.get(code);
+                    if (entry >= 0) {
+                        raf.writeInt(code);
+                        raf.writeUTF(nameOf(entry));
+                    }
+                }
+            }
+            // 記録を書き終えてからCSVのサイズと更新日時を書き換える
+            raf.seek(4);
+            raf.writeLong(csvFile.length());
+            raf.writeLong(csvFile.lastModified());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * ファイルから索引を読み込みます。
+     * @param file 索引のファイル
+     * @param csvFile 索引の対象のCSV
+     * @return 読み込んだ索引。ファイルが無い、壊れている、またはCSVが記録後に変更されている場合はnull
+     */
+    public static TaskNameIndex read(File file, File csvFile) {
+        if (!file.exists() || file.length() < HEADER_BYTES) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readLong() != csvFile.length()
+                    || in.readLong() != csvFile.lastModified()) {
+                return null;
+            }
+            TaskNameIndex index = new TaskNameIndex();
+            int first;
+            // 記録の境界でファイルが終われば読み終わり。記録の途中で終わる場合は壊れているとみなす
+            while ((first = in.read()) >= 0) {
+                int code = (first << 24) | (in.readUnsignedByte() << 16) | in.readUnsignedShort();
+                index.putNormalized(code, in.readUTF());
+            }
+            return index;
+        } catch (EOFException e) {
+            return null;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,107 @@
+package com.taskapp.dataaccess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import com.taskapp.model.Task;
+
+/**
+ * タスクの保存先を抽象化したリポジトリです。
+ * CSV・メモリ・組み込みデータベースなどの実装を、ロジック層を変更せずに差し替えられます。
+ */
+public interface TaskRepository {
+
+    /**
+     * 全てのタスクデータを取得します。
+     * @return タスクのリスト
+     */
+    List<Task> findAll();
+
+    /**
+     * タスクを保存します。
+     * @param task 保存するタスク
+     * @throws java.io.UncheckedIOException 書き込めなかった場合
+     */
+    void save(Task task);
+
+    /**
+     * コードを基にタスクデータを1件取得します。
+     * @param code 取得するタスクのコード
+     * @return 取得したタスク、存在しない場合はnull
+     */
+    Task findByCode(int code);
+
+    /**
+     * タスクデータを更新します。
+     * @param updateTask 更新するタスク
+     * @throws java.io.UncheckedIOException 書き込めなかった場合
+     */
+    void update(Task updateTask);
+
+    /**
+     * 複数のタスクデータをまとめて更新します。存在しないタスクは追加します。
+     * 実装によっては1回の書き込みにまとめます。
+     * @param updateTasks 更新するタスク
+     * @throws java.io.UncheckedIOException 書き込めなかった場合
+     */
+    default void updateAll(Collection<Task> updateTasks) {
+        for (Task task : updateTasks) {
+            if (findByCode(task.getCode()) == null) {
+                save(task);
+            } else {
+                update(task);
+            }
+        }
+    }
+
+    /**
+     * 担当者のタスクを取得します。
+     * 既定では全件から絞り込みます。担当者ごとの索引を持つ実装は、その担当者の行だけを読みます。
+     * @param repUserCode 担当者コード
+     * @return 担当者のタスクのリスト
+     */
+    default List<Task> findByRepUserCode(int repUserCode) {
+        List<Task> tasks = new ArrayList<>();
+        for (Task task : findAll()) {
+            if (task.getRepUser() != null && task.getRepUser().getCode() == repUserCode) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * タスク名に検索語を含むタスクを、タスクコードの昇順に取得します。
+     * 英字の大文字・小文字、全角・半角は区別しません。
+     * 既定では全件から絞り込みます。タスク名の転置索引を持つ実装は、索引から該当するタスクだけを読みます。
+     *
+     * @see TaskNameIndex
+     * @param query 検索語
+     * @param limit 最大の件数
+     * @return 該当したタスクのリスト
+     */
+    default List<Task> searchByName(String query, int limit) {
+        String normalized = TaskNameIndex.normalize(query);
+        List<Task> tasks = new ArrayList<>();
+        if (normalized.isEmpty()) {
+            return tasks;
+        }
+        for (Task task : findAll()) {
+            if (TaskNameIndex.normalize(task.getName()).contains(normalized)) {
+                tasks.add(task);
+            }
+        }
+        tasks.sort(Comparator.comparingInt(Task::getCode));
+        return tasks.size() > limit ? new ArrayList<>(tasks.subList(0, Math.max(limit, 0))) : tasks;
+    }
+
+    /**
+     * 全てのタスクを列ごとのテーブルとして取得します。
+     * @return タスクのテーブル
+     */
+    default TaskTable findAllAsTable() {
+        return TaskTable.of(findAll());
+    }
+}
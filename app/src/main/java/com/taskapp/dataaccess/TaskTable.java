@@ -0,0 +1,237 @@
+package com.taskapp.dataaccess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.taskapp.model.Task;
+
+/**
+ * タスクを列ごとのプリミティブ配列で保持するテーブルです。
+ * 行ごとに{@link Task}や{@link com.taskapp.model.User}を作らないため、大量のタスクでもメモリと走査の負荷が小さくなります。
+ * タスク名は重複を除いた文字列プールに格納し、各行はその番号だけを持ちます。
+ * 走査・絞り込みのAPIは行ごとのオブジェクトを作りません。
+ */
+public class TaskTable {
+    /** ステータスの種類（未着手・着手中・完了） */
+    public static final int STATUS_COUNT = 3;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] codes;
+    private byte[] statuses;
+    private int[] repUserCodes;
+    private int[] nameIds;
+    private int size;
+
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> nameIndex = new HashMap<>();
+
+    /**
+     * 行ごとに呼び出される処理です。
+     */
+    @FunctionalInterface
+    public interface RowConsumer {
+        /**
+         * @param index 行番号
+         * @param code タスクコード
+         * @param name タスク名
+         * @param status ステータス
+         * @param repUserCode 担当者のユーザーコード
+         */
+        void accept(int index, int code, String name, int status, int repUserCode);
+    }
+
+    /**
+     * 行を絞り込む条件です。
+     */
+    @FunctionalInterface
+    public interface RowPredicate {
+        /**
+         * @param code タスクコード
+         * @param status ステータス
+         * @param repUserCode 担当者のユーザーコード
+         * @return 対象の行であればtrue
+         */
+        boolean test(int code, int status, int repUserCode);
+    }
+
+    public TaskTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity 初期の行数
+     */
+    public TaskTable(int capacity) {
+        capacity = Math.max(capacity, 1);
+        codes = new int[capacity];
+        statuses = new byte[capacity];
+        repUserCodes = new int[capacity];
+        nameIds = new int[capacity];
+    }
+
+    /**
+     * タスクのリストからテーブルを作成します。
+     * @param tasks タスクのリスト
+     * @return テーブル
+     */
+    public static TaskTable of(List<Task> tasks) {
+        TaskTable table = new TaskTable(tasks.size());
+        for (Task task : tasks) {
+            table.add(task.getCode(), task.getName(), task.getStatus(),
+                    task.getRepUser() == null ? 0 : task.getRepUser().getCode());
+        }
+        return table;
+    }
+
+    /**
+     * 行を追加します。
+     * @param code タスクコード
+     * @param name タスク名
+     * @param status ステータス
+     * @param repUserCode 担当者のユーザーコード
+     */
+    public void add(int code, String name, int status, int repUserCode) {
+        if (size == codes.length) {
+            int capacity = codes.length * 2;
+            codes = Arrays.copyOf(codes, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            repUserCodes = Arrays.copyOf(repUserCodes, capacity);
+            nameIds = Arrays.copyOf(nameIds, capacity);
+        }
+        codes[size] = code;
+        statuses[size] = (byte) status;
+        repUserCodes[size] = repUserCode;
+        nameIds[size] = intern(name);
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCode(int index) {
+        checkIndex(index);
+        return codes[index];
+    }
+
+    public String getName(int index) {
+        checkIndex(index);
+        return names.get(nameIds[index]);
+    }
+
+    public int getStatus(int index) {
+        checkIndex(index);
+        return statuses[index];
+    }
+
+    public int getRepUserCode(int index) {
+        checkIndex(index);
+        return repUserCodes[index];
+    }
+
+    /**
+     * 行のステータスを変更します。
+     * @param index 行番号
+     * @param status 新しいステータス
+     */
+    public void setStatus(int index, int status) {
+        checkIndex(index);
+        statuses[index] = (byte) status;
+    }
+
+    /**
+     * タスクコードから行番号を探します。
+     * @param code タスクコード
+     * @return 行番号、存在しない場合は-1
+     */
+    public int indexOf(int code) {
+        for (int i = 0; i < size; i++) {
+            if (codes[i] == code) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 全ての行を順に処理します。
+     * @param consumer 行ごとの処理
+     */
+    public void forEach(RowConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(i, codes[i], names.get(nameIds[i]), statuses[i], repUserCodes[i]);
+        }
+    }
+
+    /**
+     * 条件に合う行だけを順に処理します。
+     * @param predicate 絞り込みの条件
+     * @param consumer 行ごとの処理
+     * @return 処理した行数
+     */
+    public int forEach(RowPredicate predicate, RowConsumer consumer) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (predicate.test(codes[i], statuses[i], repUserCodes[i])) {
+                consumer.accept(i, codes[i], names.get(nameIds[i]), statuses[i], repUserCodes[i]);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 条件に合う行数を数えます。
+     * @param predicate 絞り込みの条件
+     * @return 条件に合う行数
+     */
+    public int count(RowPredicate predicate) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (predicate.test(codes[i], statuses[i], repUserCodes[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * ステータスごとの行数を数えます。
+     * @return 添字をステータスとした行数の配列
+     */
+    public int[] countByStatus() {
+        int[] counts = new int[STATUS_COUNT];
+        for (int i = 0; i < size; i++) {
+            counts[statuses[i]]++;
+        }
+        return counts;
+    }
+
+    /**
+     * プールに格納されたタスク名の種類数を取得します。
+     * @return タスク名の種類数
+     */
+    public int distinctNameCount() {
+        return names.size();
+    }
+
+    private int intern(String name) {
+        Integer id = nameIndex.get(name);
+        if (id == null) {
+            id = names.size();
+            names.add(name);
+            nameIndex.put(name, id);
+        }
+        return id;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.taskapp.dataaccess;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * テナント（チーム）ごとのデータディレクトリのリポジトリを、開いたまま使い回すプールです。
+ * テナントのデータは「テナントのルートディレクトリ/テナントID」に置きます。
+ * <p>
+ * 初めて利用するテナントはリポジトリを組み立て、CSVの場合はユーザーとタスクをメモリ上のテーブルに読み込みます。
+ * 以降の利用ではファイルを読み直しません。開いておくテナントの数には上限があり、上限を超えると
+ * 借りられていないテナントのうち最も長く使われていないものを閉じます。すべて借りられている間は上限を超えて開いておき、
+ * 返されたときに上限まで閉じます。一定時間使われなかったテナントも閉じます。
+ * <p>
+ * リポジトリは{@link #acquire(String)}で借りた{@link Lease}から取得し、使い終わったら{@link Lease#close()}で返します。
+ * 借りられているテナントは、プールから外されても返されるまで閉じません。
+ * CSVを外部で編集した場合は、そのテナントが閉じられた後に反映されます。
+ */
+public class TenantStorePool implements AutoCloseable {
+    /** テナントのデータディレクトリを置くルートディレクトリを指定するシステムプロパティ */
+    public static final String TENANTS_DIR_PROPERTY = "taskapp.tenants.dir";
+
+    /** 開いておくテナントの最大数を指定するシステムプロパティ */
+    public static final String MAX_OPEN_PROPERTY = "taskapp.tenants.maxOpen";
+
+    /** 使われていないテナントを閉じるまでの秒数を指定するシステムプロパティ。0以下の場合は時間では閉じない */
+    public static final String IDLE_SECONDS_PROPERTY = "taskapp.tenants.idleSeconds";
+
+    /** テナントIDとして使える文字（ディレクトリ名になるため、パスの区切りや「..」は使えない） */
+    private static final Pattern TENANT_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final DataAccessFactory.Engine engine;
+
+    private final Path rootDirectory;
+
+    private final int maxOpen;
+
+    private final long idleNanos;
+
+    private final boolean useJournal;
+
+    private final DataAccessFactory.LogFormat logFormat;
+
+    /** テナントIDからストア。利用した順に並ぶ（先頭が最も長く使われていない） */
+    private final LinkedHashMap<String, Store> stores = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** 時間で閉じるためのスレッド。初めて借りたときに開始する */
+    private ScheduledExecutorService evictor;
+
+    private final AtomicLong openedCount = new AtomicLong();
+
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    private boolean closed;
+
+    /**
+     * @param engine 保存先の実装
+     * @param rootDirectory テナントのデータディレクトリを置くルートディレクトリ
+     * @param maxOpen 開いておくテナントの最大数
+     * @param idleTimeout 使われていないテナントを閉じるまでの時間（0以下の場合は時間では閉じない）
+     */
+    public TenantStorePool(DataAccessFactory.Engine engine, Path rootDirectory, int maxOpen, Duration idleTimeout) {
+        this(engine, rootDirectory, maxOpen, idleTimeout, false, DataAccessFactory.LogFormat.CSV);
+    }
+
+    /**
+     * @param engine 保存先の実装
+     * @param rootDirectory テナントのデータディレクトリを置くルートディレクトリ
+     * @param maxOpen 開いておくテナントの最大数
+     * @param idleTimeout 使われていないテナントを閉じるまでの時間（0以下の場合は時間では閉じない）
+     * @param useJournal trueの場合、CSVへのタスクの変更とログをジャーナル経由で不可分に反映する
+     * @param logFormat ログの保存形式
+     */
+    public TenantStorePool(DataAccessFactory.Engine engine, Path rootDirectory, int maxOpen, Duration idleTimeout,
+            boolean useJournal, DataAccessFactory.LogFormat logFormat) {
+        if (maxOpen < 1) {
+            throw new IllegalArgumentException("maxOpen must be positive: " + maxOpen);
+        }
+        this.engine = engine;
+        this.rootDirectory = rootDirectory;
+        this.maxOpen = maxOpen;
+        this.idleNanos = idleTimeout.toNanos();
+        this.useJournal = useJournal;
+        this.logFormat = logFormat;
+    }
+
+    /**
+     * システムプロパティの設定からプールを作成します。
+     * @return 作成したプール
+     */
+    public static TenantStorePool fromSystemProperties() {
+        String rootDirectory = System.getProperty(TENANTS_DIR_PROPERTY);
+        if (rootDirectory == null) {
+            throw new IllegalStateException(TENANTS_DIR_PROPERTY + " is not set");
+        }
+        return new TenantStorePool(
+                DataAccessFactory.Engine.valueOf(System.getProperty(DataAccessFactory.STORAGE_PROPERTY, "csv").toUpperCase()),
+                Paths.get(rootDirectory), Integer.getInteger(MAX_OPEN_PROPERTY, 16),
+                Duration.ofSeconds(Long.getLong(IDLE_SECONDS_PROPERTY, 300)),
+                Boolean.parseBoolean(System.getProperty(DataAccessFactory.CSV_JOURNAL_PROPERTY, "true")),
+                DataAccessFactory.LogFormat.valueOf(
+                        System.getProperty(DataAccessFactory.LOG_FORMAT_PROPERTY, "csv").toUpperCase()));
+    }
+
+    /**
+     * テナントのリポジトリを借ります。開いていない場合は開きます。
+     * @param tenant テナントID（英数字・ハイフン・アンダースコア）
+     * @return 借りたリポジトリ。使い終わったら閉じてください
+     * @throws IllegalArgumentException テナントIDが正しくない、またはデータディレクトリが無い場合
+     * @throws IllegalStateException プールが閉じられている場合
+     */
+    public Lease acquire(String tenant) {
+        if (tenant == null || !TENANT_ID.matcher(tenant).matches()) {
+            throw new IllegalArgumentException("invalid tenant: " + tenant);
+        }
+        Store store;
+        List<Store> retired = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("pool is closed");
+            }
+            startEvictor();
+            store = stores.get(tenant);
+            if (store == null) {
+                store = new Store(rootDirectory.resolve(tenant));
+                stores.put(tenant, store);
+            }
+            store.leases++;
+            store.lastUsed = System.nanoTime();
+            removeOverflow(retired);
+        }
+        retireAll(retired, true);
+
+        try {
+            store.open();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                stores.remove(tenant, store);
+            }
+            release(store);
+            throw e;
+        }
+        return new Lease(tenant, store);
+    }
+
+    /**
+     * 一定時間使われていないテナントを閉じます。通常は定期的に自動で呼び出されます。
+     * @return 閉じたテナントの数
+     */
+    public int evictIdle() {
+        List<Store> retired = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (this) {
+            Iterator<Store> iterator = stores.values().iterator();
+            while (iterator.hasNext()) {
+                Store store = iterator.next();
+                if (store.leases == 0 && now - store.lastUsed >= idleNanos) {
+                    iterator.remove();
+                    retired.add(store);
+                }
+            }
+        }
+        retireAll(retired, true);
+        return retired.size();
+    }
+
+    /**
+     * 時間で閉じる場合は、定期的に{@link #evictIdle()}を呼び出すスレッドを開始します。
+     * コンストラクタの完了前に自身を他のスレッドへ渡さないよう、初めて借りたときに開始します。
+     */
+    private void startEvictor() {
+        if (evictor != null || idleNanos <= 0) {
+            return;
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tenant-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(idleNanos / 2, TimeUnit.MILLISECONDS.toNanos(100));
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 上限を超えている間、借りられていないテナントを最も長く使われていないものから外します。
+     * 借りられているテナントは外さないため、すべて借りられている場合は上限を超えたままになります。
+     * @param retired 外したテナントを追加するリスト
+     */
+    private void removeOverflow(List<Store> retired) {
+        Iterator<Store> iterator = stores.values().iterator();
+        while (stores.size() > maxOpen && iterator.hasNext()) {
+            Store eldest = iterator.next();
+            if (eldest.leases == 0) {
+                iterator.remove();
+                retired.add(eldest);
+            }
+        }
+    }
+
+    /**
+     * プールに入っているテナントの数を取得します。
+     * @return テナントの数
+     */
+    public synchronized int size() {
+        return stores.size();
+    }
+
+    /**
+     * テナントを開いた回数を取得します（同じテナントを閉じた後に開き直した場合も数える）。
+     * @return 開いた回数
+     */
+    public long openedCount() {
+        return openedCount.get();
+    }
+
+    /**
+     * 上限または時間によってテナントをプールから外した回数を取得します。プールを閉じたときに閉じたテナントは数えません。
+     * @return 外した回数
+     */
+    public long evictedCount() {
+        return evictedCount.get();
+    }
+
+    /**
+     * 全てのテナントを閉じます。借りられているテナントは返されたときに閉じます。
+     */
+    @Override
+    public void close() {
+        List<Store> retired;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            retired = new ArrayList<>(stores.values());
+            stores.clear();
+            if (evictor != null) {
+                evictor.shutdownNow();
+            }
+        }
+        retireAll(retired, false);
+    }
+
+    /**
+     * プールから外したテナントを、借りられていなければ閉じます。借りられていれば返されたときに閉じます。
+     * @param retired プールから外したテナント
+     * @param evicted 上限または時間によって外した場合はtrue（{@link #evictedCount()}に数える）
+     */
+    private void retireAll(List<Store> retired, boolean evicted) {
+        for (Store store : retired) {
+            boolean closeNow;
+            synchronized (this) {
+                store.retired = true;
+                closeNow = store.leases == 0;
+            }
+            if (evicted) {
+                evictedCount.incrementAndGet();
+            }
+            if (closeNow) {
+                store.close();
+            }
+        }
+    }
+
+    private void release(Store store) {
+        boolean closeNow;
+        List<Store> retired = new ArrayList<>();
+        synchronized (this) {
+            store.leases--;
+            store.lastUsed = System.nanoTime();
+            closeNow = store.retired && store.leases == 0;
+            // 借りられていたために上限を超えていた分を外す
+            if (!closed) {
+                removeOverflow(retired);
+            }
+        }
+        if (closeNow) {
+            store.close();
+        }
+        retireAll(retired, true);
+    }
+
+    /**
+     * 1つのテナントの開いたリポジトリです。
+     * leases・lastUsed・retiredはプールのロックで、factoryは自身のロックで保護します。
+     */
+    private final class Store {
+        private final Path directory;
+
+        private DataAccessFactory factory;
+
+        private int leases;
+
+        private long lastUsed;
+
+        private boolean retired;
+
+        Store(Path directory) {
+            this.directory = directory;
+        }
+
+        synchronized void open() {
+            if (factory != null) {
+                return;
+            }
+            if (!Files.isDirectory(directory)) {
+                throw new IllegalArgumentException("unknown tenant: " + directory.getFileName());
+            }
+            String jdbcUrl = "jdbc:h2:" + directory.toAbsolutePath() + "/taskapp";
+            DataAccessFactory opened = new DataAccessFactory(engine, directory.toString(), jdbcUrl, useJournal,
+                    logFormat);
+            if (opened.getEngine() == DataAccessFactory.Engine.CSV) {
+                // 以降の利用でCSVを読み直さないよう、メモリ上のテーブルに読み込む（タスクの担当者はユーザーのテーブルから引く）
+                UserDataAccess userDataAccess = (UserDataAccess) opened.getUserRepository();
+                userDataAccess.load(userDataAccess.findAll());
+                TaskDataAccess taskDataAccess = opened.getCsvTaskDataAccess();
+                taskDataAccess.load(taskDataAccess.findAll());
+            }
+            factory = opened;
+            openedCount.incrementAndGet();
+        }
+
+        synchronized DataAccessFactory factory() {
+            if (factory == null) {
+                throw new IllegalStateException("tenant is closed: " + directory.getFileName());
+            }
+            return factory;
+        }
+
+        synchronized void close() {
+            if (factory != null) {
+                factory.close();
+                factory = null;
+            }
+        }
+    }
+
+    /**
+     * プールから借りたテナントのリポジトリです。閉じるとプールに返します。
+     */
+    public final class Lease implements AutoCloseable {
+        private final String tenant;
+
+        private final Store store;
+
+        private boolean released;
+
+        private Lease(String tenant, Store store) {
+            this.tenant = tenant;
+            this.store = store;
+        }
+
+        public String getTenant() {
+            return this.tenant;
+        }
+
+        public UserRepository getUserRepository() {
+            return store.factory().getUserRepository();
+        }
+
+        public TaskRepository getTaskRepository() {
+            return store.factory().getTaskRepository();
+        }
+
+        public LogRepository getLogRepository() {
+            return store.factory().getLogRepository();
+        }
+
+        /**
+         * タスクの変更とログをまとめて書き込む方法を作成します。
+         *
+         * @see DataAccessFactory#createTaskChangeWriter(LogRepository)
+         * @return タスクの変更の書き込み方法
+         */
+        public TaskChangeWriter createTaskChangeWriter() {
+            DataAccessFactory factory = store.factory();
+            return factory.createTaskChangeWriter(factory.getLogRepository());
+        }
+
+        /**
+         * リポジトリをプールに返します。2回目以降の呼び出しは何もしません。
+         */
+        @Override
+        public synchronized void close() {
+            if (!released) {
+                released = true;
+                release(store);
+            }
+        }
+    }
+}
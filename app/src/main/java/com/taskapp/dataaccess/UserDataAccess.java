@@ -1,14 +1,38 @@
 package com.taskapp.dataaccess;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
 
 import com.taskapp.model.User;
 
-public class UserDataAccess {
+public class UserDataAccess implements UserRepository {
     private final String filePath;
 
+    /** メモリ上のユーザーテーブル。nullの場合は毎回CSVを読み込む */
+    private volatile Map<Integer, User> cache;
+
+    /** メモリ上の、パスワードを持たない表示用のユーザーテーブル */
+    private volatile Map<Integer, User> profiles;
+
+    /** ユーザーコードのブルームフィルタ。存在しないユーザーコードの検索でCSVを走査しないために利用する */
+    private volatile CodeBloomFilter codeFilter;
+
+    private final PasswordVerifier passwordVerifier = PasswordVerifier.getDefault();
+
+    /** 自身が最後に書き込んだ後のCSVのサイズと更新日時 */
+    private final FileStamp written = new FileStamp();
+
     public UserDataAccess() {
         filePath = "app/src/main/resources/users.csv";
     }
@@ -21,6 +45,146 @@ public class UserDataAccess {
         this.filePath = filePath;
     }
 
+    public String getFilePath() {
+        return this.filePath;
+    }
+
+    /**
+     * ユーザーをメモリ上のテーブルに読み込み、以降の検索をCSVを読まずに行います。
+     * @param users 読み込むユーザー
+     */
+    public void load(Collection<User> users) {
+        Map<Integer, User> table = Collections.synchronizedMap(new LinkedHashMap<>());
+        Map<Integer, User> profileTable = Collections.synchronizedMap(new LinkedHashMap<>());
+        for (User user : users) {
+            table.put(user.getCode(), user);
+            profileTable.put(user.getCode(), user.toProfile());
+        }
+        profiles = profileTable;
+        cache = table;
+    }
+
+    /**
+     * メモリ上のテーブルを破棄し、以降の検索をCSVから行います。
+     */
+    public void invalidate() {
+        cache = null;
+        profiles = null;
+    }
+
+    /**
+     * メモリ上のテーブルが読み込まれているか判定します。
+     * @return 読み込まれていればtrue
+     */
+    public boolean isLoaded() {
+        return cache != null;
+    }
+
+    /**
+     * 全てのユーザーデータを取得します。
+     * @return ユーザーのリスト
+     */
+    public List<User> findAll() {
+        Map<Integer, User> table = cache;
+        if (table != null) {
+            synchronized (table) {
+                return new ArrayList<>(table.values());
+            }
+        }
+        return readAll();
+    }
+
+    /**
+     * CSVを読み直してメモリ上のテーブルを置き換えます。
+     * CSVが外部で編集されたときに利用します。書き込みと同じロックで読み直すため、書き込み途中のCSVは読みません。
+     */
+    public synchronized void reload() {
+        load(readAll());
+        codeFilter = null;
+    }
+
+    /**
+     * CSVを走査してユーザーコードのブルームフィルタを作成します。
+     * 呼び出さなくても初めてコードで検索したときに作成しますが、起動時に呼び出せば最初の検索も速くなります。
+     * メモリ上のテーブルを読み込んでいる間は検索にフィルタを使わないため、呼び出す必要はありません。
+     *
+     * @see CodeBloomFilter
+     */
+    public void prepareCodeFilter() {
+        codeFilter();
+    }
+
+    /**
+     * CSVのサイズと更新日時が、このインスタンスが最後に書き込んだ後と変わっていないか判定します。
+     * @return 自身の書き込みの後に変更されていなければtrue
+     * @see TaskDataAccess#isUnchangedSinceOwnWrite()
+     */
+    public synchronized boolean isUnchangedSinceOwnWrite() {
+        return written.matches(new File(filePath));
+    }
+
+    /**
+     * ユーザーコードが存在する可能性があるか判定します。falseの場合はCSVを読まずに存在しないと判断できます。
+     */
+    private boolean mightExist(int code) {
+        CodeBloomFilter filter = codeFilter;
+        if (filter == null || filter.isStale(new File(filePath))) {
+            filter = codeFilter();
+        }
+        return filter == null || filter.mightContain(code);
+    }
+
+    /**
+     * 次のコードでの検索で、ブルームフィルタを作成したときのCSVのサイズと更新日時を照合し直します。
+     * CSVの変更を通知されたときに利用します。
+     */
+    public void recheckCodeFilter() {
+        CodeBloomFilter filter = codeFilter;
+        if (filter != null) {
+            filter.expire();
+        }
+    }
+
+    /**
+     * ブルームフィルタを取得します。無い場合や、CSVが外部で編集されている場合は作り直します。
+     */
+    private synchronized CodeBloomFilter codeFilter() {
+        CodeBloomFilter filter = codeFilter;
+        File file = new File(filePath);
+        if (filter == null || !filter.matches(file)) {
+            filter = CodeBloomFilter.build(file);
+            codeFilter = filter;
+        }
+        return filter;
+    }
+
+    private List<User> readAll() {
+        List<User> users = new ArrayList<>();
+        try (CsvReader reader = CsvReader.open(filePath)) {
+            reader.next(); // タイトル行を読み飛ばす
+            while (reader.next()) {
+                // 読み込みを中止されたら、途中までの結果を返さずに中止を伝える
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException(filePath + "の読み込みを中止しました");
+                }
+                // CSVに間違いがあったらスキップする
+                if (reader.fieldCount() != 4) {
+                    continue;
+                }
+                int code;
+                try {
+                    code = reader.getInt(0);
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                users.add(new User(code, reader.getString(1), reader.getString(2), reader.getString(3)));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return users;
+    }
+
     /**
      * メールアドレスとパスワードを基にユーザーデータを探します。
      * @param email メールアドレス
@@ -28,22 +192,40 @@ public class UserDataAccess {
      * @return 見つかったユーザー
      */
     public User findByEmailAndPassword(String email, String password) {
+        Map<Integer, User> table = cache;
+        if (table != null) {
+            synchronized (table) {
+                for (User user : table.values()) {
+                    if (user.getEmail().equals(email)) {
+                        return passwordVerifier.verify(email, password, user.getPassword()) ? user : null;
+                    }
+                }
+            }
+            return null;
+        }
+
         User user = null;
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            reader.readLine(); // タイトル行を読み飛ばす
-            while ((line = reader.readLine()) != null) {
-                String[] values = line.split(",");
+        try (CsvReader reader = CsvReader.open(filePath)) {
+            reader.next(); // タイトル行を読み飛ばす
+            while (reader.next()) {
+                if (reader.fieldCount() != 4) continue;
 
-                // メールアドレス、パスワードが一致しなかったらスキップする
-                if (!(values[2].equals(email) && values[3].equals(password))) continue;
+                // メールアドレスが一致しなかったらスキップする
+                if (!reader.getString(2).equals(email)) continue;
+                // 保存されたハッシュと照合し、一致しなければ見つからなかったものとする
+                String userPassword = reader.getString(3);
+                if (!passwordVerifier.verify(email, password, userPassword)) break;
 
                 // メールアドレス、パスワードが一致したらそのデータをUserオブジェクトにマッピング
-                int code = Integer.parseInt(values[0]);
-                String name = values[1];
-                String userEmail = values[2];
-                String userPassword = values[3];
-                user = new User(code, name, userEmail, userPassword);
+                int code;
+                try {
+                    code = reader.getInt(0);
+                } catch (NumberFormatException e) {
+                    // コードが数値でない行はスキップする
+                    continue;
+                }
+                String name = reader.getString(1);
+                user = new User(code, name, email, userPassword);
             }
         } catch (IOException e) {
             e.printStackTrace();;
@@ -57,24 +239,100 @@ public class UserDataAccess {
      * @return 見つかったユーザー
      */
     public User findByCode(int code) {
+        Map<Integer, User> table = cache;
+        if (table != null) {
+            return table.get(code);
+        }
+        // 確実に存在しないコードはCSVを読まずに返す
+        if (!mightExist(code)) {
+            return null;
+        }
+
         User users = null;
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            reader.readLine();
-            while ((line = reader.readLine()) != null) {
-                
-                String[] values = line.split(",");
-                int codes = Integer.parseInt(values[0]);
-                if (code != codes) continue;
-                
-                String name = values[1];
-                String email = values[2];
-                String password = values[3];
-                users = new User(codes, name, email, password);
+        try (CsvReader reader = CsvReader.open(filePath)) {
+            reader.next();
+            while (reader.next()) {
+                // コードの列だけを変換し、一致した行だけ文字列の列を復号する
+                if (reader.fieldCount() != 4) continue;
+                try {
+                    if (code != reader.getInt(0)) continue;
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+
+                String name = reader.getString(1);
+                String email = reader.getString(2);
+                String password = reader.getString(3);
+                users = new User(code, name, email, password);
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
         return users;
     }
+
+    @Override
+    public User findProfileByCode(int code) {
+        Map<Integer, User> table = profiles;
+        if (table != null) {
+            return table.get(code);
+        }
+        User user = findByCode(code);
+        return user == null ? null : user.toProfile();
+    }
+
+    /**
+     * 平文のまま、または反復回数が不足しているパスワードをハッシュし直してCSVに書き戻します。
+     * @param hasher ハッシュに利用するハッシュ
+     * @return ハッシュし直したユーザーの件数
+     */
+    public synchronized int rehashPasswords(PasswordHasher hasher) {
+        List<User> users = findAll();
+        List<User> rehashed = new ArrayList<>(users.size());
+        int count = 0;
+        for (User user : users) {
+            if (hasher.needsRehash(user.getPassword())) {
+                user = new User(user.getCode(), user.getName(), user.getEmail(), hasher.hash(user.getPassword()));
+                passwordVerifier.invalidate(user.getEmail());
+                count++;
+            }
+            rehashed.add(user);
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        Path path = Paths.get(filePath);
+        Path tmp = Paths.get(filePath + ".tmp");
+        try {
+            String header = "Code,Name,Email,Password";
+            try (CsvReader reader = CsvReader.open(filePath)) {
+                if (reader.next()) {
+                    header = reader.line();
+                }
+            }
+            try (CsvWriter writer = CsvWriter.open(tmp.toString(), false)) {
+                writer.write(header);
+                for (User user : rehashed) {
+                    writer.newLine();
+                    writer.write(user.getCode() + "," + user.getName() + "," + user.getEmail() + "," + user.getPassword());
+                }
+                writer.newLine();
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            written.record(path.toFile());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 0;
+        }
+        // ユーザーコードは変わらないため、CSVのサイズと更新日時だけを記録し直す
+        CodeBloomFilter filter = codeFilter;
+        if (filter != null) {
+            filter.stamp(path.toFile());
+        }
+        if (cache != null) {
+            load(rehashed);
+        }
+        return count;
+    }
 }
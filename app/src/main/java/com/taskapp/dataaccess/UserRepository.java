@@ -0,0 +1,44 @@
+package com.taskapp.dataaccess;
+
+import java.util.List;
+
+import com.taskapp.model.User;
+
+/**
+ * ユーザーの保存先を抽象化したリポジトリです。
+ */
+public interface UserRepository {
+
+    /**
+     * 全てのユーザーデータを取得します。
+     * @return ユーザーのリスト
+     */
+    List<User> findAll();
+
+    /**
+     * メールアドレスとパスワードを基にユーザーデータを探します。
+     * パスワードは保存されたハッシュと照合します。
+     * @param email メールアドレス
+     * @param password パスワード
+     * @return 見つかったユーザー、存在しない場合はnull
+     */
+    User findByEmailAndPassword(String email, String password);
+
+    /**
+     * コードを基にユーザーデータを取得します。
+     * @param code 取得するユーザーのコード
+     * @return 見つかったユーザー、存在しない場合はnull
+     */
+    User findByCode(int code);
+
+    /**
+     * コードを基に、パスワードを持たない表示用のユーザーを取得します。
+     * タスクの担当者など、認証に関係しない場面で利用します。
+     * @param code 取得するユーザーのコード
+     * @return 見つかったユーザー、存在しない場合はnull
+     */
+    default User findProfileByCode(int code) {
+        User user = findByCode(code);
+        return user == null ? null : user.toProfile();
+    }
+}
@@ -0,0 +1,292 @@
+package com.taskapp.dataaccess;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.taskapp.model.Task;
+
+/**
+ * タスクの更新を溜めておき、まとめて保存先のリポジトリに書き込むリポジトリです。
+ * <p>
+ * 同じタスクへの更新は最後の内容だけを残し、最初の更新から一定時間後に{@link TaskRepository#updateAll(Collection)}で
+ * 1回に書き込みます。CSVではファイルの書き換えが1回で済むため、同じタスクのステータスを続けて変更しても
+ * 変更のたびに書き換えません。溜めた件数が上限に達した場合と{@link #flush()}・{@link #close()}の呼び出し時にも書き込みます。
+ * <p>
+ * コードでの検索と全件の取得は、溜めている更新を反映した内容を返します。担当者やタスク名での検索は
+ * 保存先の索引を使うため、溜めている更新を書き込んでから行います。
+ * 新しいタスクの保存は溜めずにそのまま書き込みます。
+ */
+public class WriteBehindTaskDataAccess implements TaskRepository, AutoCloseable {
+    /** 溜めておく更新の最大件数。超えたらすぐに書き込む */
+    private static final int MAX_PENDING = 10000;
+
+    private final TaskRepository delegate;
+
+    private final long delayNanos;
+
+    private final ScheduledExecutorService flusher;
+
+    /** 書き込みを待っている更新（タスクコードごとに最後の内容）。このインスタンスのロックで保護する */
+    private Map<Integer, Task> pending = new LinkedHashMap<>();
+
+    /** 書き込み中の更新。書き込みが終わるまで検索に反映する */
+    private Map<Integer, Task> flushing = Collections.emptyMap();
+
+    private ScheduledFuture<?> scheduled;
+
+    private boolean closed;
+
+    /** 書き込みを1つずつ行い、古い内容が新しい内容を上書きしないようにするロック */
+    private final Object flushLock = new Object();
+
+    private final AtomicLong updateCount = new AtomicLong();
+
+    private final AtomicLong flushCount = new AtomicLong();
+
+    /**
+     * @param delegate 実際に書き込むリポジトリ
+     * @param delay 最初の更新から書き込むまでの時間
+     */
+    public WriteBehindTaskDataAccess(TaskRepository delegate, Duration delay) {
+        this.delegate = delegate;
+        this.delayNanos = delay.toNanos();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public List<Task> findAll() {
+        Map<Integer, Task> overlay = overlay();
+        if (overlay.isEmpty()) {
+            return delegate.findAll();
+        }
+        List<Task> tasks = new ArrayList<>(delegate.findAll());
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = overlay.remove(tasks.get(i).getCode());
+            if (task != null) {
+                tasks.set(i, task);
+            }
+        }
+        // まだ保存先に無いタスクは末尾に追加する（updateAllと同じ）
+        tasks.addAll(overlay.values());
+        return tasks;
+    }
+
+    /**
+     * 全てのタスクを列ごとのテーブルとして取得します。
+     * 溜めている更新がステータスの変更だけであればテーブルに反映し、それ以外は書き込んでから取得します。
+     * @return タスクのテーブル
+     */
+    @Override
+    public TaskTable findAllAsTable() {
+        Map<Integer, Task> overlay = overlay();
+        TaskTable table = delegate.findAllAsTable();
+        if (overlay.isEmpty()) {
+            return table;
+        }
+        for (int i = 0; i < table.size() && !overlay.isEmpty(); i++) {
+            Task task = overlay.get(table.getCode(i));
+            if (task == null) {
+                continue;
+            }
+            if (!task.getName().equals(table.getName(i)) || task.getRepUser() == null
+                    || task.getRepUser().getCode() != table.getRepUserCode(i)) {
+                break;
+            }
+            table.setStatus(i, task.getStatus());
+            overlay.remove(task.getCode());
+        }
+        if (overlay.isEmpty()) {
+            return table;
+        }
+        flush();
+        return delegate.findAllAsTable();
+    }
+
+    /**
+     * 新しいタスクを保存先にそのまま保存します。同じコードの更新を溜めている場合は、更新として溜めます。
+     * @param task 保存するタスク
+     */
+    @Override
+    public void save(Task task) {
+        synchronized (this) {
+            if (!closed && (pending.containsKey(task.getCode()) || flushing.containsKey(task.getCode()))) {
+                enqueue(task);
+                return;
+            }
+        }
+        delegate.save(task);
+    }
+
+    @Override
+    public Task findByCode(int code) {
+        synchronized (this) {
+            Task task = pending.get(code);
+            if (task == null) {
+                task = flushing.get(code);
+            }
+            if (task != null) {
+                return task;
+            }
+        }
+        return delegate.findByCode(code);
+    }
+
+    @Override
+    public void update(Task updateTask) {
+        updateAll(List.of(updateTask));
+    }
+
+    /**
+     * 更新を溜めます。同じタスクの更新を既に溜めている場合は置き換えます。
+     * @param updateTasks 更新するタスク
+     */
+    @Override
+    public void updateAll(Collection<Task> updateTasks) {
+        boolean direct;
+        boolean full = false;
+        synchronized (this) {
+            // 終了後の更新はそのまま書き込む
+            direct = closed;
+            if (!direct) {
+                for (Task task : updateTasks) {
+                    enqueue(task);
+                }
+                full = pending.size() >= MAX_PENDING;
+            }
+        }
+        if (direct) {
+            delegate.updateAll(updateTasks);
+        } else if (full) {
+            flush();
+        }
+    }
+
+    @Override
+    public List<Task> findByRepUserCode(int repUserCode) {
+        flush();
+        return delegate.findByRepUserCode(repUserCode);
+    }
+
+    @Override
+    public List<Task> searchByName(String query, int limit) {
+        flush();
+        return delegate.searchByName(query, limit);
+    }
+
+    /**
+     * 溜めている更新をすぐに書き込みます。書き込みが終わるまで戻りません。
+     * 他のスレッドが書き込んでいる場合は、その書き込みが終わるのも待ちます。
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<Integer, Task> batch;
+            synchronized (this) {
+                if (scheduled != null) {
+                    scheduled.cancel(false);
+                    scheduled = null;
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new LinkedHashMap<>();
+                flushing = batch;
+            }
+            try {
+                delegate.updateAll(new ArrayList<>(batch.values()));
+                flushCount.incrementAndGet();
+            } catch (RuntimeException e) {
+                // 書き込めなかった更新は、その後に溜めた更新で置き換えられていなければ溜め直す
+                synchronized (this) {
+                    Map<Integer, Task> retry = new LinkedHashMap<>(batch);
+                    retry.putAll(pending);
+                    pending = retry;
+                    if (scheduled == null && !closed) {
+                        scheduled = flusher.schedule(this::flushInBackground, delayNanos, TimeUnit.NANOSECONDS);
+                    }
+                }
+                throw e;
+            } finally {
+                synchronized (this) {
+                    flushing = Collections.emptyMap();
+                }
+            }
+        }
+    }
+
+    /**
+     * 受け付けた更新の件数を取得します。
+     * @return 更新の件数
+     */
+    public long getUpdateCount() {
+        return updateCount.get();
+    }
+
+    /**
+     * 保存先に書き込んだ回数を取得します。
+     * @return 書き込んだ回数
+     */
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    /**
+     * 溜めている更新を書き込んでから、書き込みスレッドを終了します。
+     * 以降の更新は溜めずにそのまま書き込みます。
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        // 書き込み中のスレッドに割り込むとファイルの書き込みが中断されるため、終わるのを待つ
+        flusher.shutdown();
+        flush();
+    }
+
+    /**
+     * 更新を溜め、書き込みが予約されていなければ一定時間後の書き込みを予約します。
+     * 予約は最初の更新から数えるため、更新が続いても書き込みが遅れ続けることはありません。
+     */
+    private void enqueue(Task task) {
+        pending.put(task.getCode(), task);
+        updateCount.incrementAndGet();
+        if (scheduled == null) {
+            scheduled = flusher.schedule(this::flushInBackground, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flushInBackground() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 書き込み中と書き込み待ちの更新を、新しいものを優先して1つにまとめます。
+     */
+    private synchronized Map<Integer, Task> overlay() {
+        Map<Integer, Task> overlay = new LinkedHashMap<>(flushing);
+        overlay.putAll(pending);
+        return overlay;
+    }
+}
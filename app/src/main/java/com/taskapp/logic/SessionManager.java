@@ -0,0 +1,171 @@
+package com.taskapp.logic;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.LongSupplier;
+
+import com.taskapp.model.User;
+
+/**
+ * ログイン済みのユーザーを、推測できないトークンで引けるように保持します。
+ * 最後に利用されてから一定時間が過ぎたセッションは失効し、保持する件数には上限があります。
+ */
+public class SessionManager {
+    /** セッションの有効期間（秒）を指定するシステムプロパティ */
+    public static final String IDLE_TIMEOUT_PROPERTY = "taskapp.session.idleSeconds";
+
+    /** 同時に保持するセッションの上限を指定するシステムプロパティ */
+    public static final String MAX_SESSIONS_PROPERTY = "taskapp.session.maxSessions";
+
+    private static final int TOKEN_BYTES = 32;
+
+    /** トークンからセッション。利用した順に並ぶ（先頭が最も長く使われていない）。自身をロックとして保護する */
+    private final LinkedHashMap<String, Session> sessions = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final long idleTimeoutNanos;
+
+    private final int maxSessions;
+
+    private final LongSupplier clock;
+
+    private final SecureRandom random = new SecureRandom();
+
+    public SessionManager() {
+        this(Duration.ofSeconds(Long.getLong(IDLE_TIMEOUT_PROPERTY, 1800)),
+                Integer.getInteger(MAX_SESSIONS_PROPERTY, 1000));
+    }
+
+    /**
+     * @param idleTimeout 最後に利用されてから失効するまでの時間
+     * @param maxSessions 同時に保持するセッションの上限
+     */
+    public SessionManager(Duration idleTimeout, int maxSessions) {
+        this(idleTimeout, maxSessions, System::nanoTime);
+    }
+
+    SessionManager(Duration idleTimeout, int maxSessions, LongSupplier clock) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("maxSessions must be positive: " + maxSessions);
+        }
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.maxSessions = maxSessions;
+        this.clock = clock;
+    }
+
+    /**
+     * ユーザーのセッションを作成します。
+     * 上限に達している場合は、失効したセッションを捨て、それでも空きがなければ最も長く使われていないセッションを捨てます。
+     * 上限の確認・追加・破棄は1つのロックの中で行うため、同時に作成されても上限を超えません。
+     * @param user ログインしたユーザー
+     * @return セッションのトークン
+     */
+    public String create(User user) {
+        String token = newToken();
+        // パスワードはセッションに持たせない
+        Session session = new Session(user.toProfile());
+        synchronized (sessions) {
+            long now = clock.getAsLong();
+            if (sessions.size() >= maxSessions) {
+                evictExpired(now);
+                // 利用した順に並んでいるため、先頭が最も長く使われていないセッション
+                Iterator<Session> iterator = sessions.values().iterator();
+                while (sessions.size() >= maxSessions) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+            session.lastAccess = now;
+            sessions.put(token, session);
+        }
+        return token;
+    }
+
+    /**
+     * トークンからユーザーを取得し、セッションの最終利用時刻を更新します。
+     * @param token セッションのトークン
+     * @return ユーザー、セッションが存在しないか失効している場合はnull
+     */
+    public User resolve(String token) {
+        if (token == null) {
+            return null;
+        }
+        synchronized (sessions) {
+            // 取得すると、利用した順の末尾に移る
+            Session session = sessions.get(token);
+            if (session == null) {
+                return null;
+            }
+            long now = clock.getAsLong();
+            if (now - session.lastAccess > idleTimeoutNanos) {
+                sessions.remove(token);
+                return null;
+            }
+            session.lastAccess = now;
+            return session.user;
+        }
+    }
+
+    /**
+     * セッションを破棄します。
+     * @param token セッションのトークン
+     */
+    public void invalidate(String token) {
+        if (token != null) {
+            synchronized (sessions) {
+                sessions.remove(token);
+            }
+        }
+    }
+
+    /**
+     * 失効したセッションをすべて破棄します。
+     * @return 破棄した件数
+     */
+    public int evictExpired() {
+        synchronized (sessions) {
+            return evictExpired(clock.getAsLong());
+        }
+    }
+
+    public int size() {
+        synchronized (sessions) {
+            return sessions.size();
+        }
+    }
+
+    /**
+     * 先頭（最も長く使われていないセッション）から順に、失効したセッションを破棄します。
+     * 利用した順に並んでいるため、失効していないセッションが見つかった時点で終わります。
+     */
+    private int evictExpired(long now) {
+        int count = 0;
+        Iterator<Session> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            // nanoTimeは桁あふれし得るため、経過時間で比べる
+            if (now - iterator.next().lastAccess <= idleTimeoutNanos) {
+                break;
+            }
+            iterator.remove();
+            count++;
+        }
+        return count;
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static class Session {
+        private final User user;
+        private long lastAccess;
+
+        Session(User user) {
+            this.user = user;
+        }
+    }
+}
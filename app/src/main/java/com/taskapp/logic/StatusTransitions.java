@@ -0,0 +1,107 @@
+package com.taskapp.logic;
+
+import com.taskapp.dataaccess.TaskTable;
+import com.taskapp.exception.AppException;
+
+/**
+ * タスクのステータスの状態遷移です。どのステータスからどのステータスへ変更できるかを表で保持します。
+ * <p>
+ * 遷移は「変更前&gt;変更後」をカンマで区切って指定します（例：{@code 0>1,1>2}）。
+ * 既定は「前のステータスより1つ先のみ」です。
+ * システムプロパティ{@value #TRANSITIONS_PROPERTY}で変更できます。
+ */
+public class StatusTransitions {
+    /** 許可する遷移を指定するシステムプロパティ */
+    public static final String TRANSITIONS_PROPERTY = "taskapp.status.transitions";
+
+    /** 既定の遷移（未着手 → 着手中 → 完了） */
+    public static final String DEFAULT_TRANSITIONS = "0>1,1>2";
+
+    private static final String[] LABELS = { "未着手", "着手中", "完了" };
+
+    private final boolean[][] allowed = new boolean[TaskTable.STATUS_COUNT][TaskTable.STATUS_COUNT];
+
+    private final boolean defaults;
+
+    /**
+     * @param transitions 許可する遷移（例：{@code 0>1,1>2}）
+     * @throws IllegalArgumentException 書式が誤っている、または存在しないステータスを指定した場合
+     */
+    public StatusTransitions(String transitions) {
+        for (String transition : transitions.split(",")) {
+            String[] statuses = transition.trim().split(">");
+            if (statuses.length != 2) {
+                throw new IllegalArgumentException("invalid status transition: " + transition);
+            }
+            int from = parseStatus(statuses[0]);
+            int to = parseStatus(statuses[1]);
+            allowed[from][to] = true;
+        }
+        this.defaults = equalsDefaults();
+    }
+
+    /**
+     * 既定の遷移を作成します。
+     * @return 既定の遷移
+     */
+    public static StatusTransitions defaults() {
+        return new StatusTransitions(DEFAULT_TRANSITIONS);
+    }
+
+    /**
+     * システムプロパティの設定から遷移を作成します。
+     * @return 設定された遷移、設定が無い場合は既定の遷移
+     */
+    public static StatusTransitions fromSystemProperties() {
+        return new StatusTransitions(System.getProperty(TRANSITIONS_PROPERTY, DEFAULT_TRANSITIONS));
+    }
+
+    /**
+     * 遷移が許可されているか判定します。
+     * @param from 変更前のステータス
+     * @param to 変更後のステータス
+     * @return 許可されていればtrue
+     */
+    public boolean isAllowed(int from, int to) {
+        return from >= 0 && from < allowed.length && to >= 0 && to < allowed.length && allowed[from][to];
+    }
+
+    /**
+     * 遷移が許可されているか確かめます。
+     * @param from 変更前のステータス
+     * @param to 変更後のステータス
+     * @throws AppException 許可されていない場合にスローされます
+     */
+    public void validate(int from, int to) throws AppException {
+        if (isAllowed(from, to)) {
+            return;
+        }
+        if (defaults) {
+            throw new AppException("ステータスは、前のステータスより1つ先のもののみを選択してください");
+        }
+        throw new AppException("ステータスを" + label(from) + "から" + label(to) + "に変更することはできません");
+    }
+
+    private boolean equalsDefaults() {
+        for (int from = 0; from < allowed.length; from++) {
+            for (int to = 0; to < allowed.length; to++) {
+                if (allowed[from][to] != (to == from + 1)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int parseStatus(String value) {
+        int status = Integer.parseInt(value.trim());
+        if (status < 0 || status >= TaskTable.STATUS_COUNT) {
+            throw new IllegalArgumentException("unknown status: " + value);
+        }
+        return status;
+    }
+
+    private static String label(int status) {
+        return status >= 0 && status < LABELS.length ? LABELS[status] : String.valueOf(status);
+    }
+}
@@ -0,0 +1,142 @@
+package com.taskapp.logic;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.taskapp.dataaccess.DirectTaskChangeWriter;
+import com.taskapp.dataaccess.LogRepository;
+import com.taskapp.dataaccess.TaskChangeWriter;
+import com.taskapp.dataaccess.TaskRepository;
+import com.taskapp.dataaccess.UserRepository;
+import com.taskapp.exception.AppException;
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * タスクの登録・ステータス変更をまとめて書き込むための作業単位です。
+ * 変更はメモリ上に溜めておき、{@link #flush()}で{@link TaskChangeWriter#writeAll}の1回でまとめて書き込みます。
+ * 入力チェックとエラーメッセージは{@link TaskLogic}と同じですが、登録では書き込み待ちのタスクと重ならないように、
+ * タスクコードがまだ使われていないことも確かめます。書き込み前の変更も検索に反映されます。
+ */
+public class TaskBatch {
+    private final TaskRepository taskDataAccess;
+    private final UserRepository userDataAccess;
+    private final TaskChangeWriter taskChangeWriter;
+
+    /** 書き込み待ちのタスク（コードごとに最新の状態） */
+    private final Map<Integer, Task> pendingTasks = new LinkedHashMap<>();
+
+    private final List<Log> pendingLogs = new ArrayList<>();
+
+    private final StatusTransitions statusTransitions;
+
+    /**
+     * @param taskDataAccess タスクのリポジトリ
+     * @param logDataAccess ログのリポジトリ
+     * @param userDataAccess ユーザーのリポジトリ
+     */
+    public TaskBatch(TaskRepository taskDataAccess, LogRepository logDataAccess, UserRepository userDataAccess) {
+        this(taskDataAccess, userDataAccess, new DirectTaskChangeWriter(taskDataAccess, logDataAccess),
+                StatusTransitions.defaults());
+    }
+
+    /**
+     * @param taskDataAccess タスクのリポジトリ
+     * @param userDataAccess ユーザーのリポジトリ
+     * @param taskChangeWriter タスクの変更とログをまとめて書き込む方法
+     * @param statusTransitions 許可するステータスの遷移
+     */
+    public TaskBatch(TaskRepository taskDataAccess, UserRepository userDataAccess, TaskChangeWriter taskChangeWriter,
+            StatusTransitions statusTransitions) {
+        this.taskDataAccess = taskDataAccess;
+        this.userDataAccess = userDataAccess;
+        this.taskChangeWriter = taskChangeWriter;
+        this.statusTransitions = statusTransitions;
+    }
+
+    /**
+     * 新しいタスクの登録を溜めます。
+     *
+     * @param code タスクコード
+     * @param name タスク名
+     * @param repUserCode 担当ユーザーコード
+     * @param loginUser ログインユーザー
+     * @throws AppException ユーザーコードが存在しない、またはタスクコードが既に使われている場合にスローされます
+     */
+    public void save(int code, String name, int repUserCode, User loginUser) throws AppException {
+        User user = userDataAccess.findProfileByCode(repUserCode);
+        if (user == null) {
+            throw new AppException("存在するユーザーコードを入力してください");
+        }
+        if (findByCode(code) != null) {
+            throw new AppException("登録されていないタスクコードを入力してください");
+        }
+
+        pendingTasks.put(code, new Task(code, name, 0, user));
+        pendingLogs.add(new Log(code, loginUser.getCode(), 0, LocalDate.now()));
+    }
+
+    /**
+     * タスクのステータス変更を溜めます。
+     *
+     * @param code タスクコード
+     * @param status 新しいステータス
+     * @param loginUser ログインユーザー
+     * @throws AppException タスクコードが存在しない、またはステータスの遷移が許可されていない場合にスローされます
+     */
+    public void changeStatus(int code, int status, User loginUser) throws AppException {
+        Task task = findByCode(code);
+        if (task == null) {
+            throw new AppException("存在するタスクコードを入力してください。");
+        }
+        statusTransitions.validate(task.getStatus(), status);
+
+        // 書き込むまでリポジトリ上のタスクは変更しない
+        pendingTasks.put(code, new Task(code, task.getName(), status, task.getRepUser()));
+        pendingLogs.add(new Log(code, loginUser.getCode(), status, LocalDate.now()));
+    }
+
+    /**
+     * 書き込み待ちの変更を反映したタスクを取得します。
+     * @param code タスクコード
+     * @return タスク、存在しない場合はnull
+     */
+    public Task findByCode(int code) {
+        Task task = pendingTasks.get(code);
+        return task != null ? task : taskDataAccess.findByCode(code);
+    }
+
+    /**
+     * 書き込み待ちの変更の件数を取得します。
+     * @return 書き込み待ちのログの件数
+     */
+    public int pendingCount() {
+        return pendingLogs.size();
+    }
+
+    /**
+     * 溜めた変更をまとめて書き込みます。書き込めなかった場合も、溜めた変更は破棄します。
+     *
+     * @see com.taskapp.dataaccess.TaskChangeWriter#writeAll(List, List)
+     * @throws AppException 書き込めなかった場合にスローされます
+     */
+    public void flush() throws AppException {
+        if (pendingLogs.isEmpty()) {
+            return;
+        }
+        try {
+            taskChangeWriter.writeAll(new ArrayList<>(pendingTasks.values()), new ArrayList<>(pendingLogs));
+        } catch (UncheckedIOException e) {
+            e.printStackTrace();
+            throw new AppException(pendingLogs.size() + "件の変更を書き込めませんでした。");
+        } finally {
+            pendingTasks.clear();
+            pendingLogs.clear();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.taskapp.logic;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.taskapp.model.TaskEvent;
+
+/**
+ * タスクの変更を購読者に通知するパブリッシャーです。
+ * 購読者ごとにバッファを持ち、購読者が{@link Flow.Subscription#request(long)}で要求した分だけ配信します。
+ * バッファが満杯のときは{@link Backpressure}に従って、発行元を待たせるかイベントを破棄します。
+ */
+public class TaskEventPublisher implements Flow.Publisher<TaskEvent>, AutoCloseable {
+    /** 購読者ごとのバッファの容量を指定するシステムプロパティ */
+    public static final String BUFFER_CAPACITY_PROPERTY = "taskapp.events.bufferCapacity";
+
+    /** バッファが満杯のときの振る舞い（BLOCK または DROP）を指定するシステムプロパティ */
+    public static final String BACKPRESSURE_PROPERTY = "taskapp.events.backpressure";
+
+    /**
+     * 購読者のバッファが満杯のときの振る舞いです。
+     */
+    public enum Backpressure {
+        /** 空きができるまで発行元を待たせる */
+        BLOCK,
+        /** イベントを破棄して発行元をすぐに戻す */
+        DROP
+    }
+
+    private final SubmissionPublisher<TaskEvent> publisher;
+
+    private final Backpressure backpressure;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    public TaskEventPublisher() {
+        this(ForkJoinPool.commonPool(), Integer.getInteger(BUFFER_CAPACITY_PROPERTY, Flow.defaultBufferSize()),
+                Backpressure.valueOf(System.getProperty(BACKPRESSURE_PROPERTY, "BLOCK")));
+    }
+
+    /**
+     * @param executor 購読者への配信に利用するスレッド
+     * @param bufferCapacity 購読者ごとのバッファの容量
+     * @param backpressure バッファが満杯のときの振る舞い
+     */
+    public TaskEventPublisher(Executor executor, int bufferCapacity, Backpressure backpressure) {
+        this.publisher = new SubmissionPublisher<>(executor, bufferCapacity);
+        this.backpressure = backpressure;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super TaskEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * イベントをすべての購読者に発行します。購読者がいない場合は何もしません。
+     * @param event 発行するイベント
+     */
+    public void publish(TaskEvent event) {
+        if (!publisher.hasSubscribers()) {
+            return;
+        }
+        if (backpressure == Backpressure.BLOCK) {
+            publisher.submit(event);
+            return;
+        }
+        publisher.offer(event, (subscriber, droppedEvent) -> {
+            dropped.incrementAndGet();
+            return false;
+        });
+    }
+
+    /**
+     * 破棄されたイベントの件数を取得します。購読者ごとに数えます。
+     * @return 破棄されたイベントの件数
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getSubscriberCount() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    /**
+     * 発行を終了し、購読者に完了を通知します。
+     */
+    @Override
+    public void close() {
+        publisher.close();
+    }
+}
@@ -0,0 +1,192 @@
+package com.taskapp.logic;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.taskapp.dataaccess.TaskTable;
+import com.taskapp.dataaccess.UserRepository;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * タスク一覧を標準出力にまとめて書き出します。
+ * 1行ずつ{@link System#out}に出力すると行ごとに同期とフラッシュが走るため、大きなバッファに書きためてから出力します。
+ * 行の組み立てには使い回しの{@link StringBuilder}と、事前に用意したステータス名・担当者名を使います。
+ * ページの行数を指定すると、1ページごとに入力を待つ「more」形式で表示します。
+ * 表示を始める前に通知を受け取れるため、呼び出し元は表示中に進捗などを出力しないようにできます。
+ * 内部のバッファを使い回すため、1つのインスタンスを複数のスレッドから同時に使わないでください。
+ */
+public class TaskListRenderer {
+    /** 1ページの行数を指定するシステムプロパティ。0以下の場合はページ送りしない */
+    public static final String PAGE_SIZE_PROPERTY = "taskapp.list.pageSize";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final String[] STATUS_LABELS = { "未着手", "着手中", "完了" };
+
+    private static final String MORE_PROMPT = "-- 続きを表示するにはEnterキーを、一覧を終了するにはqを入力してください --";
+
+    private final int pageSize;
+
+    private final PageInput pager;
+
+    private final Runnable onStart;
+
+    private final StringBuilder line = new StringBuilder(128);
+
+    private final Map<Integer, String> repUserLabels = new HashMap<>();
+
+    /**
+     * ページ送りの入力を1行ずつ読み込む方法です。
+     */
+    @FunctionalInterface
+    public interface PageInput {
+        /**
+         * 1行を読み込むまで待ちます。
+         * @return 読み込んだ行、入力の終わりに達した場合はnull
+         * @throws IOException 読み込みに失敗した場合
+         */
+        String readLine() throws IOException;
+    }
+
+    public TaskListRenderer() {
+        this(0, (PageInput) null, null);
+    }
+
+    /**
+     * @param pageSize 1ページの行数（0以下の場合はページ送りしない）
+     * @param pager ページ送りの入力を読み込むリーダー
+     */
+    public TaskListRenderer(int pageSize, BufferedReader pager) {
+        this(pageSize, pager == null ? null : pager::readLine, null);
+    }
+
+    /**
+     * @param pageSize 1ページの行数（0以下の場合はページ送りしない）
+     * @param pager ページ送りの入力を読み込む方法
+     * @param onStart 表示を始める前に呼び出す処理（不要な場合はnull）
+     */
+    public TaskListRenderer(int pageSize, PageInput pager, Runnable onStart) {
+        this.pageSize = pager == null ? 0 : pageSize;
+        this.pager = pager;
+        this.onStart = onStart;
+    }
+
+    /**
+     * タスクのリストを番号付きで表示します。
+     * @param tasks 表示するタスク
+     * @param loginUser ログインユーザー
+     */
+    public void render(List<Task> tasks, User loginUser) {
+        repUserLabels.clear();
+        if (onStart != null) {
+            onStart.run();
+        }
+        PrintStream stdout = System.out;
+        Writer out = new BufferedWriter(new OutputStreamWriter(stdout, stdout.charset()), BUFFER_SIZE);
+        try {
+            for (int i = 0; i < tasks.size(); i++) {
+                // 表示を中止されたら残りを書き出さない
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                Task task = tasks.get(i);
+                User repUser = task.getRepUser();
+                appendLine(out, i, task.getName(), task.getStatus(),
+                        repUserLabel(loginUser, repUser.getCode(), repUser.getName()));
+                if (!continuePaging(out, i + 1, tasks.size())) {
+                    break;
+                }
+            }
+            out.flush();
+        } catch (InterruptedIOException e) {
+            // ページ送りの入力を待っている間に表示を中止された
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 列ごとのテーブルを番号付きで表示します。担当者名はユーザーリポジトリから引きます。
+     * @param tasks 表示するタスクのテーブル
+     * @param loginUser ログインユーザー
+     * @param userRepository 担当者名の検索に利用するユーザーリポジトリ
+     */
+    public void render(TaskTable tasks, User loginUser, UserRepository userRepository) {
+        repUserLabels.clear();
+        if (onStart != null) {
+            onStart.run();
+        }
+        PrintStream stdout = System.out;
+        Writer out = new BufferedWriter(new OutputStreamWriter(stdout, stdout.charset()), BUFFER_SIZE);
+        try {
+            for (int i = 0; i < tasks.size(); i++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                int repUserCode = tasks.getRepUserCode(i);
+                String repUser = repUserLabels.get(repUserCode);
+                if (repUser == null) {
+                    User user = userRepository.findProfileByCode(repUserCode);
+                    repUser = repUserLabel(loginUser, repUserCode, user == null ? "" : user.getName());
+                }
+                appendLine(out, i, tasks.getName(i), tasks.getStatus(i), repUser);
+                if (!continuePaging(out, i + 1, tasks.size())) {
+                    break;
+                }
+            }
+            out.flush();
+        } catch (InterruptedIOException e) {
+            // ページ送りの入力を待っている間に表示を中止された
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void appendLine(Writer out, int index, String name, int status, String repUser) throws IOException {
+        line.setLength(0);
+        line.append(index + 1).append(". タスク名：").append(name)
+                .append(", 担当者名：").append(repUser)
+                .append(", ステータス：").append(statusLabel(status))
+                .append(System.lineSeparator());
+        out.append(line);
+    }
+
+    /**
+     * ページの区切りで入力を待ちます。
+     * @return 表示を続ける場合はtrue
+     */
+    private boolean continuePaging(Writer out, int written, int total) throws IOException {
+        if (pageSize <= 0 || written % pageSize != 0 || written == total) {
+            return true;
+        }
+        out.append(MORE_PROMPT).append(System.lineSeparator());
+        out.flush();
+        String input = pager.readLine();
+        return input != null && !input.trim().equalsIgnoreCase("q");
+    }
+
+    private String repUserLabel(User loginUser, int repUserCode, String repUserName) {
+        String label = repUserLabels.get(repUserCode);
+        if (label == null) {
+            label = loginUser.getCode() == repUserCode ? "あなたが担当しています" : repUserName + "が担当しています";
+            repUserLabels.put(repUserCode, label);
+        }
+        return label;
+    }
+
+    private static String statusLabel(int status) {
+        // 想定外のステータスは従来どおり未着手として表示する
+        return status == 1 || status == 2 ? STATUS_LABELS[status] : STATUS_LABELS[0];
+    }
+}
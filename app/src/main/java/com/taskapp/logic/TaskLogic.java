@@ -1,28 +1,44 @@
 package com.taskapp.logic;
 
+import com.taskapp.dataaccess.DirectTaskChangeWriter;
 import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.LogRepository;
+import com.taskapp.dataaccess.TaskChangeWriter;
 import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.TaskRepository;
+import com.taskapp.dataaccess.TaskTable;
 import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.dataaccess.UserRepository;
 import com.taskapp.exception.AppException;
 
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
-
+import java.util.ArrayList;
 import java.util.List;
 
 import com.taskapp.model.Log;
 import com.taskapp.model.Task;
+import com.taskapp.model.TaskEvent;
 import com.taskapp.model.User;
 
 public class TaskLogic {
-    private final TaskDataAccess taskDataAccess;
-    private final LogDataAccess logDataAccess;
-    private final UserDataAccess userDataAccess;
+    /** タスク名の検索で表示する最大の件数 */
+    public static final int SEARCH_LIMIT = 100;
 
+    private final TaskRepository taskDataAccess;
+    private final LogRepository logDataAccess;
+    private final UserRepository userDataAccess;
+    private final TaskChangeWriter taskChangeWriter;
+    private final TaskEventPublisher taskEventPublisher;
+    private final TaskListRenderer taskListRenderer = new TaskListRenderer();
+    private final StatusTransitions statusTransitions = StatusTransitions.fromSystemProperties();
 
     public TaskLogic() {
         taskDataAccess = new TaskDataAccess();
         logDataAccess = new LogDataAccess();
         userDataAccess = new UserDataAccess();
+        taskChangeWriter = new DirectTaskChangeWriter(taskDataAccess, logDataAccess);
+        taskEventPublisher = null;
     }
 
     /**
@@ -31,10 +47,41 @@ public class TaskLogic {
      * @param logDataAccess
      * @param userDataAccess
      */
-    public TaskLogic(TaskDataAccess taskDataAccess, LogDataAccess logDataAccess, UserDataAccess userDataAccess) {
+    public TaskLogic(TaskRepository taskDataAccess, LogRepository logDataAccess, UserRepository userDataAccess) {
+        this.taskDataAccess = taskDataAccess;
+        this.logDataAccess = logDataAccess;
+        this.userDataAccess = userDataAccess;
+        this.taskChangeWriter = new DirectTaskChangeWriter(taskDataAccess, logDataAccess);
+        this.taskEventPublisher = null;
+    }
+
+    /**
+     * タスクの変更とログの書き込み方法を指定してインスタンスを作成します。
+     * @param taskDataAccess タスクのリポジトリ
+     * @param logDataAccess ログのリポジトリ
+     * @param userDataAccess ユーザーのリポジトリ
+     * @param taskChangeWriter タスクの変更とログをまとめて書き込む方法
+     */
+    public TaskLogic(TaskRepository taskDataAccess, LogRepository logDataAccess, UserRepository userDataAccess,
+            TaskChangeWriter taskChangeWriter) {
+        this(taskDataAccess, logDataAccess, userDataAccess, taskChangeWriter, null);
+    }
+
+    /**
+     * タスクの変更を通知するパブリッシャーを指定してインスタンスを作成します。
+     * @param taskDataAccess タスクのリポジトリ
+     * @param logDataAccess ログのリポジトリ
+     * @param userDataAccess ユーザーのリポジトリ
+     * @param taskChangeWriter タスクの変更とログをまとめて書き込む方法
+     * @param taskEventPublisher タスクの登録・ステータス変更を通知するパブリッシャー（通知しない場合はnull）
+     */
+    public TaskLogic(TaskRepository taskDataAccess, LogRepository logDataAccess, UserRepository userDataAccess,
+            TaskChangeWriter taskChangeWriter, TaskEventPublisher taskEventPublisher) {
         this.taskDataAccess = taskDataAccess;
         this.logDataAccess = logDataAccess;
         this.userDataAccess = userDataAccess;
+        this.taskChangeWriter = taskChangeWriter;
+        this.taskEventPublisher = taskEventPublisher;
     }
 
     /**
@@ -44,43 +91,149 @@ public class TaskLogic {
      * @param loginUser ログインユーザー
      */
     public void showAll(User loginUser) {
-        // findAllで一覧取得
-        List<Task> tasks = taskDataAccess.findAll();
-        // タスクを番号付きで表示
-    for (int i = 0; i < tasks.size(); i++) {
-        Task task = tasks.get(i);
-        String status = "未着手";
-        
-        if (task.getStatus() == 1) {
-            status = "着手中";
-        } else if (task.getStatus() == 2) {
-            status = "完了";
+        showAll(loginUser, taskListRenderer);
+    }
+
+    /**
+     * 表示方法（ページ送りなど）を指定して全てのタスクを表示します。
+     *
+     * @see com.taskapp.dataaccess.TaskDataAccess#findAll()
+     * @param loginUser ログインユーザー
+     * @param renderer タスク一覧の表示方法
+     */
+    public void showAll(User loginUser, TaskListRenderer renderer) {
+        // findAllで一覧取得し、番号付きで表示
+        renderer.render(taskDataAccess.findAll(), loginUser);
+    }
+
+    /**
+     * 列ごとのテーブルから全てのタスクを表示します。表示内容は{@link #showAll(User)}と同じです。
+     * 行ごとにTaskを作らず、担当者名はユーザーリポジトリから引きます。
+     *
+     * @see com.taskapp.dataaccess.TaskRepository#findAllAsTable()
+     * @param loginUser ログインユーザー
+     * @param tasks 表示するタスクのテーブル
+     */
+    public void showAll(User loginUser, TaskTable tasks) {
+        taskListRenderer.render(tasks, loginUser, userDataAccess);
+    }
+
+    /**
+     * ログインユーザーが担当しているタスクだけを表示します。
+     * 担当者ごとの索引から、そのユーザーのタスクだけを読み込みます。
+     *
+     * @see com.taskapp.dataaccess.TaskRepository#findByRepUserCode(int)
+     * @param loginUser ログインユーザー
+     */
+    public void showMine(User loginUser) {
+        showMine(loginUser, taskListRenderer);
+    }
+
+    /**
+     * 表示方法（ページ送りなど）を指定して、ログインユーザーが担当しているタスクだけを表示します。
+     *
+     * @see com.taskapp.dataaccess.TaskRepository#findByRepUserCode(int)
+     * @param loginUser ログインユーザー
+     * @param renderer タスク一覧の表示方法
+     */
+    public void showMine(User loginUser, TaskListRenderer renderer) {
+        renderer.render(taskDataAccess.findByRepUserCode(loginUser.getCode()), loginUser);
+    }
+
+    /**
+     * 担当者のタスクを取得します。
+     *
+     * @see com.taskapp.dataaccess.TaskRepository#findByRepUserCode(int)
+     * @param repUserCode 担当者コード
+     * @return 担当者のタスクのリスト
+     */
+    public List<Task> findByRepUserCode(int repUserCode) {
+        return taskDataAccess.findByRepUserCode(repUserCode);
+    }
+
+    /**
+     * タスク名に検索語を含むタスクを、タスクコードの順に最大{@value #SEARCH_LIMIT}件表示します。
+     * タスク名の転置索引から、該当するタスクだけを読み込みます。
+     *
+     * @see com.taskapp.dataaccess.TaskRepository#searchByName(String, int)
+     * @param query 検索語
+     * @param loginUser ログインユーザー
+     */
+    public void showSearchResult(String query, User loginUser) {
+        showSearchResult(query, loginUser, taskListRenderer);
+    }
+
+    /**
+     * 表示方法（ページ送りなど）を指定して、タスク名に検索語を含むタスクを最大{@value #SEARCH_LIMIT}件表示します。
+     *
+     * @see com.taskapp.dataaccess.TaskRepository#searchByName(String, int)
+     * @param query 検索語
+     * @param loginUser ログインユーザー
+     * @param renderer タスク一覧の表示方法
+     */
+    public void showSearchResult(String query, User loginUser, TaskListRenderer renderer) {
+        List<Task> tasks = taskDataAccess.searchByName(query, SEARCH_LIMIT);
+        if (tasks.isEmpty()) {
+            System.out.println("「" + query + "」を含むタスクはありません。");
+            return;
         }
-        
-        // 担当者
-        String repUser = "";
-        if (loginUser.getCode() == task.getRepUser().getCode()) {
-            repUser = "あなたが担当しています";
-        } else {
-            repUser = task.getRepUser().getName() + "が担当しています";
+        renderer.render(tasks, loginUser);
+        if (tasks.size() == SEARCH_LIMIT) {
+            System.out.println("該当するタスクが多いため、先頭の" + SEARCH_LIMIT + "件を表示しました。");
         }
-        
-        // 番号付きでタスク情報を表示
-        System.out.println((i + 1) + ". タスク名：" + task.getName() + ", 担当者名：" + repUser + ", ステータス：" + status);
     }
+
+    /**
+     * タスク名に検索語を含むタスクを取得します。
+     *
+     * @see com.taskapp.dataaccess.TaskRepository#searchByName(String, int)
+     * @param query 検索語
+     * @param limit 最大の件数
+     * @return 該当したタスクのリスト（タスクコードの昇順）
+     */
+    public List<Task> searchByName(String query, int limit) {
+        return taskDataAccess.searchByName(query, limit);
+    }
+
+    /**
+     * 全てのタスクを取得します。
+     *
+     * @see com.taskapp.dataaccess.TaskDataAccess#findAll()
+     * @return タスクのリスト
+     */
+    public List<Task> findAll() {
+        return taskDataAccess.findAll();
+    }
+
+    /**
+     * タスクの登録・ステータス変更をまとめて書き込む作業単位を開始します。
+     *
+     * @return 作業単位
+     */
+    public TaskBatch beginBatch() {
+        return new TaskBatch(taskDataAccess, userDataAccess, taskChangeWriter, statusTransitions);
+    }
+
+    /**
+     * ステータスごとのタスク数を集計します。
+     *
+     * @see com.taskapp.dataaccess.TaskRepository#findAllAsTable()
+     * @return 添字をステータスとしたタスク数の配列
+     */
+    public int[] countByStatus() {
+        return taskDataAccess.findAllAsTable().countByStatus();
     }
 
     /**
      * 新しいタスクを保存します。
      *
      * @see com.taskapp.dataaccess.UserDataAccess#findByCode(int)
-     * @see com.taskapp.dataaccess.TaskDataAccess#save(com.taskapp.model.Task)
-     * @see com.taskapp.dataaccess.LogDataAccess#save(com.taskapp.model.Log)
+     * @see com.taskapp.dataaccess.TaskChangeWriter#save(com.taskapp.model.Task, com.taskapp.model.Log)
      * @param code タスクコード
      * @param name タスク名
      * @param repUserCode 担当ユーザーコード
      * @param loginUser ログインユーザー
-     * @throws AppException ユーザーコードが存在しない場合にスローされます
+     * @throws AppException ユーザーコードが存在しない、またはタスクを保存できない場合にスローされます
      */
     public void save(int code, String name, int repUserCode,User loginUser) throws AppException {
         User user = userDataAccess.findByCode(repUserCode);
@@ -90,16 +243,20 @@ public class TaskLogic {
         }
 
         // タスクオブジェクト作成
-        Task task = new Task(code, name, 0, loginUser);
-
-        // タスクをtasks.csvに保存
-        taskDataAccess.save(task);
+        Task task = new Task(code, name, 0, user.toProfile());
 
-        
-         // ログデータ作成 保存
+         // ログデータ作成
         LocalDate currentDate = LocalDate.now(); // 現在の日付を取得
-        Log log = new Log(code, 0, loginUser.getCode(), currentDate);  // ログの作成
-        logDataAccess.save(log);
+        Log log = new Log(code, loginUser.getCode(), 0, currentDate);  // ログの作成
+
+        // タスクとログを保存
+        try {
+            taskChangeWriter.save(task, log);
+        } catch (UncheckedIOException e) {
+            e.printStackTrace();
+            throw new AppException("タスクを保存できませんでした。もう一度お試しください。");
+        }
+        publish(new TaskEvent(TaskEvent.Type.CREATED, task, -1, loginUser.getCode(), currentDate));
 
         System.out.println(name + "の登録が完了しました。");
     }
@@ -109,32 +266,81 @@ public class TaskLogic {
      * タスクのステータスを変更します。
      *
      * @see com.taskapp.dataaccess.TaskDataAccess#findByCode(int)
-     * @see com.taskapp.dataaccess.TaskDataAccess#update(com.taskapp.model.Task)
-     * @see com.taskapp.dataaccess.LogDataAccess#save(com.taskapp.model.Log)
+     * @see com.taskapp.dataaccess.TaskChangeWriter#update(com.taskapp.model.Task, com.taskapp.model.Log)
      * @param code タスクコード
      * @param status 新しいステータス
      * @param loginUser ログインユーザー
-     * @throws AppException タスクコードが存在しない、またはステータスが前のステータスより1つ先でない場合にスローされます
+     * @throws AppException タスクコードが存在しない、ステータスの遷移が許可されていない、または書き込めない場合にスローされます
      */
     public void changeStatus(int code, int status,User loginUser) throws AppException {
         Task task = taskDataAccess.findByCode(code);
             if(task == null){
                 throw new AppException("存在するタスクコードを入力してください。");
             }
-            if(status - task.getStatus() != 1){
-                throw new AppException("ステータスは、前のステータスより1つ先のもののみを選択してください");
-            }
-            // ステータスを更新
-            task.setStatus(status);
-            // タスクデータを更新
-            taskDataAccess.update(task);
+            // 許可された遷移かを、読み込んだタスクの現在のステータスで確かめる
+            statusTransitions.validate(task.getStatus(), status);
+            // ステータスを更新（読み込んだタスクはリポジトリのテーブルと共有されるため、書き込むまで変更しない）
+            int previousStatus = task.getStatus();
+            Task changedTask = new Task(task.getCode(), task.getName(), status, task.getRepUser());
             // 現在の日付を取得
             LocalDate date = LocalDate.now();
             // ログ作成
-            Log log = new Log(code, loginUser.getCode(), task.getStatus(), date);
-            logDataAccess.save(log);
+            Log log = new Log(code, loginUser.getCode(), changedTask.getStatus(), date);
+            // タスクデータの更新とログの保存
+            try {
+                taskChangeWriter.update(changedTask, log);
+            } catch (UncheckedIOException e) {
+                e.printStackTrace();
+                throw new AppException("ステータスを変更できませんでした。もう一度お試しください。");
+            }
+            publish(new TaskEvent(TaskEvent.Type.STATUS_CHANGED, changedTask, previousStatus, loginUser.getCode(),
+                    date));
             }
 
+    /**
+     * 指定したステータスのタスクをまとめて別のステータスに変更します（例：自分の着手中のタスクをすべて完了にする）。
+     * 遷移を1回確かめた後、タスクを1回走査して対象を集め、タスクとログを{@link TaskChangeWriter#writeAll}の1回で書き込みます。
+     *
+     * @see com.taskapp.dataaccess.TaskRepository#findByRepUserCode(int)
+     * @param repUserCode 担当者コード（全員のタスクを対象にする場合は負の値）
+     * @param fromStatus 変更するタスクの現在のステータス
+     * @param toStatus 新しいステータス
+     * @param loginUser ログインユーザー
+     * @return 変更したタスクの件数
+     * @throws AppException ステータスの遷移が許可されていない、または書き込めない場合にスローされます
+     */
+    public int changeStatusAll(int repUserCode, int fromStatus, int toStatus, User loginUser) throws AppException {
+        statusTransitions.validate(fromStatus, toStatus);
+
+        List<Task> tasks = repUserCode < 0 ? taskDataAccess.findAll() : taskDataAccess.findByRepUserCode(repUserCode);
+        List<Task> changedTasks = new ArrayList<>();
+        List<Log> logs = new ArrayList<>();
+        LocalDate date = LocalDate.now();
+        for (Task task : tasks) {
+            if (task.getStatus() != fromStatus) {
+                continue;
+            }
+            // 書き込むまで読み込んだタスクは変更しない
+            changedTasks.add(new Task(task.getCode(), task.getName(), toStatus, task.getRepUser()));
+            logs.add(new Log(task.getCode(), loginUser.getCode(), toStatus, date));
+        }
+        if (changedTasks.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            taskChangeWriter.writeAll(changedTasks, logs);
+        } catch (UncheckedIOException e) {
+            e.printStackTrace();
+            throw new AppException("ステータスを変更できませんでした。もう一度お試しください。");
+        }
+        // 書き込めた場合だけ通知する
+        for (Task task : changedTasks) {
+            publish(new TaskEvent(TaskEvent.Type.STATUS_CHANGED, task, fromStatus, loginUser.getCode(), date));
+        }
+        return changedTasks.size();
+    }
+
     /**
      * タスクを削除します。
      *
@@ -146,4 +352,10 @@ public class TaskLogic {
      */
     // public void delete(int code) throws AppException {
     // }
+
+    private void publish(TaskEvent event) {
+        if (taskEventPublisher != null) {
+            taskEventPublisher.publish(event);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.taskapp.logic;
+
+import java.util.Arrays;
+import java.util.concurrent.Flow;
+
+import com.taskapp.model.TaskEvent;
+
+/**
+ * ステータスごとのタスク数を、タスクの変更の通知から差分で更新する購読者です。
+ * 件数を表示するたびにtasks.csvを読み直さずに済みます。
+ */
+public class TaskStatusCounter implements Flow.Subscriber<TaskEvent> {
+    private final int[] counts;
+
+    /**
+     * @param initialCounts 購読を始める時点の、添字をステータスとしたタスク数
+     */
+    public TaskStatusCounter(int[] initialCounts) {
+        this.counts = initialCounts.clone();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized void onNext(TaskEvent event) {
+        if (event.getType() == TaskEvent.Type.STATUS_CHANGED) {
+            add(event.getPreviousStatus(), -1);
+        }
+        add(event.getTask().getStatus(), 1);
+    }
+
+    private void add(int status, int delta) {
+        if (status >= 0 && status < counts.length) {
+            counts[status] += delta;
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        throwable.printStackTrace();
+    }
+
+    @Override
+    public void onComplete() {
+    }
+
+    /**
+     * 通知を受け取った時点までのタスク数を取得します。
+     * @return 添字をステータスとしたタスク数の配列
+     */
+    public synchronized int[] getCounts() {
+        return Arrays.copyOf(counts, counts.length);
+    }
+}
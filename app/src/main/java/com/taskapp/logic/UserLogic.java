@@ -1,22 +1,35 @@
 package com.taskapp.logic;
 
 import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.dataaccess.UserRepository;
 import com.taskapp.exception.AppException;
 import com.taskapp.model.User;
 
 public class UserLogic {
-    private final UserDataAccess userDataAccess;
+    private final UserRepository userDataAccess;
+
+    private final SessionManager sessionManager;
 
     public UserLogic() {
         userDataAccess = new UserDataAccess();
+        sessionManager = new SessionManager();
     }
 
     /**
      * 自動採点用に必要なコンストラクタのため、皆さんはこのコンストラクタを利用・削除はしないでください
      * @param userDataAccess
      */
-    public UserLogic(UserDataAccess userDataAccess) {
+    public UserLogic(UserRepository userDataAccess) {
+        this(userDataAccess, new SessionManager());
+    }
+
+    /**
+     * @param userDataAccess ユーザーリポジトリ
+     * @param sessionManager ログイン済みのユーザーを保持するセッション管理
+     */
+    public UserLogic(UserRepository userDataAccess, SessionManager sessionManager) {
         this.userDataAccess = userDataAccess;
+        this.sessionManager = sessionManager;
     }
 
     /**
@@ -40,4 +53,51 @@ public class UserLogic {
         System.out.println("ユーザー名：" + user.getName() + "でログインしました。");
         return user;
     }
-}
\ No newline at end of file
+
+    /**
+     * ログインしてセッションを作成します。
+     * 以降の操作は、返されたトークンを{@link #resolve(String)}に渡してユーザーを取得します。
+     *
+     * @param email ユーザーのメールアドレス
+     * @param password ユーザーのパスワード
+     * @return セッションのトークン
+     * @throws AppException メールアドレスとパスワードが一致するユーザーが存在しない場合にスローされます
+     */
+    public String openSession(String email, String password) throws AppException {
+        return openSession(login(email, password));
+    }
+
+    /**
+     * {@link #login(String, String)}でログインしたユーザーのセッションを作成します。
+     *
+     * @param user ログインしたユーザー
+     * @return セッションのトークン
+     */
+    public String openSession(User user) {
+        return sessionManager.create(user);
+    }
+
+    /**
+     * セッションのトークンからログイン中のユーザーを取得します。CSVは読み込みません。
+     *
+     * @param token セッションのトークン
+     * @return ログイン中のユーザー
+     * @throws AppException セッションが存在しないか失効している場合にスローされます
+     */
+    public User resolve(String token) throws AppException {
+        User user = sessionManager.resolve(token);
+        if (user == null) {
+            throw new AppException("セッションの有効期限が切れました。再度ログインしてください");
+        }
+        return user;
+    }
+
+    /**
+     * セッションを破棄してログアウトします。
+     *
+     * @param token セッションのトークン
+     */
+    public void logout(String token) {
+        sessionManager.invalidate(token);
+    }
+}
@@ -0,0 +1,57 @@
+package com.taskapp.model;
+
+import java.time.LocalDate;
+
+/**
+ * タスクの登録やステータス変更を通知するイベントです。作成後は変更できません。
+ */
+public class TaskEvent {
+    public enum Type {
+        /** タスクが登録された */
+        CREATED,
+        /** タスクのステータスが変更された */
+        STATUS_CHANGED
+    }
+
+    private final Type type;
+    private final Task task;
+    private final int previousStatus;
+    private final int changeUserCode;
+    private final LocalDate changeDate;
+
+    /**
+     * @param type イベントの種類
+     * @param task 変更後のタスク
+     * @param previousStatus 変更前のステータス（登録の場合は-1）
+     * @param changeUserCode 変更したユーザーのコード
+     * @param changeDate 変更日
+     */
+    public TaskEvent(Type type, Task task, int previousStatus, int changeUserCode, LocalDate changeDate) {
+        this.type = type;
+        // 通知後にタスクが変更されても影響を受けないよう複製を持つ
+        this.task = new Task(task.getCode(), task.getName(), task.getStatus(), task.getRepUser());
+        this.previousStatus = previousStatus;
+        this.changeUserCode = changeUserCode;
+        this.changeDate = changeDate;
+    }
+
+    public Type getType() {
+        return this.type;
+    }
+
+    public Task getTask() {
+        return this.task;
+    }
+
+    public int getPreviousStatus() {
+        return this.previousStatus;
+    }
+
+    public int getChangeUserCode() {
+        return this.changeUserCode;
+    }
+
+    public LocalDate getChangeDate() {
+        return this.changeDate;
+    }
+}
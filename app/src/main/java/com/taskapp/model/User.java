@@ -29,6 +29,14 @@ public class User {
         return this.password;
     }
 
+    /**
+     * パスワードを持たない、表示用のユーザーを作成します。
+     * @return パスワードがnullのユーザー
+     */
+    public User toProfile() {
+        return this.password == null ? this : new User(this.code, this.name, this.email, null);
+    }
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -0,0 +1,307 @@
+package com.taskapp.ui;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.taskapp.dataaccess.LogRepository;
+import com.taskapp.dataaccess.TenantStorePool;
+import com.taskapp.exception.AppException;
+import com.taskapp.logic.TaskBatch;
+import com.taskapp.logic.TaskListRenderer;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.logic.UserLogic;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * コマンドを書いたスクリプトを対話なしで実行します。
+ * 1行に1つのコマンドを書き、#で始まる行と空行は読み飛ばします。
+ * <pre>
+ * tenant &lt;テナントID&gt;
+ * login &lt;メールアドレス&gt; &lt;パスワード&gt;
+ * add &lt;タスクコード&gt; &lt;担当者コード&gt; &lt;タスク名&gt;
+ * change-status &lt;タスクコード&gt; &lt;ステータス&gt;
+ * change-status-all &lt;変更前のステータス&gt; &lt;変更後のステータス&gt; [mine | rep=&lt;担当者コード&gt;]
+ * list [status=&lt;ステータス&gt;] [rep=&lt;担当者コード&gt;] [mine]
+ * search &lt;検索語&gt;
+ * flush
+ * </pre>
+ * 登録とステータス変更は溜めておき、一定件数ごと・一覧表示の前・終了時にまとめて書き込みます。
+ * エラーになったコマンドは行番号とメッセージを表示し、続きを実行します。
+ * テナントのプールを渡した場合は、tenantコマンドで選んだテナントのデータに対して実行します。
+ */
+public class BatchRunner {
+    /** 溜めた変更を書き込む件数 */
+    private static final int FLUSH_SIZE = 10000;
+
+    private final BufferedReader reader;
+
+    private UserLogic userLogic;
+
+    private TaskLogic taskLogic;
+
+    /** テナントのプール。nullの場合はコンストラクタで渡したロジックだけを使う */
+    private final TenantStorePool tenantStorePool;
+
+    /** 選択中のテナントのリポジトリ */
+    private TenantStorePool.Lease lease;
+
+    private final TaskListRenderer renderer = new TaskListRenderer();
+
+    /** loginコマンドで作成したセッションのトークン */
+    private String sessionToken;
+
+    /** コマンドのたびにセッションから取得し直す、ログイン中のユーザー */
+    private User loginUser;
+
+    private TaskBatch batch;
+
+    private int executed;
+
+    private int errors;
+
+    /**
+     * @param reader スクリプトを読み込むリーダー
+     * @param userLogic ユーザーのロジック
+     * @param taskLogic タスクのロジック
+     */
+    public BatchRunner(BufferedReader reader, UserLogic userLogic, TaskLogic taskLogic) {
+        this.reader = reader;
+        this.userLogic = userLogic;
+        this.taskLogic = taskLogic;
+        this.tenantStorePool = null;
+    }
+
+    /**
+     * テナントごとのデータに対して実行します。loginの前にtenantコマンドでテナントを選択します。
+     * @param reader スクリプトを読み込むリーダー
+     * @param tenantStorePool テナントのプール
+     */
+    public BatchRunner(BufferedReader reader, TenantStorePool tenantStorePool) {
+        this.reader = reader;
+        this.tenantStorePool = tenantStorePool;
+    }
+
+    /**
+     * スクリプトを最後まで実行します。
+     * @return エラーになったコマンドの件数
+     * @throws IOException スクリプトを読み込めない場合
+     */
+    public int run() throws IOException {
+        batch = taskLogic == null ? null : taskLogic.beginBatch();
+        long started = System.nanoTime();
+        String line;
+        int lineNumber = 0;
+        try {
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    execute(line);
+                    executed++;
+                    if (batch != null && batch.pendingCount() >= FLUSH_SIZE) {
+                        batch.flush();
+                    }
+                } catch (AppException e) {
+                    errors++;
+                    System.out.println(lineNumber + "行目：" + e.getMessage());
+                }
+            }
+        } finally {
+            try {
+                flush();
+            } catch (AppException e) {
+                errors++;
+                System.out.println(e.getMessage());
+            }
+            logout();
+            if (lease != null) {
+                lease.close();
+                lease = null;
+            }
+        }
+
+        long elapsed = (System.nanoTime() - started) / 1_000_000;
+        System.out.println(executed + "件のコマンドを実行しました。（エラー：" + errors + "件、" + elapsed + "ミリ秒）");
+        return errors;
+    }
+
+    private void execute(String line) throws AppException {
+        String[] words = line.split("\\s+", 4);
+        switch (words[0]) {
+            case "tenant":
+                requireArguments(words, 2);
+                selectTenant(words[1]);
+                break;
+            case "login":
+                requireArguments(words, 3);
+                if (taskLogic == null) {
+                    throw new AppException("先にtenantコマンドでテナントを選択してください");
+                }
+                batch.flush();
+                logout();
+                sessionToken = userLogic.openSession(words[1], words[2]);
+                break;
+            case "add": {
+                requireLogin();
+                requireArguments(words, 4);
+                String name = words[3];
+                if (name.length() > 10) {
+                    throw new AppException("タスク名は10文字以内で入力してください");
+                }
+                batch.save(parseNumber(words[1]), name, parseNumber(words[2]), loginUser);
+                break;
+            }
+            case "change-status": {
+                requireLogin();
+                requireArguments(words, 3);
+                int status = parseNumber(words[2]);
+                if (status != 1 && status != 2) {
+                    throw new AppException("ステータスは1・2の中から選択してください");
+                }
+                batch.changeStatus(parseNumber(words[1]), status, loginUser);
+                break;
+            }
+            case "change-status-all": {
+                requireLogin();
+                requireArguments(words, 3);
+                int repUserCode = -1;
+                if (words.length > 3) {
+                    if (words[3].equals("mine")) {
+                        repUserCode = loginUser.getCode();
+                    } else if (words[3].startsWith("rep=")) {
+                        repUserCode = parseNumber(words[3].substring("rep=".length()));
+                    } else {
+                        throw new AppException("一括変更の条件が誤っています：" + words[3]);
+                    }
+                }
+                // 溜めた変更を書き込んでから、現在のステータスで対象を選ぶ
+                batch.flush();
+                int count = taskLogic.changeStatusAll(repUserCode, parseNumber(words[1]), parseNumber(words[2]),
+                        loginUser);
+                System.out.println(count + "件のタスクのステータスを変更しました。");
+                break;
+            }
+            case "list":
+                requireLogin();
+                // 一覧は書き込み済みの内容を表示する
+                batch.flush();
+                list(line.split("\\s+"));
+                break;
+            case "search": {
+                requireLogin();
+                requireArguments(words, 2);
+                batch.flush();
+                // 検索語には空白を含められる
+                taskLogic.showSearchResult(line.substring("search".length()).trim(), loginUser);
+                break;
+            }
+            case "flush":
+                flush();
+                break;
+            default:
+                throw new AppException("不明なコマンドです：" + words[0]);
+        }
+    }
+
+    /**
+     * テナントを切り替えます。溜めた変更は切り替える前のテナントに書き込み、ログイン状態は解除します。
+     */
+    private void selectTenant(String tenant) throws AppException {
+        if (tenantStorePool == null) {
+            throw new AppException("テナントは選択できません");
+        }
+        TenantStorePool.Lease selected;
+        try {
+            selected = tenantStorePool.acquire(tenant);
+        } catch (IllegalArgumentException e) {
+            throw new AppException("テナントが見つかりません：" + tenant);
+        }
+        try {
+            flush();
+        } catch (AppException e) {
+            selected.close();
+            throw e;
+        }
+        if (lease != null) {
+            lease.close();
+        }
+        lease = selected;
+        // セッションは切り替える前のテナントのユーザーのものなので破棄する
+        logout();
+        LogRepository logRepository = selected.getLogRepository();
+        userLogic = new UserLogic(selected.getUserRepository());
+        taskLogic = new TaskLogic(selected.getTaskRepository(), logRepository, selected.getUserRepository(),
+                selected.createTaskChangeWriter());
+        batch = taskLogic.beginBatch();
+    }
+
+    private void flush() throws AppException {
+        if (batch != null) {
+            batch.flush();
+        }
+    }
+
+    private void list(String[] words) throws AppException {
+        int status = -1;
+        int repUserCode = -1;
+        for (int i = 1; i < words.length; i++) {
+            if (words[i].startsWith("status=")) {
+                status = parseNumber(words[i].substring("status=".length()));
+            } else if (words[i].startsWith("rep=")) {
+                repUserCode = parseNumber(words[i].substring("rep=".length()));
+            } else if (words[i].equals("mine")) {
+                repUserCode = loginUser.getCode();
+            } else {
+                throw new AppException("一覧の条件が誤っています：" + words[i]);
+            }
+        }
+
+        // 担当者を指定した場合は、担当者ごとの索引からそのタスクだけを読む
+        List<Task> tasks = repUserCode >= 0 ? taskLogic.findByRepUserCode(repUserCode) : taskLogic.findAll();
+        List<Task> filtered = new ArrayList<>();
+        for (Task task : tasks) {
+            if ((status < 0 || task.getStatus() == status)
+                    && (repUserCode < 0 || task.getRepUser().getCode() == repUserCode)) {
+                filtered.add(task);
+            }
+        }
+        renderer.render(filtered, loginUser);
+    }
+
+    /**
+     * セッションからログイン中のユーザーを取得し直します。
+     */
+    private void requireLogin() throws AppException {
+        if (sessionToken == null) {
+            throw new AppException("先にloginコマンドでログインしてください");
+        }
+        loginUser = userLogic.resolve(sessionToken);
+    }
+
+    private void logout() {
+        if (sessionToken != null) {
+            userLogic.logout(sessionToken);
+            sessionToken = null;
+        }
+        loginUser = null;
+    }
+
+    private static void requireArguments(String[] words, int count) throws AppException {
+        if (words.length < count) {
+            throw new AppException(words[0] + "コマンドの引数が足りません");
+        }
+    }
+
+    private static int parseNumber(String value) throws AppException {
+        if (!value.matches("\\d+")) {
+            throw new AppException("コードとステータスは半角の数字で入力してください：" + value);
+        }
+        return Integer.parseInt(value);
+    }
+}
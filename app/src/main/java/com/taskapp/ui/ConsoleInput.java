@@ -0,0 +1,124 @@
+package com.taskapp.ui;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * コンソールの入力を専用のスレッドで読み込みます。
+ * 呼び出し元は入力を待ちながら、時間切れで他の処理（進捗の表示など）に戻れます。
+ * 読み込みは要求されたときだけ1行ずつ行い、時間切れになった読み込みは次の要求に引き継ぐため、入力を取りこぼしません。
+ */
+class ConsoleInput {
+    private final BufferedReader reader;
+
+    private ExecutorService ioThread;
+
+    /** 要求済みでまだ受け取っていない読み込み */
+    private Future<String> pending;
+
+    private volatile boolean endOfInput;
+
+    ConsoleInput(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 1行を読み込むまで待ちます。
+     * @return 読み込んだ行、入力の終わりに達した場合はnull
+     * @throws IOException 読み込みに失敗した場合
+     */
+    synchronized String readLine() throws IOException {
+        Future<String> future = request();
+        try {
+            String line = future.get();
+            pending = null;
+            endOfInput = line == null;
+            return line;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for input");
+        } catch (ExecutionException e) {
+            pending = null;
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * 指定した時間だけ1行の入力を待ちます。
+     * @param timeout 待つ時間
+     * @param unit 時間の単位
+     * @return 読み込んだ行、時間内に入力がなかった場合と入力の終わりに達した場合はnull
+     * @throws IOException 読み込みに失敗した場合
+     */
+    synchronized String pollLine(long timeout, TimeUnit unit) throws IOException {
+        return pollLine(timeout, unit, () -> false);
+    }
+
+    /**
+     * 指定した時間だけ1行の入力を待ちます。
+     * 入力があってもleaveが真を返す場合は受け取らず、次の読み込み（別のスレッドからの読み込みを含む）に残します。
+     * @param timeout 待つ時間
+     * @param unit 時間の単位
+     * @param leave 入力を受け取らずに残すか判定する処理
+     * @return 読み込んだ行、時間内に入力がなかった場合・入力を残した場合・入力の終わりに達した場合はnull
+     * @throws IOException 読み込みに失敗した場合
+     */
+    synchronized String pollLine(long timeout, TimeUnit unit, BooleanSupplier leave) throws IOException {
+        Future<String> future = request();
+        try {
+            String line = future.get(timeout, unit);
+            if (leave.getAsBoolean()) {
+                return null;
+            }
+            pending = null;
+            endOfInput = line == null;
+            return line;
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for input");
+        } catch (ExecutionException e) {
+            pending = null;
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * 入力の終わりに達したか判定します。
+     * @return 入力の終わりに達していればtrue
+     */
+    boolean isEndOfInput() {
+        return endOfInput;
+    }
+
+    private Future<String> request() {
+        if (pending == null) {
+            if (ioThread == null) {
+                ioThread = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "console-input");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            pending = ioThread.submit(reader::readLine);
+        }
+        return pending;
+    }
+
+    private static IOException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        return new IOException(cause);
+    }
+}
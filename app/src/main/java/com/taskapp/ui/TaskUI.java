@@ -5,24 +5,55 @@ import java.io.IOException;
 import com.taskapp.exception.AppException;
 
 import java.io.InputStreamReader;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
+import com.taskapp.logic.TaskListRenderer;
 import com.taskapp.logic.TaskLogic;
+import com.taskapp.logic.TaskStatusCounter;
 import com.taskapp.logic.UserLogic;
 import com.taskapp.model.User;
 
 public class TaskUI {
+    /** 時間のかかる処理の完了を、進捗を表示せずに待つ時間（ミリ秒） */
+    private static final long QUIET_WAIT_MILLIS = 200;
+
+    /** 進捗を表示する間隔（ミリ秒） */
+    private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+
     private final BufferedReader reader;
 
+    /** 入力は専用のスレッドで読み込み、時間のかかる処理の実行中も中止の入力を受け付ける */
+    private final ConsoleInput input;
+
     private final UserLogic userLogic;
 
     private final TaskLogic taskLogic;
 
+    /** メニューに表示するステータスごとのタスク数（表示しない場合はnull） */
+    private final TaskStatusCounter taskStatusCounter;
+
+    /** 時間のかかる処理の完了を、進捗を表示せずに待つ時間（ミリ秒） */
+    private long quietWaitMillis = QUIET_WAIT_MILLIS;
+
+    /** 進捗を表示する間隔（ミリ秒） */
+    private long progressIntervalMillis = PROGRESS_INTERVAL_MILLIS;
+
+    /** ログイン時に作成したセッションのトークン */
+    private String sessionToken;
+
+    /** 操作のたびにセッションから取得し直す、ログイン中のユーザー */
     private User loginUser;
 
     public TaskUI() {
         reader = new BufferedReader(new InputStreamReader(System.in));
+        input = new ConsoleInput(reader);
         userLogic = new UserLogic();
         taskLogic = new TaskLogic();
+        taskStatusCounter = null;
     }
 
     /**
@@ -32,9 +63,22 @@ public class TaskUI {
      * @param taskLogic
      */
     public TaskUI(BufferedReader reader, UserLogic userLogic, TaskLogic taskLogic) {
+        this(reader, userLogic, taskLogic, null);
+    }
+
+    /**
+     * @param reader 入力
+     * @param userLogic ユーザーのロジック
+     * @param taskLogic タスクのロジック
+     * @param taskStatusCounter メニューに表示するステータスごとのタスク数（表示しない場合はnull）
+     */
+    public TaskUI(BufferedReader reader, UserLogic userLogic, TaskLogic taskLogic,
+            TaskStatusCounter taskStatusCounter) {
         this.reader = reader;
+        this.input = new ConsoleInput(reader);
         this.userLogic = userLogic;
         this.taskLogic = taskLogic;
+        this.taskStatusCounter = taskStatusCounter;
     }
 
     /**
@@ -42,6 +86,8 @@ public class TaskUI {
      *
      * @see #inputLogin()
      * @see com.taskapp.logic.TaskLogic#showAll(User)
+     * @see com.taskapp.logic.TaskLogic#showMine(User)
+     * @see #inputSearchQuery()
      * @see #selectSubMenu()
      * @see #inputNewInformation()
      */
@@ -55,17 +101,27 @@ public class TaskUI {
         boolean flg = true;
         while (flg) {
             try {
-                System.out.println("以下1~3のメニューから好きな選択肢を選んでください。");
-                System.out.println("1. タスク一覧, 2. タスク新規登録, 3. ログアウト");
+                if (taskStatusCounter != null) {
+                    int[] counts = taskStatusCounter.getCounts();
+                    System.out.println("タスク数：未着手 " + counts[0] + "件, 着手中 " + counts[1] + "件, 完了 "
+                            + counts[2] + "件");
+                }
+                System.out.println("以下1~5のメニューから好きな選択肢を選んでください。");
+                System.out.println("1. タスク一覧, 2. タスク新規登録, 3. ログアウト, 4. 担当タスク一覧, 5. タスク検索");
                 System.out.print("選択肢：");
-                String selectMenu = reader.readLine();
+                String selectMenu = input.readLine();
 
                 System.out.println();
 
+                // ログアウト以外の操作では、セッションからログイン中のユーザーを取得し直す
+                if (!selectMenu.equals("3")) {
+                    loginUser = userLogic.resolve(sessionToken);
+                }
+
                 switch (selectMenu) {
                     case "1":
-                        // タスク一覧表示
-                        taskLogic.showAll(loginUser);
+                        // タスク一覧表示（ページの行数が指定されていればページ送りする）
+                        runListing("タスク一覧の表示", renderer -> taskLogic.showAll(loginUser, renderer));
                         // サブメニュー
                         selectSubMenu();
                         break;
@@ -74,37 +130,164 @@ public class TaskUI {
                         inputNewInformation();
                         break;
                     case "3":
+                        userLogic.logout(sessionToken);
+                        sessionToken = null;
                         System.out.println("ログアウトしました。");
                         flg = false;
                         break;
+                    case "4":
+                        // 自分が担当しているタスクだけを表示
+                        runListing("担当タスク一覧の表示", renderer -> taskLogic.showMine(loginUser, renderer));
+                        selectSubMenu();
+                        break;
+                    case "5":
+                        // タスク名で検索
+                        inputSearchQuery();
+                        break;
                     default:
-                        System.out.println("選択肢が誤っています。1~3の中から選択してください。");
+                        System.out.println("選択肢が誤っています。1~5の中から選択してください。");
                         break;
                 }
             } catch (IOException e) {
                 e.printStackTrace();
+            } catch (AppException e) {
+                // セッションが失効していたら、ログインし直してからメニューに戻る
+                System.out.println(e.getMessage());
+                System.out.println();
+                inputLogin();
             }
             System.out.println();
         }
     }
 
+    /**
+     * 時間のかかる処理を仮想スレッドで実行し、完了を待ちます。
+     * すぐに終わらない場合は経過時間を表示し、cが入力されたら処理を中断します。
+     * 中断された処理は、ファイルの読み込みなどを途中で打ち切ります。
+     *
+     * @param label 処理の名前
+     * @param operation 実行する処理
+     * @return 完了した場合はtrue、中止した場合はfalse
+     */
+    public boolean runLongOperation(String label, Runnable operation) {
+        return runLongOperation(label, onOutputStart -> operation.run());
+    }
+
+    /**
+     * {@link #runLongOperation(String, Consumer)}が待つ時間を変更します。
+     * テストで経過時間に頼らずに、進捗の表示や中止の受け付けを確かめるために使います。
+     *
+     * @param quietWaitMillis 処理の完了を、進捗を表示せずに待つ時間（ミリ秒）
+     * @param progressIntervalMillis 進捗を表示する間隔（ミリ秒）
+     */
+    void setWaitMillis(long quietWaitMillis, long progressIntervalMillis) {
+        this.quietWaitMillis = quietWaitMillis;
+        this.progressIntervalMillis = progressIntervalMillis;
+    }
+
+    /**
+     * 結果を出力する時間のかかる処理を仮想スレッドで実行し、完了を待ちます。
+     * 処理は結果の出力を始める前に、受け取った{@link Runnable}を呼び出します。
+     * 出力が始まった後は経過時間を表示せず、入力も受け取らずに処理（ページ送りなど）に任せます。
+     *
+     * @param label 処理の名前
+     * @param operation 実行する処理（引数は出力を始める前に呼び出す処理）
+     * @return 完了した場合はtrue、中止した場合はfalse
+     */
+    public boolean runLongOperation(String label, Consumer<Runnable> operation) {
+        // 出力の開始と進捗の表示は、このロックで排他する
+        AtomicBoolean outputStarted = new AtomicBoolean();
+        Runnable onOutputStart = () -> {
+            synchronized (outputStarted) {
+                outputStarted.set(true);
+            }
+        };
+        Thread worker = Thread.ofVirtual().name("task-ui-worker").start(() -> {
+            try {
+                operation.accept(onOutputStart);
+            } catch (CancellationException e) {
+                // 中止を受けてデータの読み込みを打ち切った。途中までの結果は表示しない
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        });
+        try {
+            if (worker.join(Duration.ofMillis(quietWaitMillis))) {
+                return true;
+            }
+
+            synchronized (outputStarted) {
+                if (!outputStarted.get()) {
+                    System.out.println(label + "を実行しています。中止するにはcを入力してください。");
+                }
+            }
+            long started = System.nanoTime();
+            while (worker.isAlive()) {
+                if (input.isEndOfInput() || outputStarted.get()) {
+                    // 入力が閉じられた場合と出力が始まった場合は中止を受け付けず、完了を待つ
+                    worker.join();
+                    break;
+                }
+                // 出力が始まった後の入力は、処理が読み込めるように残す
+                String line = input.pollLine(progressIntervalMillis, TimeUnit.MILLISECONDS, outputStarted::get);
+                if (line != null && line.trim().equalsIgnoreCase("c")) {
+                    worker.interrupt();
+                    worker.join();
+                    System.out.println(label + "を中止しました。");
+                    return false;
+                }
+                if (line == null) {
+                    synchronized (outputStarted) {
+                        if (!outputStarted.get() && worker.isAlive()) {
+                            long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started);
+                            System.out.println(label + "を実行しています...（" + elapsed + "秒経過）");
+                        }
+                    }
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            worker.interrupt();
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * タスクの一覧を表示する処理を{@link #runLongOperation(String, Consumer)}で実行します。
+     * ページの行数が指定されていればページ送りし、ページ送りの入力も{@link ConsoleInput}から読み込みます。
+     *
+     * @param label 処理の名前
+     * @param listing 受け取った表示方法で一覧を表示する処理
+     * @return 完了した場合はtrue、中止した場合はfalse
+     */
+    private boolean runListing(String label, Consumer<TaskListRenderer> listing) {
+        int pageSize = Integer.getInteger(TaskListRenderer.PAGE_SIZE_PROPERTY, 0);
+        return runLongOperation(label,
+                onOutputStart -> listing.accept(new TaskListRenderer(pageSize, input::readLine, onOutputStart)));
+    }
+
     /**
      * ユーザーからのログイン情報を受け取り、ログイン処理を行います。
      *
      * @see com.taskapp.logic.UserLogic#login(String, String)
+     * @see com.taskapp.logic.UserLogic#openSession(User)
      */
     public void inputLogin() {
         boolean flg = true;
         while (flg) {
             try {
                 System.out.print("メールアドレスを入力してください："); // メールアドレス受付
-                String email = reader.readLine();
+                String email = input.readLine();
 
                 System.out.print("パスワードを入力してください："); // パスワード受付
-                String password = reader.readLine();
+                String password = input.readLine();
 
-                // ログイン処理を呼び出す
+                // ログイン処理を呼び出し、以降の操作で使うセッションを作成する
                 loginUser = userLogic.login(email, password);
+                sessionToken = userLogic.openSession(loginUser);
                 System.out.println();
                 flg = false;
             } catch (IOException e) {
@@ -128,7 +311,7 @@ public class TaskUI {
             try {
                 // タスクコード入力
                 System.out.print("タスクコードを入力してください：");
-                String code = reader.readLine();
+                String code = input.readLine();
                 if (!isNumeric(code)) {
                     System.out.println("コードは半角の数字で入力してください。");
                     System.out.println();
@@ -138,7 +321,7 @@ public class TaskUI {
     
                 // タスク名入力
                 System.out.print("タスク名を入力してください：");
-                String name = reader.readLine();
+                String name = input.readLine();
                 if (name.length() > 10) {
                     System.out.println("タスク名は10文字以内で入力してください");
                     System.out.println();
@@ -147,7 +330,7 @@ public class TaskUI {
     
                 // 担当するユーザーコード入力
                 System.out.print("担当するユーザーのコードを選択して下さい：");
-                String userCode = reader.readLine();
+                String userCode = input.readLine();
                 if (!isNumeric(userCode)) {
                     System.out.println("ユーザーのコードは半角の数字で入力してください");
                     System.out.println();
@@ -170,11 +353,28 @@ public class TaskUI {
         }
     }
 
+    /**
+     * 検索語を受け取り、タスク名に検索語を含むタスクを表示します。
+     *
+     * @see com.taskapp.logic.TaskLogic#showSearchResult(String, User)
+     */
+    public void inputSearchQuery() throws IOException {
+        System.out.print("検索するタスク名を入力してください：");
+        String query = input.readLine();
+        if (query == null || query.isBlank()) {
+            System.out.println("検索語を入力してください。");
+            return;
+        }
+        System.out.println();
+        String trimmed = query.trim();
+        runListing("タスクの検索", renderer -> taskLogic.showSearchResult(trimmed, loginUser, renderer));
+    }
 
     /**
      * タスクのステータス変更または削除を選択するサブメニューを表示します。
      *
      * @see #inputChangeInformation()
+     * @see #inputBulkChangeInformation()
      * @see #inputDeleteInformation()
      */
     public void selectSubMenu() {
@@ -182,10 +382,10 @@ public class TaskUI {
     while (flg) {
         try {
             // サブメニュー表示
-            System.out.println("以下1~2のメニューから好きな選択肢を選んでください。");
-            System.out.println("1. タスクのステータス変更, 2. メインメニューに戻る");
+            System.out.println("以下1~3のメニューから好きな選択肢を選んでください。");
+            System.out.println("1. タスクのステータス変更, 2. メインメニューに戻る, 3. 担当タスクのステータス一括変更");
             System.out.print("選択肢：");
-            String selectMenu = reader.readLine();
+            String selectMenu = input.readLine();
             
             // メニュー選択に応じた処理
             switch (selectMenu) {
@@ -196,9 +396,14 @@ public class TaskUI {
                     break;
                 case "2":
                     break;
+                case "3":
+                    // 自分が担当しているタスクをまとめて変更
+                    inputBulkChangeInformation();
+                    flg = false;
+                    break;
                 default:
                     // 無効な選択肢が入力された場合、再度入力を求める
-                    System.out.println("選択肢が誤っています。1または2を選択してください。");
+                    System.out.println("選択肢が誤っています。1~3の中から選択してください。");
                     break;
             }
             System.out.println();
@@ -221,7 +426,7 @@ public class TaskUI {
         try {
             // ステータスを変更するタスクコード入力
             System.out.print("ステータスを変更するタスクコードを入力してください：");
-            String code = reader.readLine();
+            String code = input.readLine();
             if (!isNumeric(code)) {
                 System.out.println("コードは半角の数字で入力してください。");
                 System.out.println();
@@ -233,7 +438,7 @@ public class TaskUI {
             System.out.println("どのステータスに変更するか選択してください。");
             System.out.println("1. 着手中, 2. 完了");
             System.out.print("選択肢：");
-            String statusInput = reader.readLine();
+            String statusInput = input.readLine();
             System.out.println();
             if (!isNumeric(statusInput)) {
                 System.out.println("ステータスは半角の数字で入力してください");
@@ -262,6 +467,44 @@ public class TaskUI {
         }
     }
 }
+    /**
+     * 変更前と変更後のステータスを受け取り、ログインユーザーが担当しているタスクのステータスをまとめて変更します。
+     *
+     * @see #isNumeric(String)
+     * @see com.taskapp.logic.TaskLogic#changeStatusAll(int, int, int, User)
+     */
+    public void inputBulkChangeInformation() {
+        boolean flg = true;
+        while (flg) {
+            try {
+                System.out.println("どのステータスのタスクを変更するか選択してください。");
+                System.out.println("0. 未着手, 1. 着手中");
+                System.out.print("選択肢：");
+                String fromInput = input.readLine();
+                System.out.println("どのステータスに変更するか選択してください。");
+                System.out.println("1. 着手中, 2. 完了");
+                System.out.print("選択肢：");
+                String toInput = input.readLine();
+                System.out.println();
+                if (!isNumeric(fromInput) || !isNumeric(toInput)) {
+                    System.out.println("ステータスは半角の数字で入力してください");
+                    continue;
+                }
+
+                int count = taskLogic.changeStatusAll(loginUser.getCode(), Integer.parseInt(fromInput),
+                        Integer.parseInt(toInput), loginUser);
+
+                System.out.println(count + "件のタスクのステータスを変更しました。");
+                flg = false;
+            } catch (IOException e) {
+                e.printStackTrace();
+            } catch (AppException e) {
+                System.out.println(e.getMessage());
+                System.out.println();
+            }
+        }
+    }
+
     /**
      * ユーザーからのタスク削除情報を受け取り、タスクを削除します。
      *
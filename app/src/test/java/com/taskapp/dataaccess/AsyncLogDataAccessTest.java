@@ -0,0 +1,147 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.model.Log;
+
+public class AsyncLogDataAccessTest {
+    private final LocalDate date = LocalDate.of(2024, 2, 1);
+
+    @Test
+    public void testSaveAndFlush() {
+        InMemoryLogDataAccess delegate = new InMemoryLogDataAccess();
+        try (AsyncLogDataAccess logDataAccess = AsyncLogDataAccess.start(delegate, 4,
+                AsyncLogDataAccess.Backpressure.BLOCK)) {
+            for (int i = 0; i < 100; i++) {
+                logDataAccess.save(new Log(i, 1, 1, date));
+            }
+
+            assertThat(logDataAccess.findAll()).hasSize(100);
+        }
+    }
+
+    @Test
+    public void testWriterSurvivesFailure() {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        InMemoryLogDataAccess delegate = new InMemoryLogDataAccess() {
+            @Override
+            public synchronized void saveAll(List<Log> logs) {
+                if (failing.get()) {
+                    throw new IllegalStateException("disk full");
+                }
+                super.saveAll(logs);
+            }
+        };
+        try (AsyncLogDataAccess logDataAccess = AsyncLogDataAccess.start(delegate, 4,
+                AsyncLogDataAccess.Backpressure.BLOCK)) {
+            logDataAccess.save(new Log(1, 1, 1, date));
+            logDataAccess.flush();
+            failing.set(false);
+
+            // 書き込みに失敗した後も、書き込みスレッドは次のログを書き込む
+            for (int i = 2; i <= 10; i++) {
+                logDataAccess.save(new Log(i, 1, 1, date));
+            }
+
+            assertThat(logDataAccess.findAll()).extracting(Log::getTaskCode).containsExactly(2, 3, 4, 5, 6, 7, 8, 9,
+                    10);
+            assertThat(logDataAccess.getFailedCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testSaveAfterClose() {
+        InMemoryLogDataAccess delegate = new InMemoryLogDataAccess();
+        AsyncLogDataAccess logDataAccess = AsyncLogDataAccess.start(delegate, 4,
+                AsyncLogDataAccess.Backpressure.BLOCK);
+        logDataAccess.save(new Log(1, 1, 1, date));
+        logDataAccess.close();
+
+        // 終了後のログは同期的に書き込む
+        logDataAccess.save(new Log(2, 1, 1, date));
+
+        assertThat(delegate.findAll()).extracting(Log::getTaskCode).containsExactly(1, 2);
+    }
+
+    @Test
+    public void testSaveDuringCloseKeepsOrder() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryLogDataAccess delegate = new InMemoryLogDataAccess() {
+            @Override
+            public void saveAll(List<Log> logs) {
+                if (logs.get(0).getTaskCode() == 1) {
+                    writing.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.saveAll(logs);
+            }
+        };
+        AsyncLogDataAccess logDataAccess = AsyncLogDataAccess.start(delegate, 4,
+                AsyncLogDataAccess.Backpressure.BLOCK);
+        logDataAccess.save(new Log(1, 1, 1, date));
+        writing.await();
+        // 書き込みスレッドが1件目を書いている間に積まれたログ
+        logDataAccess.save(new Log(2, 1, 1, date));
+        logDataAccess.save(new Log(3, 1, 1, date));
+
+        Thread closer = new Thread(logDataAccess::close);
+        closer.start();
+        awaitWaiting(closer);
+        // 終了を始めた後のログは、キューに残ったログより後に書き込む
+        Thread saver = new Thread(() -> logDataAccess.save(new Log(4, 1, 1, date)));
+        saver.start();
+        awaitWaiting(saver);
+        release.countDown();
+        closer.join();
+        saver.join();
+
+        assertThat(delegate.findAll()).extracting(Log::getTaskCode).containsExactly(1, 2, 3, 4);
+    }
+
+    /**
+     * スレッドが待ち状態（ロックや他のスレッドの終了を待っている状態）になるまで待ちます。
+     */
+    private void awaitWaiting(Thread thread) {
+        while (thread.getState() == Thread.State.NEW || thread.getState() == Thread.State.RUNNABLE) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Test
+    public void testConcurrentSaveAndClose() throws InterruptedException {
+        InMemoryLogDataAccess delegate = new InMemoryLogDataAccess();
+        AsyncLogDataAccess logDataAccess = AsyncLogDataAccess.start(delegate, 64,
+                AsyncLogDataAccess.Backpressure.BLOCK);
+        int perThread = 2000;
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    logDataAccess.save(new Log(i, 1, 1, date));
+                }
+            });
+            threads[t].start();
+        }
+        Thread.sleep(1);
+        logDataAccess.close();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        logDataAccess.flush();
+
+        // close()と入れ違いに積まれたログも書き漏らさない
+        assertThat(delegate.findAll()).hasSize(perThread * threads.length);
+    }
+}
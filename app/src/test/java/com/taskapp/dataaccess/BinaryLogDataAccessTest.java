@@ -0,0 +1,134 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.model.Log;
+
+public class BinaryLogDataAccessTest {
+    @TempDir
+    Path dir;
+
+    private BinaryLogDataAccess logDataAccess;
+
+    @BeforeEach
+    public void setUp() {
+        logDataAccess = new BinaryLogDataAccess(dir.resolve("logs.bin").toString());
+    }
+
+    @Test
+    public void testSaveAndFind() {
+        List<Log> logs = new ArrayList<>();
+        logs.add(new Log(1, 1, 0, LocalDate.of(2024, 1, 10)));
+        logs.add(new Log(300, 2, 1, LocalDate.of(2024, 1, 11)));
+        logs.add(new Log(1, 70000, 2, LocalDate.of(1999, 12, 31)));
+        logDataAccess.saveAll(logs);
+        logDataAccess.save(new Log(2, 1, 0, LocalDate.of(2024, 2, 1)));
+
+        List<Log> all = logDataAccess.findAll();
+        assertThat(all).hasSize(4);
+        assertThat(all.get(2).getChangeUserCode()).isEqualTo(70000);
+        assertThat(all.get(2).getChangeDate()).isEqualTo(LocalDate.of(1999, 12, 31));
+        assertThat(logDataAccess.findByTaskCode(1)).extracting(Log::getStatus).containsExactly(0, 2);
+        assertThat(logDataAccess.findSince(LocalDate.of(2024, 1, 11))).extracting(Log::getTaskCode)
+                .containsExactly(300, 2);
+    }
+
+    @Test
+    public void testTornRecordIsTruncated() throws IOException {
+        logDataAccess.save(new Log(1, 1, 0, LocalDate.of(2024, 1, 10)));
+        logDataAccess.save(new Log(2, 1, 0, LocalDate.of(2024, 1, 10)));
+
+        // 書き込みの途中で中断されたように、最後の記録の末尾を削る
+        try (RandomAccessFile raf = new RandomAccessFile(logDataAccess.getFilePath(), "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        BinaryLogDataAccess reopened = new BinaryLogDataAccess(logDataAccess.getFilePath());
+        assertThat(reopened.findAll()).extracting(Log::getTaskCode).containsExactly(1);
+
+        reopened.save(new Log(3, 1, 0, LocalDate.of(2024, 1, 11)));
+        assertThat(reopened.findAll()).extracting(Log::getTaskCode).containsExactly(1, 3);
+    }
+
+    @Test
+    public void testChecksumMismatchStopsReading() throws IOException {
+        logDataAccess.save(new Log(1, 1, 0, LocalDate.of(2024, 1, 10)));
+        long firstEnd = Files.size(dir.resolve("logs.bin"));
+        logDataAccess.save(new Log(2, 1, 0, LocalDate.of(2024, 1, 10)));
+
+        // 2件目のステータスを書き換える
+        try (RandomAccessFile raf = new RandomAccessFile(logDataAccess.getFilePath(), "rw")) {
+            raf.seek(firstEnd + 3);
+            raf.writeByte(1);
+        }
+        assertThat(logDataAccess.findAll()).extracting(Log::getTaskCode).containsExactly(1);
+    }
+
+    @Test
+    public void testCorruptedRecordBeforeTailIsNotTruncated() throws IOException {
+        logDataAccess.save(new Log(1, 1, 0, LocalDate.of(2024, 1, 10)));
+        long firstEnd = Files.size(dir.resolve("logs.bin"));
+        logDataAccess.save(new Log(2, 1, 0, LocalDate.of(2024, 1, 10)));
+        logDataAccess.save(new Log(3, 1, 0, LocalDate.of(2024, 1, 10)));
+        long length = Files.size(dir.resolve("logs.bin"));
+
+        // 末尾ではない2件目のステータスを書き換える
+        try (RandomAccessFile raf = new RandomAccessFile(logDataAccess.getFilePath(), "rw")) {
+            raf.seek(firstEnd + 3);
+            raf.writeByte(1);
+        }
+        BinaryLogDataAccess reopened = new BinaryLogDataAccess(logDataAccess.getFilePath());
+        assertThatThrownBy(reopened::findAll).isInstanceOf(UncheckedIOException.class);
+        assertThatThrownBy(() -> reopened.save(new Log(4, 1, 0, LocalDate.of(2024, 1, 11))))
+                .isInstanceOf(UncheckedIOException.class);
+
+        // 壊れた記録の後ろにある有効な記録を切り詰めない
+        assertThat(Files.size(dir.resolve("logs.bin"))).isEqualTo(length);
+    }
+
+    @Test
+    public void testInterruptedReadThrowsInsteadOfReturningPartialList() {
+        logDataAccess.save(new Log(1, 1, 0, LocalDate.of(2024, 1, 10)));
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThatThrownBy(logDataAccess::findAll).isInstanceOf(CancellationException.class);
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void testConvertCsvAndBack() throws IOException {
+        LogDataAccess csv = CsvTestFixture.copyTo(dir).getLogDataAccess();
+        List<Log> expected = csv.findAll();
+
+        long converted = LogFormatConverter.toBinary(csv, logDataAccess.getFilePath());
+        assertThat(converted).isEqualTo(expected.size());
+        assertThat(Files.size(dir.resolve("logs.bin"))).isLessThan(Files.size(dir.resolve("logs.csv")) / 2);
+
+        Files.delete(dir.resolve("logs.csv"));
+        LogFormatConverter.toCsv(logDataAccess, dir.resolve("logs.csv").toString());
+        List<Log> roundTrip = csv.findAll();
+        assertThat(roundTrip).hasSize(expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(roundTrip.get(i).getTaskCode()).isEqualTo(expected.get(i).getTaskCode());
+            assertThat(roundTrip.get(i).getChangeUserCode()).isEqualTo(expected.get(i).getChangeUserCode());
+            assertThat(roundTrip.get(i).getStatus()).isEqualTo(expected.get(i).getStatus());
+            assertThat(roundTrip.get(i).getChangeDate()).isEqualTo(expected.get(i).getChangeDate());
+        }
+    }
+}
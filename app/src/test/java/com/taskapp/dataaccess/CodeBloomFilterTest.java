@@ -0,0 +1,120 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class CodeBloomFilterTest {
+    @TempDir
+    Path dir;
+
+    private UserDataAccess userDataAccess;
+
+    private TaskDataAccess taskDataAccess;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        CsvTestFixture fixture = CsvTestFixture.copyTo(dir);
+        userDataAccess = fixture.getUserDataAccess();
+        taskDataAccess = fixture.getTaskDataAccess();
+    }
+
+    @Test
+    public void testNoFalseNegatives() {
+        CodeBloomFilter filter = new CodeBloomFilter(100_000);
+        for (int code = 0; code < 100_000; code++) {
+            filter.put(code * 3);
+        }
+        int falsePositives = 0;
+        for (int code = 0; code < 100_000; code++) {
+            assertThat(filter.mightContain(code * 3)).isTrue();
+            if (filter.mightContain(code * 3 + 1)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(2_000);
+        assertThat(filter.isSaturated()).isFalse();
+    }
+
+    @Test
+    public void testBuildFromCsv() {
+        CodeBloomFilter filter = CodeBloomFilter.build(dir.resolve("tasks.csv").toFile());
+
+        assertThat(filter.mightContain(1)).isTrue();
+        assertThat(filter.mightContain(4)).isTrue();
+        assertThat(filter.matches(dir.resolve("tasks.csv").toFile())).isTrue();
+        assertThat(CodeBloomFilter.build(dir.resolve("missing.csv").toFile()).mightContain(1)).isFalse();
+    }
+
+    @Test
+    public void testFindByCodeAfterSave() {
+        assertThat(taskDataAccess.findByCode(99)).isNull();
+        assertThat(userDataAccess.findByCode(99)).isNull();
+
+        taskDataAccess.save(new Task(99, "taskZ", 0, userDataAccess.findByCode(1)));
+
+        assertThat(taskDataAccess.findByCode(99).getName()).isEqualTo("taskZ");
+        assertThat(taskDataAccess.findByCode(2).getName()).isEqualTo("taskB");
+    }
+
+    @Test
+    public void testFindByCodeAfterExternalEdit() throws IOException {
+        taskDataAccess.prepareCodeFilter();
+        userDataAccess.prepareCodeFilter();
+
+        // アプリケーションを通さずにCSVへ追記する
+        Files.writeString(dir.resolve("tasks.csv"), "\n50,外部で追加,0,1", StandardOpenOption.APPEND);
+        Files.writeString(dir.resolve("users.csv"), "\n50,Bob,bob@example.com,password",
+                StandardOpenOption.APPEND);
+        // 監視スレッドが変更を通知した状態にする
+        taskDataAccess.recheckCodeFilter();
+        userDataAccess.recheckCodeFilter();
+
+        assertThat(taskDataAccess.findByCode(50).getName()).isEqualTo("外部で追加");
+        User user = userDataAccess.findByCode(50);
+        assertThat(user.getName()).isEqualTo("Bob");
+    }
+
+    @Test
+    public void testNegativeLookupDoesNotTouchCsv() throws IOException {
+        taskDataAccess.prepareCodeFilter();
+
+        // フィルタを作った後にCSVへ追記しても、照合の間隔内の検索はCSVの情報の取得も読み込みも行わない
+        Files.writeString(dir.resolve("tasks.csv"), "\n99,外部で追加,0,1", StandardOpenOption.APPEND);
+        assertThat(taskDataAccess.findByCode(99)).isNull();
+
+        // 変更を通知されれば、次の検索で照合し直してフィルタを作り直す
+        taskDataAccess.recheckCodeFilter();
+        assertThat(taskDataAccess.findByCode(99).getName()).isEqualTo("外部で追加");
+    }
+
+    @Test
+    public void testIsStaleRechecksPeriodically() throws IOException {
+        File csvFile = dir.resolve("tasks.csv").toFile();
+        CodeBloomFilter everyTime = CodeBloomFilter.build(csvFile, Duration.ZERO);
+        CodeBloomFilter hourly = CodeBloomFilter.build(csvFile, Duration.ofHours(1));
+
+        Files.writeString(dir.resolve("tasks.csv"), "\n50,外部で追加,0,1", StandardOpenOption.APPEND);
+
+        assertThat(everyTime.isStale(csvFile)).isTrue();
+        assertThat(hourly.isStale(csvFile)).isFalse();
+        hourly.expire();
+        assertThat(hourly.isStale(csvFile)).isTrue();
+        // 書き込んだ後に記録し直せば、照合しても一致する
+        hourly.stamp(csvFile);
+        hourly.expire();
+        assertThat(hourly.isStale(csvFile)).isFalse();
+    }
+}
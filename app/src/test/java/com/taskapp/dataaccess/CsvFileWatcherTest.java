@@ -0,0 +1,72 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.model.Task;
+
+public class CsvFileWatcherTest {
+    @TempDir
+    Path dir;
+
+    private UserDataAccess userDataAccess;
+    private TaskDataAccess taskDataAccess;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        CsvTestFixture fixture = CsvTestFixture.copyTo(dir);
+        userDataAccess = fixture.getUserDataAccess();
+        taskDataAccess = fixture.getTaskDataAccess();
+        userDataAccess.load(userDataAccess.findAll());
+        taskDataAccess.load(taskDataAccess.findAll());
+    }
+
+    @Test
+    public void testReloadAfterExternalEdits() throws IOException, InterruptedException {
+        int before = taskDataAccess.findAll().size();
+
+        try (CsvFileWatcher watcher = new CsvFileWatcher(taskDataAccess, userDataAccess, Duration.ofMillis(200))) {
+            // 手作業での編集を模して、続けて書き込む
+            for (int i = 0; i < 5; i++) {
+                Files.writeString(dir.resolve("tasks.csv"), "\n" + (10 + i) + ",外部で追加,0,1",
+                        StandardOpenOption.APPEND);
+                Thread.sleep(20);
+            }
+
+            // ファイルシステムによっては通知が遅れるため長めに待つ
+            long deadline = System.currentTimeMillis() + 15000;
+            while (taskDataAccess.findByCode(14) == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+
+            assertThat(taskDataAccess.findAll()).hasSize(before + 5);
+            assertThat(taskDataAccess.findByCode(14).getName()).isEqualTo("外部で追加");
+            // 連続した編集は1回の読み直しにまとめる
+            assertThat(watcher.getReloadCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testIgnoreOwnWrites() throws IOException, InterruptedException {
+        try (CsvFileWatcher watcher = new CsvFileWatcher(taskDataAccess, userDataAccess, Duration.ofMillis(100))) {
+            taskDataAccess.save(new Task(10, "taskJ", 0, userDataAccess.findProfileByCode(1)));
+            Task task = new Task(2, "taskB", 1, userDataAccess.findProfileByCode(2));
+            taskDataAccess.update(task);
+
+            // 通知が届いて待ち時間が過ぎるまで待つ
+            Thread.sleep(1000);
+
+            assertThat(watcher.getReloadCount()).isZero();
+            assertThat(taskDataAccess.findByCode(10).getName()).isEqualTo("taskJ");
+        }
+    }
+}
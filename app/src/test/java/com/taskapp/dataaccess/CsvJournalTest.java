@@ -0,0 +1,196 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+
+public class CsvJournalTest {
+    @TempDir
+    Path dir;
+
+    private UserDataAccess userDataAccess;
+    private TaskDataAccess taskDataAccess;
+    private LogDataAccess logDataAccess;
+    private CsvJournal journal;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        CsvTestFixture fixture = CsvTestFixture.copyTo(dir);
+        userDataAccess = fixture.getUserDataAccess();
+        taskDataAccess = fixture.getTaskDataAccess();
+        logDataAccess = fixture.getLogDataAccess();
+        journal = new CsvJournal(taskDataAccess, logDataAccess, userDataAccess);
+    }
+
+    @Test
+    public void testCommitDefersCsvUntilCheckpoint() throws IOException {
+        JournaledTaskDataAccess tasks = new JournaledTaskDataAccess(taskDataAccess, journal);
+        JournaledLogDataAccess logs = new JournaledLogDataAccess(logDataAccess, journal);
+        byte[] tasksCsv = Files.readAllBytes(dir.resolve("tasks.csv"));
+        Task task = taskDataAccess.findByCode(2);
+        task.setStatus(1);
+
+        CsvUnitOfWork unitOfWork = journal.begin();
+        unitOfWork.registerDirty(task);
+        unitOfWork.registerLog(new Log(2, 1, 1, LocalDate.now()));
+        unitOfWork.commit();
+
+        // コミットしただけではCSVは変わらず、読み出しにはジャーナルの変更が重なる
+        assertThat(Files.readAllBytes(dir.resolve("tasks.csv"))).isEqualTo(tasksCsv);
+        assertThat(Files.exists(dir.resolve("tasks.csv.journal"))).isTrue();
+        assertThat(tasks.findByCode(2).getStatus()).isEqualTo(1);
+        assertThat(tasks.findAll()).extracting(Task::getStatus).containsExactly(0, 1, 2, 1);
+        assertThat(tasks.findAllAsTable().countByStatus()).containsExactly(1, 2, 1);
+        assertThat(logs.findByTaskCode(2)).hasSize(2);
+
+        journal.checkpoint();
+
+        assertThat(Files.readAllLines(dir.resolve("tasks.csv"))).contains("2,taskB,1,2");
+        assertThat(new LogDataAccess(dir.resolve("logs.csv").toString()).findByTaskCode(2)).hasSize(2);
+        assertThat(Files.exists(dir.resolve("tasks.csv.journal"))).isFalse();
+        assertThat(tasks.findByCode(2).getStatus()).isEqualTo(1);
+        assertThat(logs.findByTaskCode(2)).hasSize(2);
+    }
+
+    @Test
+    public void testCheckpointAfterInterval() throws IOException {
+        journal = new CsvJournal(taskDataAccess, logDataAccess, userDataAccess, 2);
+        JournaledTaskDataAccess tasks = new JournaledTaskDataAccess(taskDataAccess, journal);
+
+        Task taskB = tasks.findByCode(2);
+        taskB.setStatus(1);
+        tasks.update(taskB);
+        Task taskA = tasks.findByCode(1);
+        taskA.setStatus(2);
+        tasks.update(taskA);
+
+        // 2件目のコミットで、溜まった変更を1回の書き換えで反映する
+        assertThat(Files.exists(dir.resolve("tasks.csv.journal"))).isFalse();
+        assertThat(Files.readAllLines(dir.resolve("tasks.csv"))).contains("1,taskA,2,1", "2,taskB,1,2");
+    }
+
+    @Test
+    public void testSaveNewTaskThroughJournal() {
+        JournaledTaskDataAccess tasks = new JournaledTaskDataAccess(taskDataAccess, journal);
+
+        tasks.save(new Task(5, "taskE", 0, userDataAccess.findProfileByCode(1)));
+
+        assertThat(tasks.findByCode(5).getName()).isEqualTo("taskE");
+        assertThat(tasks.findByRepUserCode(1)).extracting(Task::getCode).containsExactly(1, 5);
+        assertThat(tasks.searchByName("TASK", 10)).extracting(Task::getCode).containsExactly(1, 2, 3, 4, 5);
+        assertThat(taskDataAccess.findByCode(5)).isNull();
+
+        journal.checkpoint();
+
+        assertThat(taskDataAccess.findByCode(5).getName()).isEqualTo("taskE");
+    }
+
+    @Test
+    public void testRecoverAppliesCommittedUnits() throws IOException {
+        // ジャーナルにコミットした後、CSVへの反映前に異常終了した状態を作る
+        long logLength = Files.size(dir.resolve("logs.csv"));
+        Files.writeString(dir.resolve("tasks.csv.journal"), "BASE," + logLength + "\n"
+                + unit("U,2,taskB,1,2\nL,2,1,1,2024-02-01\n")
+                + unit("U,2,taskB,2,2\nL,2,1,2,2024-02-02\n"));
+
+        journal.recover();
+        // 2回目の復旧は何も変えない
+        journal.recover();
+
+        assertThat(taskDataAccess.findByCode(2).getStatus()).isEqualTo(2);
+        assertThat(logDataAccess.findByTaskCode(2)).hasSize(3);
+        assertThat(Files.exists(dir.resolve("tasks.csv.journal"))).isFalse();
+    }
+
+    @Test
+    public void testRecoverSkipsTornUnit() throws IOException {
+        long logLength = Files.size(dir.resolve("logs.csv"));
+        Files.writeString(dir.resolve("tasks.csv.journal"), "BASE," + logLength + "\n"
+                + unit("U,2,taskB,1,2\nL,2,1,1,2024-02-01\n") + "BEGIN\nU,2,taskB,2,2\n");
+
+        journal.recover();
+
+        // 書き込み途中の作業単位は、タスクとログのどちらも反映しない
+        assertThat(taskDataAccess.findByCode(2).getStatus()).isEqualTo(1);
+        assertThat(logDataAccess.findByTaskCode(2)).hasSize(2);
+        assertThat(Files.exists(dir.resolve("tasks.csv.journal"))).isFalse();
+    }
+
+    @Test
+    public void testRecoverDiscardsJournalWithoutBase() throws IOException {
+        Files.writeString(dir.resolve("tasks.csv.journal"), "BAS");
+
+        journal.recover();
+
+        assertThat(taskDataAccess.findByCode(2).getStatus()).isEqualTo(0);
+        assertThat(Files.exists(dir.resolve("tasks.csv.journal"))).isFalse();
+    }
+
+    @Test
+    public void testFailedCheckpointKeepsJournal() throws IOException {
+        Task task = taskDataAccess.findByCode(2);
+        task.setStatus(1);
+        CsvUnitOfWork unitOfWork = journal.begin();
+        unitOfWork.registerDirty(task);
+        unitOfWork.registerLog(new Log(2, 1, 1, LocalDate.now()));
+        unitOfWork.commit();
+
+        // 一時ファイルの場所にディレクトリがあると、tasks.csvを書き換えられない
+        Path tmp = Files.createDirectory(dir.resolve("tasks.csv.tmp"));
+        Files.writeString(tmp.resolve("busy"), "");
+        assertThatThrownBy(journal::checkpoint).isInstanceOf(UncheckedIOException.class);
+
+        assertThat(Files.exists(dir.resolve("tasks.csv.journal"))).isTrue();
+        assertThat(journal.pendingTasks()).containsKey(2);
+
+        // 書き換えられるようになれば、残したジャーナルから反映し直す
+        Files.delete(tmp.resolve("busy"));
+        Files.delete(tmp);
+        UserDataAccess users = new UserDataAccess(dir.resolve("users.csv").toString());
+        TaskDataAccess restartedTasks = new TaskDataAccess(dir.resolve("tasks.csv").toString(), users);
+        LogDataAccess restartedLogs = new LogDataAccess(dir.resolve("logs.csv").toString());
+        new CsvJournal(restartedTasks, restartedLogs, users).recover();
+
+        assertThat(restartedTasks.findByCode(2).getStatus()).isEqualTo(1);
+        assertThat(restartedLogs.findByTaskCode(2)).hasSize(2);
+        assertThat(Files.exists(dir.resolve("tasks.csv.journal"))).isFalse();
+    }
+
+    @Test
+    public void testCheckpointKeepsUnparsableRows() throws IOException {
+        Path tasksCsv = dir.resolve("tasks.csv");
+        Files.writeString(tasksCsv, System.lineSeparator() + "5,カンマ,を含む,0,1" + System.lineSeparator()
+                + "x,taskX,0,1", StandardOpenOption.APPEND);
+        Task task = taskDataAccess.findByCode(2);
+        task.setStatus(1);
+
+        CsvUnitOfWork unitOfWork = journal.begin();
+        unitOfWork.registerDirty(task);
+        unitOfWork.commit();
+        journal.checkpoint();
+
+        // 読み込めない行も消さずにそのまま書き戻す
+        assertThat(Files.readAllLines(tasksCsv)).contains("5,カンマ,を含む,0,1", "x,taskX,0,1", "2,taskB,1,2");
+    }
+
+    private String unit(String lines) {
+        String body = "BEGIN\n" + lines;
+        CRC32 crc = new CRC32();
+        crc.update(body.getBytes(StandardCharsets.UTF_8));
+        return body + "COMMIT," + crc.getValue() + "\n";
+    }
+}
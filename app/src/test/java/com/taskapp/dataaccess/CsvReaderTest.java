@@ -0,0 +1,86 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CsvReaderTest {
+    @TempDir
+    Path dir;
+
+    private CsvReader readerOf(String content) {
+        return new CsvReader(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testReadFields() throws IOException {
+        try (CsvReader reader = readerOf("\uFEFFコード,タスク名\r\n1,議事録の作成,0,2\r\n\n3,a,,\n12,b")) {
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.getString(0)).isEqualTo("コード");
+            assertThat(reader.line()).isEqualTo("コード,タスク名");
+
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.fieldCount()).isEqualTo(4);
+            assertThat(reader.getInt(0)).isEqualTo(1);
+            assertThat(reader.getString(1)).isEqualTo("議事録の作成");
+            assertThat(reader.getInt(3)).isEqualTo(2);
+
+            // 空行と末尾の空の列は数えない
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.fieldCount()).isZero();
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.fieldCount()).isEqualTo(2);
+
+            // 最終行は改行で終わっていなくてもよい
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.getInt(0)).isEqualTo(12);
+            assertThat(reader.next()).isFalse();
+        }
+    }
+
+    @Test
+    public void testParseNumbersAndDates() throws IOException {
+        try (CsvReader reader = readerOf("-5,１２,2147483647,x,2024-02-29,2024/02/29")) {
+            reader.next();
+            assertThat(reader.getInt(0)).isEqualTo(-5);
+            assertThat(reader.getInt(1)).isEqualTo(12);
+            assertThat(reader.getInt(2)).isEqualTo(Integer.MAX_VALUE);
+            assertThatThrownBy(() -> reader.getInt(3)).isInstanceOf(NumberFormatException.class);
+            assertThat(reader.getDate(4)).isEqualTo(LocalDate.of(2024, 2, 29));
+            assertThatThrownBy(() -> reader.getDate(5)).isInstanceOf(java.time.DateTimeException.class);
+            assertThatThrownBy(() -> reader.getInt(6)).isInstanceOf(IndexOutOfBoundsException.class);
+        }
+    }
+
+    @Test
+    public void testLongLinesAndOffsets() throws IOException {
+        String longName = "長".repeat(50_000);
+        Path file = dir.resolve("tasks.csv");
+        Files.writeString(file, "header\n1," + longName + ",0,1\n2,short,1,2\n", StandardCharsets.UTF_8);
+        long second = 7;
+        long third = second + ("1," + longName + ",0,1\n").getBytes(StandardCharsets.UTF_8).length;
+
+        try (CsvReader reader = CsvReader.open(file.toString())) {
+            reader.next();
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.offset()).isEqualTo(second);
+            assertThat(reader.getString(1)).isEqualTo(longName);
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.offset()).isEqualTo(third);
+
+            assertThat(reader.nextAt(second)).isTrue();
+            assertThat(reader.getInt(0)).isEqualTo(1);
+            assertThat(reader.nextAt(third)).isTrue();
+            assertThat(reader.getString(1)).isEqualTo("short");
+            assertThat(reader.nextAt(Files.size(file))).isFalse();
+        }
+    }
+}
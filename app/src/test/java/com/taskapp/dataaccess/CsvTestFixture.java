@@ -0,0 +1,104 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+
+/**
+ * テスト用のusers.csv・tasks.csv・logs.csvを一時ディレクトリにコピーし、CSVのデータアクセスを組み立てます。
+ * データアクセスは同じディレクトリのCSVを共有するため、作り直すと再起動後の状態を確かめられます。
+ */
+public class CsvTestFixture {
+    private static final Path RESOURCES = Paths.get("src/test/resources");
+
+    private final Path directory;
+
+    private final UserDataAccess userDataAccess;
+
+    private final TaskDataAccess taskDataAccess;
+
+    private final LogDataAccess logDataAccess;
+
+    private CsvTestFixture(Path directory) {
+        this.directory = directory;
+        this.userDataAccess = newUserDataAccess();
+        this.taskDataAccess = newTaskDataAccess(userDataAccess);
+        this.logDataAccess = new LogDataAccess(path("logs.csv"));
+    }
+
+    /**
+     * テスト用のCSVをディレクトリにコピーします。
+     * @param directory コピー先のディレクトリ
+     * @return コピーしたCSVを使うフィクスチャ
+     * @throws IOException コピーできない場合
+     */
+    public static CsvTestFixture copyTo(Path directory) throws IOException {
+        Files.copy(RESOURCES.resolve("test_users.csv"), directory.resolve("users.csv"));
+        Files.copy(RESOURCES.resolve("test_tasks.csv"), directory.resolve("tasks.csv"));
+        Files.copy(RESOURCES.resolve("test_logs.csv"), directory.resolve("logs.csv"));
+        return new CsvTestFixture(directory);
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * ディレクトリ内のファイルのパスを取得します。
+     * @param fileName ファイル名
+     * @return パス
+     */
+    public String path(String fileName) {
+        return directory.resolve(fileName).toString();
+    }
+
+    public UserDataAccess getUserDataAccess() {
+        return this.userDataAccess;
+    }
+
+    public TaskDataAccess getTaskDataAccess() {
+        return this.taskDataAccess;
+    }
+
+    public LogDataAccess getLogDataAccess() {
+        return this.logDataAccess;
+    }
+
+    /**
+     * コピーしたCSVを保存先として、指定した実装のリポジトリを組み立てます。
+     * 組み込みデータベースの場合は、同じディレクトリに作るデータベースへCSVの内容を移行してから組み立てます。
+     * @param engine 保存先の実装
+     * @param logFormat ログの保存形式
+     * @return 組み立てたファクトリ。使い終わったら閉じてください
+     * @throws SQLException 移行に失敗した場合
+     */
+    public DataAccessFactory openFactory(DataAccessFactory.Engine engine, DataAccessFactory.LogFormat logFormat)
+            throws SQLException {
+        String jdbcUrl = "jdbc:h2:" + directory.toAbsolutePath() + "/taskapp";
+        if (engine == DataAccessFactory.Engine.JDBC) {
+            try (JdbcDatabase database = new JdbcDatabase(jdbcUrl)) {
+                new CsvToJdbcMigrator(directory.toString(), database).migrate();
+            }
+        }
+        return new DataAccessFactory(engine, directory.toString(), jdbcUrl, false, logFormat);
+    }
+
+    /**
+     * 同じusers.csvを読む、新しいユーザーデータアクセスを作成します。
+     * @return ユーザーデータアクセス
+     */
+    public UserDataAccess newUserDataAccess() {
+        return new UserDataAccess(path("users.csv"));
+    }
+
+    /**
+     * 同じtasks.csvを読む、新しいタスクデータアクセスを作成します。
+     * @param userDataAccess 担当者の検索に利用するユーザーデータアクセス
+     * @return タスクデータアクセス
+     */
+    public TaskDataAccess newTaskDataAccess(UserDataAccess userDataAccess) {
+        return new TaskDataAccess(path("tasks.csv"), userDataAccess);
+    }
+}
@@ -0,0 +1,59 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.model.Task;
+
+public class CsvToJdbcMigratorTest {
+    @TempDir
+    Path dir;
+
+    private JdbcDatabase database;
+
+    private CsvToJdbcMigrator migrator;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        CsvTestFixture.copyTo(dir);
+        database = new JdbcDatabase("jdbc:h2:mem:" + UUID.randomUUID());
+        migrator = new CsvToJdbcMigrator(dir.toString(), database);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void testMigrate() throws SQLException {
+        migrator.migrate();
+
+        assertThat(new JdbcUserDataAccess(database).findAll()).hasSize(2);
+        JdbcTaskDataAccess taskDataAccess = new JdbcTaskDataAccess(database);
+        assertThat(taskDataAccess.findAll()).extracting(Task::getCode).containsExactly(1, 2, 3, 4);
+        assertThat(taskDataAccess.findByCode(3).getRepUser().getName()).isEqualTo("鈴木二郎");
+        assertThat(new JdbcLogDataAccess(database).findByTaskCode(3)).hasSize(3);
+    }
+
+    @Test
+    public void testMigrateReplacesExistingRows() throws SQLException {
+        migrator.migrate();
+        new JdbcTaskDataAccess(database).save(
+                new Task(9, "移行後に追加", 0, new JdbcUserDataAccess(database).findProfileByCode(1)));
+
+        migrator.migrate();
+
+        assertThat(new JdbcTaskDataAccess(database).findAll()).hasSize(4);
+        assertThat(new JdbcLogDataAccess(database).findAll()).hasSize(7);
+    }
+}
@@ -0,0 +1,45 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CsvWriterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testWriteUtf8() throws IOException {
+        Path file = dir.resolve("users.csv");
+        try (CsvWriter writer = CsvWriter.open(file.toString(), false)) {
+            writer.write("Code,Name");
+            writer.newLine();
+            writer.write("1,鈴木一郎😀");
+            writer.newLine();
+        }
+        String separator = System.lineSeparator();
+        assertThat(Files.readString(file, StandardCharsets.UTF_8))
+                .isEqualTo("Code,Name" + separator + "1,鈴木一郎😀" + separator);
+    }
+
+    @Test
+    public void testAppendAndPosition() throws IOException {
+        Path file = dir.resolve("logs.csv");
+        Files.writeString(file, "header\n", StandardCharsets.UTF_8);
+        long expected = Files.size(file) + ("1,タスク".getBytes(StandardCharsets.UTF_8).length);
+        try (CsvWriter writer = CsvWriter.open(file.toString(), true)) {
+            assertThat(writer.position()).isEqualTo(Files.size(file));
+            writer.write("1,タスク");
+            assertThat(writer.position()).isEqualTo(expected);
+            // バッファより大きい文字列もそのまま書き込む
+            writer.write("x".repeat(100_000));
+        }
+        assertThat(Files.size(file)).isEqualTo(expected + 100_000);
+    }
+}
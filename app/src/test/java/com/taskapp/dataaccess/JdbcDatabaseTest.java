@@ -0,0 +1,83 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class JdbcDatabaseTest {
+    private JdbcDatabase database;
+
+    @BeforeEach
+    public void setUp() {
+        database = new JdbcDatabase("jdbc:h2:mem:" + UUID.randomUUID(), 2);
+        database.createSchema();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void testCreateSchemaCreatesIndexes() throws SQLException {
+        // 2回目の作成は何も変えない
+        database.createSchema();
+
+        List<String> indexes = new ArrayList<>();
+        try (PooledConnection connection = database.acquire();
+                ResultSet resultSet = connection.getConnection().createStatement().executeQuery(
+                        "SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME LIKE 'IDX_%'")) {
+            while (resultSet.next()) {
+                indexes.add(resultSet.getString(1));
+            }
+        }
+
+        assertThat(indexes).containsExactlyInAnyOrder("IDX_USERS_EMAIL", "IDX_TASKS_REP_USER_CODE",
+                "IDX_TASKS_STATUS", "IDX_LOGS_TASK_CODE", "IDX_LOGS_CHANGE_DATE");
+    }
+
+    @Test
+    public void testStatementsAreCachedPerConnection() throws SQLException {
+        PreparedStatement first;
+        try (PooledConnection connection = database.acquire()) {
+            first = connection.prepare("SELECT code FROM tasks WHERE code = ?");
+            first.setInt(1, 1);
+            assertThat(connection.prepare("SELECT code FROM tasks WHERE code = ?")).isSameAs(first);
+            assertThat(connection.prepare("SELECT code FROM users")).isNotSameAs(first);
+        }
+
+        // プールに返した接続を借り直すと、同じステートメントをパラメータを消して使い回す
+        try (PooledConnection connection = database.acquire()) {
+            PreparedStatement again = connection.prepare("SELECT code FROM tasks WHERE code = ?");
+            assertThat(again).isSameAs(first);
+            assertThat(again.isClosed()).isFalse();
+            assertThatThrownBy(again::executeQuery).isInstanceOf(SQLException.class);
+        }
+    }
+
+    @Test
+    public void testUncommittedChangesAreRolledBackOnRelease() throws SQLException {
+        try (PooledConnection connection = database.acquire()) {
+            connection.getConnection().setAutoCommit(false);
+            connection.getConnection().createStatement()
+                    .execute("INSERT INTO users (code, name, email, password) VALUES (1, 'a', 'a@example.com', 'p')");
+        }
+
+        try (PooledConnection connection = database.acquire();
+                ResultSet resultSet = connection.getConnection().createStatement()
+                        .executeQuery("SELECT COUNT(*) FROM users")) {
+            assertThat(connection.getConnection().getAutoCommit()).isTrue();
+            resultSet.next();
+            assertThat(resultSet.getInt(1)).isZero();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class JdbcTaskChangeWriterTest {
+    private final LocalDate date = LocalDate.of(2024, 2, 1);
+
+    private JdbcDatabase database;
+
+    private JdbcTaskDataAccess taskDataAccess;
+
+    private JdbcLogDataAccess logDataAccess;
+
+    private JdbcTaskChangeWriter writer;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        database = new JdbcDatabase("jdbc:h2:mem:" + UUID.randomUUID());
+        database.createSchema();
+        try (PooledConnection connection = database.acquire();
+                Statement statement = connection.getConnection().createStatement()) {
+            statement.execute("INSERT INTO users (code, name, email, password) "
+                    + "VALUES (1, '鈴木一郎', 'test1@example.com', 'password1')");
+            statement.execute("INSERT INTO tasks (code, name, status, rep_user_code) VALUES (1, 'taskA', 0, 1)");
+        }
+        taskDataAccess = new JdbcTaskDataAccess(database);
+        logDataAccess = new JdbcLogDataAccess(database);
+        writer = new JdbcTaskChangeWriter(database);
+        user = new JdbcUserDataAccess(database).findProfileByCode(1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void testSaveAndUpdate() {
+        writer.save(new Task(2, "taskB", 0, user), new Log(2, 1, 0, date));
+        writer.update(new Task(1, "taskA", 1, user), new Log(1, 1, 1, date));
+
+        assertThat(taskDataAccess.findByCode(2).getName()).isEqualTo("taskB");
+        assertThat(taskDataAccess.findByCode(1).getStatus()).isEqualTo(1);
+        assertThat(logDataAccess.findAll()).extracting(Log::getTaskCode).containsExactly(2, 1);
+    }
+
+    @Test
+    public void testFailedLogRollsBackTask() {
+        // タスクの更新は成功し、ログの追加が失敗する（TINYINTに収まらないステータス）
+        assertThatThrownBy(() -> writer.update(new Task(1, "taskA", 1, user), new Log(1, 1, 1000, date)))
+                .isInstanceOf(UncheckedIOException.class).hasRootCauseInstanceOf(SQLException.class);
+
+        // どちらのテーブルも変わらない
+        assertThat(taskDataAccess.findByCode(1).getStatus()).isZero();
+        assertThat(logDataAccess.findAll()).isEmpty();
+    }
+
+    @Test
+    public void testFailedSaveRollsBackBothTables() {
+        // 同じタスクコードの登録は主キーの制約で失敗する
+        assertThatThrownBy(() -> writer.save(new Task(1, "taskZ", 0, user), new Log(1, 1, 0, date)))
+                .isInstanceOf(UncheckedIOException.class);
+
+        assertThat(taskDataAccess.findByCode(1).getName()).isEqualTo("taskA");
+        assertThat(logDataAccess.findAll()).isEmpty();
+
+        // 失敗した後も、プールに返した接続で書き込める
+        writer.update(new Task(1, "taskA", 2, user), new Log(1, 1, 2, date));
+        assertThat(taskDataAccess.findByCode(1).getStatus()).isEqualTo(2);
+        assertThat(logDataAccess.findAll()).hasSize(1);
+    }
+
+    @Test
+    public void testWriteAllInOneTransaction() {
+        writer.writeAll(List.of(new Task(1, "taskA", 1, user), new Task(2, "taskB", 0, user)),
+                List.of(new Log(1, 1, 1, date), new Log(2, 1, 0, date)));
+
+        assertThat(taskDataAccess.findAll()).extracting(Task::getStatus).containsExactly(1, 0);
+        assertThat(logDataAccess.findAll()).extracting(Log::getTaskCode).containsExactly(1, 2);
+
+        // 2件目のログが書けなければ、どのタスクもログも変わらない
+        assertThatThrownBy(() -> writer.writeAll(List.of(new Task(1, "taskA", 2, user)),
+                List.of(new Log(1, 1, 2, date), new Log(1, 1, 1000, date))))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThat(taskDataAccess.findByCode(1).getStatus()).isEqualTo(1);
+        assertThat(logDataAccess.findAll()).hasSize(2);
+    }
+}
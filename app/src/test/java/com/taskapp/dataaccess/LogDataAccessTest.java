@@ -4,6 +4,8 @@ import static org.assertj.core.api.Assertions.*;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -11,11 +13,13 @@ import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.taskapp.model.Log;
 
@@ -86,6 +90,58 @@ public class LogDataAccessTest {
         assertThat(logs).doesNotContain(log2);
     }
 
+    @Test
+    public void testRotation(@TempDir Path dir) throws IOException {
+        Path activeFile = dir.resolve("logs.csv");
+        Files.copy(Paths.get(TEST_FILE_PATH), activeFile);
+        LogDataAccess rotating = new LogDataAccess(activeFile.toString(), 1, false);
+
+        Log newLog = new Log(9, 1, 1, LocalDate.of(2024, 2, 1));
+        rotating.save(newLog);
+
+        List<LogSegment> segments = rotating.findSegments();
+        assertThat(segments).hasSize(1);
+        assertThat(segments.get(0).getMinTaskCode()).isEqualTo(1);
+        assertThat(segments.get(0).getMaxTaskCode()).isEqualTo(4);
+        assertThat(Files.exists(dir.resolve(segments.get(0).getFileName()))).isTrue();
+
+        // アクティブセグメントには新しいログだけが残る
+        assertThat(readLogsFromFile(activeFile.toString())).containsExactly(newLog);
+        assertThat(rotating.findAll()).hasSize(8);
+        assertThat(rotating.findByTaskCode(9)).containsExactly(newLog);
+        assertThat(rotating.findSince(LocalDate.of(2024, 1, 12))).hasSize(3);
+    }
+
+    @Test
+    public void testRecoverRotationInterruptedBeforeTruncate(@TempDir Path dir) throws IOException {
+        Path activeFile = dir.resolve("logs.csv");
+        Files.copy(Paths.get(TEST_FILE_PATH), activeFile);
+        LogDataAccess rotating = new LogDataAccess(activeFile.toString(), 1, false);
+        rotating.save(new Log(9, 1, 1, LocalDate.of(2024, 2, 1)));
+
+        // マニフェストにセグメントを登録した後、アクティブセグメントを空にする前に中断された状態を作る
+        String segmentName = rotating.findSegments().get(0).getFileName();
+        try (OutputStream out = Files.newOutputStream(activeFile)) {
+            try (InputStream in = new GZIPInputStream(
+                    Files.newInputStream(dir.resolve(segmentName)))) {
+                in.transferTo(out);
+            }
+        }
+        assertThat(rotating.findAll()).hasSize(14);
+
+        LogDataAccess restarted = new LogDataAccess(activeFile.toString(), 1, false);
+        restarted.recover();
+
+        // セグメントに退避済みのログは重複して読まれない
+        assertThat(restarted.findAll()).hasSize(7);
+        assertThat(readLogsFromFile(activeFile.toString())).isEmpty();
+
+        // アクティブセグメントが最後のセグメントと異なる場合は何もしない
+        restarted.save(new Log(9, 1, 1, LocalDate.of(2024, 2, 1)));
+        restarted.recover();
+        assertThat(restarted.findAll()).hasSize(8);
+    }
+
     private List<Log> readLogsFromFile(String filePath) {
         List<Log> logs = new ArrayList<>();
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
@@ -0,0 +1,85 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.taskapp.model.Log;
+
+/**
+ * {@link LogRepository}の実装が、保存先によらず同じように振る舞うことを確かめます。
+ * メモリ上の実装は起動時のログを読み込まないため、保存したログだけで確かめます。
+ */
+public class LogRepositoryContractTest {
+    @TempDir
+    Path dir;
+
+    private DataAccessFactory factory;
+
+    static Stream<Arguments> repositories() {
+        return Stream.of(
+                Arguments.of(DataAccessFactory.Engine.CSV, DataAccessFactory.LogFormat.CSV),
+                Arguments.of(DataAccessFactory.Engine.CSV, DataAccessFactory.LogFormat.BINARY),
+                Arguments.of(DataAccessFactory.Engine.MEMORY, DataAccessFactory.LogFormat.CSV),
+                Arguments.of(DataAccessFactory.Engine.JDBC, DataAccessFactory.LogFormat.CSV));
+    }
+
+    private LogRepository open(DataAccessFactory.Engine engine, DataAccessFactory.LogFormat logFormat)
+            throws IOException, SQLException {
+        factory = CsvTestFixture.copyTo(dir).openFactory(engine, logFormat);
+        return factory.getLogRepository();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (factory != null) {
+            factory.close();
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    public void testSaveAndFindByTaskCode(DataAccessFactory.Engine engine, DataAccessFactory.LogFormat logFormat)
+            throws IOException, SQLException {
+        LogRepository logRepository = open(engine, logFormat);
+        int before = logRepository.findAll().size();
+
+        logRepository.save(new Log(9, 1, 1, LocalDate.of(2030, 1, 1)));
+        logRepository.saveAll(List.of(new Log(8, 2, 1, LocalDate.of(2030, 1, 2)),
+                new Log(9, 2, 2, LocalDate.of(2030, 1, 3))));
+
+        List<Log> logs = logRepository.findByTaskCode(9);
+        assertThat(logs).extracting(Log::getStatus).containsExactly(1, 2);
+        assertThat(logs).extracting(Log::getChangeUserCode).containsExactly(1, 2);
+        assertThat(logs).extracting(Log::getChangeDate).containsExactly(LocalDate.of(2030, 1, 1),
+                LocalDate.of(2030, 1, 3));
+        assertThat(logRepository.findAll()).hasSize(before + 3);
+        assertThat(logRepository.findByTaskCode(99)).isEmpty();
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    public void testFindSince(DataAccessFactory.Engine engine, DataAccessFactory.LogFormat logFormat)
+            throws IOException, SQLException {
+        LogRepository logRepository = open(engine, logFormat);
+
+        logRepository.saveAll(List.of(new Log(1, 1, 1, LocalDate.of(2030, 1, 1)),
+                new Log(2, 1, 1, LocalDate.of(2030, 1, 2)), new Log(3, 1, 2, LocalDate.of(2030, 1, 3))));
+
+        // 指定した日付のログも含め、記録順に返す
+        assertThat(logRepository.findSince(LocalDate.of(2030, 1, 2))).extracting(Log::getTaskCode)
+                .containsExactly(2, 3);
+        assertThat(logRepository.findSince(LocalDate.of(2031, 1, 1))).isEmpty();
+    }
+}
@@ -0,0 +1,57 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.model.Task;
+
+public class OffHeapTaskStoreTest {
+    @TempDir
+    Path dir;
+
+    private final UserDataAccess userDataAccess = new UserDataAccess("src/test/resources/test_users.csv");
+
+    @Test
+    public void testSaveAndUpdate() {
+        try (OffHeapTaskStore store = OffHeapTaskStore.allocate(userDataAccess, 2)) {
+            // 初期容量を超えて保存すると領域と索引が広がる
+            for (int i = 1; i <= 100; i++) {
+                store.save(new Task(i, "タスク" + i, 0, userDataAccess.findByCode(1)));
+            }
+            store.update(new Task(50, "名前を変更", 2, userDataAccess.findByCode(2)));
+
+            assertThat(store.size()).isEqualTo(100);
+            Task task = store.findByCode(50);
+            assertThat(task.getName()).isEqualTo("名前を変更");
+            assertThat(task.getStatus()).isEqualTo(2);
+            assertThat(task.getRepUser().getCode()).isEqualTo(2);
+            assertThat(task.getRepUser().getPassword()).isNull();
+            assertThat(store.findByCode(101)).isNull();
+            assertThat(store.findAllAsTable().countByStatus()).containsExactly(99, 0, 1);
+        }
+    }
+
+    @Test
+    public void testReopenMappedFile() throws IOException {
+        Path file = dir.resolve("tasks.offheap");
+        TaskDataAccess taskDataAccess = new TaskDataAccess("src/test/resources/test_tasks.csv", userDataAccess);
+
+        try (OffHeapTaskStore store = OffHeapTaskStore.map(userDataAccess, file, 1)) {
+            store.importFrom(taskDataAccess.findAllAsTable());
+            Task task = store.findByCode(2);
+            task.setStatus(1);
+            store.update(task);
+        }
+
+        try (OffHeapTaskStore store = OffHeapTaskStore.map(userDataAccess, file, 1)) {
+            assertThat(store.findAll()).containsExactlyElementsOf(taskDataAccess.findAll());
+            assertThat(store.findByCode(2).getStatus()).isEqualTo(1);
+            assertThat(store.findByCode(4).getName()).isEqualTo("taskD");
+        }
+    }
+}
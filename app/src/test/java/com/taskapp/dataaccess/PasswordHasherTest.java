@@ -0,0 +1,77 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.model.User;
+
+public class PasswordHasherTest {
+    @TempDir
+    Path dir;
+
+    // テストを速くするため反復回数を減らす
+    private final PasswordHasher hasher = new PasswordHasher(1000);
+
+    @Test
+    public void testHashAndMatches() {
+        String hash = hasher.hash("password1");
+
+        assertThat(hash).startsWith("pbkdf2$1000$");
+        // 同じパスワードでもソルトが異なるため別のハッシュになる
+        assertThat(hasher.hash("password1")).isNotEqualTo(hash);
+        assertThat(hasher.matches("password1", hash)).isTrue();
+        assertThat(hasher.matches("password2", hash)).isFalse();
+        // 移行前の平文もそのまま照合できる
+        assertThat(hasher.matches("password1", "password1")).isTrue();
+        assertThat(hasher.needsRehash("password1")).isTrue();
+        assertThat(hasher.needsRehash(hash)).isFalse();
+        assertThat(new PasswordHasher(2000).needsRehash(hash)).isTrue();
+    }
+
+    @Test
+    public void testMalformedHashDoesNotMatch() {
+        // 壊れたハッシュ文字列は例外にせず、一致しないものとして扱う
+        assertThat(hasher.matches("password1", "pbkdf2$abc$c2FsdA==$aGFzaA==")).isFalse();
+        assertThat(hasher.matches("password1", "pbkdf2$1000$!!$aGFzaA==")).isFalse();
+        assertThat(hasher.matches("password1", "pbkdf2$0$c2FsdA==$aGFzaA==")).isFalse();
+        assertThat(hasher.matches("password1", "pbkdf2$1000$$aGFzaA==")).isFalse();
+        assertThat(hasher.needsRehash("pbkdf2$abc$c2FsdA==$aGFzaA==")).isTrue();
+    }
+
+    @Test
+    public void testVerifierChecksWrongPasswordWithHasher() {
+        PasswordHasher counting = spy(hasher);
+        PasswordVerifier verifier = new PasswordVerifier(counting, Duration.ofMinutes(5));
+        String hash = hasher.hash("password1");
+
+        assertThat(verifier.verify("a@example.com", "password1", hash)).isTrue();
+        assertThat(verifier.verify("a@example.com", "password1", hash)).isTrue();
+        // キャッシュと異なるパスワードは、キャッシュで弾かずにPBKDF2で照合する
+        assertThat(verifier.verify("a@example.com", "password2", hash)).isFalse();
+
+        verify(counting, times(1)).matches("password1", hash);
+        verify(counting, times(1)).matches("password2", hash);
+    }
+
+    @Test
+    public void testRehashPasswords() throws IOException {
+        UserDataAccess userDataAccess = CsvTestFixture.copyTo(dir).getUserDataAccess();
+
+        assertThat(userDataAccess.rehashPasswords(hasher)).isEqualTo(2);
+        assertThat(userDataAccess.rehashPasswords(hasher)).isZero();
+
+        User user = userDataAccess.findByEmailAndPassword("test1@example.com", "password1");
+        assertThat(user).isNotNull();
+        assertThat(hasher.isHashed(user.getPassword())).isTrue();
+        assertThat(userDataAccess.findByEmailAndPassword("test1@example.com", "password2")).isNull();
+        // 担当者の表示用のユーザーはパスワードを持たない
+        assertThat(userDataAccess.findProfileByCode(1).getPassword()).isNull();
+    }
+}
@@ -0,0 +1,129 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+
+public class SnapshotDataAccessTest {
+    @TempDir
+    Path dir;
+
+    private CsvTestFixture fixture;
+    private UserDataAccess userDataAccess;
+    private TaskDataAccess taskDataAccess;
+    private LogDataAccess logDataAccess;
+    private SnapshotDataAccess snapshotDataAccess;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        fixture = CsvTestFixture.copyTo(dir);
+        userDataAccess = fixture.getUserDataAccess();
+        taskDataAccess = fixture.getTaskDataAccess();
+        logDataAccess = fixture.getLogDataAccess();
+        snapshotDataAccess = new SnapshotDataAccess(dir.resolve("snapshot.bin").toString());
+    }
+
+    @Test
+    public void testRestoreWithoutSnapshot() {
+        assertThat(snapshotDataAccess.restore(taskDataAccess, userDataAccess, logDataAccess)).isFalse();
+
+        assertThat(taskDataAccess.isLoaded()).isTrue();
+        assertThat(userDataAccess.isLoaded()).isTrue();
+        assertThat(taskDataAccess.findAll()).hasSize(4);
+    }
+
+    @Test
+    public void testRestoreReplaysLogs() {
+        snapshotDataAccess.restore(taskDataAccess, userDataAccess, logDataAccess);
+        snapshotDataAccess.save(taskDataAccess, userDataAccess);
+
+        // スナップショット作成後、tasks.csvに書き込む前に終了したステータス変更
+        logDataAccess.save(new Log(2, 1, 1, LocalDate.now()));
+
+        UserDataAccess restoredUsers = fixture.newUserDataAccess();
+        TaskDataAccess restoredTasks = fixture.newTaskDataAccess(restoredUsers);
+
+        assertThat(snapshotDataAccess.restore(restoredTasks, restoredUsers, logDataAccess)).isTrue();
+        assertThat(restoredTasks.findByCode(2).getStatus()).isEqualTo(1);
+        assertThat(restoredTasks.findByCode(2).getRepUser()).isEqualTo(restoredUsers.findByCode(2));
+    }
+
+    @Test
+    public void testRestoreReplaysLogsAfterStatusOnlyRewrite() {
+        snapshotDataAccess.restore(taskDataAccess, userDataAccess, logDataAccess);
+        snapshotDataAccess.save(taskDataAccess, userDataAccess);
+
+        // ステータスだけの変更では、tasks.csvが変わってもスナップショットとログから復元する
+        Task task = taskDataAccess.findByCode(2);
+        task.setStatus(1);
+        taskDataAccess.update(task);
+        logDataAccess.save(new Log(2, 1, 1, LocalDate.now()));
+
+        UserDataAccess restoredUsers = fixture.newUserDataAccess();
+        TaskDataAccess restoredTasks = fixture.newTaskDataAccess(restoredUsers);
+
+        assertThat(snapshotDataAccess.restore(restoredTasks, restoredUsers, logDataAccess)).isTrue();
+        assertThat(restoredTasks.findByCode(2).getStatus()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRestoreReadsTasksCsvAfterAddingTask() {
+        snapshotDataAccess.restore(taskDataAccess, userDataAccess, logDataAccess);
+        snapshotDataAccess.save(taskDataAccess, userDataAccess);
+
+        taskDataAccess.save(new Task(5, "taskE", 0, userDataAccess.findProfileByCode(1)));
+
+        UserDataAccess restoredUsers = fixture.newUserDataAccess();
+        TaskDataAccess restoredTasks = fixture.newTaskDataAccess(restoredUsers);
+
+        assertThat(snapshotDataAccess.restore(restoredTasks, restoredUsers, logDataAccess)).isFalse();
+        assertThat(restoredTasks.findByCode(5).getName()).isEqualTo("taskE");
+    }
+
+    @Test
+    public void testRestoreReadsTasksCsvEditedByHand() throws IOException {
+        snapshotDataAccess.restore(taskDataAccess, userDataAccess, logDataAccess);
+        snapshotDataAccess.save(taskDataAccess, userDataAccess);
+
+        // アプリ以外でタスク名を変えた後に、アプリがステータスを変更する
+        Path tasksCsv = dir.resolve("tasks.csv");
+        Files.writeString(tasksCsv,
+                Files.readString(tasksCsv).replace("taskA", "edited"));
+        Task task = taskDataAccess.findByCode(2);
+        task.setStatus(1);
+        taskDataAccess.update(task);
+
+        UserDataAccess restoredUsers = fixture.newUserDataAccess();
+        TaskDataAccess restoredTasks = fixture.newTaskDataAccess(restoredUsers);
+
+        assertThat(snapshotDataAccess.restore(restoredTasks, restoredUsers, logDataAccess)).isFalse();
+        assertThat(restoredTasks.findByCode(1).getName()).isEqualTo("edited");
+    }
+
+    @Test
+    public void testRestoreReadsChangedTasksCsv() {
+        snapshotDataAccess.restore(taskDataAccess, userDataAccess, logDataAccess);
+        snapshotDataAccess.save(taskDataAccess, userDataAccess);
+
+        // ログに残らない変更（タスク名の変更）
+        Task task = taskDataAccess.findByCode(2);
+        taskDataAccess.update(new Task(task.getCode(), "renamed", task.getStatus(), task.getRepUser()));
+
+        UserDataAccess restoredUsers = fixture.newUserDataAccess();
+        TaskDataAccess restoredTasks = fixture.newTaskDataAccess(restoredUsers);
+
+        assertThat(snapshotDataAccess.restore(restoredTasks, restoredUsers, logDataAccess)).isFalse();
+        assertThat(restoredTasks.isLoaded()).isTrue();
+        assertThat(restoredTasks.findByCode(2).getName()).isEqualTo("renamed");
+    }
+}
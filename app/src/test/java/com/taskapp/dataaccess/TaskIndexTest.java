@@ -0,0 +1,126 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class TaskIndexTest {
+    @TempDir
+    Path dir;
+
+    private CsvTestFixture fixture;
+    private UserDataAccess userDataAccess;
+    private TaskDataAccess taskDataAccess;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        fixture = CsvTestFixture.copyTo(dir);
+        userDataAccess = fixture.getUserDataAccess();
+        taskDataAccess = fixture.getTaskDataAccess();
+    }
+
+    @Test
+    public void testPutAndMove() {
+        TaskIndex index = new TaskIndex();
+        for (int code = 1; code <= 100; code++) {
+            index.put(code, code % 3, code * 10L);
+        }
+
+        assertThat(index.size()).isEqualTo(100);
+        assertThat(index.countOf(1)).isEqualTo(34);
+        assertThat(index.codesOf(0)).startsWith(3, 6, 9);
+
+        // 担当者を変えると前の担当者の一覧から外れる
+        index.put(3, 1, 999);
+        assertThat(index.codesOf(0)).doesNotContain(3);
+        assertThat(index.codesOf(1)).endsWith(3);
+        assertThat(index.repUserOf(3)).isEqualTo(1);
+        assertThat(index.offsetOf(3)).isEqualTo(999);
+        assertThat(index.codesOf(42)).isEmpty();
+        assertThat(index.offsetOf(1000)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testWriteAndAppend() throws IOException {
+        File csvFile = dir.resolve("tasks.csv").toFile();
+        File indexFile = dir.resolve("tasks.csv.idx").toFile();
+        TaskIndex index = new TaskIndex();
+        index.put(1, 1, 40);
+        index.write(indexFile, csvFile);
+
+        index.put(2, 2, 60);
+        index.put(1, 2, 40);
+        index.append(indexFile, csvFile, 2);
+        index.append(indexFile, csvFile, 1);
+
+        TaskIndex read = TaskIndex.read(indexFile, csvFile);
+        assertThat(read.codesOf(2)).containsExactly(2, 1);
+        assertThat(read.codesOf(1)).isEmpty();
+
+        // CSVが外部で編集された後は利用しない
+        Files.writeString(csvFile.toPath(), "\n9,外部で追加,0,1", StandardOpenOption.APPEND);
+        assertThat(TaskIndex.read(indexFile, csvFile)).isNull();
+    }
+
+    @Test
+    public void testFindByRepUserCode() {
+        List<Task> tasks = taskDataAccess.findByRepUserCode(2);
+
+        assertThat(tasks).extracting(Task::getCode).containsExactly(2, 3, 4);
+        assertThat(tasks.get(0).getRepUser().getName()).isEqualTo("鈴木二郎");
+        assertThat(taskDataAccess.findByRepUserCode(1)).extracting(Task::getCode).containsExactly(1);
+        assertThat(dir.resolve("tasks.csv.idx")).exists();
+    }
+
+    @Test
+    public void testIndexFollowsSaveAndUpdate() {
+        taskDataAccess.findByRepUserCode(1);
+        User repUser = userDataAccess.findByCode(2);
+
+        taskDataAccess.save(new Task(10, "日本語のタスク", 0, repUser));
+        Task task = taskDataAccess.findByCode(1);
+        task.setStatus(2);
+        taskDataAccess.update(task);
+
+        assertThat(taskDataAccess.findByRepUserCode(2)).extracting(Task::getCode).endsWith(10);
+        assertThat(taskDataAccess.findByRepUserCode(1)).extracting(Task::getStatus).startsWith(2);
+
+        // 別のインスタンスでも、保存された索引から同じ結果を読める
+        TaskDataAccess reopened = fixture.newTaskDataAccess(userDataAccess);
+        assertThat(reopened.findByRepUserCode(2)).extracting(Task::getName).endsWith("日本語のタスク");
+    }
+
+    @Test
+    public void testRebuildAfterExternalEdit() throws IOException {
+        taskDataAccess.findByRepUserCode(1);
+        Files.writeString(dir.resolve("tasks.csv"), "\n9,外部で追加,0,1", StandardOpenOption.APPEND);
+
+        TaskDataAccess reopened = fixture.newTaskDataAccess(userDataAccess);
+        assertThat(reopened.findByRepUserCode(1)).extracting(Task::getCode).endsWith(9);
+    }
+
+    @Test
+    public void testSkipRowsWithInvalidNumbers() throws IOException {
+        Files.writeString(dir.resolve("tasks.csv"), "\nx,コード不正,0,1\n6,担当者不正,0,y\n7,taskG,0,1",
+                StandardOpenOption.APPEND);
+
+        // 数値の列に間違いがある行だけを読み飛ばし、残りの行は読み込む
+        assertThat(taskDataAccess.findAll()).extracting(Task::getCode).containsExactly(1, 2, 3, 4, 7);
+        assertThat(taskDataAccess.findAllAsTable().size()).isEqualTo(5);
+        assertThat(taskDataAccess.findByCode(6)).isNull();
+        assertThat(taskDataAccess.findByCode(7).getName()).isEqualTo("taskG");
+        assertThat(taskDataAccess.findByRepUserCode(1)).extracting(Task::getCode).containsExactly(1, 7);
+    }
+}
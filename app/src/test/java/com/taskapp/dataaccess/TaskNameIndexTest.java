@@ -0,0 +1,96 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.model.Task;
+
+public class TaskNameIndexTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testSearch() {
+        TaskNameIndex index = new TaskNameIndex();
+        index.put(1, "議事録の作成");
+        index.put(2, "東京都庁へ訪問");
+        index.put(3, "京都と東京の出張");
+        index.put(4, "ＡＰＩの設計");
+        index.put(5, "api仕様書");
+
+        assertThat(index.search("議事録", 10)).containsExactly(1);
+        assertThat(index.search("東京", 10)).containsExactly(2, 3);
+        // 「東京」「京都」を含んでいても連続していないタスクは該当しない
+        assertThat(index.search("東京都", 10)).containsExactly(2);
+        assertThat(index.search("京", 10)).containsExactly(2, 3);
+        assertThat(index.search("張", 10)).containsExactly(3);
+        // 全角・半角、大文字・小文字は区別しない
+        assertThat(index.search("API", 10)).containsExactly(4, 5);
+        assertThat(index.search("の", 1)).containsExactly(1);
+        assertThat(index.search("報告", 10)).isEmpty();
+        assertThat(index.search("", 10)).isEmpty();
+    }
+
+    @Test
+    public void testRename() {
+        TaskNameIndex index = new TaskNameIndex();
+        assertThat(index.put(1, "報告書")).isTrue();
+        assertThat(index.put(1, "報告書")).isFalse();
+        assertThat(index.put(1, "見積書")).isTrue();
+
+        assertThat(index.search("報告", 10)).isEmpty();
+        assertThat(index.search("見積", 10)).containsExactly(1);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        File csvFile = dir.resolve("tasks.csv").toFile();
+        Files.writeString(csvFile.toPath(), "header\n");
+        File indexFile = dir.resolve("tasks.csv.names").toFile();
+        TaskNameIndex index = new TaskNameIndex();
+        index.put(1, "議事録の作成");
+        index.write(indexFile, csvFile);
+
+        index.put(2, "会議室の予約");
+        index.put(1, "議事録の確認");
+        Files.writeString(csvFile.toPath(), "header\nrows\n");
+        index.append(indexFile, csvFile, 2, 1);
+
+        TaskNameIndex read = TaskNameIndex.read(indexFile, csvFile);
+        assertThat(read.search("の", 10)).containsExactly(1, 2);
+        assertThat(read.search("作成", 10)).isEmpty();
+        assertThat(read.search("確認", 10)).containsExactly(1);
+
+        // CSVが外部で編集されていれば読み込まない
+        Files.writeString(csvFile.toPath(), "header\nrows\nedited\n");
+        assertThat(TaskNameIndex.read(indexFile, csvFile)).isNull();
+    }
+
+    @Test
+    public void testTaskDataAccessSearchByName() throws IOException {
+        CsvTestFixture fixture = CsvTestFixture.copyTo(dir);
+        UserDataAccess userDataAccess = fixture.getUserDataAccess();
+        TaskDataAccess taskDataAccess = fixture.getTaskDataAccess();
+
+        assertThat(taskDataAccess.searchByName("TASK", 10)).extracting(Task::getCode).containsExactly(1, 2, 3, 4);
+        assertThat(taskDataAccess.searchByName("taskC", 10)).extracting(Task::getName).containsExactly("taskC");
+
+        taskDataAccess.save(new Task(5, "議事録の作成", 0, userDataAccess.findProfileByCode(1)));
+        taskDataAccess.update(new Task(2, "議事録の確認", 1, userDataAccess.findProfileByCode(2)));
+
+        assertThat(taskDataAccess.searchByName("議事録", 10)).extracting(Task::getCode).containsExactly(2, 5);
+        // 別のインスタンスは保存された索引を読み込む
+        TaskDataAccess reopened = fixture.newTaskDataAccess(userDataAccess);
+        assertThat(reopened.searchByName("議事録", 10)).extracting(Task::getStatus).containsExactly(1, 0);
+        assertThat(TaskNameIndex.read(dir.resolve("tasks.csv.names").toFile(), dir.resolve("tasks.csv").toFile()))
+                .isNotNull();
+    }
+}
@@ -0,0 +1,114 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * {@link TaskRepository}の実装が、保存先によらず同じように振る舞うことを確かめます。
+ */
+public class TaskRepositoryContractTest {
+    @TempDir
+    Path dir;
+
+    private DataAccessFactory factory;
+
+    private TaskRepository open(DataAccessFactory.Engine engine) throws IOException, SQLException {
+        factory = CsvTestFixture.copyTo(dir).openFactory(engine, DataAccessFactory.LogFormat.CSV);
+        return factory.getTaskRepository();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (factory != null) {
+            factory.close();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(DataAccessFactory.Engine.class)
+    public void testFindAll(DataAccessFactory.Engine engine) throws IOException, SQLException {
+        TaskRepository taskRepository = open(engine);
+
+        List<Task> tasks = taskRepository.findAll();
+
+        assertThat(tasks).extracting(Task::getCode).containsExactly(1, 2, 3, 4);
+        assertThat(tasks).extracting(Task::getStatus).containsExactly(0, 0, 2, 1);
+        assertThat(tasks.get(1).getRepUser().getName()).isEqualTo("鈴木二郎");
+        assertThat(taskRepository.findAllAsTable().countByStatus()).containsExactly(2, 1, 1);
+    }
+
+    @ParameterizedTest
+    @EnumSource(DataAccessFactory.Engine.class)
+    public void testFindByCode(DataAccessFactory.Engine engine) throws IOException, SQLException {
+        TaskRepository taskRepository = open(engine);
+
+        Task task = taskRepository.findByCode(3);
+
+        assertThat(task.getName()).isEqualTo("taskC");
+        assertThat(task.getStatus()).isEqualTo(2);
+        assertThat(task.getRepUser().getCode()).isEqualTo(2);
+        // 担当者はパスワードを持たない
+        assertThat(task.getRepUser().getPassword()).isNull();
+        assertThat(taskRepository.findByCode(99)).isNull();
+    }
+
+    @ParameterizedTest
+    @EnumSource(DataAccessFactory.Engine.class)
+    public void testSaveAndUpdate(DataAccessFactory.Engine engine) throws IOException, SQLException {
+        TaskRepository taskRepository = open(engine);
+        User repUser = factory.getUserRepository().findProfileByCode(1);
+
+        taskRepository.save(new Task(5, "taskE", 0, repUser));
+        taskRepository.update(new Task(2, "taskB", 1, repUser));
+
+        assertThat(taskRepository.findByCode(5).getName()).isEqualTo("taskE");
+        assertThat(taskRepository.findByCode(2).getStatus()).isEqualTo(1);
+        assertThat(taskRepository.findByCode(2).getRepUser().getCode()).isEqualTo(1);
+        assertThat(taskRepository.findAll()).extracting(Task::getCode).containsExactly(1, 2, 3, 4, 5);
+    }
+
+    @ParameterizedTest
+    @EnumSource(DataAccessFactory.Engine.class)
+    public void testUpdateAllAddsMissingTasks(DataAccessFactory.Engine engine) throws IOException, SQLException {
+        TaskRepository taskRepository = open(engine);
+        User repUser = factory.getUserRepository().findProfileByCode(2);
+
+        taskRepository.updateAll(List.of(new Task(1, "taskA", 2, repUser), new Task(6, "taskF", 0, repUser)));
+
+        assertThat(taskRepository.findByCode(1).getStatus()).isEqualTo(2);
+        assertThat(taskRepository.findByCode(6).getName()).isEqualTo("taskF");
+        assertThat(taskRepository.findAll()).hasSize(5);
+    }
+
+    @ParameterizedTest
+    @EnumSource(DataAccessFactory.Engine.class)
+    public void testFindByRepUserCode(DataAccessFactory.Engine engine) throws IOException, SQLException {
+        TaskRepository taskRepository = open(engine);
+
+        assertThat(taskRepository.findByRepUserCode(2)).extracting(Task::getCode).containsExactly(2, 3, 4);
+        assertThat(taskRepository.findByRepUserCode(1)).extracting(Task::getCode).containsExactly(1);
+        assertThat(taskRepository.findByRepUserCode(99)).isEmpty();
+    }
+
+    @ParameterizedTest
+    @EnumSource(DataAccessFactory.Engine.class)
+    public void testSearchByName(DataAccessFactory.Engine engine) throws IOException, SQLException {
+        TaskRepository taskRepository = open(engine);
+
+        assertThat(taskRepository.searchByName("TASKC", 10)).extracting(Task::getCode).containsExactly(3);
+        assertThat(taskRepository.searchByName("task", 2)).extracting(Task::getCode).containsExactly(1, 2);
+        assertThat(taskRepository.searchByName("報告", 10)).isEmpty();
+    }
+}
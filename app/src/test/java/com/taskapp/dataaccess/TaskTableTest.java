@@ -0,0 +1,48 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class TaskTableTest {
+
+    @Test
+    public void testAddAndGrow() {
+        TaskTable table = new TaskTable(2);
+        for (int i = 1; i <= 10; i++) {
+            table.add(i, i % 2 == 0 ? "even" : "odd", i % 3, i % 4);
+        }
+
+        assertThat(table.size()).isEqualTo(10);
+        assertThat(table.getCode(9)).isEqualTo(10);
+        assertThat(table.getName(9)).isEqualTo("even");
+        assertThat(table.getStatus(9)).isEqualTo(1);
+        assertThat(table.getRepUserCode(9)).isEqualTo(2);
+        // 同じタスク名はプールで共有する
+        assertThat(table.distinctNameCount()).isEqualTo(2);
+        assertThat(table.indexOf(7)).isEqualTo(6);
+        assertThat(table.indexOf(11)).isEqualTo(-1);
+        assertThatThrownBy(() -> table.getCode(10)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void testFindAllAsTable() {
+        UserDataAccess userDataAccess = new UserDataAccess("src/test/resources/test_users.csv");
+        TaskDataAccess taskDataAccess = new TaskDataAccess("src/test/resources/test_tasks.csv", userDataAccess);
+
+        TaskTable table = taskDataAccess.findAllAsTable();
+
+        assertThat(table.size()).isEqualTo(taskDataAccess.findAll().size());
+        assertThat(table.countByStatus()).containsExactly(2, 1, 1);
+
+        List<Integer> codes = new ArrayList<>();
+        int count = table.forEach((code, status, repUserCode) -> repUserCode == 2,
+                (index, code, name, status, repUserCode) -> codes.add(code));
+        assertThat(count).isEqualTo(3);
+        assertThat(codes).containsExactly(2, 3, 4);
+        assertThat(table.count((code, status, repUserCode) -> status == 0)).isEqualTo(2);
+    }
+}
@@ -0,0 +1,138 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.model.Task;
+
+public class TenantStorePoolTest {
+    @TempDir
+    Path root;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        for (String tenant : new String[] { "teamA", "teamB", "teamC" }) {
+            CsvTestFixture.copyTo(Files.createDirectory(root.resolve(tenant)));
+        }
+    }
+
+    private TenantStorePool newPool(int maxOpen, Duration idleTimeout) {
+        return new TenantStorePool(DataAccessFactory.Engine.CSV, root, maxOpen, idleTimeout);
+    }
+
+    @Test
+    public void testReuseOpenedTenant() {
+        try (TenantStorePool pool = newPool(2, Duration.ZERO)) {
+            try (TenantStorePool.Lease lease = pool.acquire("teamA")) {
+                assertThat(lease.getTaskRepository().findByCode(1).getName()).isEqualTo("taskA");
+            }
+            try (TenantStorePool.Lease lease = pool.acquire("teamA")) {
+                assertThat(lease.getUserRepository().findByCode(1)).isNotNull();
+            }
+
+            assertThat(pool.openedCount()).isEqualTo(1);
+            assertThat(pool.size()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testTenantsAreIsolated() {
+        try (TenantStorePool pool = newPool(2, Duration.ZERO);
+                TenantStorePool.Lease teamA = pool.acquire("teamA");
+                TenantStorePool.Lease teamB = pool.acquire("teamB")) {
+            teamA.getTaskRepository().save(new Task(5, "taskE", 0, teamA.getUserRepository().findByCode(1)));
+
+            assertThat(teamA.getTaskRepository().findByCode(5)).isNotNull();
+            assertThat(teamB.getTaskRepository().findByCode(5)).isNull();
+        }
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() {
+        try (TenantStorePool pool = newPool(2, Duration.ZERO)) {
+            pool.acquire("teamA").close();
+            pool.acquire("teamB").close();
+            pool.acquire("teamA").close();
+            // teamBが最も長く使われていないため外される
+            pool.acquire("teamC").close();
+
+            assertThat(pool.size()).isEqualTo(2);
+            assertThat(pool.evictedCount()).isEqualTo(1);
+            pool.acquire("teamA").close();
+            assertThat(pool.openedCount()).isEqualTo(3);
+            pool.acquire("teamB").close();
+            assertThat(pool.openedCount()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    public void testLeasedTenantIsNotEvicted() {
+        try (TenantStorePool pool = newPool(1, Duration.ZERO)) {
+            TenantStorePool.Lease teamA = pool.acquire("teamA");
+            TenantStorePool.Lease teamB = pool.acquire("teamB");
+
+            // 借りられている間は上限を超えても外さない
+            assertThat(pool.size()).isEqualTo(2);
+            assertThat(pool.evictedCount()).isZero();
+
+            // 返されたときに、借りられていないテナントを上限まで外す
+            teamB.close();
+            assertThat(pool.size()).isEqualTo(1);
+            assertThat(pool.evictedCount()).isEqualTo(1);
+            assertThat(teamA.getTaskRepository().findByCode(1).getName()).isEqualTo("taskA");
+            teamA.close();
+            pool.acquire("teamA").close();
+            assertThat(pool.openedCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void testLeasedTenantIsClosedOnRelease() {
+        TenantStorePool.Lease teamA;
+        try (TenantStorePool pool = newPool(1, Duration.ZERO)) {
+            teamA = pool.acquire("teamA");
+            pool.acquire("teamB").close();
+            pool.close();
+
+            // プールを閉じても、返すまでは使える。プールを閉じたことは外した回数に数えない
+            assertThat(teamA.getTaskRepository().findByCode(1).getName()).isEqualTo("taskA");
+            assertThat(pool.evictedCount()).isEqualTo(1);
+        }
+        teamA.close();
+        teamA.close();
+        assertThatThrownBy(teamA::getTaskRepository).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testEvictIdle() throws InterruptedException {
+        try (TenantStorePool pool = newPool(2, Duration.ofMillis(50))) {
+            TenantStorePool.Lease teamA = pool.acquire("teamA");
+            pool.acquire("teamB").close();
+            Thread.sleep(100);
+
+            pool.evictIdle();
+
+            // 借りられているテナントは時間が経っても閉じない
+            assertThat(pool.size()).isEqualTo(1);
+            assertThat(teamA.getTaskRepository().findByCode(1)).isNotNull();
+            teamA.close();
+        }
+    }
+
+    @Test
+    public void testInvalidTenant() {
+        try (TenantStorePool pool = newPool(2, Duration.ZERO)) {
+            assertThatThrownBy(() -> pool.acquire("../teamA")).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> pool.acquire("teamZ")).isInstanceOf(IllegalArgumentException.class);
+            assertThat(pool.size()).isZero();
+        }
+    }
+}
@@ -2,9 +2,15 @@ package com.taskapp.dataaccess;
 
 import static org.assertj.core.api.Assertions.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.taskapp.model.User;
 
@@ -35,4 +41,28 @@ public class UserDataAccessTest {
 
         assertThat(actualUser).isEqualToComparingFieldByField(expectedUser);
     }
+
+    @Test
+    public void testSkipRowsWithInvalidCode(@TempDir Path dir) throws IOException {
+        Path csv = dir.resolve("users.csv");
+        Files.writeString(csv, "Code,Name,Email,Password\nx,不正,bad@example.com,password1\n"
+                + "2,鈴木二郎,test2@example.com,password2\n");
+        UserDataAccess dataAccess = new UserDataAccess(csv.toString());
+
+        assertThat(dataAccess.findAll()).extracting(User::getCode).containsExactly(2);
+        assertThat(dataAccess.findByCode(2).getName()).isEqualTo("鈴木二郎");
+        assertThat(dataAccess.findByEmailAndPassword("bad@example.com", "password1")).isNull();
+    }
+
+    @Test
+    public void testInterruptedReadThrowsInsteadOfReturningPartialList() {
+        Thread.currentThread().interrupt();
+        try {
+            // 途中までの結果を全件として返さない
+            assertThatThrownBy(userDataAccess::findAll).isInstanceOf(CancellationException.class);
+        } finally {
+            Thread.interrupted();
+        }
+        assertThat(userDataAccess.findAll()).hasSize(2);
+    }
 }
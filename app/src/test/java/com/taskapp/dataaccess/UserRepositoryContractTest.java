@@ -0,0 +1,68 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import com.taskapp.model.User;
+
+/**
+ * {@link UserRepository}の実装が、保存先によらず同じように振る舞うことを確かめます。
+ */
+public class UserRepositoryContractTest {
+    @TempDir
+    Path dir;
+
+    private DataAccessFactory factory;
+
+    private UserRepository open(DataAccessFactory.Engine engine) throws IOException, SQLException {
+        factory = CsvTestFixture.copyTo(dir).openFactory(engine, DataAccessFactory.LogFormat.CSV);
+        return factory.getUserRepository();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (factory != null) {
+            factory.close();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(DataAccessFactory.Engine.class)
+    public void testFindAll(DataAccessFactory.Engine engine) throws IOException, SQLException {
+        UserRepository userRepository = open(engine);
+
+        assertThat(userRepository.findAll()).extracting(User::getCode).containsExactlyInAnyOrder(1, 2);
+    }
+
+    @ParameterizedTest
+    @EnumSource(DataAccessFactory.Engine.class)
+    public void testFindByCode(DataAccessFactory.Engine engine) throws IOException, SQLException {
+        UserRepository userRepository = open(engine);
+
+        User user = userRepository.findByCode(2);
+
+        assertThat(user.getName()).isEqualTo("鈴木二郎");
+        assertThat(user.getEmail()).isEqualTo("test2@example.com");
+        assertThat(userRepository.findByCode(99)).isNull();
+        assertThat(userRepository.findProfileByCode(2).getPassword()).isNull();
+        assertThat(userRepository.findProfileByCode(99)).isNull();
+    }
+
+    @ParameterizedTest
+    @EnumSource(DataAccessFactory.Engine.class)
+    public void testFindByEmailAndPassword(DataAccessFactory.Engine engine) throws IOException, SQLException {
+        UserRepository userRepository = open(engine);
+
+        assertThat(userRepository.findByEmailAndPassword("test1@example.com", "password1").getCode()).isEqualTo(1);
+        assertThat(userRepository.findByEmailAndPassword("test1@example.com", "password2")).isNull();
+        assertThat(userRepository.findByEmailAndPassword("nobody@example.com", "password1")).isNull();
+    }
+}
@@ -0,0 +1,102 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class WriteBehindTaskDataAccessTest {
+    private final User user = new User(1, "John", "john@example.com", "password");
+
+    /** 保存先への書き込みを記録するリポジトリ */
+    private final List<List<Integer>> writes = new ArrayList<>();
+
+    private InMemoryTaskDataAccess delegate;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = new InMemoryTaskDataAccess(List.of(new Task(1, "taskA", 0, user), new Task(2, "taskB", 0, user))) {
+            @Override
+            public void updateAll(Collection<Task> updateTasks) {
+                synchronized (writes) {
+                    writes.add(updateTasks.stream().map(Task::getCode).toList());
+                }
+                super.updateAll(updateTasks);
+            }
+        };
+    }
+
+    @Test
+    public void testCoalesceUpdates() {
+        try (WriteBehindTaskDataAccess taskDataAccess = new WriteBehindTaskDataAccess(delegate, Duration.ofHours(1))) {
+            taskDataAccess.update(new Task(1, "taskA", 1, user));
+            taskDataAccess.update(new Task(1, "taskA", 2, user));
+            taskDataAccess.update(new Task(2, "taskB", 1, user));
+
+            // 書き込む前でも、溜めている更新が読める
+            assertThat(taskDataAccess.findByCode(1).getStatus()).isEqualTo(2);
+            assertThat(taskDataAccess.findAll()).extracting(Task::getStatus).containsExactly(2, 1);
+            assertThat(taskDataAccess.findAllAsTable().countByStatus()).containsExactly(0, 1, 1);
+            assertThat(delegate.findByCode(1).getStatus()).isZero();
+            assertThat(writes).isEmpty();
+
+            taskDataAccess.flush();
+
+            assertThat(writes).containsExactly(List.of(1, 2));
+            assertThat(delegate.findByCode(1).getStatus()).isEqualTo(2);
+            assertThat(taskDataAccess.getUpdateCount()).isEqualTo(3);
+            assertThat(taskDataAccess.getFlushCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testFlushAfterDelay() throws InterruptedException {
+        try (WriteBehindTaskDataAccess taskDataAccess = new WriteBehindTaskDataAccess(delegate,
+                Duration.ofMillis(50))) {
+            taskDataAccess.update(new Task(1, "taskA", 1, user));
+            taskDataAccess.update(new Task(1, "taskA", 2, user));
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (taskDataAccess.getFlushCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertThat(writes).containsExactly(List.of(1));
+            assertThat(delegate.findByCode(1).getStatus()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void testIndexedSearchFlushesFirst() {
+        try (WriteBehindTaskDataAccess taskDataAccess = new WriteBehindTaskDataAccess(delegate, Duration.ofHours(1))) {
+            taskDataAccess.update(new Task(2, "議事録", 0, user));
+
+            assertThat(taskDataAccess.searchByName("議事録", 10)).extracting(Task::getCode).containsExactly(2);
+            assertThat(writes).hasSize(1);
+        }
+    }
+
+    @Test
+    public void testCloseFlushes() {
+        WriteBehindTaskDataAccess taskDataAccess = new WriteBehindTaskDataAccess(delegate, Duration.ofHours(1));
+        taskDataAccess.update(new Task(1, "taskA", 1, user));
+        taskDataAccess.save(new Task(3, "taskC", 0, user));
+
+        taskDataAccess.close();
+
+        assertThat(delegate.findByCode(1).getStatus()).isEqualTo(1);
+        assertThat(delegate.findByCode(3)).isNotNull();
+        // 終了後の更新はそのまま書き込む
+        taskDataAccess.update(new Task(2, "taskB", 2, user));
+        assertThat(delegate.findByCode(2).getStatus()).isEqualTo(2);
+        assertThat(writes).containsExactly(List.of(1), List.of(2));
+    }
+}
@@ -0,0 +1,106 @@
+package com.taskapp.logic;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.model.User;
+
+public class SessionManagerTest {
+    private final AtomicLong now = new AtomicLong();
+
+    private final SessionManager sessionManager = new SessionManager(Duration.ofNanos(100), 2, now::get);
+
+    @Test
+    public void testResolve() {
+        String token = sessionManager.create(new User(1, "John", "john@example.com", "password"));
+
+        User user = sessionManager.resolve(token);
+        assertThat(user.getCode()).isEqualTo(1);
+        // セッションのユーザーはパスワードを持たない
+        assertThat(user.getPassword()).isNull();
+        assertThat(sessionManager.resolve("unknown")).isNull();
+
+        sessionManager.invalidate(token);
+        assertThat(sessionManager.resolve(token)).isNull();
+    }
+
+    @Test
+    public void testIdleTimeout() {
+        String token = sessionManager.create(new User(1, "John", "john@example.com", "password"));
+
+        // 利用するたびに有効期間が延びる
+        now.set(80);
+        assertThat(sessionManager.resolve(token)).isNotNull();
+        now.set(160);
+        assertThat(sessionManager.resolve(token)).isNotNull();
+
+        now.set(261);
+        assertThat(sessionManager.resolve(token)).isNull();
+        assertThat(sessionManager.size()).isZero();
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() {
+        String first = sessionManager.create(new User(1, "John", "john@example.com", "password"));
+        now.set(10);
+        String second = sessionManager.create(new User(2, "Alice", "alice@example.com", "password"));
+        now.set(20);
+        sessionManager.resolve(first);
+
+        // 上限に達したら最も長く使われていないセッションを捨てる
+        String third = sessionManager.create(new User(3, "Bob", "bob@example.com", "password"));
+
+        assertThat(sessionManager.size()).isEqualTo(2);
+        assertThat(sessionManager.resolve(first)).isNotNull();
+        assertThat(sessionManager.resolve(second)).isNull();
+        assertThat(sessionManager.resolve(third)).isNotNull();
+    }
+
+    @Test
+    public void testEvictExpired() {
+        sessionManager.create(new User(1, "John", "john@example.com", "password"));
+        now.set(50);
+        String second = sessionManager.create(new User(2, "Alice", "alice@example.com", "password"));
+
+        now.set(120);
+        assertThat(sessionManager.evictExpired()).isEqualTo(1);
+        assertThat(sessionManager.resolve(second)).isNotNull();
+    }
+
+    @Test
+    public void testConcurrentCreateNeverExceedsLimit() throws Exception {
+        SessionManager limited = new SessionManager(Duration.ofHours(1), 10, now::get);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                tasks.add(() -> {
+                    int maxSize = 0;
+                    for (int i = 0; i < 1000; i++) {
+                        limited.create(new User(thread * 1000 + i, "John", "john@example.com", "password"));
+                        maxSize = Math.max(maxSize, limited.size());
+                    }
+                    return maxSize;
+                });
+            }
+            // 同時に作成しても、上限を超えたセッションが残ることはない
+            for (Future<Integer> future : executor.invokeAll(tasks)) {
+                assertThat(future.get()).isLessThanOrEqualTo(10);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(limited.size()).isEqualTo(10);
+    }
+}
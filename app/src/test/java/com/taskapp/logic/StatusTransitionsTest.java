@@ -0,0 +1,69 @@
+package com.taskapp.logic;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.dataaccess.InMemoryLogDataAccess;
+import com.taskapp.dataaccess.InMemoryTaskDataAccess;
+import com.taskapp.dataaccess.InMemoryUserDataAccess;
+import com.taskapp.exception.AppException;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class StatusTransitionsTest {
+
+    @Test
+    public void testDefaults() {
+        StatusTransitions transitions = StatusTransitions.defaults();
+
+        assertThat(transitions.isAllowed(0, 1)).isTrue();
+        assertThat(transitions.isAllowed(1, 2)).isTrue();
+        assertThat(transitions.isAllowed(0, 2)).isFalse();
+        assertThat(transitions.isAllowed(2, 1)).isFalse();
+        assertThat(transitions.isAllowed(2, 3)).isFalse();
+        assertThatThrownBy(() -> transitions.validate(0, 2))
+                .isInstanceOf(AppException.class)
+                .hasMessage("ステータスは、前のステータスより1つ先のもののみを選択してください");
+    }
+
+    @Test
+    public void testCustomTransitions() throws AppException {
+        // 未着手から直接完了にでき、完了から着手中に戻せる
+        StatusTransitions transitions = new StatusTransitions("0>1, 1>2, 0>2, 2>1");
+
+        transitions.validate(0, 2);
+        transitions.validate(2, 1);
+        assertThatThrownBy(() -> transitions.validate(1, 0))
+                .isInstanceOf(AppException.class)
+                .hasMessage("ステータスを着手中から未着手に変更することはできません");
+        assertThatThrownBy(() -> new StatusTransitions("0>3")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new StatusTransitions("0-1")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testChangeStatusAll() throws AppException {
+        User john = new User(1, "John", "john@example.com", "");
+        User alice = new User(2, "Alice", "alice@example.com", "");
+        InMemoryTaskDataAccess taskDataAccess = new InMemoryTaskDataAccess(List.of(
+                new Task(1, "Task 1", 1, john),
+                new Task(2, "Task 2", 1, alice),
+                new Task(3, "Task 3", 0, john),
+                new Task(4, "Task 4", 1, john)));
+        InMemoryLogDataAccess logDataAccess = new InMemoryLogDataAccess();
+        TaskLogic taskLogic = new TaskLogic(taskDataAccess, logDataAccess,
+                new InMemoryUserDataAccess(List.of(john, alice)));
+
+        // 自分の着手中のタスクをすべて完了にする
+        int count = taskLogic.changeStatusAll(john.getCode(), 1, 2, john);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(taskDataAccess.findAll()).extracting(Task::getStatus).containsExactly(2, 1, 0, 2);
+        assertThat(logDataAccess.findAll()).hasSize(2);
+        assertThatThrownBy(() -> taskLogic.changeStatusAll(-1, 0, 2, john))
+                .isInstanceOf(AppException.class);
+        assertThat(taskLogic.changeStatusAll(-1, 1, 2, john)).isEqualTo(1);
+    }
+}
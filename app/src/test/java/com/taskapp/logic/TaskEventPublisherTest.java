@@ -0,0 +1,177 @@
+package com.taskapp.logic;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.dataaccess.CsvTestFixture;
+import com.taskapp.dataaccess.DirectTaskChangeWriter;
+import com.taskapp.dataaccess.InMemoryLogDataAccess;
+import com.taskapp.dataaccess.InMemoryTaskDataAccess;
+import com.taskapp.dataaccess.InMemoryUserDataAccess;
+import com.taskapp.exception.AppException;
+import com.taskapp.model.Task;
+import com.taskapp.model.TaskEvent;
+import com.taskapp.model.User;
+
+public class TaskEventPublisherTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testPublishFromTaskLogic() throws AppException, InterruptedException {
+        User loginUser = new User(1, "John", "john@example.com", "password");
+        InMemoryTaskDataAccess taskDataAccess = new InMemoryTaskDataAccess();
+        InMemoryLogDataAccess logDataAccess = new InMemoryLogDataAccess();
+        TaskEventPublisher publisher = new TaskEventPublisher(ForkJoinPool.commonPool(), 16,
+                TaskEventPublisher.Backpressure.BLOCK);
+        TaskLogic taskLogic = new TaskLogic(taskDataAccess, logDataAccess,
+                new InMemoryUserDataAccess(List.of(loginUser)),
+                new DirectTaskChangeWriter(taskDataAccess, logDataAccess), publisher);
+
+        List<TaskEvent> events = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(2);
+        publisher.subscribe(new Flow.Subscriber<TaskEvent>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(TaskEvent item) {
+                events.add(item);
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        taskLogic.save(1, "Task 1", 1, loginUser);
+        taskLogic.changeStatus(1, 1, loginUser);
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(events.get(0).getType()).isEqualTo(TaskEvent.Type.CREATED);
+        assertThat(events.get(0).getTask().getStatus()).isEqualTo(0);
+        assertThat(events.get(1).getType()).isEqualTo(TaskEvent.Type.STATUS_CHANGED);
+        assertThat(events.get(1).getPreviousStatus()).isEqualTo(0);
+        assertThat(events.get(1).getTask().getStatus()).isEqualTo(1);
+        publisher.close();
+    }
+
+    @Test
+    public void testDropWhenSubscriberIsSlow() {
+        TaskEventPublisher publisher = new TaskEventPublisher(ForkJoinPool.commonPool(), 2,
+                TaskEventPublisher.Backpressure.DROP);
+        // 1件も要求しない購読者
+        publisher.subscribe(new Flow.Subscriber<TaskEvent>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+            }
+
+            @Override
+            public void onNext(TaskEvent item) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        User user = new User(1, "John", "john@example.com", null);
+        for (int i = 0; i < 10; i++) {
+            publisher.publish(new TaskEvent(TaskEvent.Type.CREATED, new Task(i, "Task", 0, user), -1, 1,
+                    LocalDate.now()));
+        }
+
+        assertThat(publisher.getDroppedCount()).isPositive();
+        publisher.close();
+    }
+
+    @Test
+    public void testNoEventWhenWriteFails() throws IOException, AppException, InterruptedException {
+        CsvTestFixture fixture = CsvTestFixture.copyTo(dir);
+        User loginUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+        TaskEventPublisher publisher = new TaskEventPublisher(ForkJoinPool.commonPool(), 16,
+                TaskEventPublisher.Backpressure.BLOCK);
+        TaskLogic taskLogic = new TaskLogic(fixture.getTaskDataAccess(), fixture.getLogDataAccess(),
+                fixture.getUserDataAccess(),
+                new DirectTaskChangeWriter(fixture.getTaskDataAccess(), fixture.getLogDataAccess()), publisher);
+        List<TaskEvent> events = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        publisher.subscribe(new Flow.Subscriber<TaskEvent>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(TaskEvent item) {
+                events.add(item);
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        // 一時ファイルの場所にディレクトリがあると、tasks.csvを書き換えられない
+        Path tmp = Files.createDirectory(dir.resolve("tasks.csv.tmp"));
+        Files.writeString(tmp.resolve("busy"), "");
+        assertThatThrownBy(() -> taskLogic.changeStatus(2, 1, loginUser)).isInstanceOf(AppException.class);
+
+        // 書き込めた変更だけが通知される
+        taskLogic.save(5, "taskE", 1, loginUser);
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        publisher.close();
+        assertThat(events).extracting(TaskEvent::getType).containsExactly(TaskEvent.Type.CREATED);
+    }
+
+    @Test
+    public void testStatusCounter() throws InterruptedException {
+        TaskEventPublisher publisher = new TaskEventPublisher(ForkJoinPool.commonPool(), 16,
+                TaskEventPublisher.Backpressure.BLOCK);
+        TaskStatusCounter counter = new TaskStatusCounter(new int[] { 2, 1, 1 });
+        publisher.subscribe(counter);
+
+        User user = new User(1, "John", "john@example.com", null);
+        LocalDate date = LocalDate.now();
+        publisher.publish(new TaskEvent(TaskEvent.Type.CREATED, new Task(5, "Task", 0, user), -1, 1, date));
+        publisher.publish(new TaskEvent(TaskEvent.Type.STATUS_CHANGED, new Task(2, "Task", 1, user), 0, 1, date));
+        publisher.publish(new TaskEvent(TaskEvent.Type.STATUS_CHANGED, new Task(3, "Task", 2, user), 1, 1, date));
+        publisher.close();
+
+        // 通知を受け取るまで待つ
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (counter.getCounts()[2] != 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(counter.getCounts()).containsExactly(2, 1, 2);
+    }
+}
@@ -0,0 +1,103 @@
+package com.taskapp.logic;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.dataaccess.InMemoryUserDataAccess;
+import com.taskapp.dataaccess.TaskTable;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class TaskListRendererTest {
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+
+    private final User loginUser = new User(1, "John", "", "");
+    private final User alice = new User(2, "Alice", "", "");
+    private final List<Task> tasks = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        System.setOut(new PrintStream(outContent, true, StandardCharsets.UTF_8));
+        tasks.add(new Task(1, "Task 1", 0, alice));
+        tasks.add(new Task(2, "Task 2", 1, loginUser));
+        tasks.add(new Task(3, "Task 3", 2, alice));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    public void testRender() {
+        new TaskListRenderer().render(tasks, loginUser);
+
+        assertThat(output()).isEqualTo(lines(
+                "1. タスク名：Task 1, 担当者名：Aliceが担当しています, ステータス：未着手",
+                "2. タスク名：Task 2, 担当者名：あなたが担当しています, ステータス：着手中",
+                "3. タスク名：Task 3, 担当者名：Aliceが担当しています, ステータス：完了"));
+    }
+
+    @Test
+    public void testRenderTableMatchesList() {
+        new TaskListRenderer().render(tasks, loginUser);
+        String fromList = output();
+        outContent.reset();
+
+        new TaskListRenderer().render(TaskTable.of(tasks), loginUser,
+                new InMemoryUserDataAccess(List.of(loginUser, alice)));
+
+        assertThat(output()).isEqualTo(fromList);
+    }
+
+    @Test
+    public void testPaging() {
+        BufferedReader pager = new BufferedReader(new StringReader("q\n"));
+
+        new TaskListRenderer(2, pager).render(tasks, loginUser);
+
+        // 2行表示したところで入力を待ち、qで終了する
+        assertThat(output()).startsWith("1. タスク名：Task 1")
+                .contains("2. タスク名：Task 2")
+                .contains("-- 続きを表示するにはEnterキーを")
+                .doesNotContain("3. タスク名：Task 3");
+    }
+
+    @Test
+    public void testPagingThroughPageInputAfterStart() {
+        List<String> calls = new ArrayList<>();
+
+        new TaskListRenderer(2, () -> {
+            calls.add("read");
+            return "q";
+        }, () -> calls.add("start:" + output().length())).render(tasks, loginUser);
+
+        // 何も出力する前に開始を通知し、ページ送りの入力は指定した方法で読み込む
+        assertThat(calls).containsExactly("start:0", "read");
+        assertThat(output()).contains("2. タスク名：Task 2").doesNotContain("3. タスク名：Task 3");
+    }
+
+    private String output() {
+        return outContent.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String lines(String... lines) {
+        StringBuilder builder = new StringBuilder();
+        for (String line : lines) {
+            builder.append(line).append(System.lineSeparator());
+        }
+        return builder.toString();
+    }
+}
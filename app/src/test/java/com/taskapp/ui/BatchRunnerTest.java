@@ -0,0 +1,91 @@
+package com.taskapp.ui;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.dataaccess.InMemoryLogDataAccess;
+import com.taskapp.dataaccess.InMemoryTaskDataAccess;
+import com.taskapp.dataaccess.InMemoryUserDataAccess;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.logic.UserLogic;
+import com.taskapp.model.User;
+
+public class BatchRunnerTest {
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+
+    private InMemoryUserDataAccess userDataAccess;
+    private InMemoryTaskDataAccess taskDataAccess;
+    private InMemoryLogDataAccess logDataAccess;
+
+    @BeforeEach
+    public void setUp() {
+        System.setOut(new PrintStream(outContent, true, StandardCharsets.UTF_8));
+        userDataAccess = new InMemoryUserDataAccess(List.of(
+                new User(1, "John", "john@example.com", "password"),
+                new User(2, "Alice", "alice@example.com", "password")));
+        taskDataAccess = new InMemoryTaskDataAccess();
+        logDataAccess = new InMemoryLogDataAccess();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    public void testRun() throws IOException {
+        String script = String.join("\n",
+                "# コメント",
+                "add 1 1 Task 1",
+                "login john@example.com password",
+                "add 1 2 Task 1",
+                "add 2 1 Task 2",
+                "change-status 1 1",
+                "change-status 1 2",
+                "change-status 2 2",
+                "list status=2 rep=2",
+                "unknown");
+
+        int errors = run(script);
+
+        // ログイン前のadd、1つ飛ばしのステータス変更、不明なコマンドがエラーになる
+        assertThat(errors).isEqualTo(3);
+        assertThat(taskDataAccess.findByCode(1).getStatus()).isEqualTo(2);
+        assertThat(taskDataAccess.findByCode(2).getStatus()).isEqualTo(0);
+        assertThat(logDataAccess.findAll()).hasSize(4);
+
+        String output = outContent.toString(StandardCharsets.UTF_8);
+        assertThat(output).contains("2行目：先にloginコマンドでログインしてください",
+                "1. タスク名：Task 1, 担当者名：Aliceが担当しています, ステータス：完了",
+                "不明なコマンドです：unknown",
+                "6件のコマンドを実行しました。");
+        assertThat(output).doesNotContain("タスク名：Task 2");
+    }
+
+    @Test
+    public void testDuplicateCode() throws IOException {
+        int errors = run("login john@example.com password\nadd 1 1 Task 1\nadd 1 1 Task 1\n");
+
+        assertThat(errors).isEqualTo(1);
+        assertThat(taskDataAccess.findAll()).hasSize(1);
+    }
+
+    private int run(String script) throws IOException {
+        TaskLogic taskLogic = new TaskLogic(taskDataAccess, logDataAccess, userDataAccess);
+        BatchRunner runner = new BatchRunner(new BufferedReader(new StringReader(script)),
+                new UserLogic(userDataAccess), taskLogic);
+        return runner.run();
+    }
+}
@@ -6,6 +6,9 @@ import static org.mockito.Mockito.*;
 import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -118,6 +121,68 @@ public class TaskUITest {
         assertThat(outContent.toString()).contains(expectedMessage);
     }
 
+    @Test
+    public void testRunLongOperationCancel() throws Exception {
+        // 完了を待たずに進捗を表示し、中止の入力をすぐに受け付ける
+        taskUI.setWaitMillis(0, TimeUnit.MINUTES.toMillis(1));
+        when(reader.readLine()).thenReturn("c");
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        boolean completed = taskUI.runLongOperation("集計", () -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.onSpinWait();
+            }
+            interrupted.set(true);
+        });
+
+        assertThat(completed).isFalse();
+        assertThat(interrupted).isTrue();
+        assertThat(outContent.toString()).contains("集計を実行しています。", "集計を中止しました。");
+    }
+
+    @Test
+    public void testRunLongOperationQuick() throws Exception {
+        assertThat(taskUI.runLongOperation("集計", () -> { })).isTrue();
+
+        // すぐに終わる処理では入力を待たず、何も表示しない
+        verify(reader, never()).readLine();
+        assertThat(outContent.toString()).isEmpty();
+    }
+
+    @Test
+    public void testRunLongOperationLeavesInputAfterOutputStarts() throws Exception {
+        taskUI.setWaitMillis(0, TimeUnit.MINUTES.toMillis(1));
+        CountDownLatch polling = new CountDownLatch(1);
+        CountDownLatch outputStarted = new CountDownLatch(1);
+        // 入力は、処理が出力を始めた後に届く
+        when(reader.readLine()).thenAnswer(invocation -> {
+            polling.countDown();
+            outputStarted.await();
+            return "taskA";
+        });
+
+        boolean completed = taskUI.runLongOperation("集計", onOutputStart -> {
+            try {
+                // 進捗の表示と入力の待ち受けが始まってから出力を始める
+                polling.await();
+                onOutputStart.run();
+                outputStarted.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertThat(completed).isTrue();
+        assertThat(outContent.toString()).contains("集計を実行しています。").doesNotContain("秒経過");
+
+        // 出力が始まった後の入力は読み捨てず、次の読み込みで受け取る
+        // （検索は進捗を表示する前に終わらせ、入力を読み込まないようにする）
+        taskUI.setWaitMillis(TimeUnit.MINUTES.toMillis(1), TimeUnit.MINUTES.toMillis(1));
+        taskUI.inputSearchQuery();
+        verify(taskLogic, timeout(1000)).showSearchResult(eq("taskA"), any(), any());
+        verify(reader, times(1)).readLine();
+    }
+
     @Test
     public void testIsNumeric() {
         assertThat(taskUI.isNumeric("123")).isTrue();